@@ -0,0 +1,236 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.io.MaxoDxAnnots;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoader;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
+import org.monarchinitiative.phenol.io.OntologyLoader;
+import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Lazily-loaded fixtures for the benchmarks.
+ * <p>
+ * The fixtures are loaded from the gzipped HPO, HPO annotations, and MAxO annotations used by the tests
+ * of the core module. The folder is set by the {@code maxodiff.benchmarks.resources} system property
+ * and defaults to {@code maxodiff-core/src/test/resources}, hence the benchmarks run offline from the repository root.
+ */
+public class BenchmarkResources {
+
+    public static final Path RESOURCES = Path.of(System.getProperty("maxodiff.benchmarks.resources", "maxodiff-core/src/test/resources"));
+    private static final Path HPO_PATH = RESOURCES.resolve("hp.v2024-04-26.json.gz");
+    private static final Path ANNOTATION_PATH = RESOURCES.resolve("phenotype.v2024-01-16.hpoa.gz");
+    private static final Path MAXO_DIAGNOSTIC_ANNOTATIONS_PATH = RESOURCES.resolve("maxo_diagnostic_annotations.v2023-06-11.tsv.gz");
+
+    private static volatile Ontology ONTOLOGY;
+    private static volatile HpoDiseases HPO_DISEASES;
+    private static volatile Map<SimpleTerm, Set<SimpleTerm>> HPO_2_MAXO;
+    private static volatile Map<TermPair, Double> IC_MICA_DICT;
+
+    private BenchmarkResources() {
+    }
+
+    public static Ontology hpo() {
+        if (ONTOLOGY == null) {
+            synchronized (BenchmarkResources.class) {
+                if (ONTOLOGY == null) {
+                    try (InputStream is = new GZIPInputStream(Files.newInputStream(HPO_PATH))) {
+                        ONTOLOGY = OntologyLoader.loadOntology(is);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+        return ONTOLOGY;
+    }
+
+    /**
+     * @return the {@link #hpo()}, the HPO is parsed only once.
+     */
+    public static MinimalOntology minHpo() {
+        return hpo();
+    }
+
+    public static HpoDiseases hpoDiseases() {
+        if (HPO_DISEASES == null) {
+            synchronized (BenchmarkResources.class) {
+                if (HPO_DISEASES == null) {
+                    try {
+                        HpoDiseaseLoaderOptions options = HpoDiseaseLoaderOptions.of(Set.of(DiseaseDatabase.OMIM), true, HpoDiseaseLoaderOptions.DEFAULT_COHORT_SIZE);
+                        HpoDiseaseLoader loader = HpoDiseaseLoaders.defaultLoader(hpo(), options);
+                        // The annotations are older than the ontology and include obsolete terms missing from the ontology graph.
+                        List<HpoDisease> diseases = loader.load(ANNOTATION_PATH).stream()
+                                .map(disease -> HpoDisease.of(disease.id(),
+                                        disease.diseaseName(),
+                                        disease.diseaseOnset().orElse(null),
+                                        disease.annotationStream()
+                                                .filter(annotation -> isCurrent(annotation.id()))
+                                                .toList(),
+                                        disease.modesOfInheritance()))
+                                .toList();
+                        HPO_DISEASES = HpoDiseases.of(diseases);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+        return HPO_DISEASES;
+    }
+
+    public static Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxo() {
+        if (HPO_2_MAXO == null) {
+            synchronized (BenchmarkResources.class) {
+                if (HPO_2_MAXO == null) {
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(MAXO_DIAGNOSTIC_ANNOTATIONS_PATH))))) {
+                        // The annotations include obsolete terms missing from the ontology graph.
+                        Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxo = new HashMap<>(MaxoDxAnnots.parseHpoToMaxo(reader));
+                        hpoToMaxo.keySet().removeIf(hpoTerm -> !isCurrent(hpoTerm.tid()));
+                        HPO_2_MAXO = hpoToMaxo;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+        return HPO_2_MAXO;
+    }
+
+    /**
+     * Get the IC<sub>MICA</sub> of the pairs of the sample terms and the present annotations of the example diseases.
+     * <p>
+     * Precomputing all HPO term pairs takes too long for a benchmark setup, hence the dictionary is limited
+     * to the terms that the Phenomizer analysis of the {@link #exampleSample()} and its MAxO refinement actually score.
+     */
+    public static Map<TermPair, Double> icMicaDict() {
+        if (IC_MICA_DICT == null) {
+            synchronized (BenchmarkResources.class) {
+                if (IC_MICA_DICT == null)
+                    IC_MICA_DICT = computeIcMicaDict();
+            }
+        }
+        return IC_MICA_DICT;
+    }
+
+    private static Map<TermPair, Double> computeIcMicaDict() {
+        MinimalOntology hpo = minHpo();
+        HpoDiseases diseases = hpoDiseases();
+
+        // The information content of a term is -ln of the fraction of the diseases annotated with the term or its descendants.
+        Map<TermId, Integer> counts = new HashMap<>();
+        for (HpoDisease disease : diseases) {
+            Set<TermId> induced = new HashSet<>();
+            disease.presentAnnotationsStream()
+                    .map(HpoDiseaseAnnotation::id)
+                    .forEach(termId -> hpo.graph().extendWithAncestors(termId, true, induced));
+            for (TermId termId : induced) {
+                counts.merge(termId, 1, Integer::sum);
+            }
+        }
+        double nDiseases = diseases.size();
+
+        Set<TermId> terms = new HashSet<>(exampleSample().presentHpoTermIds());
+        for (DifferentialDiagnosis dd : exampleDiagnoses()) {
+            diseases.diseaseById(dd.diseaseId())
+                    .ifPresent(disease -> disease.presentAnnotationsStream()
+                            .map(HpoDiseaseAnnotation::id)
+                            .forEach(terms::add));
+        }
+
+        Map<TermId, Set<TermId>> ancestors = new HashMap<>();
+        for (TermId termId : terms) {
+            if (isCurrent(termId))
+                ancestors.put(termId, Set.copyOf(hpo.graph().extendWithAncestors(termId, true)));
+        }
+
+        List<TermId> termList = List.copyOf(ancestors.keySet());
+        Map<TermPair, Double> icMicaDict = new HashMap<>();
+        for (int i = 0; i < termList.size(); i++) {
+            Set<TermId> ancestorsA = ancestors.get(termList.get(i));
+            for (int j = i; j < termList.size(); j++) {
+                double icMica = 0.;
+                for (TermId ancestor : ancestors.get(termList.get(j))) {
+                    Integer count = counts.get(ancestor);
+                    if (count != null && ancestorsA.contains(ancestor))
+                        icMica = Math.max(icMica, -Math.log(count / nDiseases));
+                }
+                if (icMica > 0.)
+                    icMicaDict.put(TermPair.symmetric(termList.get(i), termList.get(j)), icMica);
+            }
+        }
+        return Collections.unmodifiableMap(icMicaDict);
+    }
+
+    /**
+     * @return {@code true} if the term is the primary id of a non-obsolete term, i.e. the term is in the ontology graph.
+     */
+    private static boolean isCurrent(TermId termId) {
+        return minHpo().termForTermId(termId)
+                .filter(term -> !term.isObsolete() && term.id().equals(termId))
+                .isPresent();
+    }
+
+    public static Sample exampleSample() {
+        // Example terms from phenopacket v2 PMID_11175294-Tiecke-2001-FBN1-B15.json
+        Collection<TermId> presentTerms = List.of(
+                TermId.of("HP:0000963"),
+                TermId.of("HP:0001653"),
+                TermId.of("HP:0000545"),
+                TermId.of("HP:0000098"),
+                TermId.of("HP:0004325"),
+                TermId.of("HP:0002751"),
+                TermId.of("HP:0002650"),
+                TermId.of("HP:0002616"),
+                TermId.of("HP:0000767"),
+                TermId.of("HP:0012019"),
+                TermId.of("HP:0001166")
+        );
+        return Sample.of("B15", presentTerms, List.of());
+    }
+
+    public static List<DifferentialDiagnosis> exampleDiagnoses() {
+        // Top 20 diagnoses from LIRICAL analysis of phenopacket v2 PMID_11175294-Tiecke-2001-FBN1-B15.json
+        return List.of(
+                DifferentialDiagnosis.of(TermId.of("OMIM:154700"), 1.0, 12.966),
+                DifferentialDiagnosis.of(TermId.of("OMIM:616914"), 1.000, 10.165),
+                DifferentialDiagnosis.of(TermId.of("OMIM:236200"), 1.000, 9.804),
+                DifferentialDiagnosis.of(TermId.of("OMIM:609008"), 1.000, 8.548),
+                DifferentialDiagnosis.of(TermId.of("OMIM:615582"), 1.000, 8.452),
+                DifferentialDiagnosis.of(TermId.of("OMIM:121050"), 0.987, 5.977),
+                DifferentialDiagnosis.of(TermId.of("OMIM:614816"), 0.868, 4.914),
+                DifferentialDiagnosis.of(TermId.of("OMIM:617506"), 0.796, 4.687),
+                DifferentialDiagnosis.of(TermId.of("OMIM:219150"), 0.767, 4.614),
+                DifferentialDiagnosis.of(TermId.of("OMIM:608328"), 0.756, 4.587),
+                DifferentialDiagnosis.of(TermId.of("OMIM:610443"), 0.580, 4.235),
+                DifferentialDiagnosis.of(TermId.of("OMIM:277600"), 0.352, 3.831),
+                DifferentialDiagnosis.of(TermId.of("OMIM:271640"), 0.282, 3.689),
+                DifferentialDiagnosis.of(TermId.of("OMIM:602535"), 0.216, 3.537),
+                DifferentialDiagnosis.of(TermId.of("OMIM:619472"), 0.199, 3.492),
+                DifferentialDiagnosis.of(TermId.of("OMIM:225400"), 0.125, 3.250),
+                DifferentialDiagnosis.of(TermId.of("OMIM:601776"), 0.070, 2.970),
+                DifferentialDiagnosis.of(TermId.of("OMIM:617602"), 0.061, 2.912),
+                DifferentialDiagnosis.of(TermId.of("OMIM:163950"), 0.025, 2.505),
+                DifferentialDiagnosis.of(TermId.of("OMIM:208050"), 0.009, 2.064)
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.core.analysis.MaxoDDResults;
+import org.monarchinitiative.maxodiff.core.model.CandidateDiseaseScores;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark a single repetition of the MAxO term evaluation,
+ * {@link CandidateDiseaseScores#getScoresForMaxoTerm(org.monarchinitiative.maxodiff.core.model.SampleAnalysisContext, TermId, org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine, org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline)},
+ * with and without the baseline differential diagnosis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateDiseaseScoresBenchmark {
+
+    // MRI of the chest
+    @Param({"MAXO:0000428"})
+    public String maxoId;
+
+    private TermId maxoTermId;
+    private CandidateDiseaseScores candidateDiseaseScores;
+
+    @Setup(Level.Trial)
+    public void setUp(RefinementState state) {
+        maxoTermId = TermId.of(maxoId);
+        candidateDiseaseScores = new CandidateDiseaseScores(state.maxoHpoTermProbabilities, state.minHpo, state.hpo);
+    }
+
+    @Benchmark
+    public MaxoDDResults getScoresForMaxoTerm(RefinementState state) {
+        return candidateDiseaseScores.getScoresForMaxoTerm(state.context, maxoTermId, state.engine, null);
+    }
+
+    @Benchmark
+    public MaxoDDResults getScoresForMaxoTermIncremental(RefinementState state) {
+        return candidateDiseaseScores.getScoresForMaxoTerm(state.context, maxoTermId, state.engine, state.baseline);
+    }
+}
@@ -0,0 +1,42 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.core.analysis.EvaluateMaxoTerm;
+import org.monarchinitiative.maxodiff.core.analysis.RankMaxoScore;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark {@link EvaluateMaxoTerm#call()}, the repeated evaluation of a MAxO term.
+ * The seed is fixed, hence each invocation does the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluateMaxoTermBenchmark {
+
+    // MRI of the chest
+    @Param({"MAXO:0000428"})
+    public String maxoId;
+
+    @Param({"10"})
+    public int nRepetitions;
+
+    private EvaluateMaxoTerm evaluateMaxoTerm;
+
+    @Setup(Level.Trial)
+    public void setUp(RefinementState state) {
+        evaluateMaxoTerm = new EvaluateMaxoTerm(state.maxoHpoTermProbabilities, state.engine, state.minHpo, state.hpo,
+                state.context, state.baseline, nRepetitions, TermId.of(maxoId), RefinementOptions.DEFAULT_SEED);
+    }
+
+    @Benchmark
+    public RankMaxoScore call() throws Exception {
+        return evaluateMaxoTerm.call();
+    }
+}
@@ -0,0 +1,74 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictLoader;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictMetadata;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictWriter;
+import org.monarchinitiative.maxodiff.phenomizer.MappedIcMicaDictLoader;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmark loading the IC MICA dictionary from the gzipped CSV file by {@link IcMicaDictLoader}
+ * and from the binary file by {@link MappedIcMicaDictLoader}.
+ * <p>
+ * The files are written into a temporary folder from the benchmark IC MICA dictionary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IcMicaDictLoaderBenchmark {
+
+    private Path folder;
+    private Path csv;
+    private Path binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<TermPair, Double> icMicaDict = BenchmarkResources.icMicaDict();
+        IcMicaDictMetadata metadata = new IcMicaDictMetadata("N/A", "N/A", LocalDate.now());
+
+        folder = Files.createTempDirectory("maxodiff-benchmarks");
+        csv = folder.resolve("term-pair-similarity.csv.gz");
+        try (PrintWriter writer = new PrintWriter(new GZIPOutputStream(Files.newOutputStream(csv)), false, StandardCharsets.UTF_8)) {
+            writer.println("# Information content of the most informative common ancestor for term pairs");
+            writer.printf("# HPO=%s;HPOA=%s;CREATED=%s%n", metadata.hpoVersion(), metadata.hpoaVersion(), metadata.created());
+            writer.println("term_a,term_b,ic_mica");
+            for (Map.Entry<TermPair, Double> e : icMicaDict.entrySet()) {
+                writer.printf("%s,%s,%s%n", e.getKey().getTidA().getValue(), e.getKey().getTidB().getValue(), e.getValue());
+            }
+        }
+        binary = folder.resolve("term-pair-similarity.bin");
+        IcMicaDictWriter.writeBinary(icMicaDict, metadata, binary);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(binary);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public IcMicaData loadCsv() throws IOException {
+        return IcMicaDictLoader.loadIcMicaDict(csv);
+    }
+
+    @Benchmark
+    public IcMicaData loadBinary() throws IOException {
+        return MappedIcMicaDictLoader.loadIcMicaDict(binary);
+    }
+}
@@ -0,0 +1,54 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaLookup;
+import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark {@link PhenomizerDifferentialDiagnosisEngine#run(Sample, java.util.Collection)}
+ * on the example sample and its 20 differential diagnoses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhenomizerEngineBenchmark {
+
+    @Param({"ONE_SIDED", "TWO_SIDED"})
+    public ScoringMode scoringMode;
+
+    private PhenomizerDifferentialDiagnosisEngine engine;
+    private Sample sample;
+    private Set<TermId> diseaseIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        IcMicaLookup icMicaLookup = IcMicaLookup.of(BenchmarkResources.icMicaDict());
+        engine = new PhenomizerDifferentialDiagnosisEngine(BenchmarkResources.hpoDiseases(), icMicaLookup, scoringMode);
+        sample = BenchmarkResources.exampleSample();
+        diseaseIds = BenchmarkResources.exampleDiagnoses().stream()
+                .map(DifferentialDiagnosis::diseaseId)
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public List<DifferentialDiagnosis> runTargetDiseases() {
+        return engine.run(sample, diseaseIds);
+    }
+
+    @Benchmark
+    public List<DifferentialDiagnosis> runAllDiseases() {
+        return engine.run(sample);
+    }
+}
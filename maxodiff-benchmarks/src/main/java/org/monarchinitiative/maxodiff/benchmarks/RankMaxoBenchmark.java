@@ -0,0 +1,43 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.core.analysis.RankMaxoScore;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
+import org.monarchinitiative.maxodiff.core.model.RankMaxo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark {@link RankMaxo#rankMaxoTerms(org.monarchinitiative.maxodiff.core.model.Sample, int, java.util.Set, long)},
+ * the evaluation of all MAxO terms of the example sample.
+ * <p>
+ * {@link RankMaxo} narrows the MAxO to HPO map to the terms discoverable in the sample,
+ * the narrowing is idempotent for the same sample, hence the map is shared by the invocations.
+ * A single ranking takes tens of seconds, hence the throughput is reported per minute.
+ * The seed is fixed, hence each invocation does the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 1, time = 30)
+@Measurement(iterations = 3, time = 60)
+@Fork(1)
+public class RankMaxoBenchmark {
+
+    @Param({"1"})
+    public int nRepetitions;
+
+    private RankMaxo rankMaxo;
+
+    @Setup(Level.Trial)
+    public void setUp(RefinementState state) {
+        rankMaxo = new RankMaxo(state.hpoToMaxoTermMap, state.maxoToHpoTermIdMap, state.maxoHpoTermProbabilities,
+                state.engine, state.minHpo, state.hpo);
+    }
+
+    @Benchmark
+    public List<RankMaxoScore> rankMaxoTerms(RefinementState state) throws Exception {
+        return rankMaxo.rankMaxoTerms(state.sample, nRepetitions, state.diseaseIds, RefinementOptions.DEFAULT_SEED);
+    }
+}
@@ -0,0 +1,63 @@
+package org.monarchinitiative.maxodiff.benchmarks;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoHpoTermIdMaps;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.model.*;
+import org.monarchinitiative.maxodiff.core.term.TermDictionaries;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaLookup;
+import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
+import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The MAxO term refinement of the example sample and its 20 differential diagnoses
+ * with the Phenomizer engine.
+ */
+@State(Scope.Benchmark)
+public class RefinementState {
+
+    @Param({"ONE_SIDED"})
+    public ScoringMode scoringMode;
+
+    Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap;
+    Map<TermId, Set<TermId>> maxoToHpoTermIdMap;
+    MaxoHpoTermProbabilities maxoHpoTermProbabilities;
+    DifferentialDiagnosisEngine engine;
+    MinimalOntology minHpo;
+    Ontology hpo;
+    Sample sample;
+    Set<TermId> diseaseIds;
+    SampleAnalysisContext context;
+    DifferentialDiagnosisBaseline baseline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hpoToMaxoTermMap = BenchmarkResources.hpoToMaxo();
+        maxoToHpoTermIdMap = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap);
+        List<DifferentialDiagnosis> initialDiagnoses = BenchmarkResources.exampleDiagnoses();
+        minHpo = BenchmarkResources.minHpo();
+        // The dictionaries are built with the HPO, hence the HPO closure is precomputed like in the applications.
+        maxoHpoTermProbabilities = new MaxoHpoTermProbabilities(BenchmarkResources.hpoDiseases(), hpoToMaxoTermMap,
+                initialDiagnoses, DiseaseModelProbability.ranked(initialDiagnoses),
+                TermDictionaries.of(minHpo, BenchmarkResources.hpoDiseases(), hpoToMaxoTermMap));
+        engine = new PhenomizerDifferentialDiagnosisEngine(BenchmarkResources.hpoDiseases(),
+                IcMicaLookup.of(BenchmarkResources.icMicaDict()), scoringMode);
+        hpo = BenchmarkResources.hpo();
+        sample = BenchmarkResources.exampleSample();
+        diseaseIds = initialDiagnoses.stream()
+                .map(DifferentialDiagnosis::diseaseId)
+                .collect(Collectors.toSet());
+        context = SampleAnalysisContext.of(sample, maxoHpoTermProbabilities, hpoToMaxoTermMap, diseaseIds);
+        baseline = engine.baseline(sample, diseaseIds);
+    }
+}
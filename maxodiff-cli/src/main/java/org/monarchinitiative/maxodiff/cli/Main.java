@@ -20,6 +20,7 @@ public class Main implements Callable<Integer> {
                 .addSubcommand("batch", new BatchDiagnosisCommand())
                 .addSubcommand("benchmark", new BenchmarkCommand())
                 .addSubcommand("precompute-resnik", new PrecomputeResnikMapCommand())
+                .addSubcommand("snapshot", new SnapshotCommand())
                 ;
         cline.setToggleBooleanFlags(false);
         int exitCode = cline.execute(args);
@@ -2,8 +2,9 @@ package org.monarchinitiative.maxodiff.cli.cmd;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.monarchinitiative.maxodiff.core.analysis.SampleBatchScheduler;
+import org.monarchinitiative.maxodiff.core.io.BatchJournal;
 import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
-import org.monarchinitiative.phenol.ontology.data.TermId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -23,7 +24,9 @@ import java.util.*;
         mixinStandardHelpOptions = true,
         description = "batch maxodiff analysis")
 public class BatchDiagnosisCommand extends DifferentialDiagnosisCommand {
-    private static final Logger LOGGER = LoggerFactory.getLogger(DifferentialDiagnosisCommand.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchDiagnosisCommand.class);
+    private static final List<String> HEADER = List.of("phenopacket", "disease_id", "maxo_id", "maxo_label",
+            "n_diseases", "disease_ids", "n_repetitions", "score", "partial");
 
     @CommandLine.Option(names = {"-B", "--batchDir"},
             description = "Path to directory containing phenopackets.")
@@ -42,8 +45,17 @@ public class BatchDiagnosisCommand extends DifferentialDiagnosisCommand {
             description = "Comma-separated list of n repetitions to include in differential diagnosis.")
     protected List<Integer> nRepetitionsArg;
 
-    public static Map<String, List<Object>> resultsMap;
+    @CommandLine.Option(names = {"--sampleParallelism"},
+            description = "Number of phenopackets analyzed concurrently (default: ${DEFAULT-VALUE}).")
+    protected int sampleParallelism = 2;
 
+    @CommandLine.Option(names = {"--maxInFlight"},
+            description = "Number of phenopackets analyzed or waiting to be written (default: twice the sample parallelism).")
+    protected Integer maxInFlightArg;
+
+    @CommandLine.Option(names = {"--journal"},
+            description = "Journal of the completed analyses for resuming an interrupted batch (default: maxodiff_results.csv.journal in the output directory).")
+    protected Path journalPath;
 
     @Override
     public Integer execute() throws Exception {
@@ -70,66 +82,84 @@ public class BatchDiagnosisCommand extends DifferentialDiagnosisCommand {
         Path maxodiffResultsFilePath = Path.of(String.join(File.separator, outputDir.toString(), "maxodiff_results.csv"));
 
         try (BufferedWriter writer = openOutputFileWriter(maxodiffResultsFilePath); CSVPrinter printer = CSVFormat.DEFAULT.print(writer)) {
-            printer.printRecord("phenopacket", "disease_id", "maxo_id", "maxo_label",
-                    "n_diseases", "disease_ids", "n_repetitions", "score"); // header
-
-            for (Path phenopacketPath : phenopacketPaths) {
-                for (int nDiseases : nDiseasesList) {
-                    for (int nRepetitions : nRepetitionsList) {
-                        try {
-
-                            String phenopacketFileName = phenopacketPath.toFile().getName();
-                            ScoringMode scoringMode = ScoringMode.ONE_SIDED;
-
-                            runSingleMaxodiffAnalysis(phenopacketPath, phenopacketFileName, nDiseases, nRepetitions, engineArg, scoringMode, false, printer);
-
-
-                            Map<String, List<Object>> resultsMap = getResultsMap();
-
-                            System.out.println("BatchCmd resultsMap = " + resultsMap);
-
-                            List<Object> phenopacketNames = resultsMap.get("phenopacketName");
-                            List<Object> diseaseIdList = resultsMap.get("diseaseId");
-                            List<Object> maxScoreMaxoTermIds = resultsMap.get("maxScoreMaxoTermId");
-                            List<Object> maxScoreTermLabels = resultsMap.get("maxScoreTermLabel");
-                            List<Object> topNDiseasesList = resultsMap.get("topNDiseases");
-                            List<Object> diseaseIdsList = resultsMap.get("diseaseIds");
-                            List<Object> nRepList = resultsMap.get("nRepetitions");
-                            List<Object> maxScoreValues = resultsMap.get("maxScoreValue");
-                            for (int j = 0; j < phenopacketNames.size(); j++) {
-                                String phenopacketName = phenopacketNames.get(j).toString();
-                                TermId diseaseId = TermId.of(diseaseIdList.get(j).toString());
-                                TermId maxScoreMaxoTermId = TermId.of(maxScoreMaxoTermIds.get(j).toString());
-                                String maxScoreTermLabel = maxScoreTermLabels.get(j).toString();
-                                int topNDiseases = Integer.parseInt(topNDiseasesList.get(j).toString());
-                                String diseaseIds = diseaseIdsList.get(j).toString();
-                                int nRepetitionsValue = Integer.parseInt(nRepList.get(j).toString());
-                                double maxScoreValue = Double.parseDouble(maxScoreValues.get(j).toString());
-
-                                writeResults(phenopacketName, diseaseId, maxScoreMaxoTermId, maxScoreTermLabel,
-                                        topNDiseases, diseaseIds, nRepetitionsValue, maxScoreValue, printer);
+            printer.printRecord(HEADER);
+
+            // The resources are loaded once and the initial diagnoses of a phenopacket are shared by all
+            // numbers of diseases and repetitions.
+            AnalysisResources resources = loadAnalysisResources(engineArg, ScoringMode.ONE_SIDED);
+            int maxInFlight = maxInFlightArg == null ? SampleBatchScheduler.defaultMaxInFlight(sampleParallelism) : maxInFlightArg;
+            Path journalFilePath = journalPath == null ? Path.of(maxodiffResultsFilePath + ".journal") : journalPath;
+            // The journaled rows are written as they are, hence a journal with other columns is not resumed.
+            String journalConfiguration = String.join("|", journalConfiguration(resources),
+                    "columns=" + String.join(",", HEADER));
+            try (BatchJournal journal = BatchJournal.open(journalFilePath, journalConfiguration);
+                 SampleBatchScheduler scheduler = SampleBatchScheduler.of(sampleParallelism, maxInFlight)) {
+                if (journal.completedCount() > 0)
+                    LOGGER.info("Resuming the batch with {} completed analyses from {}", journal.completedCount(), journalFilePath.toAbsolutePath());
+                scheduler.run(phenopacketPaths,
+                        phenopacketPath -> analyzePhenopacket(resources, journal, phenopacketPath, nDiseasesList, nRepetitionsList),
+                        result -> {
+                            if (!result.isSuccess()) {
+                                LOGGER.warn("Analysis of {} failed: {}", result.sample(), result.failure().getMessage(), result.failure());
+                                return;
                             }
-                        } catch (Exception ex) {
-                            System.out.println(ex.getMessage());
-                        }
-                    }
-                }
+                            for (List<String> row : result.result()) {
+                                printer.printRecord(row);
+                            }
+                            printer.flush();
+                        });
             }
         }
 
         return 0;
     }
 
-
-    protected static void setResultsMap(Map<String, List<Object>> results) {
-        resultsMap = results;
+    /**
+     * Analyze a phenopacket with all numbers of diseases and repetitions and get the result rows.
+     * The analyses completed by a previous run are taken from the {@code journal},
+     * and the phenopacket is diagnosed only if an analysis is missing.
+     */
+    private List<List<String>> analyzePhenopacket(AnalysisResources resources, BatchJournal journal, Path phenopacketPath,
+                                                  List<Integer> nDiseasesList, List<Integer> nRepetitionsList) throws Exception {
+        String phenopacketName = phenopacketPath.toFile().getName();
+        SampleDiagnoses sampleDiagnoses = null;
+
+        List<List<String>> rows = new ArrayList<>();
+        for (int nDiseases : nDiseasesList) {
+            for (int nRepetitions : nRepetitionsList) {
+                String key = BatchJournal.key(phenopacketName, nDiseases, nRepetitions);
+                Optional<List<List<String>>> completedRows = journal.completedRows(key);
+                if (completedRows.isPresent()) {
+                    rows.addAll(completedRows.get());
+                    continue;
+                }
+                if (sampleDiagnoses == null)
+                    sampleDiagnoses = diagnoseSample(resources, phenopacketPath, phenopacketName);
+                try {
+                    AnalysisResult r = runSingleMaxodiffAnalysis(resources, sampleDiagnoses, nDiseases, nRepetitions, false, null);
+                    rows.add(journalResult(journal, key, r));
+                } catch (Exception ex) {
+                    LOGGER.warn("Analysis of {} with n={} nr={} failed", phenopacketName, nDiseases, nRepetitions, ex);
+                }
+            }
+        }
+        return rows;
     }
 
-
-    protected Map<String, List<Object>> getResultsMap() {
-        return resultsMap;
+    /**
+     * Get the result row and record it in the {@code journal}, unless the result is partial.
+     * The partial results are analyzed again when the batch is resumed.
+     */
+    static List<String> journalResult(BatchJournal journal, String key, AnalysisResult r) throws IOException {
+        List<String> row = resultRow(r);
+        if (!r.partial())
+            journal.complete(key, List.of(row));
+        return row;
     }
 
-
-
+    private static List<String> resultRow(AnalysisResult r) {
+        return List.of(r.phenopacketName(), r.diseaseId().toString(), r.maxScoreMaxoTermId().toString(), r.maxScoreTermLabel(),
+                String.valueOf(r.topNDiseases()), r.diseaseIds().toString(), String.valueOf(r.nRepetitions()), String.valueOf(r.maxScoreValue()),
+                String.valueOf(r.partial()));
+    }
 }
@@ -7,36 +7,25 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.monarchinitiative.lirical.configuration.impl.BundledBackgroundVariantFrequencyServiceFactory;
-import org.monarchinitiative.lirical.core.Lirical;
 import org.monarchinitiative.lirical.core.analysis.AnalysisOptions;
 import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
-import org.monarchinitiative.lirical.core.service.PhenotypeService;
 import org.monarchinitiative.lirical.io.analysis.PhenopacketData;
-import org.monarchinitiative.maxodiff.config.MaxodiffDataResolver;
 import org.monarchinitiative.maxodiff.config.MaxodiffPropsConfiguration;
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.*;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.*;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.io.BatchJournal;
 import org.monarchinitiative.maxodiff.core.model.*;
 import org.monarchinitiative.maxodiff.html.results.HtmlResults;
 import org.monarchinitiative.maxodiff.lirical.*;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
-import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
-import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictLoader;
-import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoader;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
-import org.monarchinitiative.phenol.io.MinimalOntologyLoader;
-import org.monarchinitiative.phenol.io.OntologyLoader;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
-import org.monarchinitiative.phenol.ontology.similarity.TermPair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -48,6 +37,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
@@ -61,7 +51,7 @@ import java.util.zip.GZIPOutputStream;
         mixinStandardHelpOptions = true,
         description = "benchmark maxodiff analysis")
 public class BenchmarkCommand extends DifferentialDiagnosisCommand {
-    private static final Logger LOGGER = LoggerFactory.getLogger(DifferentialDiagnosisCommand.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkCommand.class);
 
     private static ObjectMapper OBJECT_MAPPER;
 
@@ -99,6 +89,27 @@ public class BenchmarkCommand extends DifferentialDiagnosisCommand {
     protected String removeIdsFile;
 
 
+    @CommandLine.Option(names = {"--sampleParallelism"},
+            description = "Number of phenopackets analyzed concurrently (default: ${DEFAULT-VALUE}).")
+    protected int sampleParallelism = 2;
+
+    @CommandLine.Option(names = {"--maxInFlight"},
+            description = "Number of phenopackets analyzed or waiting to be written (default: twice the sample parallelism).")
+    protected Integer maxInFlightArg;
+
+    @CommandLine.Option(names = {"--journal"},
+            description = "Journal of the completed benchmarks for resuming an interrupted run (default: the output filename with the '.journal' suffix).")
+    protected Path journalPath;
+
+    //7036 phenotypes discoverable by 257 MAxO terms
+    private static final double N_ALL_MAXO_TERMS = 257;
+    private static final int N_ALL_MAXO_DISCOVERABLE_PHENOTYPES = 7036;//6170;//5302;
+
+    // Computed by the first analyzed phenopacket if the mean is not known, and shared by the phenopackets analyzed concurrently.
+    private final Set<TermId> allMaxoAscertainablePhenotypes = new HashSet<>();
+    private volatile double meanNDiscoverablePhenotypesAllMaxoTerms = N_ALL_MAXO_TERMS / N_ALL_MAXO_DISCOVERABLE_PHENOTYPES;
+    private long allMaxoAscertainablePhenoypesCalcTime = 0;
+
     @Override
     public Integer execute() throws Exception {
 
@@ -106,19 +117,7 @@ public class BenchmarkCommand extends DifferentialDiagnosisCommand {
         OBJECT_MAPPER.enable(SerializationFeature.INDENT_OUTPUT);
         OBJECT_MAPPER.registerModule(new Jdk8Module());
 
-        Ontology ontology = OntologyLoader.loadOntology(MaxodiffDataResolver.of(maxoDataPath).hpoJson().toFile());
-        MinimalOntology minimalOntology = MinimalOntologyLoader.loadOntology(MaxodiffDataResolver.of(maxoDataPath).hpoJson().toFile());
-        HpoDiseaseLoader loader = HpoDiseaseLoaders.defaultLoader(minimalOntology, HpoDiseaseLoaderOptions.defaultOptions());
-
-        Path hpoaPath = MaxodiffDataResolver.of(maxoDataPath).phenotypeAnnotations();
-        HpoDiseases hpoDiseases = loader.load(hpoaPath);
-
-        IcMicaData icMicaData = null;
         String ddEngine = engineArg;
-        if (ddEngine.equals("phenomizer")) {
-            LOGGER.info("Loading icMicaDict...");
-            icMicaData = IcMicaDictLoader.loadIcMicaDict(MaxodiffDataResolver.of(maxoDataPath).icMicaDict());
-        }
 
         List<Path> phenopacketPaths = new ArrayList<>();
         if (batchDir != null) {
@@ -143,32 +142,9 @@ public class BenchmarkCommand extends DifferentialDiagnosisCommand {
         List<String> refinersList = new ArrayList<>();
 
         try {
-            // Make maxodiffRefiner
-            MaxodiffDataResolver maxodiffDataResolver = MaxodiffDataResolver.of(maxoDataPath);
-            MaxodiffPropsConfiguration maxodiffPropsConfiguration = MaxodiffPropsConfiguration.createConfig(maxodiffDataResolver);
-
-            DiffDiagRefiner maxoDiffRefiner = maxodiffPropsConfiguration.diffDiagRefiner("score");
-            BiometadataService biometadataService = maxodiffPropsConfiguration.biometadataService();
-
-            DifferentialDiagnosisEngine engine = null;
-            LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer = null;
-            if (ddEngine.equals("lirical")) {
-                Lirical lirical = prepareLirical();
-                PhenotypeService phenotypeService = lirical.phenotypeService();
-                Set<TermId> liricalDiseaseIds = lirical.phenotypeService().diseases().diseaseIds();
-                MaxodiffLiricalAnalysisRunner maxodiffLiricalAnalysisRunner = MaxodiffLiricalAnalysisRunnerImpl.of(phenotypeService, 4);
-                liricalDifferentialDiagnosisEngineConfigurer = LiricalDifferentialDiagnosisEngineConfigurer.of(maxodiffLiricalAnalysisRunner);
-                var analysisOptions = AnalysisOptions.builder()
-                        .useStrictPenalties(runConfiguration.strict)
-                        .useGlobal(runConfiguration.globalAnalysisMode)
-                        .pretestProbability(PretestDiseaseProbabilities.uniform(liricalDiseaseIds))
-                        .build();
-                engine = liricalDifferentialDiagnosisEngineConfigurer.configure(analysisOptions);
-            } else if (ddEngine.equals("phenomizer")) {
-                ScoringMode scoringMode = scoringModeArg.equals("one-sided") ? ScoringMode.ONE_SIDED : ScoringMode.TWO_SIDED;
-                Map<TermPair, Double> icMicaDict = icMicaData.icMicaDict();
-                engine = new PhenomizerDifferentialDiagnosisEngine(hpoDiseases, icMicaDict, scoringMode);
-            }
+            ScoringMode scoringMode = scoringModeArg.equals("one-sided") ? ScoringMode.ONE_SIDED : ScoringMode.TWO_SIDED;
+            AnalysisResources resources = loadAnalysisResources(ddEngine, scoringMode);
+            MaxodiffPropsConfiguration maxodiffPropsConfiguration = resources.maxodiffPropsConfiguration();
 
             Map<String, DiffDiagRefiner> refiners = new HashMap<>();
             refiners.put("MaxoDiff", maxodiffPropsConfiguration.diffDiagRefiner("score"));
@@ -176,247 +152,40 @@ public class BenchmarkCommand extends DifferentialDiagnosisCommand {
                 refiners.put(refiner, maxodiffPropsConfiguration.diffDiagRefiner(refiner));
             }
 
-            Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap = maxodiffPropsConfiguration.maxoAnnotsMap();
-
-            try (BufferedWriter writer = openWriter(outputName); CSVPrinter printer = CSVFormat.DEFAULT.print(writer)) {
+            // The results of the completed benchmarks are taken from the journal, hence the results file is written from scratch.
+            Path journalFilePath = journalPath == null ? Path.of(outputName + ".journal") : journalPath;
+            String journalConfiguration = String.join("|", journalConfiguration(resources),
+                    "removeIdsFile=" + removeIdsFile, "removeSampleTerms=" + removeSampleTerms);
+            try (BatchJournal journal = BatchJournal.open(journalFilePath, journalConfiguration);
+                 BufferedWriter writer = openOutputFileWriter(outputName);
+                 CSVPrinter printer = CSVFormat.DEFAULT.print(writer)) {
                 printer.printRecord("phenopacket", "all_sample_ids", "n_sample_ids", "n_diseases", "n_repetitions",
                         "maxo_id", "maxo_label", "maxo_final_score", "n_all_maxo_hpo_ids",
                         "top_maxo_hpo_ids", "n_top_maxo_hpo_ids", "mean_n_disc_phen", "diff",
                         "refiner_type"); // header
 
-
-                Set<TermId> allMaxoTerms = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap).keySet();
-                Set<TermId> allMaxoAscertainablePhenotypes = new HashSet<>();
-                long allMaxoAscertainablePhenoypesCalcTime = 0;
-                //7036 phenotypes discoverable by 257 MAxO terms
-                double nAllMaxoTerms = 257;
-                int nAllMaxoDiscoverablePhenotypes = 7036;//6170;//5302;
-                double meanNDiscoverablePhenotypesAllMaxoTerms =  nAllMaxoTerms / nAllMaxoDiscoverablePhenotypes;
-                int p = 1;
+                if (journal.completedCount() > 0)
+                    LOGGER.info("Resuming the benchmark with {} completed benchmarks from {}", journal.completedCount(), journalFilePath.toAbsolutePath());
                 int nPhenopackets = phenopacketPaths.size();
-                for (int i = 0; i < nPhenopackets; i++) {
-                    Path pPath0 = phenopacketPaths.get(i);
-                    String phenopacketName0 = pPath0.toFile().getName();
-                    String outputFilename0 = String.join("_", phenopacketName0, ddEngine,
-                                                "n20", "nr30", "maxodiff", "results.html");
-                    Path maxodiffResultsHTMLPath0 = Path.of(String.join(File.separator, outputDir.toString(), outputFilename0));
-
-                    if (Files.exists(maxodiffResultsHTMLPath0)) {
-                        System.out.println("File " + outputFilename0 + " exists.");
-                        continue;
-                    }
-                    try {
-
-                        Path pPath = phenopacketPaths.get(i);
-                        PhenopacketData phenopacketData = PhenopacketFileParser.readPhenopacketData(pPath);
-                        Sample sample = Sample.of(phenopacketData.sampleId(),
-                                phenopacketData.presentHpoTermIds().toList(),
-                                phenopacketData.excludedHpoTermIds().toList());
-
-                        LOGGER.info(String.valueOf(phenopacketPath));
-                        LOGGER.info("nDiseases = {}", nDiseasesList);
-                        LOGGER.info("refiners = {}", refinersList);
-                        String phenopacketName = pPath.toFile().getName();
-                        List<TermId> termIdsToRemove = new ArrayList<>();
-                        List<TermId> includedIds = new ArrayList<>(phenopacketData.presentHpoTermIds().toList());
-                        List<TermId> excludedIds = new ArrayList<>(phenopacketData.excludedHpoTermIds().toList());
-                        List<TermId> allSampleHpoTerms = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
-                                .flatMap(Collection::stream).toList();
-                        if (removeIdsFile != null) {
-                            termIdsToRemove = getTermIdsToRemove(phenopacketName, removeIdsFile);
-                            termIdsToRemove.forEach(includedIds::remove);
-                            termIdsToRemove.forEach(excludedIds::remove);
-                            sample = Sample.of(phenopacketData.sampleId(), includedIds, excludedIds);
-                        }
-                        if (removeSampleTerms) {
-                            termIdsToRemove = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
-                                    .flatMap(Collection::stream).toList();
-                        }
-                        LOGGER.info("{} removed Ids = {}", phenopacketName, termIdsToRemove);
-
-                        // Get initial differential diagnoses
-                        assert engine != null;
-                        List<DifferentialDiagnosis> differentialDiagnoses = engine.run(sample);
-
-                        // Summarize the LIRICAL results.
-                        String outFilename = String.join("_",
-                                phenopacketName.replace(".json", ""),
-                                "initial",
-//                                "removedTerms",
-                                ddEngine,
-                                "results");
-                        String ddOutputPath = String.join(File.separator, outputDir.toString(), outFilename + ".csv");
-                        writeDifferentialDiagnosisResults(phenopacketName, differentialDiagnoses, Path.of(ddOutputPath));
-
-                        //TODO? get list of diseases from LIRICAL results, and add diseases from CLI arg to total list for analysis
-
-                        Map<Integer, Map<TermId, List<DifferentialDiagnosis>>> nDiseaseMaxoTermToDifferentialDiagnosesMap = new HashMap<>();
-                        for (Map.Entry<String, DiffDiagRefiner> e : refiners.entrySet()) {
-                            for (int nDiseases : nDiseasesList) {
-                                MaxoHpoTermProbabilities maxoHpoTermProbabilities = null;
-                                List<DifferentialDiagnosis> initialDiagnoses = List.of();
-                                if (e.getValue() instanceof MaxoDiffRefiner) {
-                                    initialDiagnoses = differentialDiagnoses.subList(0, nDiseases);
-
-                                    DiseaseModelProbability diseaseModelProbability = null;
-                                    switch (diseaseProbModel) {
-                                        case "ranked" -> diseaseModelProbability = DiseaseModelProbability.ranked(initialDiagnoses);
-                                        case "softmax" -> diseaseModelProbability = DiseaseModelProbability.softmax(initialDiagnoses);
-                                        case "expDecay" -> diseaseModelProbability = DiseaseModelProbability.exponentialDecay(initialDiagnoses);
-                                    }
-
-                                    maxoHpoTermProbabilities = new MaxoHpoTermProbabilities(hpoDiseases,
-                                            hpoToMaxoTermMap,
-                                            initialDiagnoses,
-                                            diseaseModelProbability);
-
-                                    if (allMaxoAscertainablePhenotypes.isEmpty() && meanNDiscoverablePhenotypesAllMaxoTerms == 0) {
-                                        LOGGER.info("Getting All Maxo Ascertainable Phenotypes...");
-                                        MaxoHpoTermProbabilities allMaxoHpoTermProbabilities = new MaxoHpoTermProbabilities(hpoDiseases,
-                                                hpoToMaxoTermMap,
-                                                differentialDiagnoses,
-                                                diseaseModelProbability);
-
-                                        List<DifferentialDiagnosis> orderedDiagnoses = differentialDiagnoses.stream()
-                                                .sorted(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed())
-                                                .toList();
-                                        List<HpoDisease> diseases = e.getValue().getDiseases(orderedDiagnoses);
-                                        Map<TermId, List<HpoFrequency>> hpoTermCounts = e.getValue().getHpoTermCounts(diseases);
-                                        Map<TermId, Set<TermId>> fullMaxoToHpoTermIdMap = e.getValue().getMaxoToHpoTermIdMap(List.of(), hpoTermCounts);
-
-                                        int m = 1;
-                                        int nMaxoTerms = allMaxoTerms.size();
-                                        long start = System.currentTimeMillis();
-                                        for (TermId maxoId : allMaxoTerms) {
-                                            LOGGER.info(maxoId.toString());
-                                            Set<TermId> maxoAscertainablePhenotypes = allMaxoHpoTermProbabilities.getDiscoverableByMaxoHpoTerms(sample, maxoId, fullMaxoToHpoTermIdMap);
-                                            allMaxoAscertainablePhenotypes.addAll(maxoAscertainablePhenotypes);
-                                            float percent = (((float) m) / nMaxoTerms) * 100;
-                                            LOGGER.info("Finished {} of {} MAxO terms. {}% complete.", m, nMaxoTerms, percent);
-                                            m++;
-                                        }
-                                        long end = System.currentTimeMillis();
-                                        allMaxoAscertainablePhenoypesCalcTime = (end - start) / 1000;
-
-                                        meanNDiscoverablePhenotypesAllMaxoTerms = (double) allMaxoTerms.size() / allMaxoAscertainablePhenotypes.size();
-
-                                        Path allMaxoAscPhenPath = getAllMaxoAscPhenPath("allMaxoAscPhenotypes");
-
-                                        writeAllMaxoAscPhenotypes(allMaxoAscertainablePhenotypes, allMaxoAscPhenPath);
-                                    }
+                AtomicInteger p = new AtomicInteger(1);
+                int maxInFlight = maxInFlightArg == null ? SampleBatchScheduler.defaultMaxInFlight(sampleParallelism) : maxInFlightArg;
+                try (SampleBatchScheduler scheduler = SampleBatchScheduler.of(sampleParallelism, maxInFlight)) {
+                    scheduler.run(phenopacketPaths,
+                            pPath -> benchmarkSample(pPath, resources, journal, refiners, refinersList, nDiseasesList, nRepetitionsList),
+                            result -> {
+                                if (!result.isSuccess()) {
+                                    LOGGER.warn("Analysis of {} failed: {}", result.sample(), result.failure().getMessage(), result.failure());
+                                    return;
                                 }
-
-                                for (int nRepetitions : nRepetitionsList) {
-                                    RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions);
-                                    LOGGER.info("{}: {}", e.getKey(), e.getValue());
-                                    LOGGER.info("n Diseases = {}, n Repetitions = {}", nDiseases, nRepetitions);
-                                    List<DifferentialDiagnosis> orderedDiagnoses = e.getValue().getOrderedDiagnoses(differentialDiagnoses, options);
-                                    List<HpoDisease> diseases = e.getValue().getDiseases(orderedDiagnoses);
-                                    Map<TermId, List<HpoFrequency>> hpoTermCounts = e.getValue().getHpoTermCounts(diseases);
-                                    Map<TermId, Set<TermId>> maxoToHpoTermIdMap = e.getValue().getMaxoToHpoTermIdMap(termIdsToRemove, hpoTermCounts);
-
-                                    Set<TermId> initialDiagnosesIds = Set.of();
-                                    RefinementResults refinementResults = null;
-                                    if (e.getValue() instanceof MaxoDiffRefiner) {
-
-                                        initialDiagnosesIds = initialDiagnoses.stream()
-                                                .map(DifferentialDiagnosis::diseaseId)
-                                                .collect(Collectors.toSet());
-
-                                        DifferentialDiagnosisEngine diseaseSubsetEngine = null;
-                                        if (ddEngine.equals("lirical")) {
-                                            var diseaseSubsetOptions = AnalysisOptions.builder()
-                                                    .useStrictPenalties(runConfiguration.strict)
-                                                    .useGlobal(runConfiguration.globalAnalysisMode)
-                                                    .pretestProbability(PretestDiseaseProbabilities.uniform(initialDiagnosesIds))
-                                                    .addTargetDiseases(initialDiagnosesIds)
-                                                    .build();
-                                            diseaseSubsetEngine = liricalDifferentialDiagnosisEngineConfigurer.configure(diseaseSubsetOptions);
-                                        } else if (ddEngine.equals("phenomizer")) {
-                                            diseaseSubsetEngine = engine;
-                                        }
-
-                                        RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities, diseaseSubsetEngine,
-                                                minimalOntology, ontology);
-
-                                        refinementResults = e.getValue().run(sample,
-                                                orderedDiagnoses,
-                                                options,
-                                                rankMaxo,
-                                                hpoTermCounts,
-                                                maxoToHpoTermIdMap);
-                                    }
-
-                                    List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults().stream().toList());
-                                    if (e.getValue() instanceof MaxoDiffRefiner) {
-                                        resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
-                                    }
-                                    String fileName = String.join("_",
-                                            phenopacketName.replace(".json", ""),
-                                            "n" + nDiseases,
-                                            "nr" + nRepetitions,
-                                            e.getKey() + ".json");
-                                    Path maxodiffResultsFilePath = Path.of(String.join(File.separator, outputDir.toString(), fileName));
-                                    writeToJsonFile(maxodiffResultsFilePath, refinementResults);
-
-                                    // Test new validation procedure
-                                    if (e.getValue() instanceof MaxoDiffRefiner) {
-                                        assert maxoHpoTermProbabilities != null;
-                                        CandidateDiseaseScores candidateDiseaseScores = new CandidateDiseaseScores(maxoHpoTermProbabilities, minimalOntology, ontology);
-                                        // Get highest score MAxO term id
-                                        MaxodiffResult topResult = resultsList.getFirst();
-                                        TermId topMaxoId = topResult.rankMaxoScore().maxoId();
-
-                                        String maxScoreTermLabel = biometadataService.maxoLabel(topMaxoId.toString()).orElse("unknown");
-                                        double maxScoreValue = topResult.rankMaxoScore().maxoScore(); //maxoTermScore().scoreDiff();
-
-                                        LOGGER.info("{}: n Diseases = {}, n Repetitions = {}", e.getKey(), nDiseases, nRepetitions);
-
-                                        LOGGER.info("Max Score: {} ({}) = {}", topMaxoId, maxScoreTermLabel, maxScoreValue);
-
-//                                            MaxoDDResults maxoDDResults = candidateDiseaseScores
-//                                                    .getScoresForMaxoTerm(sample, topMaxoId, engine, initialDiagnosesIds, hpoToMaxoTermMap);
-
-//                                            List<DifferentialDiagnosis> maxoTermDiagnoses = maxoDDResults.maxoDifferentialDiagnoses();
-                                        LOGGER.info("Getting Top Maxo Ascertainable Phenotypes...");
-                                        Set<TermId> topMaxoAscertainablePhenotypes = topResult.rankMaxoScore().discoverableObservedHpoTermIds();//maxoHpoTermProbabilities.getDiscoverableByMaxoHpoTerms(sample, topMaxoId, maxoToHpoTermIdMap);
-
-                                        double diff = topMaxoAscertainablePhenotypes.size() - meanNDiscoverablePhenotypesAllMaxoTerms;
-
-                                        writeResults(phenopacketName, allSampleHpoTerms, allSampleHpoTerms.size(), nDiseases, nRepetitions,
-                                                topMaxoId.toString(), maxScoreTermLabel, maxScoreValue, nAllMaxoDiscoverablePhenotypes,
-                                                topMaxoAscertainablePhenotypes, topMaxoAscertainablePhenotypes.size(),
-                                                meanNDiscoverablePhenotypesAllMaxoTerms, diff,
-                                                e.getKey(), printer);
-
-                                        String nDiseasesAbbr = String.join("", "n", String.valueOf(nDiseases));
-                                        String nRepsAbbr = String.join("", "nr", String.valueOf(nRepetitions));
-                                        String outputFilename = String.join("_", phenopacketName, ddEngine,
-                                                nDiseasesAbbr, nRepsAbbr, "maxodiff", "results.html");
-                                        Path maxodiffResultsHTMLPath = Path.of(String.join(File.separator, outputDir.toString(), outputFilename));
-
-                                        String htmlString = HtmlResults.writeHTMLResults(sample, nDiseases, nRepetitions, resultsList,
-                                                biometadataService, hpoTermCounts);
-
-                                        Files.writeString(maxodiffResultsHTMLPath, htmlString);
-                                    }
-
-                                    if (e.getKey().equals("rank") | e.getKey().equals("ddScore") | e.getKey().equals("ksTest")) {
-                                        break;
-                                    }
+                                for (List<String> row : result.result()) {
+                                    printer.printRecord(row);
                                 }
-
-                                if (e.getKey().equals("ksTest")) {
-                                    break;
-                                }
-                            }
-                        }
-                        float percent = (((float) p) / nPhenopackets) * 100;
-                        LOGGER.info("Finished benchmark for {} ({} of {}. {}% complete)", phenopacketName, p, nPhenopackets, percent);
-                        p++;
-                    } catch (Exception ex) {
-                        LOGGER.info(ex.getMessage());
-                    }
+                                printer.flush();
+                                String phenopacketName = result.sample().toFile().getName();
+                                int finished = p.getAndIncrement();
+                                float percent = (((float) finished) / nPhenopackets) * 100;
+                                LOGGER.info("Finished benchmark for {} ({} of {}. {}% complete)", phenopacketName, finished, nPhenopackets, percent);
+                            });
                 }
 //                long HH =  allMaxoAscertainablePhenoypesCalcTime / 3600;
 //                long MM = (allMaxoAscertainablePhenoypesCalcTime % 3600) / 60;
@@ -433,6 +202,285 @@ public class BenchmarkCommand extends DifferentialDiagnosisCommand {
         return 0;
     }
 
+    /**
+     * Run the benchmark of a single phenopacket and get the rows of the benchmark results.
+     * The initial differential diagnoses, the JSON and the HTML results are written into the output directory.
+     */
+    private List<List<String>> benchmarkSample(Path pPath,
+                                               AnalysisResources resources,
+                                               BatchJournal journal,
+                                               Map<String, DiffDiagRefiner> refiners,
+                                               List<String> refinersList,
+                                               List<Integer> nDiseasesList,
+                                               List<Integer> nRepetitionsList) throws Exception {
+        String phenopacketName = pPath.toFile().getName();
+        Optional<List<List<String>>> completed = completedRows(journal, phenopacketName, refiners.keySet(), nDiseasesList, nRepetitionsList);
+        if (completed.isPresent()) {
+            LOGGER.info("Benchmark for {} has been completed", phenopacketName);
+            return completed.get();
+        }
+
+        MaxodiffPropsConfiguration maxodiffPropsConfiguration = resources.maxodiffPropsConfiguration();
+        Ontology ontology = maxodiffPropsConfiguration.hpo();
+        MinimalOntology minimalOntology = maxodiffPropsConfiguration.minHpo();
+        HpoDiseases hpoDiseases = maxodiffPropsConfiguration.hpoDiseases();
+        BiometadataService biometadataService = maxodiffPropsConfiguration.biometadataService();
+        Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap = maxodiffPropsConfiguration.maxoAnnotsMap();
+        String ddEngine = resources.ddEngine();
+        DifferentialDiagnosisEngine engine = resources.engine();
+        List<List<String>> rows = new ArrayList<>();
+
+        PhenopacketData phenopacketData = PhenopacketFileParser.readPhenopacketData(pPath);
+        Sample sample = Sample.of(phenopacketData.sampleId(),
+                phenopacketData.presentHpoTermIds().toList(),
+                phenopacketData.excludedHpoTermIds().toList());
+
+        LOGGER.info(String.valueOf(pPath));
+        LOGGER.info("nDiseases = {}", nDiseasesList);
+        LOGGER.info("refiners = {}", refinersList);
+        List<TermId> termIdsToRemove = new ArrayList<>();
+        List<TermId> includedIds = new ArrayList<>(phenopacketData.presentHpoTermIds().toList());
+        List<TermId> excludedIds = new ArrayList<>(phenopacketData.excludedHpoTermIds().toList());
+        List<TermId> allSampleHpoTerms = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
+                .flatMap(Collection::stream).toList();
+        if (removeIdsFile != null) {
+            termIdsToRemove = getTermIdsToRemove(phenopacketName, removeIdsFile);
+            termIdsToRemove.forEach(includedIds::remove);
+            termIdsToRemove.forEach(excludedIds::remove);
+            sample = Sample.of(phenopacketData.sampleId(), includedIds, excludedIds);
+        }
+        if (removeSampleTerms) {
+            termIdsToRemove = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
+                    .flatMap(Collection::stream).toList();
+        }
+        LOGGER.info("{} removed Ids = {}", phenopacketName, termIdsToRemove);
+
+        // Get initial differential diagnoses
+        List<DifferentialDiagnosis> differentialDiagnoses = engine.run(sample);
+
+        // Summarize the LIRICAL results.
+        String outFilename = String.join("_",
+                phenopacketName.replace(".json", ""),
+                "initial",
+//                "removedTerms",
+                ddEngine,
+                "results");
+        String ddOutputPath = String.join(File.separator, outputDir.toString(), outFilename + ".csv");
+        writeDifferentialDiagnosisResults(phenopacketName, differentialDiagnoses, Path.of(ddOutputPath));
+
+        //TODO? get list of diseases from LIRICAL results, and add diseases from CLI arg to total list for analysis
+
+        for (Map.Entry<String, DiffDiagRefiner> e : refiners.entrySet()) {
+            for (int nDiseases : nDiseasesList) {
+                MaxoHpoTermProbabilities maxoHpoTermProbabilities = null;
+                List<DifferentialDiagnosis> initialDiagnoses = List.of();
+                if (e.getValue() instanceof MaxoDiffRefiner) {
+                    initialDiagnoses = differentialDiagnoses.subList(0, nDiseases);
+
+                    DiseaseModelProbability diseaseModelProbability = null;
+                    switch (diseaseProbModel) {
+                        case "ranked" -> diseaseModelProbability = DiseaseModelProbability.ranked(initialDiagnoses);
+                        case "softmax" -> diseaseModelProbability = DiseaseModelProbability.softmax(initialDiagnoses);
+                        case "expDecay" -> diseaseModelProbability = DiseaseModelProbability.exponentialDecay(initialDiagnoses);
+                    }
+
+                    maxoHpoTermProbabilities = new MaxoHpoTermProbabilities(hpoDiseases,
+                            hpoToMaxoTermMap,
+                            initialDiagnoses,
+                            diseaseModelProbability,
+                            maxodiffPropsConfiguration.termDictionaries());
+
+                    synchronized (allMaxoAscertainablePhenotypes) {
+                        if (allMaxoAscertainablePhenotypes.isEmpty() && meanNDiscoverablePhenotypesAllMaxoTerms == 0) {
+                            computeAllMaxoAscertainablePhenotypes(sample, e.getValue(), differentialDiagnoses,
+                                    diseaseModelProbability, maxodiffPropsConfiguration);
+                        }
+                    }
+                }
+
+                for (int nRepetitions : nRepetitionsList) {
+                    String key = BatchJournal.key(phenopacketName, e.getKey(), nDiseases, nRepetitions);
+                    Optional<List<List<String>>> completedRows = journal.completedRows(key);
+                    if (completedRows.isPresent()) {
+                        rows.addAll(completedRows.get());
+                    } else {
+                        List<List<String>> unitRows = new ArrayList<>();
+                        RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions, seed, adaptiveRepetitionOptions(), nMaxoTerms());
+                        LOGGER.info("{}: {}", e.getKey(), e.getValue());
+                        LOGGER.info("n Diseases = {}, n Repetitions = {}", nDiseases, nRepetitions);
+                        List<DifferentialDiagnosis> orderedDiagnoses = e.getValue().getOrderedDiagnoses(differentialDiagnoses, options);
+                        List<HpoDisease> diseases = e.getValue().getDiseases(orderedDiagnoses);
+                        Map<TermId, List<HpoFrequency>> hpoTermCounts = e.getValue().getHpoTermCounts(diseases);
+                        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = e.getValue().getMaxoToHpoTermIdMap(termIdsToRemove, hpoTermCounts);
+
+                        Set<TermId> initialDiagnosesIds = Set.of();
+                        RefinementResults refinementResults = null;
+                        if (e.getValue() instanceof MaxoDiffRefiner) {
+
+                            initialDiagnosesIds = initialDiagnoses.stream()
+                                    .map(DifferentialDiagnosis::diseaseId)
+                                    .collect(Collectors.toSet());
+
+                            DifferentialDiagnosisEngine diseaseSubsetEngine;
+                            if (resources.liricalDifferentialDiagnosisEngineConfigurer() != null) {
+                                var diseaseSubsetOptions = AnalysisOptions.builder()
+                                        .useStrictPenalties(runConfiguration.strict)
+                                        .useGlobal(runConfiguration.globalAnalysisMode)
+                                        .pretestProbability(PretestDiseaseProbabilities.uniform(initialDiagnosesIds))
+                                        .addTargetDiseases(initialDiagnosesIds)
+                                        .build();
+                                diseaseSubsetEngine = resources.liricalDifferentialDiagnosisEngineConfigurer().configure(diseaseSubsetOptions);
+                            } else {
+                                diseaseSubsetEngine = engine;
+                            }
+
+                            RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities, diseaseSubsetEngine,
+                                    minimalOntology, ontology, maxoTermExecutor());
+
+                            refinementResults = e.getValue().run(sample,
+                                    orderedDiagnoses,
+                                    options,
+                                    rankMaxo,
+                                    hpoTermCounts,
+                                    maxoToHpoTermIdMap);
+                        }
+
+                        List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults().stream().toList());
+                        if (e.getValue() instanceof MaxoDiffRefiner) {
+                            resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
+                        }
+                        String fileName = String.join("_",
+                                phenopacketName.replace(".json", ""),
+                                "n" + nDiseases,
+                                "nr" + nRepetitions,
+                                e.getKey() + ".json");
+                        Path maxodiffResultsFilePath = Path.of(String.join(File.separator, outputDir.toString(), fileName));
+                        writeToJsonFile(maxodiffResultsFilePath, refinementResults);
+
+                        // Test new validation procedure
+                        if (e.getValue() instanceof MaxoDiffRefiner) {
+                            assert maxoHpoTermProbabilities != null;
+                            CandidateDiseaseScores candidateDiseaseScores = new CandidateDiseaseScores(maxoHpoTermProbabilities, minimalOntology, ontology);
+                            // Get highest score MAxO term id
+                            MaxodiffResult topResult = resultsList.getFirst();
+                            TermId topMaxoId = topResult.rankMaxoScore().maxoId();
+
+                            String maxScoreTermLabel = biometadataService.maxoLabel(topMaxoId.toString()).orElse("unknown");
+                            double maxScoreValue = topResult.rankMaxoScore().maxoScore(); //maxoTermScore().scoreDiff();
+
+                            LOGGER.info("{}: n Diseases = {}, n Repetitions = {}", e.getKey(), nDiseases, nRepetitions);
+
+                            LOGGER.info("Max Score: {} ({}) = {}", topMaxoId, maxScoreTermLabel, maxScoreValue);
+
+//                            MaxoDDResults maxoDDResults = candidateDiseaseScores
+//                                    .getScoresForMaxoTerm(sample, topMaxoId, engine, initialDiagnosesIds, hpoToMaxoTermMap);
+
+//                            List<DifferentialDiagnosis> maxoTermDiagnoses = maxoDDResults.maxoDifferentialDiagnoses();
+                            LOGGER.info("Getting Top Maxo Ascertainable Phenotypes...");
+                            Set<TermId> topMaxoAscertainablePhenotypes = topResult.rankMaxoScore().discoverableObservedHpoTermIds();//maxoHpoTermProbabilities.getDiscoverableByMaxoHpoTerms(sample, topMaxoId, maxoToHpoTermIdMap);
+
+                            double meanNDiscoverablePhenotypes = meanNDiscoverablePhenotypesAllMaxoTerms;
+                            double diff = topMaxoAscertainablePhenotypes.size() - meanNDiscoverablePhenotypes;
+
+                            unitRows.add(resultRow(phenopacketName, allSampleHpoTerms, allSampleHpoTerms.size(), nDiseases, nRepetitions,
+                                    topMaxoId.toString(), maxScoreTermLabel, maxScoreValue, N_ALL_MAXO_DISCOVERABLE_PHENOTYPES,
+                                    topMaxoAscertainablePhenotypes, topMaxoAscertainablePhenotypes.size(),
+                                    meanNDiscoverablePhenotypes, diff,
+                                    e.getKey()));
+
+                            String nDiseasesAbbr = String.join("", "n", String.valueOf(nDiseases));
+                            String nRepsAbbr = String.join("", "nr", String.valueOf(nRepetitions));
+                            String outputFilename = String.join("_", phenopacketName, ddEngine,
+                                    nDiseasesAbbr, nRepsAbbr, "maxodiff", "results.html");
+                            Path maxodiffResultsHTMLPath = Path.of(String.join(File.separator, outputDir.toString(), outputFilename));
+
+                            String htmlString = HtmlResults.writeHTMLResults(sample, nDiseases, nRepetitions, resultsList,
+                                    biometadataService, hpoTermCounts);
+
+                            Files.writeString(maxodiffResultsHTMLPath, htmlString);
+                        }
+
+                        journal.complete(key, unitRows);
+                        rows.addAll(unitRows);
+                    }
+
+                    if (e.getKey().equals("rank") | e.getKey().equals("ddScore") | e.getKey().equals("ksTest")) {
+                        break;
+                    }
+                }
+
+                if (e.getKey().equals("ksTest")) {
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the rows of the benchmark of the phenopacket if all its benchmarks have been completed by a previous run.
+     */
+    private static Optional<List<List<String>>> completedRows(BatchJournal journal,
+                                                              String phenopacketName,
+                                                              Collection<String> refinerNames,
+                                                              List<Integer> nDiseasesList,
+                                                              List<Integer> nRepetitionsList) {
+        List<List<String>> rows = new ArrayList<>();
+        for (String refinerName : refinerNames) {
+            for (int nDiseases : nDiseasesList) {
+                for (int nRepetitions : nRepetitionsList) {
+                    Optional<List<List<String>>> completedRows = journal.completedRows(BatchJournal.key(phenopacketName, refinerName, nDiseases, nRepetitions));
+                    if (completedRows.isEmpty())
+                        return Optional.empty();
+                    rows.addAll(completedRows.get());
+                }
+            }
+        }
+        return Optional.of(rows);
+    }
+
+    private void computeAllMaxoAscertainablePhenotypes(Sample sample,
+                                                       DiffDiagRefiner refiner,
+                                                       List<DifferentialDiagnosis> differentialDiagnoses,
+                                                       DiseaseModelProbability diseaseModelProbability,
+                                                       MaxodiffPropsConfiguration maxodiffPropsConfiguration) {
+        LOGGER.info("Getting All Maxo Ascertainable Phenotypes...");
+        Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap = maxodiffPropsConfiguration.maxoAnnotsMap();
+        Set<TermId> allMaxoTerms = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap).keySet();
+        MaxoHpoTermProbabilities allMaxoHpoTermProbabilities = new MaxoHpoTermProbabilities(maxodiffPropsConfiguration.hpoDiseases(),
+                hpoToMaxoTermMap,
+                differentialDiagnoses,
+                diseaseModelProbability,
+                maxodiffPropsConfiguration.termDictionaries());
+
+        List<DifferentialDiagnosis> orderedDiagnoses = differentialDiagnoses.stream()
+                .sorted(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed())
+                .toList();
+        List<HpoDisease> diseases = refiner.getDiseases(orderedDiagnoses);
+        Map<TermId, List<HpoFrequency>> hpoTermCounts = refiner.getHpoTermCounts(diseases);
+        Map<TermId, Set<TermId>> fullMaxoToHpoTermIdMap = refiner.getMaxoToHpoTermIdMap(List.of(), hpoTermCounts);
+
+        int m = 1;
+        int nMaxoTerms = allMaxoTerms.size();
+        long start = System.currentTimeMillis();
+        for (TermId maxoId : allMaxoTerms) {
+            LOGGER.info(maxoId.toString());
+            Set<TermId> maxoAscertainablePhenotypes = allMaxoHpoTermProbabilities.getDiscoverableByMaxoHpoTerms(sample, maxoId, fullMaxoToHpoTermIdMap);
+            allMaxoAscertainablePhenotypes.addAll(maxoAscertainablePhenotypes);
+            float percent = (((float) m) / nMaxoTerms) * 100;
+            LOGGER.info("Finished {} of {} MAxO terms. {}% complete.", m, nMaxoTerms, percent);
+            m++;
+        }
+        long end = System.currentTimeMillis();
+        allMaxoAscertainablePhenoypesCalcTime = (end - start) / 1000;
+
+        meanNDiscoverablePhenotypesAllMaxoTerms = (double) allMaxoTerms.size() / allMaxoAscertainablePhenotypes.size();
+
+        Path allMaxoAscPhenPath = getAllMaxoAscPhenPath("allMaxoAscPhenotypes");
+
+        writeAllMaxoAscPhenotypes(allMaxoAscertainablePhenotypes, allMaxoAscPhenPath);
+    }
+
     private Path getAllMaxoAscPhenPath(String pathNameAddition) {
         String outputFileNameStr = outputName.getFileName().toString();
         String allMaxoAscPhenFileName = outputFileNameStr.replace(".csv", "_" + pathNameAddition + ".csv");
@@ -481,43 +529,28 @@ public class BenchmarkCommand extends DifferentialDiagnosisCommand {
     }
 
     /**
-     * Write results of a single benchmark into the provided {@code printer}.
+     * Get the row of a single benchmark for the results CSV file.
      */
-    private static void writeResults(String phenopacketName,
-                                     List<TermId> sampleIds,
-                                     int nSampleIds,
-                                     int nDiseases,
-                                     int nRepetitions,
-                                     String maxoId,
-                                     String maxoLabel,
-                                     double maxoFinalScore,
-                                     int nAllMaxoHpoTerms,
-                                     Set<TermId> topMaxoHpoTerms,
-                                     int nTopMaxoHpoTerms,
-                                     double meanNDiscPhenotypes,
-                                     double diff,
-                                     String refinerType,
-                                     CSVPrinter printer) {
-
-        try {
-            printer.print(phenopacketName);
-            printer.print(sampleIds);
-            printer.print(nSampleIds);
-            printer.print(nDiseases);
-            printer.print(nRepetitions);
-            printer.print(maxoId);
-            printer.print(maxoLabel);
-            printer.print(maxoFinalScore);
-            printer.print(nAllMaxoHpoTerms);
-            printer.print(topMaxoHpoTerms);
-            printer.print(nTopMaxoHpoTerms);
-            printer.print(meanNDiscPhenotypes);
-            printer.print(diff);
-            printer.print(refinerType);
-            printer.println();
-        } catch (IOException e) {
-            LOGGER.error("Error writing results for {}: {}", phenopacketName, e.getMessage(), e);
-        }
+    private static List<String> resultRow(String phenopacketName,
+                                          List<TermId> sampleIds,
+                                          int nSampleIds,
+                                          int nDiseases,
+                                          int nRepetitions,
+                                          String maxoId,
+                                          String maxoLabel,
+                                          double maxoFinalScore,
+                                          int nAllMaxoHpoTerms,
+                                          Set<TermId> topMaxoHpoTerms,
+                                          int nTopMaxoHpoTerms,
+                                          double meanNDiscPhenotypes,
+                                          double diff,
+                                          String refinerType) {
+        return Stream.of(phenopacketName, sampleIds, nSampleIds, nDiseases, nRepetitions,
+                        maxoId, maxoLabel, maxoFinalScore, nAllMaxoHpoTerms,
+                        topMaxoHpoTerms, nTopMaxoHpoTerms, meanNDiscPhenotypes, diff,
+                        refinerType)
+                .map(String::valueOf)
+                .toList();
     }
 
     /**
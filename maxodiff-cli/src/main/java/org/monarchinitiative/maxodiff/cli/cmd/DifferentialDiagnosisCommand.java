@@ -13,8 +13,11 @@ import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.*;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.DiffDiagRefiner;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxodiffResult;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementCacheKey;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResults;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResultsCache;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisCache;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.html.results.HtmlResults;
 import org.monarchinitiative.maxodiff.lirical.PhenopacketFileParser;
@@ -22,20 +25,13 @@ import org.monarchinitiative.maxodiff.lirical.*;
 import org.monarchinitiative.maxodiff.core.model.*;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaLookup;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictLoader;
+import org.monarchinitiative.maxodiff.phenomizer.MappedIcMicaDictLoader;
 import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoader;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
-import org.monarchinitiative.phenol.io.MinimalOntologyLoader;
-import org.monarchinitiative.phenol.io.OntologyLoader;
-import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
-import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
-import org.monarchinitiative.phenol.ontology.similarity.TermPair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -44,7 +40,9 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPOutputStream;
 
@@ -58,6 +56,11 @@ import java.util.zip.GZIPOutputStream;
         description = "maxodiff analysis")
 public class DifferentialDiagnosisCommand extends BaseCommand {
     private static final Logger LOGGER = LoggerFactory.getLogger(DifferentialDiagnosisCommand.class);
+    // The results in the cache directory are reused across the runs, only a few are kept in memory.
+    private static final int RESULT_CACHE_SIZE = 64;
+    private static final Duration RESULT_CACHE_TTL = Duration.ofDays(30);
+    // The initial diagnoses of the samples with the same phenotypes, e.g. of the phenopackets of the same patient.
+    private static final int DIAGNOSIS_CACHE_SIZE = 16;
 
     @CommandLine.Option(names = {"-m", "--maxoData"},
             description = "Path to MaXo data directory.")
@@ -100,6 +103,26 @@ public class DifferentialDiagnosisCommand extends BaseCommand {
             description = "Number of repetitions for running differential diagnosis.")
     protected Integer nRepetitionsArg = 10;
 
+    @CommandLine.Option(names = {"--seed"},
+            description = "Seed of the random repetitions, the results are reproducible for a given seed (default: ${DEFAULT-VALUE}).")
+    protected long seed = RefinementOptions.DEFAULT_SEED;
+
+    @CommandLine.Option(names = {"--adaptive"},
+            description = "Whether to drop the MAxO terms that cannot reach the top ranks before running all repetitions (default: ${DEFAULT-VALUE}).")
+    protected boolean adaptive = false;
+
+    @CommandLine.Option(names = {"--nMaxoTerms"},
+            description = "Number of the top MAxO terms to report (default: all).")
+    protected Integer nMaxoTermsArg;
+
+    @CommandLine.Option(names = {"--timeout"},
+            description = "Time limit of ranking the MAxO terms of a sample in seconds, the MAxO terms scored so far are reported when it expires (default: no limit).")
+    protected Long timeoutSeconds;
+
+    @CommandLine.Option(names = {"--resultCache"},
+            description = "Directory for reusing the MAxO term rankings of the samples analyzed with the same options before (default: no cache).")
+    protected Path resultCacheDirectory;
+
     @CommandLine.Option(names = {"-e", "--engine"},
             paramLabel = "{lirical, phenomizer}",
             description = "Differential diagnosis engine (default: ${DEFAULT-VALUE}).")
@@ -110,6 +133,18 @@ public class DifferentialDiagnosisCommand extends BaseCommand {
             description = "Phenomizer scoring mode (default: ${DEFAULT-VALUE}).")
     protected String scoringModeArg = "one-sided";
 
+    @CommandLine.Option(names = {"--parallelism"},
+            description = "Number of threads for evaluating MAxO terms (default: ${DEFAULT-VALUE}).")
+    protected int parallelism = MaxoTermExecutor.defaultParallelism();
+
+    @CommandLine.Option(names = {"--liricalParallelism"},
+            description = "Number of threads for the LIRICAL analyses over many diseases, shared by all samples (default: the --parallelism value).")
+    protected Integer liricalParallelismArg;
+
+    private MaxoTermExecutor maxoTermExecutor;
+    private RefinementResultsCache resultCache;
+    private final DifferentialDiagnosisCache diagnosisCache = DifferentialDiagnosisCache.of(DIAGNOSIS_CACHE_SIZE);
+
     @Override
     public Integer execute() throws Exception {
 
@@ -129,202 +164,296 @@ public class DifferentialDiagnosisCommand extends BaseCommand {
         return 0;
     }
 
-    protected void runSingleMaxodiffAnalysis(Path phenopacketPath, String phenopacketName, int nDiseases, int nRepetitions,
-                                             String ddEngine, ScoringMode scoringMode, boolean writeOutputFile, CSVPrinter printer) throws Exception {
-
-
-        Path hpoPath = MaxodiffDataResolver.of(maxoDataPath).hpoJson();
-        Ontology ontology = OntologyLoader.loadOntology(hpoPath.toFile());
-        MinimalOntology minimalOntology = MinimalOntologyLoader.loadOntology(hpoPath.toFile());
-        HpoDiseaseLoader loader = HpoDiseaseLoaders.defaultLoader(minimalOntology, HpoDiseaseLoaderOptions.defaultOptions());
-
-        Path hpoaPath = MaxodiffDataResolver.of(maxoDataPath).phenotypeAnnotations();
-        HpoDiseases hpoDiseases = loader.load(hpoaPath);
+    /**
+     * @return the executor for evaluating MAxO terms, shared by all analyses of this command.
+     */
+    protected synchronized MaxoTermExecutor maxoTermExecutor() {
+        if (maxoTermExecutor == null)
+            maxoTermExecutor = MaxoTermExecutor.of(parallelism, MaxoTermExecutor.DEFAULT_QUEUE_CAPACITY);
+        return maxoTermExecutor;
+    }
 
-        IcMicaData icMicaData = null;
-        if (ddEngine.equals("phenomizer")) {
-            LOGGER.info("Loading icMicaDict...");
-            try {
-                icMicaData = IcMicaDictLoader.loadIcMicaDict(MaxodiffDataResolver.of(maxoDataPath).icMicaDict());
-            } catch (NoSuchFileException ex) {
-                throw new Exception(String.join(". ", ex.getMessage(), "Run Download command to download the necessary term-pair-similarity file."));
-            }
-        }
+    /**
+     * @return the cache of the refinement results in the {@code --resultCache} directory, if set.
+     */
+    protected synchronized Optional<RefinementResultsCache> resultCache() {
+        if (resultCacheDirectory == null)
+            return Optional.empty();
+        if (resultCache == null)
+            resultCache = RefinementResultsCache.of(RESULT_CACHE_SIZE, RESULT_CACHE_TTL, resultCacheDirectory);
+        return Optional.of(resultCache);
+    }
 
-        if (writeOutputFile) {
-            printer.printRecord("phenopacket", "disease_id", "maxo_id", "maxo_label",
-                    "n_diseases", "disease_ids", "n_repetitions", "score"); // header
+    /**
+     * Load the IC MICA dictionary, preferring the memory-mappable binary file, if present, over the CSV file.
+     */
+    protected static IcMicaData loadIcMicaData(MaxodiffDataResolver resolver) throws IOException {
+        Path binary = resolver.icMicaDictBinary();
+        if (Files.isRegularFile(binary)) {
+            LOGGER.debug("Mapping icMicaDict from {}", binary.toAbsolutePath());
+            return MappedIcMicaDictLoader.loadIcMicaDict(binary);
         }
+        return IcMicaDictLoader.loadIcMicaDict(resolver.icMicaDict());
+    }
 
-        Map<String, List<Object>> resultsMap = new HashMap<>();
+    /**
+     * @return the size of the LIRICAL pool. The pool is shared by the samples analyzed concurrently,
+     * hence it takes the same thread budget as the {@link #maxoTermExecutor()} by default.
+     */
+    protected int liricalParallelism() {
+        return liricalParallelismArg == null ? parallelism : liricalParallelismArg;
+    }
 
-        resultsMap.put("phenopacketName", new ArrayList<>());
-        resultsMap.put("diseaseId", new ArrayList<>());
-        resultsMap.put("maxScoreMaxoTermId", new ArrayList<>());
-        resultsMap.put("maxScoreTermLabel", new ArrayList<>());
-        resultsMap.put("topNDiseases", new ArrayList<>());
-        resultsMap.put("diseaseIds", new ArrayList<>());
-        resultsMap.put("nRepetitions", new ArrayList<>());
-        resultsMap.put("maxScoreValue", new ArrayList<>());
+    protected AdaptiveRepetitionOptions adaptiveRepetitionOptions() {
+        return adaptive ? AdaptiveRepetitionOptions.defaultOptions() : AdaptiveRepetitionOptions.disabled();
+    }
 
+    protected int nMaxoTerms() {
+        return nMaxoTermsArg == null ? RefinementOptions.ALL_MAXO_TERMS : nMaxoTermsArg;
+    }
 
-        System.out.println(nDiseases);
-        System.out.println(nRepetitions);
+    /**
+     * @return the configuration of the analyses recorded in a batch journal: the engine, the options
+     * of the MAxO term ranking and the versions of the resources. The results of another configuration are not resumed.
+     */
+    protected String journalConfiguration(AnalysisResources resources) {
+        return String.join("|",
+                "engine=" + resources.engine().configurationId().orElse(resources.ddEngine()),
+                "diseaseProbModel=" + diseaseProbModel,
+                "seed=" + seed,
+                "adaptive=" + adaptiveRepetitionOptions(),
+                "nMaxoTerms=" + nMaxoTerms(),
+                "resources=" + resources.maxodiffPropsConfiguration().version());
+    }
 
-        try {
-            // Make maxodiffRefiner
-            MaxodiffDataResolver maxodiffDataResolver = MaxodiffDataResolver.of(maxoDataPath);
-            MaxodiffPropsConfiguration maxodiffPropsConfiguration = MaxodiffPropsConfiguration.createConfig(maxodiffDataResolver);
-
-            DiffDiagRefiner maxoDiffRefiner = maxodiffPropsConfiguration.diffDiagRefiner("score");
-            BiometadataService biometadataService = maxodiffPropsConfiguration.biometadataService();
-
-            DifferentialDiagnosisEngine engine = null;
-            LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer = null;
-            if (ddEngine.equals("lirical")) {
-                Lirical lirical = prepareLirical();
-                PhenotypeService phenotypeService = lirical.phenotypeService();
-                Set<TermId> liricalDiseaseIds = lirical.phenotypeService().diseases().diseaseIds();
-                MaxodiffLiricalAnalysisRunner maxodiffLiricalAnalysisRunner = MaxodiffLiricalAnalysisRunnerImpl.of(phenotypeService, 4);
-                liricalDifferentialDiagnosisEngineConfigurer = LiricalDifferentialDiagnosisEngineConfigurer.of(maxodiffLiricalAnalysisRunner);
-                var analysisOptions = AnalysisOptions.builder()
-                        .useStrictPenalties(runConfiguration.strict)
-                        .useGlobal(runConfiguration.globalAnalysisMode)
-                        .pretestProbability(PretestDiseaseProbabilities.uniform(liricalDiseaseIds))
-                        .build();
-                engine = liricalDifferentialDiagnosisEngineConfigurer.configure(analysisOptions);
-            } else if (ddEngine.equals("phenomizer")) {
-                Map<TermPair, Double> icMicaDict = icMicaData.icMicaDict();
-                engine = new PhenomizerDifferentialDiagnosisEngine(hpoDiseases, icMicaDict, scoringMode);
-            }
+    /**
+     * @return the cancellation of the ranking of a sample, with the deadline starting now.
+     */
+    protected CancellationToken cancellation() {
+        return timeoutSeconds == null
+                ? CancellationToken.none()
+                : CancellationToken.withTimeout(Duration.ofSeconds(timeoutSeconds));
+    }
 
+    /**
+     * Resources shared by all analyses of a command run: the maxodiff configuration
+     * and the differential diagnosis engine.
+     */
+    protected record AnalysisResources(MaxodiffPropsConfiguration maxodiffPropsConfiguration,
+                                       DiffDiagRefiner maxoDiffRefiner,
+                                       String ddEngine,
+                                       DifferentialDiagnosisEngine engine,
+                                       LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer) {
+    }
 
-            PhenopacketData phenopacketData = PhenopacketFileParser.readPhenopacketData(phenopacketPath);
-            Sample sample = Sample.of(phenopacketData.sampleId(),
-                    phenopacketData.presentHpoTermIds().toList(),
-                    phenopacketData.excludedHpoTermIds().toList());
+    /**
+     * A phenopacket with its initial differential diagnoses, shared by the analyses of the phenopacket
+     * with different numbers of diseases and repetitions.
+     */
+    protected record SampleDiagnoses(String phenopacketName,
+                                     PhenopacketData phenopacketData,
+                                     Sample sample,
+                                     List<DifferentialDiagnosis> differentialDiagnoses) {
+    }
 
-            // Get initial differential diagnoses
-            assert engine != null;
-            List<DifferentialDiagnosis> differentialDiagnoses = engine.run(sample);
+    /**
+     * The MAxO term with the highest score in a single maxodiff analysis.
+     *
+     * @param partial {@code true} if the time limit expired and the MAxO term is the best of the terms scored so far.
+     */
+    protected record AnalysisResult(String phenopacketName,
+                                    TermId diseaseId,
+                                    TermId maxScoreMaxoTermId,
+                                    String maxScoreTermLabel,
+                                    int topNDiseases,
+                                    Set<TermId> diseaseIds,
+                                    int nRepetitions,
+                                    double maxScoreValue,
+                                    boolean partial) {
+    }
 
-            System.out.println("n Diseases = " + nDiseases);
+    protected void runSingleMaxodiffAnalysis(Path phenopacketPath, String phenopacketName, int nDiseases, int nRepetitions,
+                                             String ddEngine, ScoringMode scoringMode, boolean writeOutputFile, CSVPrinter printer) throws Exception {
+        AnalysisResources resources = loadAnalysisResources(ddEngine, scoringMode);
 
-            // Get List of Refinement results: maxo term scores and frequencies
-            RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions);
-            List<DifferentialDiagnosis> orderedDiagnoses = maxoDiffRefiner.getOrderedDiagnoses(differentialDiagnoses, options);
-            List<HpoDisease> diseases = maxoDiffRefiner.getDiseases(orderedDiagnoses);
-            Map<TermId, List<HpoFrequency>> hpoTermCounts = maxoDiffRefiner.getHpoTermCounts(diseases);
+        if (writeOutputFile) {
+            printer.printRecord("phenopacket", "disease_id", "maxo_id", "maxo_label",
+                    "n_diseases", "disease_ids", "n_repetitions", "score", "partial"); // header
+        }
 
-            List<DifferentialDiagnosis> initialDiagnoses = orderedDiagnoses.subList(0, nDiseases);
-            Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap = maxodiffPropsConfiguration.maxoAnnotsMap();
-            Map<TermId, Set<TermId>> maxoToHpoTermIdMap = maxoDiffRefiner.getMaxoToHpoTermIdMap(List.of(), hpoTermCounts);
+        try {
+            SampleDiagnoses sampleDiagnoses = diagnoseSample(resources, phenopacketPath, phenopacketName);
+            runSingleMaxodiffAnalysis(resources, sampleDiagnoses, nDiseases, nRepetitions, writeOutputFile, printer);
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
 
-            DiseaseModelProbability diseaseModelProbability = null;
-            switch (diseaseProbModel) {
-                case "ranked" -> diseaseModelProbability = DiseaseModelProbability.ranked(initialDiagnoses);
-                case "softmax" -> diseaseModelProbability = DiseaseModelProbability.softmax(initialDiagnoses);
-                case "expDecay" ->
-                        diseaseModelProbability = DiseaseModelProbability.exponentialDecay(initialDiagnoses);
+    /**
+     * Load the resources and prepare the differential diagnosis engine, once for all analyses of the command.
+     */
+    protected AnalysisResources loadAnalysisResources(String ddEngine, ScoringMode scoringMode) throws Exception {
+        MaxodiffDataResolver maxodiffDataResolver = MaxodiffDataResolver.of(maxoDataPath);
+        // The resources are loaded from the snapshot of the data directory, if it is up-to-date.
+        MaxodiffPropsConfiguration maxodiffPropsConfiguration = MaxodiffPropsConfiguration.createConfig(maxodiffDataResolver, maxoTermExecutor());
+        DiffDiagRefiner maxoDiffRefiner = maxodiffPropsConfiguration.diffDiagRefiner("score");
+
+        DifferentialDiagnosisEngine engine = null;
+        LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer = null;
+        if (ddEngine.equals("lirical")) {
+            Lirical lirical = prepareLirical();
+            PhenotypeService phenotypeService = lirical.phenotypeService();
+            Set<TermId> liricalDiseaseIds = lirical.phenotypeService().diseases().diseaseIds();
+            MaxodiffLiricalAnalysisRunner maxodiffLiricalAnalysisRunner = MaxodiffLiricalAnalysisRunnerImpl.of(phenotypeService, liricalParallelism());
+            liricalDifferentialDiagnosisEngineConfigurer = LiricalDifferentialDiagnosisEngineConfigurer.of(maxodiffLiricalAnalysisRunner);
+            engine = liricalDifferentialDiagnosisEngineConfigurer.configureUniform(liricalDiseaseIds,
+                    runConfiguration.strict, runConfiguration.globalAnalysisMode);
+        } else if (ddEngine.equals("phenomizer")) {
+            LOGGER.info("Loading icMicaDict...");
+            IcMicaLookup icMicaLookup;
+            try {
+                icMicaLookup = IcMicaLookup.of(loadIcMicaData(maxodiffDataResolver).icMicaDict());
+            } catch (NoSuchFileException ex) {
+                throw new Exception(String.join(". ", ex.getMessage(), "Run Download command to download the necessary term-pair-similarity file."));
             }
+            engine = new PhenomizerDifferentialDiagnosisEngine(maxodiffPropsConfiguration.hpoDiseases(), icMicaLookup, scoringMode);
+        } else {
+            throw new Exception("Unknown differential diagnosis engine: " + ddEngine);
+        }
 
-            MaxoHpoTermProbabilities maxoHpoTermProbabilities =
-                    new MaxoHpoTermProbabilities(hpoDiseases,
-                            hpoToMaxoTermMap,
-                            initialDiagnoses,
-                            diseaseModelProbability);
-
-            Set<TermId> initialDiagnosesIds = initialDiagnoses.stream()
-                    .map(DifferentialDiagnosis::diseaseId)
-                    .collect(Collectors.toSet());
-
-            DifferentialDiagnosisEngine diseaseSubsetEngine = null;
-            if (ddEngine.equals("lirical")) {
-                var diseaseSubsetOptions = AnalysisOptions.builder()
-                        .useStrictPenalties(runConfiguration.strict)
-                        .useGlobal(runConfiguration.globalAnalysisMode)
-                        .pretestProbability(PretestDiseaseProbabilities.uniform(initialDiagnosesIds))
-                        .addTargetDiseases(initialDiagnosesIds)
-                        .build();
-                diseaseSubsetEngine = liricalDifferentialDiagnosisEngineConfigurer.configure(diseaseSubsetOptions);
-            } else if (ddEngine.equals("phenomizer")) {
-                diseaseSubsetEngine = engine;
-            }
+        // The diagnoses over all diseases are reused, the other runs are done by the engine.
+        return new AnalysisResources(maxodiffPropsConfiguration, maxoDiffRefiner, ddEngine, diagnosisCache.memoize(engine),
+                liricalDifferentialDiagnosisEngineConfigurer);
+    }
 
+    /**
+     * Read the phenopacket and get its initial differential diagnoses.
+     */
+    protected SampleDiagnoses diagnoseSample(AnalysisResources resources, Path phenopacketPath, String phenopacketName) throws Exception {
+        PhenopacketData phenopacketData = PhenopacketFileParser.readPhenopacketData(phenopacketPath);
+        Sample sample = Sample.of(phenopacketData.sampleId(),
+                phenopacketData.presentHpoTermIds().toList(),
+                phenopacketData.excludedHpoTermIds().toList());
+
+        List<DifferentialDiagnosis> differentialDiagnoses = resources.engine().run(sample);
+        return new SampleDiagnoses(phenopacketName, phenopacketData, sample, differentialDiagnoses);
+    }
 
-            RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities, diseaseSubsetEngine,
-                    minimalOntology, ontology);
+    /**
+     * Rank the MAxO terms for the initial differential diagnoses of a sample.
+     */
+    protected AnalysisResult runSingleMaxodiffAnalysis(AnalysisResources resources, SampleDiagnoses sampleDiagnoses,
+                                                       int nDiseases, int nRepetitions,
+                                                       boolean writeOutputFile, CSVPrinter printer) throws Exception {
+        MaxodiffPropsConfiguration maxodiffPropsConfiguration = resources.maxodiffPropsConfiguration();
+        DiffDiagRefiner maxoDiffRefiner = resources.maxoDiffRefiner();
+        BiometadataService biometadataService = maxodiffPropsConfiguration.biometadataService();
+        String phenopacketName = sampleDiagnoses.phenopacketName();
+        Sample sample = sampleDiagnoses.sample();
+
+        System.out.println("n Diseases = " + nDiseases);
+
+        // Get List of Refinement results: maxo term scores and frequencies
+        RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions, seed, adaptiveRepetitionOptions(),
+                nMaxoTerms(), cancellation());
+        List<DifferentialDiagnosis> orderedDiagnoses = maxoDiffRefiner.getOrderedDiagnoses(sampleDiagnoses.differentialDiagnoses(), options);
+        List<HpoDisease> diseases = maxoDiffRefiner.getDiseases(orderedDiagnoses);
+        Map<TermId, List<HpoFrequency>> hpoTermCounts = maxoDiffRefiner.getHpoTermCounts(diseases);
+
+        List<DifferentialDiagnosis> initialDiagnoses = orderedDiagnoses.subList(0, nDiseases);
+        Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap = maxodiffPropsConfiguration.maxoAnnotsMap();
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = maxoDiffRefiner.getMaxoToHpoTermIdMap(List.of(), hpoTermCounts);
+
+        DiseaseModelProbability diseaseModelProbability = null;
+        switch (diseaseProbModel) {
+            case "ranked" -> diseaseModelProbability = DiseaseModelProbability.ranked(initialDiagnoses);
+            case "softmax" -> diseaseModelProbability = DiseaseModelProbability.softmax(initialDiagnoses);
+            case "expDecay" ->
+                    diseaseModelProbability = DiseaseModelProbability.exponentialDecay(initialDiagnoses);
+        }
 
-            RefinementResults refinementResults = maxoDiffRefiner.run(sample,
-                    orderedDiagnoses,
-                    options,
-                    rankMaxo,
-                    hpoTermCounts,
-                    maxoToHpoTermIdMap);
-            List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults().stream().toList());
-            resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
+        MaxoHpoTermProbabilities maxoHpoTermProbabilities =
+                new MaxoHpoTermProbabilities(maxodiffPropsConfiguration.hpoDiseases(),
+                        hpoToMaxoTermMap,
+                        initialDiagnoses,
+                        diseaseModelProbability,
+                        maxodiffPropsConfiguration.termDictionaries());
+
+        Set<TermId> initialDiagnosesIds = initialDiagnoses.stream()
+                .map(DifferentialDiagnosis::diseaseId)
+                .collect(Collectors.toSet());
+
+        DifferentialDiagnosisEngine diseaseSubsetEngine;
+        if (resources.liricalDifferentialDiagnosisEngineConfigurer() != null) {
+            var diseaseSubsetOptions = AnalysisOptions.builder()
+                    .useStrictPenalties(runConfiguration.strict)
+                    .useGlobal(runConfiguration.globalAnalysisMode)
+                    .pretestProbability(PretestDiseaseProbabilities.uniform(initialDiagnosesIds))
+                    .addTargetDiseases(initialDiagnosesIds)
+                    .build();
+            diseaseSubsetEngine = resources.liricalDifferentialDiagnosisEngineConfigurer().configure(diseaseSubsetOptions);
+        } else {
+            diseaseSubsetEngine = resources.engine();
+        }
 
-            TermId diseaseId = phenopacketData.diseaseIds().getFirst();
-            // Take the MaXo term that has the highest score
-            MaxodiffResult topResult = resultsList.getFirst();
-            String maxScoreMaxoTermId = topResult.rankMaxoScore().maxoId().toString();
-            String maxScoreTermLabel = biometadataService.maxoLabel(maxScoreMaxoTermId).orElse("unknown");
-            double maxScoreValue = topResult.rankMaxoScore().maxoScore();
 
-            System.out.println("Max Score: " + maxScoreMaxoTermId + " (" + maxScoreTermLabel + ")" + " = " + maxScoreValue);
+        RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities, diseaseSubsetEngine,
+                maxodiffPropsConfiguration.minHpo(), maxodiffPropsConfiguration.hpo(), maxoTermExecutor());
+
+        Callable<RefinementResults> refinement = () -> maxoDiffRefiner.run(sample,
+                orderedDiagnoses,
+                options,
+                rankMaxo,
+                hpoTermCounts,
+                maxoToHpoTermIdMap);
+        Optional<RefinementResultsCache> resultCache = resultCache();
+        Optional<String> engineId = resources.engine().configurationId();
+        RefinementResults refinementResults;
+        if (resultCache.isPresent() && engineId.isPresent()) {
+            RefinementCacheKey key = RefinementCacheKey.of(sample, engineId.get(), diseaseProbModel, options,
+                    maxodiffPropsConfiguration.version());
+            refinementResults = resultCache.get().getOrCompute(key, refinement);
+        } else {
+            refinementResults = refinement.call();
+        }
+        List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults().stream().toList());
+        resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
+        if (refinementResults.partial()) {
+            if (resultsList.isEmpty())
+                throw new IllegalStateException("The time limit of %s expired before any MAxO term was scored".formatted(phenopacketName));
+            LOGGER.warn("The time limit of {} expired, reporting {} MAxO terms scored so far", phenopacketName, resultsList.size());
+        }
+
+        TermId diseaseId = sampleDiagnoses.phenopacketData().diseaseIds().getFirst();
+        // Take the MaXo term that has the highest score
+        MaxodiffResult topResult = resultsList.getFirst();
+        TermId maxScoreMaxoTermId = topResult.rankMaxoScore().maxoId();
+        String maxScoreTermLabel = biometadataService.maxoLabel(maxScoreMaxoTermId.toString()).orElse("unknown");
+        double maxScoreValue = topResult.rankMaxoScore().maxoScore();
 
-            Set<TermId> diseaseIds = topResult.rankMaxoScore().maxoOmimTermIds();
-            int topNDiseases = diseaseIds.size();
+        System.out.println("Max Score: " + maxScoreMaxoTermId + " (" + maxScoreTermLabel + ")" + " = " + maxScoreValue);
 
-            if (writeOutputFile) {
-                writeResults(phenopacketName, diseaseId, TermId.of(maxScoreMaxoTermId), maxScoreTermLabel,
-                        topNDiseases, diseaseIds.toString(), nRepetitions, maxScoreValue, printer);
+        Set<TermId> diseaseIds = topResult.rankMaxoScore().maxoOmimTermIds();
+        int topNDiseases = diseaseIds.size();
 
-                String nDiseasesAbbr = String.join("", "n", String.valueOf(nDiseases));
-                String nRepsAbbr = String.join("", "nr", String.valueOf(nRepetitions));
-                String outputFilename = String.join("_", phenopacketName, ddEngine,
-                        nDiseasesAbbr, nRepsAbbr, "maxodiff", "results.html");
-                Path maxodiffResultsHTMLPath = Path.of(String.join(File.separator, outputDir.toString(), outputFilename));
+        if (writeOutputFile) {
+            writeResults(phenopacketName, diseaseId, maxScoreMaxoTermId, maxScoreTermLabel,
+                    topNDiseases, diseaseIds.toString(), nRepetitions, maxScoreValue, refinementResults.partial(), printer);
 
-                String htmlString = HtmlResults.writeHTMLResults(sample, nDiseases, nRepetitions, resultsList,
-                        biometadataService, hpoTermCounts);
+            String nDiseasesAbbr = String.join("", "n", String.valueOf(nDiseases));
+            String nRepsAbbr = String.join("", "nr", String.valueOf(nRepetitions));
+            String outputFilename = String.join("_", phenopacketName, resources.ddEngine(),
+                    nDiseasesAbbr, nRepsAbbr, "maxodiff", "results.html");
+            Path maxodiffResultsHTMLPath = Path.of(String.join(File.separator, outputDir.toString(), outputFilename));
 
-                Files.writeString(maxodiffResultsHTMLPath, htmlString);
-            }
+            String htmlString = HtmlResults.writeHTMLResults(sample, nDiseases, nRepetitions, resultsList,
+                    biometadataService, hpoTermCounts);
 
-            List<Object> phenopacketNames = resultsMap.get("phenopacketName");
-            phenopacketNames.add(phenopacketName);
-            List<Object> diseaseIdList = resultsMap.get("diseaseId");
-            diseaseIdList.add(diseaseId);
-            List<Object> maxScoreMaxoTermIds = resultsMap.get("maxScoreMaxoTermId");
-            maxScoreMaxoTermIds.add(maxScoreMaxoTermId);
-            List<Object> maxScoreTermLabels = resultsMap.get("maxScoreTermLabel");
-            maxScoreTermLabels.add(maxScoreTermLabel);
-            List<Object> topNDiseasesList = resultsMap.get("topNDiseases");
-            topNDiseasesList.add(topNDiseases);
-            List<Object> diseaseIdsList = resultsMap.get("diseaseIds");
-            diseaseIdsList.add(diseaseIds);
-            List<Object> nRepList = resultsMap.get("nRepetitions");
-            nRepList.add(nRepetitions);
-            List<Object> maxScoreValues = resultsMap.get("maxScoreValue");
-            maxScoreValues.add(maxScoreValue);
-
-            resultsMap.replace("phenopacketName", phenopacketNames);
-            resultsMap.replace("diseaseId", diseaseIdList);
-            resultsMap.replace("maxScoreMaxoTermId", maxScoreMaxoTermIds);
-            resultsMap.replace("maxScoreTermLabel", maxScoreTermLabels);
-            resultsMap.replace("topNDiseases", topNDiseasesList);
-            resultsMap.replace("diseaseIds", diseaseIdsList);
-            resultsMap.replace("nRepetitions", nRepList);
-            resultsMap.replace("maxScoreValue", maxScoreValues);
-
-            BatchDiagnosisCommand.setResultsMap(resultsMap);
-        } catch (Exception ex) {
-            System.out.println(ex.getMessage());
-            resultsMap = new HashMap<>();
-            BatchDiagnosisCommand.setResultsMap(resultsMap);
+            Files.writeString(maxodiffResultsHTMLPath, htmlString);
         }
 
+        return new AnalysisResult(phenopacketName, diseaseId, maxScoreMaxoTermId, maxScoreTermLabel,
+                topNDiseases, diseaseIds, nRepetitions, maxScoreValue, refinementResults.partial());
     }
 
 
@@ -347,6 +476,7 @@ public class DifferentialDiagnosisCommand extends BaseCommand {
                                      String diseaseIds,
                                      int nRepetitions,
                                      double score,
+                                     boolean partial,
                                      CSVPrinter printer) {
 
         try {
@@ -358,6 +488,7 @@ public class DifferentialDiagnosisCommand extends BaseCommand {
             printer.print(diseaseIds);
             printer.print(nRepetitions);
             printer.print(score);
+            printer.print(partial);
             printer.println();
         } catch (IOException e) {
             LOGGER.error("Error writing results for {}: {}", diseaseId, e.getMessage(), e);
@@ -90,6 +90,7 @@ public class DownloadCommand implements Callable<Integer>{
         String hpFile = String.join(File.separator, destinationFolder.toString(), "hp.json");
         String hpoaFile = String.join(File.separator, destinationFolder.toString(), "phenotype.hpoa");
         String outputFile = String.join(File.separator, destinationFolder.toString(), "term-pair-similarity.csv.gz");
+        String binaryOutputFile = String.join(File.separator, destinationFolder.toString(), "term-pair-similarity.bin");
 
         String maxodiffDir = System.getProperty("user.dir");
         String maxodiffCliJar = String.join(File.separator, maxodiffDir, "maxodiff-cli", "target", "maxodiff-cli.jar");
@@ -101,7 +102,8 @@ public class DownloadCommand implements Callable<Integer>{
                 "precompute-resnik",
                 "--hpo=" + hpFile,
                 "--hpoa=" + hpoaFile,
-                "--output=" + outputFile
+                "--output=" + outputFile,
+                "--binary-output=" + binaryOutputFile
         };
 
         try {
@@ -2,6 +2,8 @@ package org.monarchinitiative.maxodiff.cli.cmd;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictMetadata;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictWriter;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
 import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoader;
@@ -59,6 +61,10 @@ public class PrecomputeResnikMapCommand implements Callable<Integer> {
     description = "Where to write the term pair similarity table (default: ${DEFAULT-VALUE})")
   public Path output = Path.of("data", "term-pair-similarity.csv.gz");
 
+  @CommandLine.Option(names = {"--binary-output"},
+    description = "Where to also write the memory-mappable binary term pair similarity table (e.g. data/term-pair-similarity.bin)")
+  public Path binaryOutput;
+
   @Override
   public Integer call() throws Exception {
     if (!Files.exists(hpoPath)) {
@@ -97,6 +103,12 @@ public class PrecomputeResnikMapCommand implements Callable<Integer> {
     String hpoaVersion = diseases.version().orElse("N/A");
     writeTermPairMap(termPairResnikSimilarityMap, date, hpoVersion, hpoaVersion);
 
+    if (binaryOutput != null) {
+      LOGGER.info("Writing binary term pair similarity to {}", binaryOutput.toAbsolutePath());
+      IcMicaDictMetadata metadata = new IcMicaDictMetadata(hpoVersion, hpoaVersion, date);
+      IcMicaDictWriter.writeBinary(termPairResnikSimilarityMap, metadata, binaryOutput);
+    }
+
     LOGGER.info("Done!");
     return 0;
   }
@@ -0,0 +1,46 @@
+package org.monarchinitiative.maxodiff.cli.cmd;
+
+import org.monarchinitiative.maxodiff.config.MaxodiffDataResolver;
+import org.monarchinitiative.maxodiff.config.MaxodiffResources;
+import org.monarchinitiative.maxodiff.config.ResourceSnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+/**
+ * Parse the HPO, the HPO annotations and the MAxO diagnostic annotations of the maxodiff data directory
+ * and write them into a binary snapshot that is loaded instead of the source files by the other commands.
+ */
+@CommandLine.Command(name = "snapshot",
+        mixinStandardHelpOptions = true,
+        description = "Write a snapshot of the parsed resources for a fast start-up")
+public class SnapshotCommand implements Callable<Integer> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotCommand.class);
+
+    @CommandLine.Option(names = {"-m", "--maxoData"},
+            description = "Path to the maxodiff data directory (default: ${DEFAULT-VALUE}).")
+    public Path maxoDataPath = Path.of("data");
+
+    @CommandLine.Option(names = {"--output"},
+            description = "Where to write the snapshot (default: maxodiff-resources.snapshot in the data directory)")
+    public Path output;
+
+    @Override
+    public Integer call() throws Exception {
+        MaxodiffDataResolver resolver = MaxodiffDataResolver.of(maxoDataPath);
+        Path snapshot = output == null ? resolver.resourceSnapshot() : output;
+
+        LOGGER.info("Parsing resources from {}", resolver.dataDirectory().toAbsolutePath());
+        MaxodiffResources resources = MaxodiffResources.parse(resolver);
+
+        LOGGER.info("Writing resource snapshot to {}", snapshot.toAbsolutePath());
+        ResourceSnapshotWriter.write(resources, resolver.snapshotSources(), snapshot);
+
+        LOGGER.info("Done!");
+        return 0;
+    }
+}
@@ -0,0 +1,64 @@
+package org.monarchinitiative.maxodiff.cli.cmd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.monarchinitiative.maxodiff.core.io.BatchJournal;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchDiagnosisCommandTest {
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void completeResultIsJournaled() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        String key = BatchJournal.key("PMID_1.json", 20, 10);
+        List<String> row;
+        try (BatchJournal journal = BatchJournal.open(path, "configuration")) {
+            row = BatchDiagnosisCommand.journalResult(journal, key, result(false));
+        }
+
+        assertEquals("false", row.getLast());
+        try (BatchJournal journal = BatchJournal.open(path, "configuration")) {
+            assertEquals(Optional.of(List.of(row)), journal.completedRows(key));
+        }
+    }
+
+    @Test
+    public void partialResultIsNotJournaled() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        String key = BatchJournal.key("PMID_1.json", 20, 10);
+        List<String> row;
+        try (BatchJournal journal = BatchJournal.open(path, "configuration")) {
+            row = BatchDiagnosisCommand.journalResult(journal, key, result(true));
+            assertFalse(journal.isCompleted(key));
+        }
+
+        assertEquals("true", row.getLast());
+        try (BatchJournal journal = BatchJournal.open(path, "configuration")) {
+            assertEquals(0, journal.completedCount());
+            assertEquals(Optional.empty(), journal.completedRows(key));
+        }
+    }
+
+    private static DifferentialDiagnosisCommand.AnalysisResult result(boolean partial) {
+        return new DifferentialDiagnosisCommand.AnalysisResult("PMID_1.json",
+                TermId.of("OMIM:154700"),
+                TermId.of("MAXO:0000428"),
+                "MRI of the chest",
+                2,
+                Set.of(TermId.of("OMIM:154700"), TermId.of("OMIM:616914")),
+                10,
+                1.25,
+                partial);
+    }
+}
@@ -0,0 +1,48 @@
+package org.monarchinitiative.maxodiff.config;
+
+import org.monarchinitiative.phenol.io.OntologyLoader;
+import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the HPO JSON file once per JVM.
+ * <p>
+ * The file is parsed into an {@link Ontology}, which is also used wherever a {@link MinimalOntology} is needed,
+ * instead of parsing the file again with the minimal ontology loader. The ontology is cached by the path
+ * of the file and reused until the file is modified.
+ */
+public final class HpoLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HpoLoader.class);
+
+    private static final Map<Path, LoadedHpo> CACHE = new ConcurrentHashMap<>();
+
+    private HpoLoader() {}
+
+    /**
+     * @param hpoJson path to the {@code hp.json} file.
+     * @return the ontology of the file, loaded by the first call for the file.
+     */
+    public static Ontology load(Path hpoJson) throws IOException {
+        Path path = hpoJson.toRealPath();
+        FileTime lastModified = Files.getLastModifiedTime(path);
+        long size = Files.size(path);
+        return CACHE.compute(path, (p, loaded) -> {
+            if (loaded != null && loaded.lastModified().equals(lastModified) && loaded.size() == size)
+                return loaded;
+            LOGGER.debug("Loading HPO JSON from {}", p);
+            return new LoadedHpo(lastModified, size, OntologyLoader.loadOntology(p.toFile()));
+        }).ontology();
+    }
+
+    private record LoadedHpo(FileTime lastModified, long size, Ontology ontology) {}
+}
@@ -68,6 +68,27 @@ public class MaxodiffDataResolver {
         return dataDirectory.resolve("term-pair-similarity.csv.gz");
     }
 
+    /**
+     * @return path to the memory-mappable binary version of the {@link #icMicaDict()}.
+     */
+    public Path icMicaDictBinary() {
+        return dataDirectory.resolve("term-pair-similarity.bin");
+    }
+
+    /**
+     * @return path to the binary snapshot of the parsed {@link #snapshotSources()}.
+     */
+    public Path resourceSnapshot() {
+        return dataDirectory.resolve("maxodiff-resources.snapshot");
+    }
+
+    /**
+     * @return paths to the source files of the {@link #resourceSnapshot()}.
+     */
+    public List<Path> snapshotSources() {
+        return List.of(hpoJson(), phenotypeAnnotations(), maxoDxAnnots());
+    }
+
     @Override
     public String toString() {
         return "MaxodiffDataResolver{" +
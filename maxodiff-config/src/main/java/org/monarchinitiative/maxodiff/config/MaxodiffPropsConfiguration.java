@@ -1,39 +1,59 @@
 package org.monarchinitiative.maxodiff.config;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoTermExecutor;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.*;
-import org.monarchinitiative.maxodiff.core.io.MaxoDxAnnots;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
-import org.monarchinitiative.maxodiff.core.service.BiometadataServiceImpl;
+import org.monarchinitiative.maxodiff.core.term.TermDictionaries;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
-import org.monarchinitiative.phenol.io.MinimalOntologyLoader;
-import org.monarchinitiative.phenol.io.OntologyLoader;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.*;
 
 
 public record MaxodiffPropsConfiguration(MinimalOntology minHpo, Ontology hpo, HpoDiseases hpoDiseases,
                                          Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap,
-                                         BiometadataService biometadataService) {
+                                         BiometadataService biometadataService,
+                                         MaxoTermExecutor maxoTermExecutor,
+                                         TermDictionaries termDictionaries) {
 
     public static MaxodiffPropsConfiguration createConfig(MaxodiffDataResolver maxodiffDataResolver) throws IOException {
-        MinimalOntology minHpo = MinimalOntologyLoader.loadOntology(maxodiffDataResolver.hpoJson().toFile());
-        Ontology hpo = OntologyLoader.loadOntology(maxodiffDataResolver.hpoJson().toFile());
-        HpoDiseases diseases = HpoDiseaseLoaders.defaultLoader(minHpo, HpoDiseaseLoaderOptions.defaultOptions()).load(maxodiffDataResolver.phenotypeAnnotations());
-        Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap;
-        try (BufferedReader reader = Files.newBufferedReader(maxodiffDataResolver.maxoDxAnnots())) {
-            maxoAnnotsMap = MaxoDxAnnots.parseHpoToMaxo(reader);
-        }
-        BiometadataService biometadataService = BiometadataServiceImpl.of(minHpo, diseases, maxoAnnotsMap);
-        return new MaxodiffPropsConfiguration(minHpo, hpo, diseases, maxoAnnotsMap, biometadataService);
+        return createConfig(maxodiffDataResolver, MaxoTermExecutor.shared());
+    }
+
+    /**
+     * @param maxoTermExecutor executor shared by all {@link DiffDiagRefiner}s made by the configuration.
+     */
+    public static MaxodiffPropsConfiguration createConfig(MaxodiffDataResolver maxodiffDataResolver,
+                                                          MaxoTermExecutor maxoTermExecutor) throws IOException {
+        return createConfig(MaxodiffResources.load(maxodiffDataResolver), maxoTermExecutor);
+    }
+
+    /**
+     * @param resources resources parsed from the data directory or loaded from its snapshot.
+     * @param maxoTermExecutor executor shared by all {@link DiffDiagRefiner}s made by the configuration.
+     */
+    public static MaxodiffPropsConfiguration createConfig(MaxodiffResources resources,
+                                                          MaxoTermExecutor maxoTermExecutor) {
+        Ontology hpo = resources.hpo();
+        MinimalOntology minHpo = hpo;
+        HpoDiseases diseases = resources.hpoDiseases();
+        Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap = resources.maxoAnnotsMap();
+        BiometadataService biometadataService = resources.biometadataService();
+        TermDictionaries termDictionaries = TermDictionaries.of(minHpo, diseases, maxoAnnotsMap);
+        return new MaxodiffPropsConfiguration(minHpo, hpo, diseases, maxoAnnotsMap, biometadataService, maxoTermExecutor,
+                termDictionaries);
+    }
+
+    /**
+     * @return the versions of the HPO and of the HPO annotations.
+     * @see MaxodiffResources#version()
+     */
+    public String version() {
+        return MaxodiffResources.version(hpo, hpoDiseases);
     }
 
     public DiffDiagRefiner diffDiagRefiner(String refiner) {
@@ -53,7 +73,8 @@ public record MaxodiffPropsConfiguration(MinimalOntology minHpo, Ontology hpo, H
         DiffDiagRefiner diffDiagRefiner = null;
 
         if (refiner.equals("score")) {
-            diffDiagRefiner = new MaxoDiffRefiner(hpoDiseases, hpoToMaxoIdMap, maxoAnnotsMap, minHpo, hpo);
+            diffDiagRefiner = new MaxoDiffRefiner(hpoDiseases, hpoToMaxoIdMap, maxoAnnotsMap, minHpo, hpo, maxoTermExecutor,
+                    termDictionaries);
         }
         return diffDiagRefiner;
     }
@@ -0,0 +1,90 @@
+package org.monarchinitiative.maxodiff.config;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.io.MaxoDxAnnots;
+import org.monarchinitiative.maxodiff.core.service.BiometadataService;
+import org.monarchinitiative.maxodiff.core.service.BiometadataServiceImpl;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The parsed resources of the maxodiff data directory: the HPO, the HPO disease annotations
+ * and the HPO to MAxO term map.
+ *
+ * @param hpo the HPO.
+ * @param hpoDiseases the diseases of the {@code phenotype.hpoa} file.
+ * @param maxoAnnotsMap map of the HPO terms to the MAxO terms that can diagnose them.
+ */
+public record MaxodiffResources(Ontology hpo,
+                                HpoDiseases hpoDiseases,
+                                Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap) {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaxodiffResources.class);
+
+    public MaxodiffResources {
+        Objects.requireNonNull(hpo, "HPO must not be null");
+        Objects.requireNonNull(hpoDiseases, "HPO diseases must not be null");
+        Objects.requireNonNull(maxoAnnotsMap, "MAxO annotations map must not be null");
+    }
+
+    /**
+     * Load the resources from the {@link MaxodiffDataResolver#resourceSnapshot()}, if it is present
+     * and was made from the current source files, or parse the source files.
+     */
+    public static MaxodiffResources load(MaxodiffDataResolver resolver) throws IOException {
+        Optional<MaxodiffResources> snapshot = ResourceSnapshotLoader.loadIfCurrent(resolver.resourceSnapshot(), resolver.snapshotSources());
+        if (snapshot.isPresent())
+            return snapshot.get();
+        return parse(resolver);
+    }
+
+    /**
+     * Parse the resources from the source files of the data directory.
+     */
+    public static MaxodiffResources parse(MaxodiffDataResolver resolver) throws IOException {
+        Ontology hpo = HpoLoader.load(resolver.hpoJson());
+        LOGGER.debug("Loading HPO annotations from {}", resolver.phenotypeAnnotations().toAbsolutePath());
+        HpoDiseases diseases = HpoDiseaseLoaders.defaultLoader(hpo, HpoDiseaseLoaderOptions.defaultOptions())
+                .load(resolver.phenotypeAnnotations());
+        return new MaxodiffResources(hpo, diseases, parseMaxoAnnots(resolver.maxoDxAnnots()));
+    }
+
+    private static Map<SimpleTerm, Set<SimpleTerm>> parseMaxoAnnots(Path maxoDxAnnots) throws IOException {
+        LOGGER.debug("Loading MAxO annotations from {}", maxoDxAnnots.toAbsolutePath());
+        try (BufferedReader reader = Files.newBufferedReader(maxoDxAnnots)) {
+            return MaxoDxAnnots.parseHpoToMaxo(reader);
+        }
+    }
+
+    /**
+     * @return the versions of the HPO and of the HPO annotations, e.g. for telling apart the results
+     * computed with different resources.
+     */
+    public String version() {
+        return version(hpo, hpoDiseases);
+    }
+
+    static String version(Ontology hpo, HpoDiseases hpoDiseases) {
+        return "hpo=%s,hpoa=%s".formatted(hpo.version().orElse("N/A"), hpoDiseases.version().orElse("N/A"));
+    }
+
+    /**
+     * @return the labels of the HPO terms, diseases and MAxO terms of the resources.
+     */
+    public BiometadataService biometadataService() {
+        return BiometadataServiceImpl.of(hpo, hpoDiseases, maxoAnnotsMap);
+    }
+}
@@ -0,0 +1,315 @@
+package org.monarchinitiative.maxodiff.config;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.phenol.annotations.base.Ratio;
+import org.monarchinitiative.phenol.annotations.base.temporal.PointInTime;
+import org.monarchinitiative.phenol.annotations.base.temporal.TemporalInterval;
+import org.monarchinitiative.phenol.annotations.formats.AnnotationReference;
+import org.monarchinitiative.phenol.annotations.formats.EvidenceCode;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotationRecord;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Load the {@link MaxodiffResources} from a snapshot written by {@link ResourceSnapshotWriter}.
+ * <p>
+ * The snapshot is memory-mapped and decoded without parsing the JSON and the tabular source files.
+ */
+public class ResourceSnapshotLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceSnapshotLoader.class);
+
+    private ResourceSnapshotLoader() {
+    }
+
+    /**
+     * Load the snapshot if it was made from the current {@code sources}.
+     *
+     * @param snapshot path to the snapshot file.
+     * @param sources the source files of the resources, in the order used to write the snapshot.
+     * @return the resources or an empty optional if the snapshot is missing, out of date or cannot be read.
+     */
+    public static Optional<MaxodiffResources> loadIfCurrent(Path snapshot, List<Path> sources) {
+        if (!Files.isRegularFile(snapshot))
+            return Optional.empty();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            SnapshotReader reader = SnapshotReader.map(channel, snapshot);
+            List<SourceFingerprint> fingerprints = reader.readHeader();
+            if (!isCurrent(fingerprints, sources)) {
+                LOGGER.info("Resource snapshot {} is out of date, run the snapshot command to update it", snapshot.toAbsolutePath());
+                return Optional.empty();
+            }
+            LOGGER.debug("Loading resources from snapshot {}", snapshot.toAbsolutePath());
+            return Optional.of(reader.readResources());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot load resource snapshot {}: {}", snapshot.toAbsolutePath(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Load the snapshot without checking the source files.
+     *
+     * @param snapshot path to the snapshot file.
+     * @throws IOException if the file cannot be read or if it is not a valid resource snapshot.
+     */
+    public static MaxodiffResources load(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            SnapshotReader reader = SnapshotReader.map(channel, snapshot);
+            reader.readHeader();
+            return reader.readResources();
+        }
+    }
+
+    private static boolean isCurrent(List<SourceFingerprint> fingerprints, List<Path> sources) throws IOException {
+        if (fingerprints.size() != sources.size())
+            return false;
+        // Compare the cheap attributes of all files before computing any checksum.
+        for (int i = 0; i < sources.size(); i++) {
+            Path source = sources.get(i);
+            SourceFingerprint fingerprint = fingerprints.get(i);
+            if (!Files.isRegularFile(source)
+                    || !source.getFileName().toString().equals(fingerprint.name())
+                    || Files.size(source) != fingerprint.size())
+                return false;
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            if (!SourceFingerprint.of(sources.get(i)).equals(fingerprints.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private static class SnapshotReader {
+
+        private final ByteBuffer buffer;
+        private final Path path;
+        private final Map<String, TermId> termIds = new HashMap<>();
+        private String hpoaVersion;
+
+        private SnapshotReader(ByteBuffer buffer, Path path) {
+            this.buffer = buffer;
+            this.path = path;
+        }
+
+        private static SnapshotReader map(FileChannel channel, Path path) throws IOException {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("%s is too large to be a resource snapshot".formatted(path));
+            // The mapping remains valid after the channel is closed.
+            return new SnapshotReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), path);
+        }
+
+        private List<SourceFingerprint> readHeader() throws IOException {
+            byte[] magic = new byte[ResourceSnapshotWriter.MAGIC.length];
+            checkRemaining(magic.length + Integer.BYTES);
+            buffer.get(magic);
+            if (!Arrays.equals(magic, ResourceSnapshotWriter.MAGIC))
+                throw new IOException("%s is not a resource snapshot".formatted(path));
+            int version = buffer.getInt();
+            if (version != ResourceSnapshotWriter.VERSION)
+                throw new IOException("Unsupported resource snapshot format version %d in %s".formatted(version, path));
+
+            int nSources = readCount();
+            List<SourceFingerprint> fingerprints = new ArrayList<>(nSources);
+            for (int i = 0; i < nSources; i++) {
+                String name = readString();
+                checkRemaining(2 * Long.BYTES);
+                fingerprints.add(new SourceFingerprint(name, buffer.getLong(), buffer.getLong()));
+            }
+            // The HPO version is part of the meta info.
+            readString();
+            hpoaVersion = readString();
+            return fingerprints;
+        }
+
+        private MaxodiffResources readResources() throws IOException {
+            // Building the ontology graph takes about as long as decoding the rest of the file.
+            CompletableFuture<Ontology> hpo = CompletableFuture.supplyAsync(readOntology()::build);
+            HpoDiseases diseases = readDiseases();
+            Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap = readMaxoAnnots();
+            if (buffer.hasRemaining())
+                throw new IOException("Unexpected %d bytes at the end of %s".formatted(buffer.remaining(), path));
+            try {
+                return new MaxodiffResources(hpo.join(), diseases, maxoAnnotsMap);
+            } catch (CompletionException e) {
+                throw new IOException("Cannot build the ontology of %s".formatted(path), e.getCause());
+            }
+        }
+
+        private ImmutableOntology.Builder readOntology() throws IOException {
+            int nMetaInfo = readCount();
+            Map<String, String> metaInfo = new HashMap<>();
+            for (int i = 0; i < nMetaInfo; i++) {
+                metaInfo.put(readString(), readString());
+            }
+
+            int nTerms = readCount();
+            List<Term> terms = new ArrayList<>(nTerms);
+            for (int i = 0; i < nTerms; i++) {
+                Term.Builder builder = Term.builder(readTermId())
+                        .name(readString())
+                        .definition(readString())
+                        .comment(readString());
+                checkRemaining(1);
+                builder.obsolete(buffer.get() != 0)
+                        .altTermIds(readTermIds());
+                terms.add(builder.build());
+            }
+
+            int nTypes = readCount();
+            List<RelationshipType> types = new ArrayList<>(nTypes);
+            for (int i = 0; i < nTypes; i++) {
+                types.add(RelationshipType.of(readString(), readString()));
+            }
+
+            int nRelationships = readCount();
+            checkRemaining((long) nRelationships * 4 * Integer.BYTES);
+            List<Relationship> relationships = new ArrayList<>(nRelationships);
+            for (int i = 0; i < nRelationships; i++) {
+                Term source = terms.get(checkIndex(buffer.getInt(), nTerms));
+                Term target = terms.get(checkIndex(buffer.getInt(), nTerms));
+                int id = buffer.getInt();
+                RelationshipType type = types.get(checkIndex(buffer.getInt(), nTypes));
+                relationships.add(new Relationship(source.id(), target.id(), id, type));
+            }
+
+            return ImmutableOntology.builder()
+                    .metaInfo(metaInfo)
+                    .terms(terms)
+                    .relationships(relationships);
+        }
+
+        private HpoDiseases readDiseases() throws IOException {
+            int nDiseases = readCount();
+            List<HpoDisease> diseases = new ArrayList<>(nDiseases);
+            for (int i = 0; i < nDiseases; i++) {
+                TermId diseaseId = readTermId();
+                String name = readString();
+                checkRemaining(1);
+                TemporalInterval onset = buffer.get() != 0
+                        ? TemporalInterval.of(readPoint(), readPoint())
+                        : null;
+                List<TermId> modesOfInheritance = readTermIds();
+
+                int nAnnotations = readCount();
+                List<HpoDiseaseAnnotation> annotations = new ArrayList<>(nAnnotations);
+                for (int j = 0; j < nAnnotations; j++) {
+                    TermId termId = readTermId();
+                    checkRemaining(2 * Integer.BYTES);
+                    Ratio ratio = Ratio.of(buffer.getInt(), buffer.getInt());
+                    checkRemaining(1);
+                    TemporalInterval interval = buffer.get() != 0
+                            ? TemporalInterval.of(readPoint(), readPoint())
+                            : null;
+                    List<TermId> modifiers = readTermIds();
+                    int nReferences = readCount();
+                    List<AnnotationReference> references = new ArrayList<>(nReferences);
+                    for (int k = 0; k < nReferences; k++) {
+                        references.add(AnnotationReference.of(readTermId(), EvidenceCode.valueOf(readString())));
+                    }
+                    HpoDiseaseAnnotationRecord record = HpoDiseaseAnnotationRecord.of(ratio, interval, references, null, modifiers);
+                    annotations.add(HpoDiseaseAnnotation.of(termId, List.of(record)));
+                }
+                diseases.add(HpoDisease.of(diseaseId, name, onset, annotations, modesOfInheritance));
+            }
+            return hpoaVersion == null
+                    ? HpoDiseases.of(diseases)
+                    : HpoDiseases.of(hpoaVersion, diseases);
+        }
+
+        private PointInTime readPoint() throws IOException {
+            checkRemaining(1);
+            byte kind = buffer.get();
+            return switch (kind) {
+                case ResourceSnapshotWriter.OPEN_START -> PointInTime.openStart();
+                case ResourceSnapshotWriter.OPEN_END -> PointInTime.openEnd();
+                case ResourceSnapshotWriter.CLOSED_POINT -> {
+                    checkRemaining(Integer.BYTES + 1);
+                    int days = buffer.getInt();
+                    yield PointInTime.of(days, buffer.get() != 0);
+                }
+                default -> throw new IOException("Invalid point in time kind %d in %s".formatted(kind, path));
+            };
+        }
+
+        private Map<SimpleTerm, Set<SimpleTerm>> readMaxoAnnots() throws IOException {
+            int nHpoTerms = readCount();
+            Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap = new HashMap<>();
+            for (int i = 0; i < nHpoTerms; i++) {
+                SimpleTerm hpoTerm = new SimpleTerm(readTermId(), readString());
+                int nMaxoTerms = readCount();
+                Set<SimpleTerm> maxoTerms = new HashSet<>();
+                for (int j = 0; j < nMaxoTerms; j++) {
+                    maxoTerms.add(new SimpleTerm(readTermId(), readString()));
+                }
+                maxoAnnotsMap.put(hpoTerm, maxoTerms);
+            }
+            return maxoAnnotsMap;
+        }
+
+        private List<TermId> readTermIds() throws IOException {
+            int n = readCount();
+            List<TermId> termIds = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                termIds.add(readTermId());
+            }
+            return termIds;
+        }
+
+        private TermId readTermId() throws IOException {
+            String value = readString();
+            if (value == null)
+                throw new IOException("Missing term id in %s".formatted(path));
+            // The same terms annotate many diseases.
+            return termIds.computeIfAbsent(value, TermId::of);
+        }
+
+        private int readCount() throws IOException {
+            checkRemaining(Integer.BYTES);
+            int count = buffer.getInt();
+            if (count < 0)
+                throw new IOException("Invalid count %d in %s".formatted(count, path));
+            return count;
+        }
+
+        private int checkIndex(int index, int size) throws IOException {
+            if (index < 0 || index >= size)
+                throw new IOException("Invalid index %d in %s".formatted(index, path));
+            return index;
+        }
+
+        private String readString() throws IOException {
+            checkRemaining(Integer.BYTES);
+            int length = buffer.getInt();
+            if (length == -1)
+                return null;
+            if (length < 0)
+                throw new IOException("Invalid string length %d in %s".formatted(length, path));
+            checkRemaining(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void checkRemaining(long length) throws IOException {
+            if (buffer.remaining() < length)
+                throw new IOException("Unexpected end of file %s".formatted(path));
+        }
+    }
+}
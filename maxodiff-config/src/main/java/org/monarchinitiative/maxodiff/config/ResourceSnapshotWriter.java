@@ -0,0 +1,238 @@
+package org.monarchinitiative.maxodiff.config;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.phenol.annotations.base.temporal.PointInTime;
+import org.monarchinitiative.phenol.annotations.base.temporal.TemporalInterval;
+import org.monarchinitiative.phenol.annotations.formats.AnnotationReference;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Write the {@link MaxodiffResources} into a binary snapshot that can be loaded by {@link ResourceSnapshotLoader}
+ * much faster than parsing the source files.
+ * <p>
+ * The file consists of (all numbers are big-endian):
+ * <ul>
+ *     <li>magic bytes <code>MXRESSNP</code> and the format version (<code>int</code>),</li>
+ *     <li>the name, size (<code>long</code>) and CRC32C checksum (<code>long</code>) of each source file,</li>
+ *     <li>the HPO and HPOA versions,</li>
+ *     <li>the HPO meta info, terms, relationship types and relationships,
+ *     where the relationships refer to the terms and the types by their index,</li>
+ *     <li>the diseases with their onset, modes of inheritance and phenotype annotations,</li>
+ *     <li>the HPO to MAxO term map with the term labels.</li>
+ * </ul>
+ * Strings are written as the number of the UTF-8 bytes (<code>int</code>, <code>-1</code> for <code>null</code>)
+ * followed by the bytes.
+ * <p>
+ * The snapshot keeps what maxodiff uses. The terms are stored without synonyms and cross-references,
+ * and each disease annotation keeps its aggregated frequency, modifiers, references,
+ * the earliest onset and the latest resolution, instead of the individual annotation records.
+ */
+public class ResourceSnapshotWriter {
+
+    static final byte[] MAGIC = "MXRESSNP".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    static final byte CLOSED_POINT = 0;
+    static final byte OPEN_START = 1;
+    static final byte OPEN_END = 2;
+
+    private ResourceSnapshotWriter() {
+    }
+
+    /**
+     * Write the resources into a snapshot file.
+     * <p>
+     * The snapshot is written into a temporary file first, and then moved to the {@code path},
+     * hence a concurrent reader never sees an incomplete snapshot.
+     *
+     * @param resources resources parsed from the {@code sources}.
+     * @param sources the source files of the resources, to decide if the snapshot is up-to-date.
+     * @param path destination path.
+     */
+    public static void write(MaxodiffResources resources, List<Path> sources, Path path) throws IOException {
+        List<SourceFingerprint> fingerprints = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            fingerprints.add(SourceFingerprint.of(source));
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                write(resources, fingerprints, os);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static void write(MaxodiffResources resources, List<SourceFingerprint> fingerprints, OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(fingerprints.size());
+        for (SourceFingerprint fingerprint : fingerprints) {
+            writeString(out, fingerprint.name());
+            out.writeLong(fingerprint.size());
+            out.writeLong(fingerprint.checksum());
+        }
+        writeString(out, resources.hpo().version().orElse(null));
+        writeString(out, resources.hpoDiseases().version().orElse(null));
+
+        writeOntology(out, resources.hpo());
+        writeDiseases(out, resources.hpoDiseases());
+        writeMaxoAnnots(out, resources.maxoAnnotsMap());
+        out.flush();
+    }
+
+    private static void writeOntology(DataOutputStream out, Ontology hpo) throws IOException {
+        Map<String, String> metaInfo = hpo.getMetaInfo();
+        out.writeInt(metaInfo.size());
+        for (Map.Entry<String, String> e : metaInfo.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+
+        // The term map includes the alternate ids of the terms, but not the obsolete terms.
+        // Only the ids of the obsolete terms are kept by the ontology, hence the terms are written without a name.
+        Map<TermId, Integer> termIndices = new HashMap<>();
+        List<Term> terms = new ArrayList<>();
+        for (Term term : hpo.getTerms()) {
+            if (termIndices.putIfAbsent(term.id(), terms.size()) == null)
+                terms.add(term);
+        }
+        for (TermId obsoleteId : hpo.obsoleteTermIds()) {
+            if (termIndices.putIfAbsent(obsoleteId, terms.size()) == null)
+                terms.add(Term.builder(obsoleteId).name("").obsolete(true).build());
+        }
+        out.writeInt(terms.size());
+        for (Term term : terms) {
+            writeString(out, term.id().getValue());
+            writeString(out, term.getName());
+            writeString(out, term.getDefinition());
+            writeString(out, term.getComment());
+            out.writeBoolean(term.isObsolete());
+            writeTermIds(out, term.getAltTermIds());
+        }
+
+        Collection<Relationship> relationships = hpo.getRelationMap().values();
+        Map<String, Integer> typeIndices = new HashMap<>();
+        List<RelationshipType> types = new ArrayList<>();
+        for (Relationship relationship : relationships) {
+            RelationshipType type = relationship.getRelationshipType();
+            if (typeIndices.putIfAbsent(type.id(), types.size()) == null)
+                types.add(type);
+        }
+        out.writeInt(types.size());
+        for (RelationshipType type : types) {
+            writeString(out, type.id());
+            writeString(out, type.label());
+        }
+
+        out.writeInt(relationships.size());
+        for (Relationship relationship : relationships) {
+            out.writeInt(termIndex(termIndices, relationship.getSource()));
+            out.writeInt(termIndex(termIndices, relationship.getTarget()));
+            out.writeInt(relationship.getId());
+            out.writeInt(typeIndices.get(relationship.getRelationshipType().id()));
+        }
+    }
+
+    private static int termIndex(Map<TermId, Integer> termIndices, TermId termId) throws IOException {
+        Integer index = termIndices.get(termId);
+        if (index == null)
+            throw new IOException("Relationship refers to term %s missing from the ontology".formatted(termId.getValue()));
+        return index;
+    }
+
+    private static void writeDiseases(DataOutputStream out, HpoDiseases hpoDiseases) throws IOException {
+        List<HpoDisease> diseases = hpoDiseases.hpoDiseases().toList();
+        out.writeInt(diseases.size());
+        for (HpoDisease disease : diseases) {
+            writeString(out, disease.id().getValue());
+            writeString(out, disease.diseaseName());
+            Optional<TemporalInterval> diseaseOnset = disease.diseaseOnset();
+            out.writeBoolean(diseaseOnset.isPresent());
+            if (diseaseOnset.isPresent()) {
+                writePoint(out, diseaseOnset.get().start());
+                writePoint(out, diseaseOnset.get().end());
+            }
+            writeTermIds(out, disease.modesOfInheritance());
+
+            Collection<HpoDiseaseAnnotation> annotations = disease.annotations();
+            out.writeInt(annotations.size());
+            for (HpoDiseaseAnnotation annotation : annotations) {
+                writeString(out, annotation.id().getValue());
+                out.writeInt(annotation.ratio().numerator());
+                out.writeInt(annotation.ratio().denominator());
+                Optional<PointInTime> onset = annotation.earliestOnset();
+                out.writeBoolean(onset.isPresent());
+                if (onset.isPresent()) {
+                    writePoint(out, onset.get());
+                    writePoint(out, annotation.latestResolution().orElse(PointInTime.openEnd()));
+                }
+                writeTermIds(out, annotation.modifiers());
+                List<AnnotationReference> references = annotation.references();
+                out.writeInt(references.size());
+                for (AnnotationReference reference : references) {
+                    writeString(out, reference.id().getValue());
+                    writeString(out, reference.evidenceCode().name());
+                }
+            }
+        }
+    }
+
+    private static void writePoint(DataOutputStream out, PointInTime point) throws IOException {
+        if (point.isOpen()) {
+            // Open points cannot be created from their days.
+            out.writeByte(point.days() < 0 ? OPEN_START : OPEN_END);
+        } else {
+            out.writeByte(CLOSED_POINT);
+            out.writeInt(point.days());
+            out.writeBoolean(point.isGestational());
+        }
+    }
+
+    private static void writeMaxoAnnots(DataOutputStream out, Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap) throws IOException {
+        out.writeInt(maxoAnnotsMap.size());
+        for (Map.Entry<SimpleTerm, Set<SimpleTerm>> e : maxoAnnotsMap.entrySet()) {
+            writeSimpleTerm(out, e.getKey());
+            out.writeInt(e.getValue().size());
+            for (SimpleTerm maxoTerm : e.getValue()) {
+                writeSimpleTerm(out, maxoTerm);
+            }
+        }
+    }
+
+    private static void writeSimpleTerm(DataOutputStream out, SimpleTerm term) throws IOException {
+        writeString(out, term.tid().getValue());
+        writeString(out, term.label());
+    }
+
+    private static void writeTermIds(DataOutputStream out, Collection<TermId> termIds) throws IOException {
+        out.writeInt(termIds.size());
+        for (TermId termId : termIds) {
+            writeString(out, termId.getValue());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
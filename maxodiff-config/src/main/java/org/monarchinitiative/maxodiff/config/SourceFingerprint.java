@@ -0,0 +1,31 @@
+package org.monarchinitiative.maxodiff.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * The name, size and CRC32C checksum of a source file of a resource snapshot.
+ */
+record SourceFingerprint(String name, long size, long checksum) {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    static SourceFingerprint of(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                size += buffer.remaining();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new SourceFingerprint(path.getFileName().toString(), size, crc.getValue());
+    }
+}
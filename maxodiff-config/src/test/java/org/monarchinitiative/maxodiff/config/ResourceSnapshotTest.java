@@ -0,0 +1,161 @@
+package org.monarchinitiative.maxodiff.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.io.MaxoDxAnnots;
+import org.monarchinitiative.phenol.annotations.base.temporal.PointInTime;
+import org.monarchinitiative.phenol.annotations.base.temporal.TemporalInterval;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
+import org.monarchinitiative.phenol.io.OntologyLoader;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.Term;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceSnapshotTest {
+
+    private static final Path TEST_BASE = Path.of("..", "maxodiff-core", "src", "test", "resources");
+    private static final Path HPO_PATH = TEST_BASE.resolve("hp.v2024-04-26.json.gz");
+    private static final Path ANNOTATION_PATH = TEST_BASE.resolve("phenotype.v2024-01-16.hpoa.gz");
+    private static final Path MAXO_DIAGNOSTIC_ANNOTATIONS_PATH = TEST_BASE.resolve("maxo_diagnostic_annotations.v2023-06-11.tsv.gz");
+    private static final List<Path> SOURCES = List.of(HPO_PATH, ANNOTATION_PATH, MAXO_DIAGNOSTIC_ANNOTATIONS_PATH);
+
+    @TempDir
+    public static Path TEMP_DIR;
+
+    private static MaxodiffResources RESOURCES;
+    private static Path SNAPSHOT;
+
+    @BeforeAll
+    public static void beforeAll() throws IOException {
+        Ontology hpo;
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(HPO_PATH))) {
+            hpo = OntologyLoader.loadOntology(is);
+        }
+        HpoDiseases diseases;
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(ANNOTATION_PATH))) {
+            diseases = HpoDiseaseLoaders.defaultLoader(hpo, HpoDiseaseLoaderOptions.defaultOptions()).load(is);
+        }
+        Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(MAXO_DIAGNOSTIC_ANNOTATIONS_PATH))))) {
+            maxoAnnotsMap = MaxoDxAnnots.parseHpoToMaxo(reader);
+        }
+        RESOURCES = new MaxodiffResources(hpo, diseases, maxoAnnotsMap);
+        SNAPSHOT = TEMP_DIR.resolve("maxodiff-resources.snapshot");
+        ResourceSnapshotWriter.write(RESOURCES, SOURCES, SNAPSHOT);
+    }
+
+    @Test
+    public void ontologyRoundTrips() throws IOException {
+        Ontology expected = RESOURCES.hpo();
+        Ontology actual = ResourceSnapshotLoader.load(SNAPSHOT).hpo();
+
+        assertEquals(expected.version(), actual.version());
+        assertEquals(expected.getAllTermIds(), actual.getAllTermIds());
+        assertEquals(expected.getNonObsoleteTermIds(), actual.getNonObsoleteTermIds());
+        assertEquals(expected.getRootTermId(), actual.getRootTermId());
+        for (TermId termId : expected.getNonObsoleteTermIds()) {
+            Term term = expected.getTermMap().get(termId);
+            assertEquals(term.getName(), actual.getTermMap().get(termId).getName());
+            assertEquals(term.getDefinition(), actual.getTermMap().get(termId).getDefinition());
+            assertEquals(expected.graph().getChildren(termId), actual.graph().getChildren(termId), termId.getValue());
+            assertEquals(expected.graph().getParents(termId), actual.graph().getParents(termId), termId.getValue());
+        }
+        // An alternate id resolves to its primary term.
+        TermId altId = TermId.of("HP:0001639");
+        assertEquals(expected.getPrimaryTermId(altId), actual.getPrimaryTermId(altId));
+    }
+
+    @Test
+    public void diseasesRoundTrip() throws IOException {
+        HpoDiseases expected = RESOURCES.hpoDiseases();
+        HpoDiseases actual = ResourceSnapshotLoader.load(SNAPSHOT).hpoDiseases();
+
+        assertEquals(expected.version(), actual.version());
+        assertEquals(expected.size(), actual.size());
+        for (HpoDisease disease : expected) {
+            HpoDisease loaded = actual.diseaseById(disease.id()).orElseThrow();
+            assertEquals(disease.diseaseName(), loaded.diseaseName());
+            assertEquals(disease.diseaseOnset().map(ResourceSnapshotTest::points), loaded.diseaseOnset().map(ResourceSnapshotTest::points));
+            assertEquals(disease.modesOfInheritance(), loaded.modesOfInheritance());
+            assertEquals(disease.annotationCount(), loaded.annotationCount());
+
+            Iterator<HpoDiseaseAnnotation> loadedAnnotations = loaded.annotations().iterator();
+            for (HpoDiseaseAnnotation annotation : disease.annotations()) {
+                HpoDiseaseAnnotation loadedAnnotation = loadedAnnotations.next();
+                assertEquals(annotation.id(), loadedAnnotation.id());
+                assertEquals(annotation.ratio().numerator(), loadedAnnotation.ratio().numerator());
+                assertEquals(annotation.ratio().denominator(), loadedAnnotation.ratio().denominator());
+                assertEquals(annotation.frequency(), loadedAnnotation.frequency());
+                assertEquals(annotation.earliestOnset().map(ResourceSnapshotTest::point), loadedAnnotation.earliestOnset().map(ResourceSnapshotTest::point));
+                assertEquals(annotation.latestResolution().map(ResourceSnapshotTest::point), loadedAnnotation.latestResolution().map(ResourceSnapshotTest::point));
+                assertEquals(annotation.modifiers(), loadedAnnotation.modifiers());
+                assertEquals(annotation.references(), loadedAnnotation.references());
+            }
+        }
+    }
+
+    // The points of the source files are ages, the points of the snapshot are plain points in time.
+    private static List<String> points(TemporalInterval interval) {
+        return List.of(point(interval.start()), point(interval.end()));
+    }
+
+    private static String point(PointInTime point) {
+        return "%d/%s/%s".formatted(point.days(), point.isGestational(), point.isOpen());
+    }
+
+    @Test
+    public void maxoAnnotationsAndLabelsRoundTrip() throws IOException {
+        MaxodiffResources actual = ResourceSnapshotLoader.load(SNAPSHOT);
+
+        assertEquals(RESOURCES.maxoAnnotsMap(), actual.maxoAnnotsMap());
+        assertEquals(RESOURCES.biometadataService().hpoLabel(TermId.of("HP:0001629")), actual.biometadataService().hpoLabel(TermId.of("HP:0001629")));
+        assertEquals(RESOURCES.biometadataService().diseaseLabel(TermId.of("OMIM:256000")), actual.biometadataService().diseaseLabel(TermId.of("OMIM:256000")));
+    }
+
+    @Test
+    public void currentSnapshotIsLoaded() {
+        Optional<MaxodiffResources> loaded = ResourceSnapshotLoader.loadIfCurrent(SNAPSHOT, SOURCES);
+
+        assertTrue(loaded.isPresent());
+    }
+
+    @Test
+    public void snapshotOfOtherSourcesIsNotLoaded() throws IOException {
+        Path hpoa = TEMP_DIR.resolve(ANNOTATION_PATH.getFileName());
+        Files.copy(ANNOTATION_PATH, hpoa);
+        assertTrue(ResourceSnapshotLoader.loadIfCurrent(SNAPSHOT, List.of(HPO_PATH, hpoa, MAXO_DIAGNOSTIC_ANNOTATIONS_PATH)).isPresent());
+
+        // Same size, different content.
+        byte[] content = Files.readAllBytes(hpoa);
+        content[content.length / 2] ^= 1;
+        Files.write(hpoa, content);
+        assertTrue(ResourceSnapshotLoader.loadIfCurrent(SNAPSHOT, List.of(HPO_PATH, hpoa, MAXO_DIAGNOSTIC_ANNOTATIONS_PATH)).isEmpty());
+
+        assertTrue(ResourceSnapshotLoader.loadIfCurrent(SNAPSHOT, List.of(HPO_PATH, MAXO_DIAGNOSTIC_ANNOTATIONS_PATH)).isEmpty());
+        assertTrue(ResourceSnapshotLoader.loadIfCurrent(TEMP_DIR.resolve("missing.snapshot"), SOURCES).isEmpty());
+    }
+
+    @Test
+    public void truncatedSnapshotIsNotLoaded() throws IOException {
+        Path truncated = TEMP_DIR.resolve("truncated.snapshot");
+        byte[] content = Files.readAllBytes(SNAPSHOT);
+        Files.write(truncated, Arrays.copyOf(content, content.length - 10));
+
+        assertThrows(IOException.class, () -> ResourceSnapshotLoader.load(truncated));
+        assertTrue(ResourceSnapshotLoader.loadIfCurrent(truncated, SOURCES).isEmpty());
+    }
+}
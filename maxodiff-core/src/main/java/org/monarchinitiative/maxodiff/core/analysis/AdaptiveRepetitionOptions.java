@@ -0,0 +1,49 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+/**
+ * Options of the adaptive allocation of the Monte-Carlo repetitions to the MAxO terms.
+ * <p>
+ * In the adaptive mode, all MAxO terms start with {@code initialRepetitions} and the number of repetitions
+ * of the remaining terms doubles in each round, up to the requested number of repetitions.
+ * After each round, the terms whose confidence interval of the mean score lies below the lower bounds
+ * of {@code topN} other terms are dropped, since they cannot reach the top of the ranking.
+ *
+ * @param enabled {@code true} if the repetitions should be allocated adaptively.
+ * @param initialRepetitions the number of repetitions of each MAxO term in the first round, at least 2.
+ * @param topN the number of the top ranked MAxO terms whose order should be preserved.
+ * @param zScore the half-width of the confidence interval of the mean score in standard errors.
+ */
+public record AdaptiveRepetitionOptions(boolean enabled, int initialRepetitions, int topN, double zScore) {
+
+    public static final int DEFAULT_INITIAL_REPETITIONS = 3;
+    public static final int DEFAULT_TOP_N = 10;
+    public static final double DEFAULT_Z_SCORE = 3.;
+
+    private static final AdaptiveRepetitionOptions DEFAULT = new AdaptiveRepetitionOptions(true,
+            DEFAULT_INITIAL_REPETITIONS, DEFAULT_TOP_N, DEFAULT_Z_SCORE);
+    private static final AdaptiveRepetitionOptions DISABLED = new AdaptiveRepetitionOptions(false,
+            DEFAULT_INITIAL_REPETITIONS, DEFAULT_TOP_N, DEFAULT_Z_SCORE);
+
+    /**
+     * @return the adaptive mode with the default parameters.
+     */
+    public static AdaptiveRepetitionOptions defaultOptions() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return options that run all repetitions of all MAxO terms.
+     */
+    public static AdaptiveRepetitionOptions disabled() {
+        return DISABLED;
+    }
+
+    public AdaptiveRepetitionOptions {
+        if (initialRepetitions < 2)
+            throw new IllegalArgumentException("Initial repetitions must be at least 2: " + initialRepetitions);
+        if (topN < 1)
+            throw new IllegalArgumentException("Top N must be positive: " + topN);
+        if (!(zScore >= 0.))
+            throw new IllegalArgumentException("Z score must not be negative: " + zScore);
+    }
+}
@@ -0,0 +1,265 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Allocates the Monte-Carlo repetitions of the MAxO term evaluations adaptively, in the successive halving style.
+ * <p>
+ * All terms start with {@link AdaptiveRepetitionOptions#initialRepetitions()} repetitions. After each round,
+ * the terms that cannot reach the top N of the ranking are dropped, and the number of repetitions
+ * of the remaining terms is doubled, until the terms are evaluated with all repetitions.
+ * A term is dropped if the upper bound of the confidence interval of its mean score is below
+ * the N-th greatest lower bound. The repetitions of a term are the same in the adaptive and the exhaustive mode,
+ * hence the adaptive mode only skips the repetitions of the dropped terms.
+ * If the adaptive mode is disabled, all repetitions of all terms are run in a single round.
+ * <p>
+ * The repetitions check the {@link CancellationToken}. When the token stops, no further repetitions are run,
+ * and the terms are scored with the repetitions run so far.
+ *
+ * @see AdaptiveRepetitionOptions
+ */
+public final class AdaptiveRepetitionScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveRepetitionScheduler.class);
+
+    private final MaxoTermExecutor executor;
+    private final AdaptiveRepetitionOptions options;
+    private final CancellationToken cancellation;
+
+    public AdaptiveRepetitionScheduler(MaxoTermExecutor executor, AdaptiveRepetitionOptions options) {
+        this(executor, options, CancellationToken.none());
+    }
+
+    /**
+     * @param cancellation stops the evaluation of the MAxO terms between the repetitions.
+     */
+    public AdaptiveRepetitionScheduler(MaxoTermExecutor executor, AdaptiveRepetitionOptions options,
+                                       CancellationToken cancellation) {
+        this.executor = Objects.requireNonNull(executor);
+        this.options = Objects.requireNonNull(options);
+        this.cancellation = Objects.requireNonNull(cancellation);
+    }
+
+    /**
+     * Evaluate the MAxO terms.
+     *
+     * @param evaluations the evaluations of the MAxO terms.
+     * @param onFinished called with the MAxO term id when the evaluation of the term is completed or dropped.
+     * @return the scores of the MAxO terms sorted in descending order by score. The scores of the dropped terms
+     * are based on the repetitions run so far. The terms whose evaluation failed are omitted.
+     */
+    public List<RankMaxoScore> evaluate(List<EvaluateMaxoTerm> evaluations,
+                                        Consumer<TermId> onFinished) throws InterruptedException {
+        return evaluate(evaluations, Integer.MAX_VALUE, onFinished);
+    }
+
+    /**
+     * Evaluate the MAxO terms and summarize the {@code nResults} terms with the greatest scores.
+     * The other terms are only scored, the explanatory fields of their {@link RankMaxoScore} are not computed.
+     *
+     * @param evaluations the evaluations of the MAxO terms.
+     * @param nResults the maximum number of the returned scores.
+     * @param onFinished called with the MAxO term id when the evaluation of the term is completed or dropped.
+     * @return the scores of at most {@code nResults} MAxO terms sorted in descending order by score.
+     * The scores of the dropped terms are based on the repetitions run so far.
+     * The terms whose evaluation failed are omitted.
+     */
+    public List<RankMaxoScore> evaluate(List<EvaluateMaxoTerm> evaluations,
+                                        int nResults,
+                                        Consumer<TermId> onFinished) throws InterruptedException {
+        return rank(evaluations, nResults, onFinished).scores();
+    }
+
+    /**
+     * Evaluate the MAxO terms until all are evaluated or the {@link CancellationToken} stops,
+     * and summarize the {@code nResults} terms with the greatest scores.
+     *
+     * @param evaluations the evaluations of the MAxO terms.
+     * @param nResults the maximum number of the returned scores.
+     * @param onFinished called with the MAxO term id when the evaluation of the term is completed, dropped,
+     *                   or stopped.
+     * @return the scores of at most {@code nResults} MAxO terms sorted in descending order by score,
+     * flagged as partial if the token stopped the evaluation. The terms whose evaluation failed
+     * or that were stopped before their first repetition are omitted.
+     */
+    public RankMaxoResults rank(List<EvaluateMaxoTerm> evaluations,
+                                int nResults,
+                                Consumer<TermId> onFinished) throws InterruptedException {
+        if (nResults < 0)
+            throw new IllegalArgumentException("Number of results must not be negative: " + nResults);
+        List<EvaluateMaxoTerm.Repetitions> evaluated = new ArrayList<>(evaluations.size());
+        for (EvaluateMaxoTerm evaluation : evaluations) {
+            evaluated.add(evaluation.repetitions());
+        }
+        List<EvaluateMaxoTerm.Repetitions> active = new ArrayList<>(evaluated);
+        // Without the adaptive mode, all repetitions are run in a single round.
+        int target = options.enabled() ? options.initialRepetitions() : Integer.MAX_VALUE;
+        int round = 0;
+        while (!active.isEmpty() && !cancellation.isStopped()) {
+            List<EvaluateMaxoTerm.Repetitions> succeeded = runRound(active, target, evaluated, onFinished);
+
+            boolean[] contenders = options.enabled()
+                    ? contenders(evaluated, options.topN(), options.zScore())
+                    : null;
+            active = new ArrayList<>(succeeded.size());
+            for (EvaluateMaxoTerm.Repetitions repetitions : succeeded) {
+                if (repetitions.isComplete() || (contenders != null && !contenders[evaluated.indexOf(repetitions)])) {
+                    onFinished.accept(repetitions.maxoId());
+                } else {
+                    active.add(repetitions);
+                }
+            }
+            LOGGER.debug("Round {} ran {} MAxO terms up to {} repetitions, {} terms remain",
+                    ++round, succeeded.size(), target, active.size());
+            target = (int) Math.min(2L * target, Integer.MAX_VALUE);
+        }
+
+        // Only a stopped evaluation leaves active terms.
+        boolean partial = !active.isEmpty();
+        if (partial) {
+            LOGGER.debug("Evaluation stopped with {} MAxO terms remaining", active.size());
+            for (EvaluateMaxoTerm.Repetitions repetitions : active) {
+                onFinished.accept(repetitions.maxoId());
+            }
+            evaluated.removeIf(repetitions -> repetitions.completed() == 0);
+        }
+
+        long totalRepetitions = 0;
+        for (EvaluateMaxoTerm.Repetitions repetitions : evaluated) {
+            totalRepetitions += repetitions.completed();
+        }
+        LOGGER.debug("Evaluated {} MAxO terms with {} repetitions", evaluated.size(), totalRepetitions);
+
+        List<RankMaxoScore> results = new ArrayList<>(Math.min(nResults, evaluated.size()));
+        for (EvaluateMaxoTerm.Repetitions repetitions : top(evaluated, nResults)) {
+            results.add(repetitions.result());
+        }
+        return new RankMaxoResults(results, partial);
+    }
+
+    /**
+     * Run the {@code active} repetitions up to the {@code target}.
+     * The failed evaluations are removed from the {@code evaluated} list.
+     * The evaluations stopped by the {@link CancellationToken} keep the repetitions run so far.
+     *
+     * @return the repetitions that were run successfully.
+     */
+    private List<EvaluateMaxoTerm.Repetitions> runRound(List<EvaluateMaxoTerm.Repetitions> active,
+                                                        int target,
+                                                        List<EvaluateMaxoTerm.Repetitions> evaluated,
+                                                        Consumer<TermId> onFinished) throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>(active.size());
+        for (EvaluateMaxoTerm.Repetitions repetitions : active) {
+            tasks.add(() -> {
+                repetitions.run(target - repetitions.completed(), cancellation);
+                return null;
+            });
+        }
+        List<Future<Void>> futures = executor.invokeAll(tasks);
+
+        List<EvaluateMaxoTerm.Repetitions> succeeded = new ArrayList<>(active.size());
+        for (int i = 0; i < futures.size(); i++) {
+            EvaluateMaxoTerm.Repetitions repetitions = active.get(i);
+            try {
+                futures.get(i).get();
+                succeeded.add(repetitions);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException) {
+                    succeeded.add(repetitions);
+                    continue;
+                }
+                LOGGER.warn("Evaluation of {} failed: {}", repetitions.maxoId(), e.getMessage(), e);
+                evaluated.remove(repetitions);
+                onFinished.accept(repetitions.maxoId());
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * Select the {@code n} repetitions with the greatest mean scores with a bounded heap.
+     *
+     * @return the selected repetitions sorted in descending order by mean score,
+     * the ties are in the order of the {@code evaluated} list.
+     */
+    private static List<EvaluateMaxoTerm.Repetitions> top(List<EvaluateMaxoTerm.Repetitions> evaluated, int n) {
+        double[] meanScores = new double[evaluated.size()];
+        for (int i = 0; i < meanScores.length; i++) {
+            meanScores[i] = evaluated.get(i).meanScore();
+        }
+        int[] top = top(meanScores, n);
+        List<EvaluateMaxoTerm.Repetitions> selected = new ArrayList<>(top.length);
+        for (int i : top) {
+            selected.add(evaluated.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * @return indices of the {@code n} greatest scores in descending order by score, the ties in ascending order by index.
+     */
+    static int[] top(double[] scores, int n) {
+        // The least of the kept scores is on the top of the heap, the later index is the lesser one in a tie.
+        Comparator<Integer> order = Comparator.<Integer>comparingDouble(i -> scores[i])
+                .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, Math.min(n, scores.length) + 1), order);
+        for (int i = 0; i < scores.length; i++) {
+            heap.add(i);
+            if (heap.size() > n)
+                heap.poll();
+        }
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+
+    private static boolean[] contenders(List<EvaluateMaxoTerm.Repetitions> evaluated, int topN, double zScore) {
+        double[] means = new double[evaluated.size()];
+        double[] standardErrors = new double[evaluated.size()];
+        for (int i = 0; i < evaluated.size(); i++) {
+            means[i] = evaluated.get(i).meanScore();
+            standardErrors[i] = evaluated.get(i).standardError();
+        }
+        return contenders(means, standardErrors, topN, zScore);
+    }
+
+    /**
+     * Find the terms that can still reach the top N.
+     *
+     * @return {@code true} for the terms whose upper bound of the mean score is not below
+     * the {@code topN}-th greatest lower bound.
+     */
+    static boolean[] contenders(double[] means, double[] standardErrors, int topN, double zScore) {
+        boolean[] contenders = new boolean[means.length];
+        if (means.length <= topN) {
+            Arrays.fill(contenders, true);
+            return contenders;
+        }
+        double[] lowerBounds = new double[means.length];
+        for (int i = 0; i < means.length; i++) {
+            lowerBounds[i] = Double.isInfinite(standardErrors[i])
+                    ? Double.NEGATIVE_INFINITY
+                    : means[i] - zScore * standardErrors[i];
+        }
+        Arrays.sort(lowerBounds);
+        double threshold = lowerBounds[lowerBounds.length - topN];
+        for (int i = 0; i < means.length; i++) {
+            double upperBound = Double.isInfinite(standardErrors[i])
+                    ? Double.POSITIVE_INFINITY
+                    : means[i] + zScore * standardErrors[i];
+            contenders[i] = upperBound >= threshold;
+        }
+        return contenders;
+    }
+}
@@ -0,0 +1,139 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation and deadline of a MAxO term ranking.
+ * <p>
+ * The token is checked between the Monte-Carlo repetitions and by the differential diagnosis engines,
+ * so that a stopped ranking returns the scores of the repetitions run so far instead of running to the end.
+ * The token is passed explicitly to the ranking. The engines, which do not take the token as an argument,
+ * look up the token {@link #bind() bound} to the current thread with {@link #current()}.
+ */
+public final class CancellationToken {
+
+    private static final CancellationToken NONE = new CancellationToken(false, 0L);
+
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 2;
+
+    private static final ThreadLocal<CancellationToken> CURRENT = ThreadLocal.withInitial(() -> NONE);
+
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    /**
+     * @return a token that never stops.
+     */
+    public static CancellationToken none() {
+        return NONE;
+    }
+
+    /**
+     * @return a token without deadline that stops when {@link #cancel() cancelled}.
+     */
+    public static CancellationToken create() {
+        return new CancellationToken(false, 0L);
+    }
+
+    /**
+     * @return a token that stops when the {@code timeout} elapses from now or when cancelled.
+     */
+    public static CancellationToken withTimeout(Duration timeout) {
+        long timeoutNanos = saturatedNanos(Objects.requireNonNull(timeout));
+        // The deadline of the very long timeouts would overflow the nano time, and it is never reached anyway.
+        if (timeoutNanos > MAX_TIMEOUT_NANOS)
+            return create();
+        return new CancellationToken(true, System.nanoTime() + timeoutNanos);
+    }
+
+    /**
+     * @return a token that stops at the wall-clock {@code deadline} or when cancelled.
+     */
+    public static CancellationToken withDeadline(Instant deadline) {
+        return withTimeout(Duration.between(Instant.now(), Objects.requireNonNull(deadline)));
+    }
+
+    /**
+     * @return the token bound to the current thread, or {@link #none()} if no token is bound.
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    private CancellationToken(boolean hasDeadline, long deadlineNanos) {
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Stop the work checking this token.
+     *
+     * @throws UnsupportedOperationException if this is the {@link #none()} token.
+     */
+    public void cancel() {
+        if (this == NONE)
+            throw new UnsupportedOperationException("The none token cannot be cancelled");
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return {@code true} if the token was cancelled or its deadline has passed.
+     */
+    public boolean isStopped() {
+        return cancelled || isExpired();
+    }
+
+    /**
+     * @throws CancellationException if the token was cancelled or its deadline has passed.
+     */
+    public void throwIfStopped() {
+        if (cancelled)
+            throw new CancellationException("Cancelled");
+        if (isExpired())
+            throw new CancellationException("Deadline expired");
+    }
+
+    /**
+     * Bind the token to the current thread until the returned binding is closed.
+     * The previously bound token is restored on close.
+     */
+    public Binding bind() {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == NONE)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        };
+    }
+
+    private static long saturatedNanos(Duration duration) {
+        try {
+            return Math.max(0L, duration.toNanos());
+        } catch (ArithmeticException e) {
+            return duration.isNegative() ? 0L : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * A token bound to a thread by {@link #bind()}, to be used in a try-with-resources block.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
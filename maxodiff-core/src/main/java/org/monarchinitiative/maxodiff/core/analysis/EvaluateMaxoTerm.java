@@ -1,33 +1,34 @@
 package org.monarchinitiative.maxodiff.core.analysis;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
-import org.monarchinitiative.maxodiff.core.model.CandidateDiseaseScores;
-import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
-import org.monarchinitiative.maxodiff.core.model.MaxoHpoTermProbabilities;
-import org.monarchinitiative.maxodiff.core.model.Sample;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.maxodiff.core.model.*;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 
 public class EvaluateMaxoTerm implements Callable<RankMaxoScore> {
 
-    private final Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap;
-    private final Map<TermId, Set<TermId>> maxoToHpoTermIdMap;
+    /**
+     * The max number of the repetitions scored by the engine in one batch. The batches share the per-disease work
+     * of the engine, while the small ones keep the cancellation responsive.
+     */
+    static final int REPETITION_BATCH_SIZE = 16;
+
     private final MaxoHpoTermProbabilities maxoHpoTermProbabilities;
     private final DifferentialDiagnosisEngine engine;
-    private final MinimalOntology minimalOntology;
-    private final Ontology ontology;
-    private final Set<TermId> sampleHpoIds;
-    private final Sample ppkt;
+    private final SampleAnalysisContext context;
+    private final DifferentialDiagnosisBaseline baseline;
     private final int nRepetitions;
-    private final Set<TermId> diseaseIds;
     private final TermId maxoId;
+    private final long seed;
     CandidateDiseaseScores candidateDiseaseScores;
 
     public EvaluateMaxoTerm(Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap, Map<TermId,
@@ -35,146 +36,278 @@ public class EvaluateMaxoTerm implements Callable<RankMaxoScore> {
                             DifferentialDiagnosisEngine engine, MinimalOntology minimalOntology,
                             Ontology ontology, Set<TermId> sampleHpoIds, Sample ppkt, int nRepetitions,
                             Set<TermId> diseaseIds, TermId maxoId) {
-        this.hpoToMaxoTermMap = hpoToMaxoTermMap;
-        this.maxoToHpoTermIdMap = maxoToHpoTermIdMap;
+        this(maxoHpoTermProbabilities, engine, minimalOntology, ontology,
+                SampleAnalysisContext.of(ppkt, maxoHpoTermProbabilities, hpoToMaxoTermMap, diseaseIds),
+                nRepetitions, maxoId);
+    }
+
+    /**
+     * @param context data of the sample shared by the evaluations of all MAxO terms.
+     */
+    public EvaluateMaxoTerm(MaxoHpoTermProbabilities maxoHpoTermProbabilities,
+                            DifferentialDiagnosisEngine engine, MinimalOntology minimalOntology,
+                            Ontology ontology, SampleAnalysisContext context, int nRepetitions,
+                            TermId maxoId) {
+        this(maxoHpoTermProbabilities, engine, minimalOntology, ontology, context, null, nRepetitions, maxoId);
+    }
+
+    /**
+     * @param context data of the sample shared by the evaluations of all MAxO terms.
+     * @param baseline differential diagnosis of the sample shared by the evaluations of all MAxO terms,
+     *                 updated with the findings of each repetition. May be {@code null}.
+     */
+    public EvaluateMaxoTerm(MaxoHpoTermProbabilities maxoHpoTermProbabilities,
+                            DifferentialDiagnosisEngine engine, MinimalOntology minimalOntology,
+                            Ontology ontology, SampleAnalysisContext context,
+                            DifferentialDiagnosisBaseline baseline, int nRepetitions,
+                            TermId maxoId) {
+        this(maxoHpoTermProbabilities, engine, minimalOntology, ontology, context, baseline, nRepetitions, maxoId,
+                RepetitionRandom.randomSeed());
+    }
+
+    /**
+     * @param context data of the sample shared by the evaluations of all MAxO terms.
+     * @param baseline differential diagnosis of the sample shared by the evaluations of all MAxO terms,
+     *                 updated with the findings of each repetition. May be {@code null}.
+     * @param seed seed of the random sources of the repetitions. The evaluation is reproducible for a given seed.
+     */
+    public EvaluateMaxoTerm(MaxoHpoTermProbabilities maxoHpoTermProbabilities,
+                            DifferentialDiagnosisEngine engine, MinimalOntology minimalOntology,
+                            Ontology ontology, SampleAnalysisContext context,
+                            DifferentialDiagnosisBaseline baseline, int nRepetitions,
+                            TermId maxoId, long seed) {
         this.maxoHpoTermProbabilities = maxoHpoTermProbabilities;
         this.engine = engine;
-        this.minimalOntology = minimalOntology;
-        this.ontology = ontology;
-
-        this.sampleHpoIds = sampleHpoIds;
-        this.ppkt = ppkt;
+        this.context = context;
+        this.baseline = baseline;
         this.nRepetitions = nRepetitions;
-        this.diseaseIds = diseaseIds;
         this.maxoId = maxoId;
+        this.seed = seed;
         this.candidateDiseaseScores = new CandidateDiseaseScores(maxoHpoTermProbabilities, minimalOntology, ontology);
     }
 
 
     @Override
     public RankMaxoScore call() throws Exception {
-        Set<TermId> maxoBenefitHpoIds = maxoHpoTermProbabilities.getDiscoverableByMaxoHpoTerms(ppkt, maxoId, maxoToHpoTermIdMap);
-        for (TermId maxoHpoId : maxoBenefitHpoIds) {
-            if (sampleHpoIds.contains(maxoHpoId)) {
-                continue;
-            }
-            Set<TermId> maxoHpoDescendants = ontology.graph().getDescendantSet(maxoHpoId);
-            for (TermId maxoHpoDescId : maxoHpoDescendants) {
-                if (sampleHpoIds.contains(maxoHpoDescId)) {
-                    continue;
-                }
-            }
+        Repetitions repetitions = repetitions();
+        CancellationToken cancellation = CancellationToken.current();
+        repetitions.run(nRepetitions, cancellation);
+        if (repetitions.completed() == 0)
+            cancellation.throwIfStopped();
+        return repetitions.result();
+    }
+
+    public TermId maxoId() {
+        return maxoId;
+    }
+
+    public int nRepetitions() {
+        return nRepetitions;
+    }
+
+    /**
+     * @return new, not yet started repetitions of the MAxO term evaluation that can be run in several steps.
+     */
+    Repetitions repetitions() {
+        return new Repetitions();
+    }
+
+    /**
+     * The repetitions of the evaluation that were run so far. The repetitions are not thread-safe,
+     * but they can be run by different threads one after the other.
+     */
+    final class Repetitions {
+
+        private final List<Double> scores = new ArrayList<>();
+        private final List<MaxoDDResults> maxoDDResultsList = new ArrayList<>();
+
+        /**
+         * Run up to {@code n} more repetitions, but no more than {@link #nRepetitions()} in total.
+         */
+        void run(int n) {
+            run(n, CancellationToken.none());
         }
-        List<Double> scores = new ArrayList<>();
-        List<DifferentialDiagnosis> initialDiagnoses = maxoHpoTermProbabilities.getInitialDiagnoses();
-        List<MaxoDDResults> maxoDDResultsList = new ArrayList<>();
-        Map<TermId, Map<TermId, Integer>> maxoDiscoverableHpoIdCts = new HashMap<>();
-        for (int i = 0; i < nRepetitions; i++) {
-            MaxoDDResults maxoDDResults = candidateDiseaseScores.getScoresForMaxoTerm(ppkt, maxoId, engine, diseaseIds, hpoToMaxoTermMap);
-            maxoDDResultsList.add(maxoDDResults);
-            Set<TermId> discoverableHpoIds = maxoDDResults.maxoDiscoverableHpoIds();
-            for (TermId diseaseId : diseaseIds) {
-                List<TermId> diseaseAssociatedHpoIds = List.of();
-                Optional<HpoDisease> opt = maxoHpoTermProbabilities.getHpoDiseases().diseaseById(diseaseId);
-                if (opt.isPresent()) {
-                    HpoDisease disease = opt.get();
-                    diseaseAssociatedHpoIds = disease.annotationTermIdList();
-                }
-                if (!maxoDiscoverableHpoIdCts.containsKey(diseaseId)) {
-                    maxoDiscoverableHpoIdCts.put(diseaseId, new HashMap<>());
-                }
-                Map<TermId, Integer> hpoIdCtsMap = maxoDiscoverableHpoIdCts.get(diseaseId);
-                for (TermId discoverableHpoId : discoverableHpoIds) {
-                    if (!hpoIdCtsMap.containsKey(discoverableHpoId)) {
-                        if (diseaseAssociatedHpoIds.contains(discoverableHpoId)) {
-                            hpoIdCtsMap.put(discoverableHpoId, 1);
-                        } else {
-                            hpoIdCtsMap.put(discoverableHpoId, null);
-                        }
-                    } else {
-                        Integer ct = hpoIdCtsMap.get(discoverableHpoId);
-                        if (ct != null) {
-                            hpoIdCtsMap.replace(discoverableHpoId, ct + 1);
-                        }
+
+        /**
+         * Run up to {@code n} more repetitions, but no more than {@link #nRepetitions()} in total,
+         * until the {@code cancellation} stops. The repetitions are scored by the engine in batches
+         * of up to {@link #REPETITION_BATCH_SIZE}, and the batch interrupted by the token is discarded.
+         * The token is bound to the current thread for the engine.
+         */
+        void run(int n, CancellationToken cancellation) {
+            List<DifferentialDiagnosis> initialDiagnoses = maxoHpoTermProbabilities.getInitialDiagnoses();
+            int end = Math.min(nRepetitions, scores.size() + Math.max(n, 0));
+            try (CancellationToken.Binding ignored = cancellation.bind()) {
+                while (scores.size() < end && !cancellation.isStopped()) {
+                    int start = scores.size();
+                    List<RandomGenerator> randoms = new ArrayList<>();
+                    for (int i = start; i < Math.min(end, start + REPETITION_BATCH_SIZE); i++) {
+                        randoms.add(RepetitionRandom.forRepetition(seed, maxoId, i));
+                    }
+                    List<MaxoDDResults> batch;
+                    try {
+                        batch = candidateDiseaseScores.getScoresForMaxoTerm(context, maxoId, engine, baseline, randoms);
+                    } catch (CancellationException e) {
+                        return;
+                    }
+                    for (MaxoDDResults maxoDDResults : batch) {
+                        addResult(initialDiagnoses, maxoDDResults);
                     }
-                    maxoDiscoverableHpoIdCts.replace(diseaseId, hpoIdCtsMap);
                 }
             }
+        }
+
+        private void addResult(List<DifferentialDiagnosis> initialDiagnoses, MaxoDDResults maxoDDResults) {
+            maxoDDResultsList.add(maxoDDResults);
             double finalScore = ValidationModel.weightedRankDiff(initialDiagnoses, maxoDDResults.maxoDifferentialDiagnoses()).validationScore();
             scores.add(finalScore);
         }
-        OptionalDouble meanScoreOptional = scores.stream().mapToDouble(s -> s).average();
-        double meanScore = 0.0;
-        if (meanScoreOptional.isPresent()) {
-            meanScore = meanScoreOptional.getAsDouble();
+
+        TermId maxoId() {
+            return maxoId;
+        }
+
+        /**
+         * @return the number of the repetitions that were run.
+         */
+        int completed() {
+            return scores.size();
+        }
+
+        /**
+         * @return {@code true} if all {@link #nRepetitions()} were run.
+         */
+        boolean isComplete() {
+            return scores.size() >= nRepetitions;
+        }
+
+        double meanScore() {
+            OptionalDouble meanScoreOptional = scores.stream().mapToDouble(s -> s).average();
+            double meanScore = 0.0;
+            if (meanScoreOptional.isPresent()) {
+                meanScore = meanScoreOptional.getAsDouble();
+            }
+            return meanScore;
         }
 
-        Set<TermId> initialDiagnosesDiseaseIds = initialDiagnoses.stream()
-                .map(DifferentialDiagnosis::diseaseId)
-                .collect(Collectors.toSet());
-        Set<TermId> maxoDiagnosesDiseaseIds = maxoDDResultsList.getLast().maxoDifferentialDiagnoses().stream()
-                .map(DifferentialDiagnosis::diseaseId)
-                .collect(Collectors.toSet());
-
-        Set<TermId> maxoDiscoverableObservedHpoIds = maxoDDResultsList.stream()
-                .map(MaxoDDResults::maxoDiscoverableHpoIds)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet());
-
-        Set<TermId> maxoObservedDescendantHpoIds = maxoDDResultsList.stream()
-                .map(MaxoDDResults::maxoObservedDescendantHpoIds)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet());
-
-        Map<TermId, Integer> maxoDiseaseAvgRankChangeMap = new HashMap<>();
-        for (TermId omimId : maxoDiagnosesDiseaseIds) {
-            int initialRank = 0;
-            List<DifferentialDiagnosis> initialDiffDiagnoses = initialDiagnoses.stream()
-                    .filter(dd -> dd.diseaseId().equals(omimId)).toList();
-            if (!initialDiffDiagnoses.isEmpty()) {
-                DifferentialDiagnosis initialDiagnosis = initialDiffDiagnoses.getFirst();
-                initialRank = initialDiagnoses.indexOf(initialDiagnosis) + 1;
+        /**
+         * @return the standard error of the mean score or {@link Double#POSITIVE_INFINITY} if fewer than 2 repetitions were run.
+         */
+        double standardError() {
+            int n = scores.size();
+            if (n < 2)
+                return Double.POSITIVE_INFINITY;
+            double mean = meanScore();
+            double sumOfSquares = 0.;
+            for (double score : scores) {
+                sumOfSquares += (score - mean) * (score - mean);
             }
+            return Math.sqrt(sumOfSquares / (n - 1) / n);
+        }
+
+        /**
+         * Summarize the repetitions. The explanatory fields are computed here rather than in each repetition,
+         * hence the MAxO terms that do not make it to the results do not pay for them.
+         */
+        RankMaxoScore result() {
+            List<DifferentialDiagnosis> initialDiagnoses = maxoHpoTermProbabilities.getInitialDiagnoses();
+            double meanScore = meanScore();
 
-            List<Integer> rankDiffs = new ArrayList<>();
-            int meanRankDiff = 0;
+            Set<TermId> diseaseIds = context.diseaseIds();
+            Map<TermId, Map<TermId, Integer>> maxoDiscoverableHpoIdCts = new HashMap<>();
             for (MaxoDDResults maxoDDResults : maxoDDResultsList) {
-                List<DifferentialDiagnosis> maxoDiagnoses = maxoDDResults.maxoDifferentialDiagnoses().stream()
-                        .filter(dd -> dd.diseaseId().equals(omimId)).toList();
-                if (!maxoDiagnoses.isEmpty()) {
-                    DifferentialDiagnosis maxoDiagnosis = maxoDiagnoses.getFirst();
-                    int maxoRank = maxoDDResults.maxoDifferentialDiagnoses().indexOf(maxoDiagnosis) + 1;
-                    int maxoRankDiff = maxoRank - initialRank;
-                    rankDiffs.add(maxoRankDiff);
+                Set<TermId> discoverableHpoIds = maxoDDResults.maxoDiscoverableHpoIds();
+                for (TermId diseaseId : diseaseIds) {
+                    Set<TermId> diseaseAssociatedHpoIds = context.diseaseAnnotationIds(diseaseId);
+                    if (!maxoDiscoverableHpoIdCts.containsKey(diseaseId)) {
+                        maxoDiscoverableHpoIdCts.put(diseaseId, new HashMap<>());
+                    }
+                    Map<TermId, Integer> hpoIdCtsMap = maxoDiscoverableHpoIdCts.get(diseaseId);
+                    for (TermId discoverableHpoId : discoverableHpoIds) {
+                        if (!hpoIdCtsMap.containsKey(discoverableHpoId)) {
+                            if (diseaseAssociatedHpoIds.contains(discoverableHpoId)) {
+                                hpoIdCtsMap.put(discoverableHpoId, 1);
+                            } else {
+                                hpoIdCtsMap.put(discoverableHpoId, null);
+                            }
+                        } else {
+                            Integer ct = hpoIdCtsMap.get(discoverableHpoId);
+                            if (ct != null) {
+                                hpoIdCtsMap.replace(discoverableHpoId, ct + 1);
+                            }
+                        }
+                        maxoDiscoverableHpoIdCts.replace(diseaseId, hpoIdCtsMap);
+                    }
                 }
             }
 
-            OptionalDouble meanRankDiffOptional = rankDiffs.stream().mapToDouble(s -> s).average();
-            if (meanRankDiffOptional.isPresent()) {
-                double meanRankDiffDouble = meanRankDiffOptional.getAsDouble();
-                meanRankDiff = (int) Math.round(meanRankDiffDouble);
+            Set<TermId> initialDiagnosesDiseaseIds = initialDiagnoses.stream()
+                    .map(DifferentialDiagnosis::diseaseId)
+                    .collect(Collectors.toSet());
+            Set<TermId> maxoDiagnosesDiseaseIds = maxoDDResultsList.getLast().maxoDifferentialDiagnoses().stream()
+                    .map(DifferentialDiagnosis::diseaseId)
+                    .collect(Collectors.toSet());
+
+            Set<TermId> maxoDiscoverableObservedHpoIds = maxoDDResultsList.stream()
+                    .map(MaxoDDResults::maxoDiscoverableHpoIds)
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+
+            Set<TermId> maxoObservedDescendantHpoIds = maxoDDResultsList.stream()
+                    .map(MaxoDDResults::maxoObservedDescendantHpoIds)
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+
+            Map<TermId, Integer> maxoDiseaseAvgRankChangeMap = new HashMap<>();
+            for (TermId omimId : maxoDiagnosesDiseaseIds) {
+                int initialRank = 0;
+                List<DifferentialDiagnosis> initialDiffDiagnoses = initialDiagnoses.stream()
+                        .filter(dd -> dd.diseaseId().equals(omimId)).toList();
+                if (!initialDiffDiagnoses.isEmpty()) {
+                    DifferentialDiagnosis initialDiagnosis = initialDiffDiagnoses.getFirst();
+                    initialRank = initialDiagnoses.indexOf(initialDiagnosis) + 1;
+                }
+
+                List<Integer> rankDiffs = new ArrayList<>();
+                int meanRankDiff = 0;
+                for (MaxoDDResults maxoDDResults : maxoDDResultsList) {
+                    List<DifferentialDiagnosis> maxoDiagnoses = maxoDDResults.maxoDifferentialDiagnoses().stream()
+                            .filter(dd -> dd.diseaseId().equals(omimId)).toList();
+                    if (!maxoDiagnoses.isEmpty()) {
+                        DifferentialDiagnosis maxoDiagnosis = maxoDiagnoses.getFirst();
+                        int maxoRank = maxoDDResults.maxoDifferentialDiagnoses().indexOf(maxoDiagnosis) + 1;
+                        int maxoRankDiff = maxoRank - initialRank;
+                        rankDiffs.add(maxoRankDiff);
+                    }
+                }
+
+                OptionalDouble meanRankDiffOptional = rankDiffs.stream().mapToDouble(s -> s).average();
+                if (meanRankDiffOptional.isPresent()) {
+                    double meanRankDiffDouble = meanRankDiffOptional.getAsDouble();
+                    meanRankDiff = (int) Math.round(meanRankDiffDouble);
+                }
+                maxoDiseaseAvgRankChangeMap.put(omimId, meanRankDiff);
             }
-            maxoDiseaseAvgRankChangeMap.put(omimId, meanRankDiff);
+            //sort maps by disease average rank change
+            Map<TermId, Integer> maxoDiseaseAvgRankChangeMapSorted = maxoDiseaseAvgRankChangeMap.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a,b)->b, LinkedHashMap::new));
+
+            Map<TermId, Map<TermId, Integer>> maxoDiscoverableHpoIdCtsSorted = maxoDiseaseAvgRankChangeMapSorted.keySet().stream()
+                    .filter(maxoDiscoverableHpoIdCts::containsKey)
+                    .collect(Collectors.toMap(
+                            key -> key,
+                            maxoDiscoverableHpoIdCts::get,
+                            (oldValue, newValue) -> newValue,
+                            LinkedHashMap::new
+                    ));
+
+
+            return new RankMaxoScore(maxoId, initialDiagnosesDiseaseIds, maxoDiagnosesDiseaseIds,
+                    maxoDiscoverableObservedHpoIds, maxoObservedDescendantHpoIds, meanScore,
+                    maxoDDResultsList.getLast().maxoDifferentialDiagnoses(),
+                    maxoDiscoverableHpoIdCtsSorted, maxoDiseaseAvgRankChangeMapSorted,
+                    Collections.min(maxoDiseaseAvgRankChangeMapSorted.values()), Collections.max(maxoDiseaseAvgRankChangeMapSorted.values()));
         }
-        //sort maps by disease average rank change
-        Map<TermId, Integer> maxoDiseaseAvgRankChangeMapSorted = maxoDiseaseAvgRankChangeMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue())
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a,b)->b, LinkedHashMap::new));
-
-        Map<TermId, Map<TermId, Integer>> maxoDiscoverableHpoIdCtsSorted = maxoDiseaseAvgRankChangeMapSorted.keySet().stream()
-                .filter(maxoDiscoverableHpoIdCts::containsKey)
-                .collect(Collectors.toMap(
-                        key -> key,
-                        maxoDiscoverableHpoIdCts::get,
-                        (oldValue, newValue) -> newValue,
-                        LinkedHashMap::new
-                ));
-
-
-        return new RankMaxoScore(maxoId, initialDiagnosesDiseaseIds, maxoDiagnosesDiseaseIds,
-                maxoDiscoverableObservedHpoIds, maxoObservedDescendantHpoIds, meanScore,
-                maxoDDResultsList.getLast().maxoDifferentialDiagnoses(),
-                maxoDiscoverableHpoIdCtsSorted, maxoDiseaseAvgRankChangeMapSorted,
-                Collections.min(maxoDiseaseAvgRankChangeMapSorted.values()), Collections.max(maxoDiseaseAvgRankChangeMapSorted.values()));
     }
 }
@@ -0,0 +1,129 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-lived execution service for evaluating MAxO terms.
+ * <p>
+ * The executor is meant to be created once per application (or batch run) and shared by all
+ * {@link org.monarchinitiative.maxodiff.core.model.RankMaxo} instances, so that ranking the MAxO terms
+ * of a sample does not pay for creating and tearing down a thread pool.
+ * The work queue is bounded; when it is full, the submitting thread evaluates the task itself,
+ * which throttles the producers instead of piling up tasks.
+ */
+public final class MaxoTermExecutor implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaxoTermExecutor.class);
+
+    /**
+     * Default number of tasks that can wait in the queue before the submitting thread starts to run them.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static volatile MaxoTermExecutor SHARED;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param parallelism number of worker threads, must be positive.
+     * @param queueCapacity number of tasks that can be queued before the caller runs the tasks, must be positive.
+     */
+    public static MaxoTermExecutor of(int parallelism, int queueCapacity) {
+        return new MaxoTermExecutor(parallelism, queueCapacity);
+    }
+
+    /**
+     * @return a new executor with one thread less than the number of available processors.
+     */
+    public static MaxoTermExecutor of() {
+        return of(defaultParallelism(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Get the JVM-wide executor that is used when no executor is provided explicitly.
+     * The executor is created lazily and uses daemon threads, hence it does not need to be closed.
+     */
+    public static MaxoTermExecutor shared() {
+        if (SHARED == null) {
+            synchronized (MaxoTermExecutor.class) {
+                if (SHARED == null)
+                    SHARED = of();
+            }
+        }
+        return SHARED;
+    }
+
+    /**
+     * @return the number of available processors minus one, but at least one.
+     */
+    public static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    private MaxoTermExecutor(int parallelism, int queueCapacity) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive but was %d".formatted(parallelism));
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("Queue capacity must be positive but was %d".formatted(queueCapacity));
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new MaxoTermThreadFactory(),
+                MaxoTermExecutor::runInCaller);
+        LOGGER.debug("Created MAxO term executor with {} threads and queue capacity {}", parallelism, queueCapacity);
+    }
+
+    /**
+     * Like {@link ThreadPoolExecutor.CallerRunsPolicy} but fails if the executor was shut down,
+     * since silently discarding the task would block {@link #invokeAll(Collection)} forever.
+     */
+    private static void runInCaller(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown())
+            throw new RejectedExecutionException("MAxO term executor has been shut down");
+        task.run();
+    }
+
+    /**
+     * Evaluate the {@code tasks} and wait until all of them complete.
+     *
+     * @return futures in the same order as the {@code tasks}.
+     */
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return executor.invokeAll(tasks);
+    }
+
+    public int parallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int queueCapacity() {
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            LOGGER.warn("MAxO term executor did not terminate in 30 seconds, interrupting the workers");
+            executor.shutdownNow();
+        }
+    }
+
+    private static class MaxoTermThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "maxo-term-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -18,7 +18,7 @@ public class RankMaxoProgress {
     }
 
     public double getTotalProgress() {
-        if (taskProgress.isEmpty()) return 0;
+        if (taskProgress.isEmpty() || nMaxoTerms == 0) return 0;
         return (double) taskProgress.size() / nMaxoTerms;
     }
 
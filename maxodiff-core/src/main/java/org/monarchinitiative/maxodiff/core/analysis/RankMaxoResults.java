@@ -0,0 +1,14 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import java.util.List;
+
+/**
+ * The ranked MAxO terms.
+ *
+ * @param scores the scores of the MAxO terms sorted in descending order by score.
+ * @param partial {@code true} if the ranking was cancelled or its deadline expired before all MAxO terms
+ *                were fully evaluated. The scores are then based on the repetitions run so far,
+ *                and the terms without any repetition are omitted.
+ */
+public record RankMaxoResults(List<RankMaxoScore> scores, boolean partial) {
+}
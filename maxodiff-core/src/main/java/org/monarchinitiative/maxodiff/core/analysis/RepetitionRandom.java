@@ -0,0 +1,47 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Random sources of the Monte-Carlo repetitions of the MAxO term evaluation.
+ * <p>
+ * Each repetition of each MAxO term gets its own generator derived from the seed of the analysis,
+ * the MAxO term id and the repetition index. Hence, the results of an analysis with a given seed are reproducible
+ * regardless of the number of threads and of the order in which the MAxO terms are evaluated.
+ */
+public final class RepetitionRandom {
+
+    private RepetitionRandom() {
+    }
+
+    /**
+     * @return a seed for the analyses that are not meant to be reproducible.
+     */
+    public static long randomSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * @param seed seed of the analysis.
+     * @param maxoId id of the evaluated MAxO term.
+     * @param repetition index of the repetition.
+     * @return a new generator for the repetition. The generator is not thread-safe.
+     */
+    public static RandomGenerator forRepetition(long seed, TermId maxoId, int repetition) {
+        long key = mix64(seed ^ maxoId.getValue().hashCode());
+        key = mix64(key + repetition);
+        return new SplittableRandom(key);
+    }
+
+    /*
+     * The finalizer of the SplitMix64 generator, the nearby keys yield unrelated seeds.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
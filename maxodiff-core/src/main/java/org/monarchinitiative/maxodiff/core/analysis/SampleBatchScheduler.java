@@ -0,0 +1,162 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyze the samples of a batch concurrently and hand over their results in the input order.
+ * <p>
+ * At most {@code parallelism} samples are analyzed at the same time. The samples are submitted
+ * only while fewer than {@code maxInFlight} samples are analyzed or wait to be consumed,
+ * hence a slow sample does not let the finished results of the following samples pile up.
+ * The results are consumed by the thread calling {@link #run(Iterable, SampleTask, SampleConsumer)}
+ * as soon as all previous samples have been consumed, so the output can be streamed.
+ * <p>
+ * The samples are expected to evaluate their MAxO terms with a shared {@link MaxoTermExecutor},
+ * which bounds the number of threads used for the MAxO terms of all samples in flight.
+ */
+public final class SampleBatchScheduler implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SampleBatchScheduler.class);
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int maxInFlight;
+
+    /**
+     * @param parallelism number of samples analyzed concurrently, must be positive.
+     * @param maxInFlight number of samples analyzed or waiting to be consumed, must not be less than {@code parallelism}.
+     */
+    public static SampleBatchScheduler of(int parallelism, int maxInFlight) {
+        return new SampleBatchScheduler(parallelism, maxInFlight);
+    }
+
+    /**
+     * @return a scheduler that lets twice as many samples in flight as it analyzes concurrently.
+     */
+    public static SampleBatchScheduler of(int parallelism) {
+        return of(parallelism, defaultMaxInFlight(parallelism));
+    }
+
+    public static int defaultMaxInFlight(int parallelism) {
+        return 2 * parallelism;
+    }
+
+    private SampleBatchScheduler(int parallelism, int maxInFlight) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive but was %d".formatted(parallelism));
+        if (maxInFlight < parallelism)
+            throw new IllegalArgumentException("Max in-flight samples %d must not be less than parallelism %d".formatted(maxInFlight, parallelism));
+        this.parallelism = parallelism;
+        this.maxInFlight = maxInFlight;
+        this.executor = Executors.newFixedThreadPool(parallelism, new SampleThreadFactory());
+        LOGGER.debug("Created sample batch scheduler with {} threads and {} samples in flight", parallelism, maxInFlight);
+    }
+
+    /**
+     * Analyze the {@code samples} with the {@code task} and pass the results to the {@code consumer} in the order
+     * of the {@code samples}. A failure of the task is passed to the consumer and does not stop the batch.
+     *
+     * @throws IOException if the consumer fails. The samples in flight are cancelled.
+     */
+    public <T, R> void run(Iterable<? extends T> samples,
+                           SampleTask<T, R> task,
+                           SampleConsumer<T, R> consumer) throws IOException, InterruptedException {
+        Deque<Future<SampleResult<T, R>>> inFlight = new ArrayDeque<>(maxInFlight);
+        try {
+            for (T sample : samples) {
+                // Consume the finished samples first, then wait for the oldest sample if we have too many in flight.
+                while (!inFlight.isEmpty() && (inFlight.peekFirst().isDone() || inFlight.size() >= maxInFlight)) {
+                    consumer.accept(await(inFlight.pollFirst()));
+                }
+                inFlight.addLast(executor.submit(() -> analyze(sample, task)));
+            }
+            while (!inFlight.isEmpty()) {
+                consumer.accept(await(inFlight.pollFirst()));
+            }
+        } finally {
+            // Only non-empty if the consumer failed or we were interrupted.
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static <T, R> SampleResult<T, R> analyze(T sample, SampleTask<T, R> task) {
+        try {
+            return new SampleResult<>(sample, task.run(sample), null);
+        } catch (Exception e) {
+            return new SampleResult<>(sample, null, e);
+        }
+    }
+
+    private static <T, R> SampleResult<T, R> await(Future<SampleResult<T, R>> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // The task failures are wrapped into the result, hence only an error can get here.
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            LOGGER.warn("Sample batch scheduler did not terminate in 30 seconds, interrupting the workers");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Analysis of a single sample.
+     */
+    @FunctionalInterface
+    public interface SampleTask<T, R> {
+        R run(T sample) throws Exception;
+    }
+
+    /**
+     * Receives the sample results in the order of the samples.
+     */
+    @FunctionalInterface
+    public interface SampleConsumer<T, R> {
+        void accept(SampleResult<T, R> result) throws IOException;
+    }
+
+    /**
+     * The result of a sample analysis, or the exception if the analysis failed.
+     */
+    public record SampleResult<T, R>(T sample, R result, Exception failure) {
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+
+    private static class SampleThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "maxodiff-sample-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.monarchinitiative.maxodiff.core.analysis.MaxoTermScore;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
 import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
@@ -58,20 +59,7 @@ class AnalysisUtils {
      * @return Map of MAXO -> HPO TermId set mappings for the subset of m diseases. HPO ancestors are removed.
      */
     static Map<TermId, Set<TermId>> makeMaxoToHpoTermIdMap(MinimalOntology ontology, Map<TermId, Set<TermId>> hpoToMaxoTermMap) {
-        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = new HashMap<>();
-        for (Map.Entry<TermId, Set<TermId>> entry : hpoToMaxoTermMap.entrySet()) {
-            TermId hpoTermId = entry.getKey();
-            Set<TermId> maxoTermIds = entry.getValue();
-            for (TermId maxoTermId : maxoTermIds) {
-                if (!maxoToHpoTermIdMap.containsKey(maxoTermId)) {
-                    maxoToHpoTermIdMap.put(maxoTermId, new HashSet<>(Collections.singleton(hpoTermId)));
-                } else {
-                    Set<TermId> hpoTermIds = maxoToHpoTermIdMap.get(maxoTermId);
-                    hpoTermIds.add(hpoTermId);
-                    maxoToHpoTermIdMap.replace(maxoTermId, hpoTermIds);
-                }
-            }
-        }
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = groupHpoTermIdsByMaxo(hpoToMaxoTermMap);
         //TODO: removing ancestors possibly incorrect for excluded HPO features
         for (Map.Entry<TermId, Set<TermId>> e : maxoToHpoTermIdMap.entrySet()) {
             // Remove HPO ancestor term Ids from list
@@ -90,4 +78,44 @@ class AnalysisUtils {
         }
         return maxoToHpoTermIdMap;
     }
+
+    /**
+     * Like {@link #makeMaxoToHpoTermIdMap(MinimalOntology, Map)}, but the ancestors are looked up in the precomputed closure.
+     * HPO terms absent from the ontology have no ancestors.
+     *
+     * @param closure closure of the HPO.
+     * @param hpoToMaxoTermMap Map of HPO -> MAXO TermId set mappings for the subset of m diseases.
+     * @return Map of MAXO -> HPO TermId set mappings for the subset of m diseases. HPO ancestors are removed.
+     */
+    static Map<TermId, Set<TermId>> makeMaxoToHpoTermIdMap(OntologyClosure closure, Map<TermId, Set<TermId>> hpoToMaxoTermMap) {
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = groupHpoTermIdsByMaxo(hpoToMaxoTermMap);
+        //TODO: removing ancestors possibly incorrect for excluded HPO features
+        for (Map.Entry<TermId, Set<TermId>> e : maxoToHpoTermIdMap.entrySet()) {
+            // Remove HPO ancestor term Ids from list
+            Set<TermId> hpoIdSet = new HashSet<>(e.getValue());
+            for (TermId hpoId : e.getValue()) {
+                closure.forEachAncestor(hpoId, hpoIdSet::remove);
+            }
+            e.setValue(hpoIdSet);
+        }
+        return maxoToHpoTermIdMap;
+    }
+
+    private static Map<TermId, Set<TermId>> groupHpoTermIdsByMaxo(Map<TermId, Set<TermId>> hpoToMaxoTermMap) {
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = new HashMap<>();
+        for (Map.Entry<TermId, Set<TermId>> entry : hpoToMaxoTermMap.entrySet()) {
+            TermId hpoTermId = entry.getKey();
+            Set<TermId> maxoTermIds = entry.getValue();
+            for (TermId maxoTermId : maxoTermIds) {
+                if (!maxoToHpoTermIdMap.containsKey(maxoTermId)) {
+                    maxoToHpoTermIdMap.put(maxoTermId, new HashSet<>(Collections.singleton(hpoTermId)));
+                } else {
+                    Set<TermId> hpoTermIds = maxoToHpoTermIdMap.get(maxoTermId);
+                    hpoTermIds.add(hpoTermId);
+                    maxoToHpoTermIdMap.replace(maxoTermId, hpoTermIds);
+                }
+            }
+        }
+        return maxoToHpoTermIdMap;
+    }
 }
@@ -4,6 +4,8 @@ import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.*;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.*;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
+import org.monarchinitiative.maxodiff.core.term.TermDictionaries;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
@@ -20,17 +22,44 @@ public class BaseDiffDiagRefiner implements DiffDiagRefiner {
     private final Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap;
     private final MinimalOntology minHpo;
     private final Ontology hpo;
+    private final MaxoTermExecutor maxoTermExecutor;
+    private final TermDictionaries termDictionaries;
 
     public BaseDiffDiagRefiner(HpoDiseases hpoDiseases,
                                Map<TermId, Set<TermId>> fullHpoToMaxoTermIdMap,
                                Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
                                MinimalOntology minHpo,
                                Ontology hpo) {
+        this(hpoDiseases, fullHpoToMaxoTermIdMap, hpoToMaxoTermMap, minHpo, hpo, MaxoTermExecutor.shared());
+    }
+
+    public BaseDiffDiagRefiner(HpoDiseases hpoDiseases,
+                               Map<TermId, Set<TermId>> fullHpoToMaxoTermIdMap,
+                               Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
+                               MinimalOntology minHpo,
+                               Ontology hpo,
+                               MaxoTermExecutor maxoTermExecutor) {
+        this(hpoDiseases, fullHpoToMaxoTermIdMap, hpoToMaxoTermMap, minHpo, hpo, maxoTermExecutor,
+                TermDictionaries.of(minHpo, hpoDiseases, hpoToMaxoTermMap));
+    }
+
+    /**
+     * @param termDictionaries dictionaries of the terms of the {@code minHpo}, {@code hpoDiseases}, and {@code hpoToMaxoTermMap}.
+     */
+    public BaseDiffDiagRefiner(HpoDiseases hpoDiseases,
+                               Map<TermId, Set<TermId>> fullHpoToMaxoTermIdMap,
+                               Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
+                               MinimalOntology minHpo,
+                               Ontology hpo,
+                               MaxoTermExecutor maxoTermExecutor,
+                               TermDictionaries termDictionaries) {
         this.hpoDiseases = hpoDiseases;
         this.fullHpoToMaxoTermIdMap = fullHpoToMaxoTermIdMap;
         this.hpoToMaxoTermMap = hpoToMaxoTermMap;
         this.minHpo = minHpo;
         this.hpo = hpo;
+        this.maxoTermExecutor = Objects.requireNonNull(maxoTermExecutor);
+        this.termDictionaries = Objects.requireNonNull(termDictionaries);
     }
 
 
@@ -50,19 +79,23 @@ public class BaseDiffDiagRefiner implements DiffDiagRefiner {
                 .map(DifferentialDiagnosis::diseaseId)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        List<RankMaxoScore> maxoTermRanks = rankMaxo.rankMaxoTerms(sample, options.nRepetitions(), initialDiagnosesIds);
+        RankMaxoResults rankMaxoResults = rankMaxo.rankMaxoTerms(sample, options.nRepetitions(), initialDiagnosesIds,
+                options.seed(), options.adaptiveRepetitions(), options.nMaxoTerms(), options.cancellation());
+        List<RankMaxoScore> maxoTermRanks = rankMaxoResults.scores();
+        // The diseases are the same for all MAxO terms.
+        Set<TermId> diseaseIds = new LinkedHashSet<>();
+        List<DifferentialDiagnosis> differentialDiagnosisModels = new ArrayList<>(differentialDiagnoses);
+        differentialDiagnosisModels.sort(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed());
+        differentialDiagnosisModels.forEach(d -> diseaseIds.add(d.diseaseId()));
+        Set<TermId> omimTermIds = Collections.unmodifiableSet(diseaseIds);
         for (RankMaxoScore rankMaxoScore : maxoTermRanks) {
             TermId maxoId = rankMaxoScore.maxoId();
             double scoreDiff = rankMaxoScore.maxoScore();
-            Set<TermId> diseaseIds = new LinkedHashSet<>();
-            List<DifferentialDiagnosis> differentialDiagnosisModels = new ArrayList<>(differentialDiagnoses);
-            differentialDiagnosisModels.sort(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed());
-            differentialDiagnosisModels.forEach(d -> diseaseIds.add(d.diseaseId()));
             Set<TermId> hpoTermIds = maxoToHpoTermIdMap.get(maxoId);
             int nHpoTerms = hpoTermIds.size();
 
             MaxoTermScore maxoTermScore = new MaxoTermScore(maxoId.toString(), options.nDiseases(),
-                    diseaseIds, Set.of(), nHpoTerms, hpoTermIds,
+                    omimTermIds, Set.of(), nHpoTerms, hpoTermIds,
                     0.0, 0.0, scoreDiff, TermId.of("HP:000000"),
                     List.of(), List.of(),null,null);
             // Get HPO frequency records
@@ -73,7 +106,7 @@ public class BaseDiffDiagRefiner implements DiffDiagRefiner {
             maxodiffResultsList.add(maxodiffResult);
         }
         // Return RefinementResults object, which contains the list of MaxodiffResult objects.
-        return new RefinementResultsImpl(maxodiffResultsList);
+        return new RefinementResultsImpl(maxodiffResultsList, rankMaxoResults.partial());
     }
 
     public RankMaxo getRankMaxo(List<DifferentialDiagnosis> initialDiagnoses,
@@ -91,11 +124,12 @@ public class BaseDiffDiagRefiner implements DiffDiagRefiner {
         MaxoHpoTermProbabilities maxoHpoTermProbabilities = new MaxoHpoTermProbabilities(hpoDiseases,
                 hpoToMaxoTermMap,
                 initialDiagnoses,
-                diseaseModelProbability);
+                diseaseModelProbability,
+                termDictionaries);
 
 
         RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities, engine,
-                minHpo, hpo);
+                minHpo, hpo, maxoTermExecutor);
 
         return rankMaxo;
     }
@@ -180,7 +214,10 @@ public class BaseDiffDiagRefiner implements DiffDiagRefiner {
         // Get all the MaXo terms that can be used to diagnose the HPO terms, removing ancestors
         //TODO: make MAXO:HPO term map directly from maxo_diagnostic_annotations.tsv file
         Map<TermId, Set<TermId>> hpoToMaxoTermIdMap = AnalysisUtils.makeHpoToMaxoTermIdMap(fullHpoToMaxoTermIdMap, hpoIds);
-        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = AnalysisUtils.makeMaxoToHpoTermIdMap(hpo, hpoToMaxoTermIdMap);
+        OntologyClosure hpoClosure = termDictionaries.hpoClosure();
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = hpoClosure == null
+                ? AnalysisUtils.makeMaxoToHpoTermIdMap(hpo, hpoToMaxoTermIdMap)
+                : AnalysisUtils.makeMaxoToHpoTermIdMap(hpoClosure, hpoToMaxoTermIdMap);
 
         return maxoToHpoTermIdMap;
     }
@@ -220,4 +257,8 @@ public class BaseDiffDiagRefiner implements DiffDiagRefiner {
         return this.hpoDiseases;
     }
 
+    public TermDictionaries getTermDictionaries() {
+        return termDictionaries;
+    }
+
 }
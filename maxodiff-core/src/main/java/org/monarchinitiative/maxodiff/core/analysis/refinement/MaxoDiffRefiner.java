@@ -1,6 +1,8 @@
 package org.monarchinitiative.maxodiff.core.analysis.refinement;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoTermExecutor;
+import org.monarchinitiative.maxodiff.core.term.TermDictionaries;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
@@ -15,4 +17,16 @@ public class MaxoDiffRefiner extends BaseDiffDiagRefiner {
         super(hpoDiseases, fullHpoToMaxoTermIdMap, hpoToMaxoTermMap, minHpo, hpo);
     }
 
+    public MaxoDiffRefiner(HpoDiseases hpoDiseases, Map<TermId, Set<TermId>> fullHpoToMaxoTermIdMap,
+                           Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap, MinimalOntology minHpo, Ontology hpo,
+                           MaxoTermExecutor maxoTermExecutor) {
+        super(hpoDiseases, fullHpoToMaxoTermIdMap, hpoToMaxoTermMap, minHpo, hpo, maxoTermExecutor);
+    }
+
+    public MaxoDiffRefiner(HpoDiseases hpoDiseases, Map<TermId, Set<TermId>> fullHpoToMaxoTermIdMap,
+                           Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap, MinimalOntology minHpo, Ontology hpo,
+                           MaxoTermExecutor maxoTermExecutor, TermDictionaries termDictionaries) {
+        super(hpoDiseases, fullHpoToMaxoTermIdMap, hpoToMaxoTermMap, minHpo, hpo, maxoTermExecutor, termDictionaries);
+    }
+
 }
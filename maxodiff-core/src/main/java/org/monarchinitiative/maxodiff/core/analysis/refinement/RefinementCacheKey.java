@@ -0,0 +1,98 @@
+package org.monarchinitiative.maxodiff.core.analysis.refinement;
+
+import org.monarchinitiative.maxodiff.core.analysis.AdaptiveRepetitionOptions;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The canonical key of the refinement of a sample in the {@link RefinementResultsCache}.
+ * <p>
+ * The key includes everything the results depend on. The HPO terms are sorted and deduplicated,
+ * hence the samples with the same terms in a different order share the key. The sample id is not a part of the key.
+ *
+ * @param engine the differential diagnosis engine and its configuration, e.g. {@code phenomizer:ONE_SIDED}.
+ * @param diseaseProbModel the model of the disease probabilities, e.g. {@code ranked}.
+ * @param resourceVersion the versions of the HPO, the HPO annotations and the other resources.
+ */
+public record RefinementCacheKey(List<TermId> presentHpoTermIds,
+                                 List<TermId> excludedHpoTermIds,
+                                 String engine,
+                                 String diseaseProbModel,
+                                 int nDiseases,
+                                 int nRepetitions,
+                                 long seed,
+                                 AdaptiveRepetitionOptions adaptiveRepetitions,
+                                 int nMaxoTerms,
+                                 String resourceVersion) {
+
+    public RefinementCacheKey {
+        presentHpoTermIds = canonical(presentHpoTermIds);
+        excludedHpoTermIds = canonical(excludedHpoTermIds);
+        Objects.requireNonNull(engine);
+        Objects.requireNonNull(diseaseProbModel);
+        Objects.requireNonNull(adaptiveRepetitions);
+        Objects.requireNonNull(resourceVersion);
+    }
+
+    /**
+     * @return the key of the refinement of the {@code sample} with the {@code options}.
+     * The cancellation of the options does not change the results, hence it is not a part of the key.
+     */
+    public static RefinementCacheKey of(Sample sample, String engine, String diseaseProbModel,
+                                        RefinementOptions options, String resourceVersion) {
+        return new RefinementCacheKey(List.copyOf(sample.presentHpoTermIds()), List.copyOf(sample.excludedHpoTermIds()),
+                engine, diseaseProbModel, options.nDiseases(), options.nRepetitions(), options.seed(),
+                options.adaptiveRepetitions(), options.nMaxoTerms(), resourceVersion);
+    }
+
+    private static List<TermId> canonical(Collection<TermId> termIds) {
+        return termIds.stream()
+                .distinct()
+                .sorted(Comparator.comparing(TermId::getValue))
+                .toList();
+    }
+
+    /**
+     * @return a text representation of the key, the same for the equal keys across the JVM runs.
+     */
+    public String canonicalForm() {
+        return String.join("|",
+                "present=" + ids(presentHpoTermIds),
+                "excluded=" + ids(excludedHpoTermIds),
+                "engine=" + engine,
+                "diseaseProbModel=" + diseaseProbModel,
+                "nDiseases=" + nDiseases,
+                "nRepetitions=" + nRepetitions,
+                "seed=" + seed,
+                "adaptive=%b,%d,%d,%s".formatted(adaptiveRepetitions.enabled(), adaptiveRepetitions.initialRepetitions(),
+                        adaptiveRepetitions.topN(), Double.toString(adaptiveRepetitions.zScore())),
+                "nMaxoTerms=" + nMaxoTerms,
+                "resources=" + resourceVersion);
+    }
+
+    /**
+     * @return SHA-256 of the {@link #canonicalForm()} as a hex string, e.g. for a file name.
+     */
+    public String digest() {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(canonicalForm().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String ids(List<TermId> termIds) {
+        return String.join(",", termIds.stream().map(TermId::getValue).toList());
+    }
+}
@@ -1,14 +1,74 @@
 package org.monarchinitiative.maxodiff.core.analysis.refinement;
 
-import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptionsImpl;
+import org.monarchinitiative.maxodiff.core.analysis.AdaptiveRepetitionOptions;
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
+
+import java.util.Objects;
 
 public interface RefinementOptions {
 
+    /**
+     * The seed of the Monte-Carlo repetitions used when no seed is provided.
+     */
+    long DEFAULT_SEED = 42L;
+
+    /**
+     * The number of MAxO terms to report all MAxO terms.
+     */
+    int ALL_MAXO_TERMS = Integer.MAX_VALUE;
+
     static RefinementOptions of(int nDiseases, int nRepetitions) {
-        return new RefinementOptionsImpl(nDiseases, nRepetitions);
+        return of(nDiseases, nRepetitions, DEFAULT_SEED);
+    }
+
+    /**
+     * @param seed seed of the Monte-Carlo repetitions, the refinement is reproducible for a given seed.
+     */
+    static RefinementOptions of(int nDiseases, int nRepetitions, long seed) {
+        return of(nDiseases, nRepetitions, seed, AdaptiveRepetitionOptions.disabled());
+    }
+
+    /**
+     * @param nRepetitions the maximum number of repetitions of a MAxO term if the {@code adaptiveRepetitions} are enabled.
+     * @param adaptiveRepetitions options of the adaptive allocation of the repetitions to the MAxO terms.
+     */
+    static RefinementOptions of(int nDiseases, int nRepetitions, long seed, AdaptiveRepetitionOptions adaptiveRepetitions) {
+        return of(nDiseases, nRepetitions, seed, adaptiveRepetitions, ALL_MAXO_TERMS);
+    }
+
+    /**
+     * @param nMaxoTerms the number of the top ranked MAxO terms to report. The other MAxO terms are scored
+     *                   but their explanatory details are not computed.
+     */
+    static RefinementOptions of(int nDiseases, int nRepetitions, long seed,
+                                AdaptiveRepetitionOptions adaptiveRepetitions, int nMaxoTerms) {
+        return of(nDiseases, nRepetitions, seed, adaptiveRepetitions, nMaxoTerms, CancellationToken.none());
+    }
+
+    /**
+     * @param cancellation cancellation and deadline of the refinement. A stopped refinement returns
+     *                     the MAxO terms scored so far, flagged as {@link RefinementResults#partial() partial}.
+     */
+    static RefinementOptions of(int nDiseases, int nRepetitions, long seed,
+                                AdaptiveRepetitionOptions adaptiveRepetitions, int nMaxoTerms,
+                                CancellationToken cancellation) {
+        return new RefinementOptionsImpl(nDiseases, nRepetitions, seed, adaptiveRepetitions, nMaxoTerms,
+                Objects.requireNonNull(cancellation));
     }
 
     int nDiseases();
     int nRepetitions();
+    long seed();
+    AdaptiveRepetitionOptions adaptiveRepetitions();
+    int nMaxoTerms();
+    CancellationToken cancellation();
+
+    /**
+     * @return the same options with the {@code cancellation}, e.g. with a deadline that starts
+     * when the refinement starts rather than when the options were created.
+     */
+    default RefinementOptions withCancellation(CancellationToken cancellation) {
+        return of(nDiseases(), nRepetitions(), seed(), adaptiveRepetitions(), nMaxoTerms(), cancellation);
+    }
 
 }
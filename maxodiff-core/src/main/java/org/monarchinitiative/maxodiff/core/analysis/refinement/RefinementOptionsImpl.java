@@ -1,7 +1,14 @@
 package org.monarchinitiative.maxodiff.core.analysis.refinement;
 
+import org.monarchinitiative.maxodiff.core.analysis.AdaptiveRepetitionOptions;
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
+
 record RefinementOptionsImpl(
         int nDiseases,
-        int nRepetitions
+        int nRepetitions,
+        long seed,
+        AdaptiveRepetitionOptions adaptiveRepetitions,
+        int nMaxoTerms,
+        CancellationToken cancellation
 ) implements RefinementOptions {
 }
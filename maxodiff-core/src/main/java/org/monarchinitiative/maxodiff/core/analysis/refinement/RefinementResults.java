@@ -1,6 +1,7 @@
 package org.monarchinitiative.maxodiff.core.analysis.refinement;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.util.Collection;
 import java.util.List;
@@ -8,9 +9,24 @@ import java.util.List;
 public interface RefinementResults {
 
     static RefinementResults of(Collection<MaxodiffResult> results) {
-        return new RefinementResultsImpl(List.copyOf(results));
+        return of(results, false);
+    }
+
+    /**
+     * @param partial {@code true} if the refinement was stopped before all MAxO terms were fully evaluated.
+     */
+    static RefinementResults of(Collection<MaxodiffResult> results, boolean partial) {
+        return new RefinementResultsImpl(List.copyOf(results), partial);
     }
 
     @JsonGetter
     Collection<MaxodiffResult> maxodiffResults();
+
+    /**
+     * @return {@code true} if the refinement was cancelled or its deadline expired, hence the results
+     * are the best MAxO terms scored so far. Only the partial results are flagged in JSON.
+     */
+    @JsonGetter
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    boolean partial();
 }
@@ -0,0 +1,67 @@
+package org.monarchinitiative.maxodiff.core.analysis.refinement;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache of the refinement results, to answer the repeated refinements of the same sample with the same options
+ * without running the MAxO term ranking again.
+ * <p>
+ * The cache keeps at most {@code maxEntries} results in memory and drops the least recently used ones.
+ * The results expire after the {@code ttl}. Optionally, the results are also written into a directory,
+ * hence they survive the restarts and the results evicted from memory are read back from the disk.
+ * The {@link RefinementResults#partial() partial} results are never cached.
+ */
+public interface RefinementResultsCache {
+
+    /**
+     * @return an in-memory cache.
+     */
+    static RefinementResultsCache of(int maxEntries, Duration ttl) {
+        return RefinementResultsCacheImpl.of(maxEntries, ttl, null, Clock.systemUTC());
+    }
+
+    /**
+     * @param directory directory of the disk store of the results, created if it does not exist.
+     */
+    static RefinementResultsCache of(int maxEntries, Duration ttl, Path directory) {
+        return RefinementResultsCacheImpl.of(maxEntries, ttl, directory, Clock.systemUTC());
+    }
+
+    Optional<RefinementResults> get(RefinementCacheKey key);
+
+    /**
+     * Add the results to the cache, unless they are partial.
+     */
+    void put(RefinementCacheKey key, RefinementResults results);
+
+    /**
+     * @return the cached results of the {@code key}, or the results of the {@code refinement},
+     * which are added to the cache.
+     */
+    default RefinementResults getOrCompute(RefinementCacheKey key, Callable<RefinementResults> refinement) throws Exception {
+        Optional<RefinementResults> cached = get(key);
+        if (cached.isPresent())
+            return cached.get();
+        RefinementResults results = refinement.call();
+        put(key, results);
+        return results;
+    }
+
+    /**
+     * @return the number of the results in memory.
+     */
+    int size();
+
+    long hitCount();
+
+    long missCount();
+
+    /**
+     * Remove all results from memory and from the disk store.
+     */
+    void clear();
+}
@@ -0,0 +1,129 @@
+package org.monarchinitiative.maxodiff.core.analysis.refinement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class RefinementResultsCacheImpl implements RefinementResultsCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefinementResultsCacheImpl.class);
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+    private final RefinementResultsStore store;
+    // Access order, the eldest entry is the least recently used one.
+    private final LinkedHashMap<RefinementCacheKey, Entry> entries = new LinkedHashMap<>(16, .75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param directory directory of the disk store or {@code null} if the results are kept in memory only.
+     */
+    static RefinementResultsCacheImpl of(int maxEntries, Duration ttl, Path directory, Clock clock) {
+        return new RefinementResultsCacheImpl(maxEntries, ttl, directory, clock);
+    }
+
+    private RefinementResultsCacheImpl(int maxEntries, Duration ttl, Path directory, Clock clock) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Max entries must be positive but was %d".formatted(maxEntries));
+        if (ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("TTL must be positive but was %s".formatted(ttl));
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = Objects.requireNonNull(clock);
+        this.store = directory == null ? null : RefinementResultsStore.open(directory, ttl, clock);
+        LOGGER.debug("Caching up to {} refinement results for {}{}", maxEntries, ttl,
+                directory == null ? "" : " in " + directory.toAbsolutePath());
+    }
+
+    @Override
+    public Optional<RefinementResults> get(RefinementCacheKey key) {
+        Instant now = clock.instant();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.created(), now)) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.results());
+                }
+                entries.remove(key);
+            }
+        }
+
+        if (store != null) {
+            Optional<RefinementResultsStore.Stored> stored = store.read(key);
+            if (stored.isPresent()) {
+                hits.incrementAndGet();
+                addEntry(key, new Entry(stored.get().results(), stored.get().created()));
+                return Optional.of(stored.get().results());
+            }
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(RefinementCacheKey key, RefinementResults results) {
+        if (results.partial())
+            return;
+        Instant now = clock.instant();
+        addEntry(key, new Entry(results, now));
+        if (store != null)
+            store.write(key, results, now);
+    }
+
+    private void addEntry(RefinementCacheKey key, Entry entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+            Iterator<Map.Entry<RefinementCacheKey, Entry>> iterator = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isExpired(Instant created, Instant now) {
+        return !created.plus(ttl).isAfter(now);
+    }
+
+    @Override
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long hitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long missCount() {
+        return misses.get();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        if (store != null)
+            store.clear();
+    }
+
+    private record Entry(RefinementResults results, Instant created) {
+    }
+}
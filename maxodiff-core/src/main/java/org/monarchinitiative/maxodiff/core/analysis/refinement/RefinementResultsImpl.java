@@ -2,6 +2,6 @@ package org.monarchinitiative.maxodiff.core.analysis.refinement;
 
 import java.util.Collection;
 
-record RefinementResultsImpl(Collection<MaxodiffResult> maxodiffResults) implements RefinementResults {
+record RefinementResultsImpl(Collection<MaxodiffResult> maxodiffResults, boolean partial) implements RefinementResults {
 
 }
@@ -0,0 +1,428 @@
+package org.monarchinitiative.maxodiff.core.analysis.refinement;
+
+import org.monarchinitiative.maxodiff.core.analysis.Frequencies;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoTermScore;
+import org.monarchinitiative.maxodiff.core.analysis.RankMaxoScore;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The disk store of the {@link RefinementResultsCache}, one binary file per key.
+ * <p>
+ * The files are written into a temporary file first and then moved, hence a concurrent reader never sees
+ * an incomplete file. A file that cannot be read is deleted, the store is a cache and never fails the refinement.
+ */
+final class RefinementResultsStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefinementResultsStore.class);
+
+    static final byte[] MAGIC = "MXREFRES".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    private static final String SUFFIX = ".bin";
+    // Guards against allocating a huge array for a corrupted length.
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+
+    private final Path directory;
+    private final Duration ttl;
+    private final Clock clock;
+
+    static RefinementResultsStore open(Path directory, Duration ttl, Clock clock) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create the refinement cache directory %s".formatted(directory), e);
+        }
+        RefinementResultsStore store = new RefinementResultsStore(directory, ttl, clock);
+        store.deleteExpired();
+        return store;
+    }
+
+    private RefinementResultsStore(Path directory, Duration ttl, Clock clock) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    record Stored(RefinementResults results, Instant created) {
+    }
+
+    Optional<Stored> read(RefinementCacheKey key) {
+        Path path = path(key);
+        if (!Files.isRegularFile(path))
+            return Optional.empty();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException("%s is not a refinement cache file".formatted(path));
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported refinement cache format version %d in %s".formatted(version, path));
+            // The digest may collide, the canonical form may not.
+            if (!key.canonicalForm().equals(readString(in)))
+                return Optional.empty();
+            Instant created = Instant.ofEpochMilli(in.readLong());
+            if (!created.plus(ttl).isAfter(clock.instant())) {
+                Files.deleteIfExists(path);
+                return Optional.empty();
+            }
+            return Optional.of(new Stored(readResults(in), created));
+        } catch (NoSuchFileException e) {
+            // Deleted by a concurrent writer or clear.
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Deleting unreadable refinement cache file {}: {}", path, e.getMessage());
+            deleteQuietly(path);
+            return Optional.empty();
+        }
+    }
+
+    void write(RefinementCacheKey key, RefinementResults results, Instant created) {
+        Path path = path(key);
+        Path tmp = path.resolveSibling(path.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, key.canonicalForm());
+                out.writeLong(created.toEpochMilli());
+                writeResults(out, results);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write refinement cache file {}: {}", path, e.getMessage());
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    void clear() {
+        deleteMatching(path -> true);
+    }
+
+    private void deleteExpired() {
+        Instant threshold = clock.instant().minus(ttl);
+        deleteMatching(path -> Files.getLastModifiedTime(path).toInstant().isBefore(threshold));
+    }
+
+    private void deleteMatching(PathPredicate predicate) {
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(SUFFIX) && predicate.test(path))
+                    Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to clean up refinement cache directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private Path path(RefinementCacheKey key) {
+        return directory.resolve(key.digest() + SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Retried by the next write or clean up.
+        }
+    }
+
+    @FunctionalInterface
+    private interface PathPredicate {
+        boolean test(Path path) throws IOException;
+    }
+
+    // --------------------------------------------- writing ----------------------------------------------------------
+
+    static void writeResults(DataOutputStream out, RefinementResults results) throws IOException {
+        Collection<MaxodiffResult> maxodiffResults = results.maxodiffResults();
+        out.writeInt(maxodiffResults.size());
+        for (MaxodiffResult result : maxodiffResults) {
+            writeMaxoTermScore(out, result.maxoTermScore());
+            writeRankMaxoScore(out, result.rankMaxoScore());
+            writeFrequencies(out, result.frequencies());
+            writeFrequencies(out, result.maxoFrequencies());
+        }
+    }
+
+    private static void writeMaxoTermScore(DataOutputStream out, MaxoTermScore score) throws IOException {
+        writeString(out, score.maxoId());
+        out.writeInt(score.nOmimTerms());
+        writeTermIds(out, score.omimTermIds());
+        writeTermIds(out, score.maxoOmimTermIds());
+        out.writeInt(score.nHpoTerms());
+        writeTermIds(out, score.hpoTermIds());
+        writeDouble(out, score.initialScore());
+        writeDouble(out, score.score());
+        writeDouble(out, score.scoreDiff());
+        writeTermId(out, score.changedDiseaseId());
+        writeDiagnoses(out, score.maxoDiagnoses());
+        writeDiagnoses(out, score.initialDiagnosesMaxoOrdered());
+        writeDoubles(out, score.originalCDF());
+        writeDoubles(out, score.maxoTermCDF());
+    }
+
+    private static void writeRankMaxoScore(DataOutputStream out, RankMaxoScore score) throws IOException {
+        writeTermId(out, score.maxoId());
+        writeTermIds(out, score.initialOmimTermIds());
+        writeTermIds(out, score.maxoOmimTermIds());
+        writeTermIds(out, score.discoverableObservedHpoTermIds());
+        writeTermIds(out, score.discoverableObservedDescendantHpoTermIds());
+        writeDouble(out, score.maxoScore());
+        writeDiagnoses(out, score.maxoDiagnoses());
+        Map<TermId, Map<TermId, Integer>> repCts = score.hpoTermIdRepCtsMap();
+        out.writeInt(repCts == null ? -1 : repCts.size());
+        if (repCts != null) {
+            for (Map.Entry<TermId, Map<TermId, Integer>> e : repCts.entrySet()) {
+                writeTermId(out, e.getKey());
+                writeCounts(out, e.getValue());
+            }
+        }
+        writeCounts(out, score.maxoDiseaseAvgRankChangeMap());
+        out.writeInt(score.minRankChange());
+        out.writeInt(score.maxRankChange());
+    }
+
+    private static void writeFrequencies(DataOutputStream out, List<Frequencies> frequencies) throws IOException {
+        out.writeInt(frequencies == null ? -1 : frequencies.size());
+        if (frequencies == null)
+            return;
+        for (Frequencies f : frequencies) {
+            writeTermId(out, f.hpoId());
+            List<Float> values = f.frequencies();
+            out.writeInt(values == null ? -1 : values.size());
+            if (values != null) {
+                for (Float value : values) {
+                    out.writeBoolean(value != null);
+                    if (value != null)
+                        out.writeFloat(value);
+                }
+            }
+        }
+    }
+
+    private static void writeDiagnoses(DataOutputStream out, List<DifferentialDiagnosis> diagnoses) throws IOException {
+        out.writeInt(diagnoses == null ? -1 : diagnoses.size());
+        if (diagnoses == null)
+            return;
+        for (DifferentialDiagnosis diagnosis : diagnoses) {
+            writeTermId(out, diagnosis.diseaseId());
+            out.writeDouble(diagnosis.score());
+            out.writeDouble(diagnosis.lr());
+        }
+    }
+
+    private static void writeCounts(DataOutputStream out, Map<TermId, Integer> counts) throws IOException {
+        out.writeInt(counts == null ? -1 : counts.size());
+        if (counts == null)
+            return;
+        for (Map.Entry<TermId, Integer> e : counts.entrySet()) {
+            writeTermId(out, e.getKey());
+            out.writeBoolean(e.getValue() != null);
+            if (e.getValue() != null)
+                out.writeInt(e.getValue());
+        }
+    }
+
+    private static void writeTermIds(DataOutputStream out, Collection<TermId> termIds) throws IOException {
+        out.writeInt(termIds == null ? -1 : termIds.size());
+        if (termIds == null)
+            return;
+        for (TermId termId : termIds) {
+            writeTermId(out, termId);
+        }
+    }
+
+    private static void writeTermId(DataOutputStream out, TermId termId) throws IOException {
+        writeString(out, termId == null ? null : termId.getValue());
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeDouble(value);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values == null)
+            return;
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    // --------------------------------------------- reading ----------------------------------------------------------
+
+    static RefinementResults readResults(DataInputStream in) throws IOException {
+        int n = readSize(in);
+        List<MaxodiffResult> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            MaxoTermScore maxoTermScore = readMaxoTermScore(in);
+            RankMaxoScore rankMaxoScore = readRankMaxoScore(in);
+            List<Frequencies> frequencies = readFrequencies(in);
+            List<Frequencies> maxoFrequencies = readFrequencies(in);
+            results.add(new MaxodiffResultImpl(maxoTermScore, rankMaxoScore, frequencies, maxoFrequencies));
+        }
+        return RefinementResults.of(results);
+    }
+
+    private static MaxoTermScore readMaxoTermScore(DataInputStream in) throws IOException {
+        String maxoId = readString(in);
+        int nOmimTerms = in.readInt();
+        Set<TermId> omimTermIds = readTermIds(in);
+        Set<TermId> maxoOmimTermIds = readTermIds(in);
+        int nHpoTerms = in.readInt();
+        Set<TermId> hpoTermIds = readTermIds(in);
+        Double initialScore = readDouble(in);
+        Double score = readDouble(in);
+        Double scoreDiff = readDouble(in);
+        TermId changedDiseaseId = readTermId(in);
+        List<DifferentialDiagnosis> maxoDiagnoses = readDiagnoses(in);
+        List<DifferentialDiagnosis> initialDiagnosesMaxoOrdered = readDiagnoses(in);
+        double[] originalCDF = readDoubles(in);
+        double[] maxoTermCDF = readDoubles(in);
+        return new MaxoTermScore(maxoId, nOmimTerms, omimTermIds, maxoOmimTermIds, nHpoTerms, hpoTermIds,
+                initialScore, score, scoreDiff, changedDiseaseId, maxoDiagnoses, initialDiagnosesMaxoOrdered,
+                originalCDF, maxoTermCDF);
+    }
+
+    private static RankMaxoScore readRankMaxoScore(DataInputStream in) throws IOException {
+        TermId maxoId = readTermId(in);
+        Set<TermId> initialOmimTermIds = readTermIds(in);
+        Set<TermId> maxoOmimTermIds = readTermIds(in);
+        Set<TermId> discoverableObservedHpoTermIds = readTermIds(in);
+        Set<TermId> discoverableObservedDescendantHpoTermIds = readTermIds(in);
+        Double maxoScore = readDouble(in);
+        List<DifferentialDiagnosis> maxoDiagnoses = readDiagnoses(in);
+        int nRepCts = in.readInt();
+        Map<TermId, Map<TermId, Integer>> repCts = null;
+        if (nRepCts >= 0) {
+            repCts = new LinkedHashMap<>();
+            for (int i = 0; i < nRepCts; i++) {
+                repCts.put(readTermId(in), readCounts(in));
+            }
+        }
+        Map<TermId, Integer> avgRankChange = readCounts(in);
+        int minRankChange = in.readInt();
+        int maxRankChange = in.readInt();
+        return new RankMaxoScore(maxoId, initialOmimTermIds, maxoOmimTermIds, discoverableObservedHpoTermIds,
+                discoverableObservedDescendantHpoTermIds, maxoScore, maxoDiagnoses, repCts, avgRankChange,
+                minRankChange, maxRankChange);
+    }
+
+    private static List<Frequencies> readFrequencies(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            return null;
+        List<Frequencies> frequencies = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            TermId hpoId = readTermId(in);
+            int nValues = in.readInt();
+            List<Float> values = null;
+            if (nValues >= 0) {
+                values = new ArrayList<>(nValues);
+                for (int j = 0; j < nValues; j++) {
+                    values.add(in.readBoolean() ? in.readFloat() : null);
+                }
+            }
+            frequencies.add(new Frequencies(hpoId, values));
+        }
+        return frequencies;
+    }
+
+    private static List<DifferentialDiagnosis> readDiagnoses(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            return null;
+        List<DifferentialDiagnosis> diagnoses = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            diagnoses.add(DifferentialDiagnosis.of(readTermId(in), in.readDouble(), in.readDouble()));
+        }
+        return diagnoses;
+    }
+
+    private static Map<TermId, Integer> readCounts(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            return null;
+        Map<TermId, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            TermId termId = readTermId(in);
+            counts.put(termId, in.readBoolean() ? in.readInt() : null);
+        }
+        return counts;
+    }
+
+    private static Set<TermId> readTermIds(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            return null;
+        Set<TermId> termIds = new LinkedHashSet<>();
+        for (int i = 0; i < n; i++) {
+            termIds.add(readTermId(in));
+        }
+        return termIds;
+    }
+
+    private static TermId readTermId(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value == null ? null : TermId.of(value);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            return null;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    private static int readSize(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            throw new IOException("Invalid size %d".formatted(n));
+        return n;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        if (length > MAX_STRING_LENGTH)
+            throw new IOException("Invalid string length %d".formatted(length));
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
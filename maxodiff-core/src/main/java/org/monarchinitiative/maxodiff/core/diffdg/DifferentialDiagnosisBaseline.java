@@ -0,0 +1,66 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A differential diagnosis of a {@link Sample} that can be updated with additional observed and excluded terms
+ * by {@link DifferentialDiagnosisEngine#runIncremental(DifferentialDiagnosisBaseline, Collection, Collection)}.
+ * <p>
+ * The engines that support the incremental analysis return their own implementation
+ * with the state needed to update the diagnoses.
+ */
+public interface DifferentialDiagnosisBaseline {
+
+    /**
+     * @param sample the analyzed sample.
+     * @param targetDiseases the analyzed diseases or {@code null} if all diseases were analyzed.
+     * @param diagnoses the differential diagnoses of the {@code sample}.
+     */
+    static DifferentialDiagnosisBaseline of(Sample sample,
+                                            Collection<TermId> targetDiseases,
+                                            List<DifferentialDiagnosis> diagnoses) {
+        return new DifferentialDiagnosisBaselineImpl(distinctTerms(sample), targetDiseases, diagnoses);
+    }
+
+    /**
+     * @return a sample with the same id and the distinct present and excluded terms of the {@code sample}.
+     */
+    static Sample distinctTerms(Sample sample) {
+        return Sample.of(sample.id(),
+                new LinkedHashSet<>(sample.presentHpoTermIds()),
+                new LinkedHashSet<>(sample.excludedHpoTermIds()));
+    }
+
+    /**
+     * @return the analyzed sample with distinct present and excluded terms.
+     */
+    Sample sample();
+
+    /**
+     * @return the analyzed diseases or {@code null} if all diseases were analyzed.
+     */
+    Collection<TermId> targetDiseases();
+
+    /**
+     * @return the differential diagnoses of the {@link #sample()}.
+     */
+    List<DifferentialDiagnosis> diagnoses();
+
+    /**
+     * @return the {@link #sample()} with the {@code addedObserved} and {@code addedExcluded} terms.
+     */
+    default Sample updatedSample(Collection<TermId> addedObserved, Collection<TermId> addedExcluded) {
+        Set<TermId> observed = new LinkedHashSet<>(sample().presentHpoTermIds());
+        observed.addAll(addedObserved);
+        Set<TermId> excluded = new LinkedHashSet<>(sample().excludedHpoTermIds());
+        excluded.addAll(addedExcluded);
+        return Sample.of(sample().id(), observed, excluded);
+    }
+}
@@ -0,0 +1,15 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Collection;
+import java.util.List;
+
+record DifferentialDiagnosisBaselineImpl(
+        Sample sample,
+        Collection<TermId> targetDiseases,
+        List<DifferentialDiagnosis> diagnoses
+) implements DifferentialDiagnosisBaseline {
+}
@@ -0,0 +1,58 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the differential diagnoses of the samples over all diseases, the most expensive engine runs,
+ * shared by the engines with the same {@link DifferentialDiagnosisEngine#configurationId() configuration}.
+ * <p>
+ * The diagnoses are keyed by the engine configuration and by the present and excluded terms of the sample,
+ * regardless of their order. The sample id is not a part of the key. The cache keeps at most
+ * {@code maxEntries} results and drops the least recently used ones.
+ * <p>
+ * The cache is thread-safe.
+ */
+public interface DifferentialDiagnosisCache {
+
+    /**
+     * @param maxEntries maximum number of the cached results, each taking up about as many diagnoses
+     *                   as there are diseases.
+     */
+    static DifferentialDiagnosisCache of(int maxEntries) {
+        return DifferentialDiagnosisCacheImpl.of(maxEntries);
+    }
+
+    /**
+     * @return the cached diagnoses of the {@code sample} or the diagnoses of the {@code engineRun},
+     * which are added to the cache.
+     */
+    List<DifferentialDiagnosis> get(String configurationId, Sample sample, Supplier<List<DifferentialDiagnosis>> engineRun);
+
+    /**
+     * @return an engine that reuses the cached diagnoses for the runs over all diseases, or the {@code engine}
+     * itself if its results should not be reused.
+     * @see MemoizingDifferentialDiagnosisEngine
+     */
+    default DifferentialDiagnosisEngine memoize(DifferentialDiagnosisEngine engine) {
+        return engine.configurationId().isPresent() && !(engine instanceof MemoizingDifferentialDiagnosisEngine)
+                ? MemoizingDifferentialDiagnosisEngine.of(engine, this)
+                : engine;
+    }
+
+    int size();
+
+    long hitCount();
+
+    long missCount();
+
+    /**
+     * @return the number of the results dropped to keep the size of the cache.
+     */
+    long evictionCount();
+
+    void clear();
+}
@@ -0,0 +1,114 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The diagnoses are computed outside of the lock, hence the diagnoses of a sample can be computed more than once
+ * by the concurrent threads. The first cached diagnoses are used.
+ */
+final class DifferentialDiagnosisCacheImpl implements DifferentialDiagnosisCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DifferentialDiagnosisCacheImpl.class);
+
+    private final Map<Key, List<DifferentialDiagnosis>> diagnoses;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    static DifferentialDiagnosisCacheImpl of(int maxEntries) {
+        return new DifferentialDiagnosisCacheImpl(maxEntries);
+    }
+
+    private DifferentialDiagnosisCacheImpl(int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Max entries must be positive but was %d".formatted(maxEntries));
+        // Access order, the eldest entry is the least recently used one.
+        this.diagnoses = new LinkedHashMap<>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<DifferentialDiagnosis>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        LOGGER.debug("Caching up to {} differential diagnoses", maxEntries);
+    }
+
+    @Override
+    public List<DifferentialDiagnosis> get(String configurationId, Sample sample,
+                                           Supplier<List<DifferentialDiagnosis>> engineRun) {
+        Key key = Key.of(configurationId, sample);
+        List<DifferentialDiagnosis> cached;
+        synchronized (diagnoses) {
+            cached = diagnoses.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        List<DifferentialDiagnosis> computed = List.copyOf(engineRun.get());
+        synchronized (diagnoses) {
+            cached = diagnoses.putIfAbsent(key, computed);
+        }
+        return cached == null ? computed : cached;
+    }
+
+    @Override
+    public int size() {
+        synchronized (diagnoses) {
+            return diagnoses.size();
+        }
+    }
+
+    @Override
+    public long hitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long missCount() {
+        return misses.get();
+    }
+
+    @Override
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (diagnoses) {
+            diagnoses.clear();
+        }
+    }
+
+    /**
+     * The terms are sorted but not deduplicated, the engines may score the repeated terms more than once.
+     */
+    private record Key(String configurationId, List<TermId> presentHpoTermIds, List<TermId> excludedHpoTermIds) {
+
+        private static Key of(String configurationId, Sample sample) {
+            return new Key(Objects.requireNonNull(configurationId),
+                    sorted(sample.presentHpoTermIds()),
+                    sorted(sample.excludedHpoTermIds()));
+        }
+
+        private static List<TermId> sorted(Collection<TermId> termIds) {
+            return termIds.stream()
+                    .sorted(Comparator.comparing(TermId::getValue))
+                    .toList();
+        }
+    }
+}
@@ -4,8 +4,10 @@ import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
 import org.monarchinitiative.maxodiff.core.model.Sample;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * The differential diagnosis engine represents a way for performing a differential diagnosis 
@@ -28,4 +30,89 @@ public interface DifferentialDiagnosisEngine {
      */
     List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> targetDiseases);
 
+    /**
+     * Run the differential diagnosis on the provided <code>sample</code> and <code>targetDiseases</code>
+     * and keep the results for updating with
+     * {@link #runIncremental(DifferentialDiagnosisBaseline, Collection, Collection)}.
+     * The targetDiseases object is nullable.
+     *
+     * @throws DifferentialDiagnosisEngineException upon any issues encountered in the analysis
+     */
+    default DifferentialDiagnosisBaseline baseline(Sample sample, Collection<TermId> targetDiseases) {
+        Sample distinct = DifferentialDiagnosisBaseline.distinctTerms(sample);
+        return DifferentialDiagnosisBaseline.of(distinct, targetDiseases, run(distinct, targetDiseases));
+    }
+
+    /**
+     * Update the differential diagnosis of the <code>baseline</code> sample with additional observed and excluded terms.
+     * <p>
+     * The results are the same as the results of running the analysis on
+     * {@link DifferentialDiagnosisBaseline#updatedSample(Collection, Collection)}, which is exactly what
+     * the default implementation does. The engines override this method to reuse the state of the <code>baseline</code>
+     * created by {@link #baseline(Sample, Collection)}.
+     *
+     * @param baseline the results of {@link #baseline(Sample, Collection)}.
+     * @param addedObserved the terms observed in addition to the present terms of the baseline sample.
+     * @param addedExcluded the terms excluded in addition to the excluded terms of the baseline sample.
+     * @throws DifferentialDiagnosisEngineException upon any issues encountered in the analysis
+     */
+    default List<DifferentialDiagnosis> runIncremental(DifferentialDiagnosisBaseline baseline,
+                                                       Collection<TermId> addedObserved,
+                                                       Collection<TermId> addedExcluded) {
+        return run(baseline.updatedSample(addedObserved, addedExcluded), baseline.targetDiseases());
+    }
+
+    /**
+     * Run the differential diagnosis on each of the <code>samples</code> and the same <code>targetDiseases</code>.
+     * <p>
+     * The results are the same as the results of running the analysis on each sample, which is exactly what
+     * the default implementation does. The engines override this method to score all samples against a disease
+     * one after the other, reusing the state of the disease.
+     * The targetDiseases object is nullable.
+     *
+     * @return the diagnoses of the samples, in the order of the <code>samples</code>.
+     * @throws DifferentialDiagnosisEngineException upon any issues encountered in the analysis
+     */
+    default List<List<DifferentialDiagnosis>> runAll(List<Sample> samples, Collection<TermId> targetDiseases) {
+        List<List<DifferentialDiagnosis>> diagnoses = new ArrayList<>(samples.size());
+        for (Sample sample : samples) {
+            diagnoses.add(run(sample, targetDiseases));
+        }
+        return diagnoses;
+    }
+
+    /**
+     * Update the differential diagnosis of the <code>baseline</code> sample with each of the additional observed
+     * and excluded terms, the batch version of {@link #runIncremental(DifferentialDiagnosisBaseline, Collection, Collection)}.
+     *
+     * @param addedObserved the terms observed in addition to the present terms of the baseline sample, one collection per update.
+     * @param addedExcluded the terms excluded in addition to the excluded terms of the baseline sample, one collection per update.
+     * @return the diagnoses of the updated samples, in the order of the updates.
+     * @throws IllegalArgumentException if the numbers of the observed and excluded updates differ
+     * @throws DifferentialDiagnosisEngineException upon any issues encountered in the analysis
+     */
+    default List<List<DifferentialDiagnosis>> runIncrementalAll(DifferentialDiagnosisBaseline baseline,
+                                                                List<? extends Collection<TermId>> addedObserved,
+                                                                List<? extends Collection<TermId>> addedExcluded) {
+        if (addedObserved.size() != addedExcluded.size())
+            throw new IllegalArgumentException("Got %d observed but %d excluded updates"
+                    .formatted(addedObserved.size(), addedExcluded.size()));
+        List<List<DifferentialDiagnosis>> diagnoses = new ArrayList<>(addedObserved.size());
+        for (int i = 0; i < addedObserved.size(); i++) {
+            diagnoses.add(runIncremental(baseline, addedObserved.get(i), addedExcluded.get(i)));
+        }
+        return diagnoses;
+    }
+
+    /**
+     * Get the identifier of the engine and of its configuration, such as {@code phenomizer:ONE_SIDED}.
+     * The engines with the same identifier give the same results for the same sample,
+     * hence their results can be reused, e.g. by the {@link DifferentialDiagnosisCache}.
+     *
+     * @return the identifier or an empty optional if the results of the engine should not be reused.
+     */
+    default Optional<String> configurationId() {
+        return Optional.empty();
+    }
+
 }
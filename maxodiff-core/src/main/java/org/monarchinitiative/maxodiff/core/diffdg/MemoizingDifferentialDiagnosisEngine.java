@@ -0,0 +1,86 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link DifferentialDiagnosisEngine} that reuses the diagnoses of the {@link DifferentialDiagnosisCache}
+ * for the runs over all diseases, e.g. when the same sample is refined with different options.
+ * <p>
+ * The batch runs over all diseases reuse the diagnoses sample by sample. The runs over the target diseases,
+ * the baselines and the incremental runs, including their batch versions, are done by the delegate engine.
+ */
+public final class MemoizingDifferentialDiagnosisEngine implements DifferentialDiagnosisEngine {
+
+    private final DifferentialDiagnosisEngine delegate;
+    private final String configurationId;
+    private final DifferentialDiagnosisCache cache;
+
+    /**
+     * @throws IllegalArgumentException if the {@code delegate} has no {@link #configurationId()}.
+     */
+    public static MemoizingDifferentialDiagnosisEngine of(DifferentialDiagnosisEngine delegate,
+                                                          DifferentialDiagnosisCache cache) {
+        return new MemoizingDifferentialDiagnosisEngine(delegate, cache);
+    }
+
+    private MemoizingDifferentialDiagnosisEngine(DifferentialDiagnosisEngine delegate, DifferentialDiagnosisCache cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.configurationId = delegate.configurationId()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot memoize the results of " + delegate.getClass().getName()));
+        this.cache = Objects.requireNonNull(cache);
+    }
+
+    public DifferentialDiagnosisEngine delegate() {
+        return delegate;
+    }
+
+    @Override
+    public List<DifferentialDiagnosis> run(Sample sample) {
+        return cache.get(configurationId, sample, () -> delegate.run(sample));
+    }
+
+    @Override
+    public List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> targetDiseases) {
+        return targetDiseases == null
+                ? run(sample)
+                : delegate.run(sample, targetDiseases);
+    }
+
+    @Override
+    public List<List<DifferentialDiagnosis>> runAll(List<Sample> samples, Collection<TermId> targetDiseases) {
+        return targetDiseases == null
+                ? DifferentialDiagnosisEngine.super.runAll(samples, null)
+                : delegate.runAll(samples, targetDiseases);
+    }
+
+    @Override
+    public DifferentialDiagnosisBaseline baseline(Sample sample, Collection<TermId> targetDiseases) {
+        return delegate.baseline(sample, targetDiseases);
+    }
+
+    @Override
+    public List<DifferentialDiagnosis> runIncremental(DifferentialDiagnosisBaseline baseline,
+                                                      Collection<TermId> addedObserved,
+                                                      Collection<TermId> addedExcluded) {
+        return delegate.runIncremental(baseline, addedObserved, addedExcluded);
+    }
+
+    @Override
+    public List<List<DifferentialDiagnosis>> runIncrementalAll(DifferentialDiagnosisBaseline baseline,
+                                                               List<? extends Collection<TermId>> addedObserved,
+                                                               List<? extends Collection<TermId>> addedExcluded) {
+        return delegate.runIncrementalAll(baseline, addedObserved, addedExcluded);
+    }
+
+    @Override
+    public Optional<String> configurationId() {
+        return Optional.of(configurationId);
+    }
+}
@@ -0,0 +1,260 @@
+package org.monarchinitiative.maxodiff.core.io;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * An append-only journal of the completed units of a batch run,
+ * e.g. a phenopacket analyzed with a given number of diseases and repetitions.
+ * <p>
+ * A completed unit is recorded with its result rows, followed by a completion record, and forced to the disk.
+ * A restarted batch skips the completed units and takes their rows from the journal.
+ * The rows of a unit without the completion record, e.g. when the batch crashed while writing the unit, are ignored.
+ * <p>
+ * The journal opened with a configuration, e.g. the engine and the options of the analyses, starts with
+ * the configuration record. A journal with a different configuration is not resumed, since its rows would be
+ * mistaken for the results of the current configuration.
+ * <p>
+ * The journal is a CSV file with the records:
+ * <ul>
+ *     <li><code>C,configuration</code> the configuration of the run that created the journal,</li>
+ *     <li><code>R,key,field...</code> a result row of the unit <code>key</code>,</li>
+ *     <li><code>D,key,n</code> the unit <code>key</code> completed with the <code>n</code> preceding rows.</li>
+ * </ul>
+ */
+public final class BatchJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchJournal.class);
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setRecordSeparator('\n')
+            .build();
+    private static final String CONFIGURATION = "C";
+    private static final String ROW = "R";
+    private static final String DONE = "D";
+
+    private final Path path;
+    private final FileChannel channel;
+    private final String configuration;
+    private final Map<String, List<List<String>>> completed;
+
+    /**
+     * Open the journal for appending, creating the file if it does not exist,
+     * and read the units completed by the previous runs, regardless of their configuration.
+     */
+    public static BatchJournal open(Path path) throws IOException {
+        return open(path, null);
+    }
+
+    /**
+     * Open the journal for appending, creating the file if it does not exist,
+     * and read the units completed by the previous runs with the same {@code configuration}.
+     *
+     * @param configuration configuration of the run or {@code null} if the configuration of the journal is not checked.
+     * @throws IOException if the journal was created by a run with a different configuration.
+     */
+    public static BatchJournal open(Path path, String configuration) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long length = completeLength(channel);
+            if (length < channel.size()) {
+                LOGGER.warn("Dropping incomplete record at the end of the batch journal {}", path.toAbsolutePath());
+                channel.truncate(length);
+            }
+            channel.position(length);
+            Contents contents = readContents(path);
+            if (configuration != null) {
+                if (length == 0) {
+                    write(channel, records(printer -> printer.printRecord(CONFIGURATION, configuration)));
+                } else if (!configuration.equals(contents.configuration())) {
+                    throw new IOException("The batch journal %s was written with the configuration %s but the run has %s. Remove the journal or choose another one to start over"
+                            .formatted(path.toAbsolutePath(), Objects.requireNonNullElse(contents.configuration(), "none"), configuration));
+                }
+            }
+            LOGGER.debug("Read {} completed units from the batch journal {}", contents.completed().size(), path.toAbsolutePath());
+            return new BatchJournal(path, channel, configuration == null ? contents.configuration() : configuration,
+                    contents.completed());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Join the {@code parts} into a unit key.
+     */
+    public static String key(Object... parts) {
+        return Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining("|"));
+    }
+
+    /**
+     * @return the length of the file up to the end of the last complete line.
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = channel.size();
+        while (end > 0) {
+            int length = (int) Math.min(buffer.capacity(), end);
+            long start = end - length;
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0)
+                    throw new EOFException("Unexpected end of the batch journal");
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n')
+                    return start + i + 1;
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private static Contents readContents(Path path) throws IOException {
+        String configuration = null;
+        Map<String, List<List<String>>> completed = new ConcurrentHashMap<>();
+        Map<String, List<List<String>>> pending = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             CSVParser parser = CSV_FORMAT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                if (record.size() < 2)
+                    throw new IOException("Invalid record at line %d of the batch journal %s".formatted(record.getRecordNumber(), path));
+                String key = record.get(1);
+                switch (record.get(0)) {
+                    case CONFIGURATION -> {
+                        if (configuration != null || record.getRecordNumber() != 1)
+                            throw new IOException("Unexpected configuration at line %d of the batch journal %s".formatted(record.getRecordNumber(), path));
+                        configuration = key;
+                    }
+                    case ROW -> pending.computeIfAbsent(key, k -> new ArrayList<>())
+                            .add(List.copyOf(record.toList().subList(2, record.size())));
+                    case DONE -> {
+                        // Only the rows written right before the completion belong to the unit,
+                        // the earlier rows come from an attempt that did not complete.
+                        List<List<String>> rows = pending.getOrDefault(key, List.of());
+                        int nRows = Integer.parseInt(record.get(2));
+                        if (nRows > rows.size())
+                            throw new IOException("Unit %s of the batch journal %s completed with %d rows but %d were found".formatted(key, path, nRows, rows.size()));
+                        completed.put(key, List.copyOf(rows.subList(rows.size() - nRows, rows.size())));
+                        pending.remove(key);
+                    }
+                    default -> throw new IOException("Unknown record type %s at line %d of the batch journal %s".formatted(record.get(0), record.getRecordNumber(), path));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid completion record in the batch journal %s".formatted(path), e);
+        }
+        return new Contents(configuration, completed);
+    }
+
+    private BatchJournal(Path path, FileChannel channel, String configuration, Map<String, List<List<String>>> completed) {
+        this.path = path;
+        this.channel = channel;
+        this.configuration = configuration;
+        this.completed = completed;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * @return the configuration of the run that created the journal or an empty optional if it was not recorded.
+     */
+    public Optional<String> configuration() {
+        return Optional.ofNullable(configuration);
+    }
+
+    public boolean isCompleted(String key) {
+        return completed.containsKey(key);
+    }
+
+    /**
+     * @return the result rows of the completed unit or an empty optional if the unit has not been completed.
+     */
+    public Optional<List<List<String>>> completedRows(String key) {
+        return Optional.ofNullable(completed.get(key));
+    }
+
+    public int completedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Record the completion of the unit {@code key} with its result {@code rows}.
+     * The journal is forced to the disk before returning.
+     */
+    public synchronized void complete(String key, List<? extends List<?>> rows) throws IOException {
+        List<List<String>> stored = new ArrayList<>(rows.size());
+        String records = records(printer -> {
+            for (List<?> row : rows) {
+                List<String> fields = row.stream().map(String::valueOf).toList();
+                List<String> record = new ArrayList<>(fields.size() + 2);
+                record.add(ROW);
+                record.add(key);
+                record.addAll(fields);
+                printer.printRecord(record);
+                stored.add(fields);
+            }
+            printer.printRecord(DONE, key, rows.size());
+        });
+
+        write(channel, records);
+        completed.put(key, List.copyOf(stored));
+    }
+
+    private static String records(RecordWriter writer) throws IOException {
+        StringBuilder records = new StringBuilder();
+        try (CSVPrinter printer = new CSVPrinter(records, CSV_FORMAT)) {
+            writer.write(printer);
+        }
+        return records.toString();
+    }
+
+    /**
+     * Append the {@code records} and force them to the disk.
+     */
+    private static void write(FileChannel channel, String records) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(records);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private record Contents(String configuration, Map<String, List<List<String>>> completed) {
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(CSVPrinter printer) throws IOException;
+    }
+}
@@ -1,11 +1,14 @@
 package org.monarchinitiative.maxodiff.core.model;
 
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.base.PhenolRuntimeException;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class calculates the ascertainable phenotypes.
@@ -19,13 +22,29 @@ public class AscertainablePhenotypes {
      * Reference to an object containing information about all diseases.
      */
     private final HpoDiseases hpoDiseases;
+    private final TermDictionary hpoDictionary;
+    /**
+     * Cache of the disease annotations. The cached sets must not be modified.
+     */
+    private final Map<TermId, TermIdBitSet> diseaseAnnotations = new ConcurrentHashMap<>();
 
     /**
      *
      * @param hpoDiseases HpoDisease object
      */
     public AscertainablePhenotypes(HpoDiseases hpoDiseases) {
+        this(hpoDiseases, null);
+    }
+
+    /**
+     *
+     * @param hpoDiseases HpoDisease object
+     * @param hpoDictionary dictionary with all HPO terms annotated to the {@code hpoDiseases}
+     *                      or {@code null} if the bit set methods are not used.
+     */
+    public AscertainablePhenotypes(HpoDiseases hpoDiseases, TermDictionary hpoDictionary) {
         this.hpoDiseases = hpoDiseases;
+        this.hpoDictionary = hpoDictionary;
     }
 
     /**
@@ -50,4 +69,23 @@ public class AscertainablePhenotypes {
                 .filter(id -> !existingTerms.contains(id))
                 .toList());
     }
+
+    /**
+     * Bit set version of {@link #getAscertainablePhenotypeIds(Sample, TermId)}.
+     *
+     * @param existingTerms present and excluded HPO terms of the sample
+     * @param targetDiseaseId TermId of the disease of interest
+     * @return a new set with the HPO terms that are annotated to the disease, but are not present in the sample.
+     * @throws PhenolRuntimeException if that targetDiseaseId is not found.
+     */
+    public TermIdBitSet getAscertainablePhenotypeBits(TermIdBitSet existingTerms, TermId targetDiseaseId) throws PhenolRuntimeException {
+        if (hpoDictionary == null)
+            throw new IllegalStateException("HPO term dictionary was not provided");
+        TermIdBitSet annotations = diseaseAnnotations.computeIfAbsent(targetDiseaseId, id -> {
+            HpoDisease disease = hpoDiseases.diseaseById(id)
+                    .orElseThrow(() -> new PhenolRuntimeException("Could not find disease id " + id.getValue()));
+            return hpoDictionary.newSet(disease.annotationTermIdList());
+        });
+        return annotations.copy().andNot(existingTerms);
+    }
 }
@@ -1,18 +1,22 @@
 package org.monarchinitiative.maxodiff.core.model;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
 import org.monarchinitiative.maxodiff.core.analysis.MaxoDDResults;
-import org.monarchinitiative.maxodiff.core.analysis.MaxoHpoTermIdMaps;
+import org.monarchinitiative.maxodiff.core.analysis.RepetitionRandom;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.service.DfsHpoTermArranger;
 import org.monarchinitiative.maxodiff.core.service.HpoTermArranger;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,6 +25,7 @@ public class CandidateDiseaseScores {
     private final MaxoHpoTermProbabilities maxoHpoTermProbabilities; //contains top K initial diagnoses only
     private final MinimalOntology minimalOntology;
     private final Ontology ontology;
+    private OntologyClosure fallbackHpoClosure;
 
     public CandidateDiseaseScores(MaxoHpoTermProbabilities maxoHpoTermProbabilities, MinimalOntology minHpo, Ontology hpo) {
         this.maxoHpoTermProbabilities = maxoHpoTermProbabilities;
@@ -39,25 +44,125 @@ public class CandidateDiseaseScores {
                                               DifferentialDiagnosisEngine engine,
                                               Set<TermId> diseaseIds,
                                               Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap) {
-        Set<TermId> observed = new HashSet<>(Set.of());
-        Set<TermId> excluded = new HashSet<>(Set.of());
-
-        //TODO: some of these maps/probabilities can go into the constructor
-        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap);
-        HpoDiseases hpoDiseases = maxoHpoTermProbabilities.getHpoDiseases();
-        Set<TermId> maxoBenefitHpoIds = maxoHpoTermProbabilities.getDiscoverableByMaxoHpoTerms(ppkt, maxoId, maxoToHpoTermIdMap);
-        List<TermId> diseaseIdList = new LinkedList<>(diseaseIds);
-        Map<TermId, Double> diseaseRankProbabilityMap = new LinkedHashMap<>();
-        diseaseIds.stream().forEach(id -> diseaseRankProbabilityMap.put(id, 1./(diseaseIdList.indexOf(id)+1)));
-        Double diseaseRankProbabilityValueSum = diseaseRankProbabilityMap.values().stream().mapToDouble(d->d).sum();
-        diseaseRankProbabilityMap.forEach((diseaseIdKey, probabilityValue) ->
-                diseaseRankProbabilityMap.replace(diseaseIdKey, probabilityValue / diseaseRankProbabilityValueSum));
-        AscertainablePhenotypes ascertainablePhenotypes = new AscertainablePhenotypes(hpoDiseases);
-        TermId selectedDiseaseId = getDiseaseId(diseaseRankProbabilityMap);
-        Set<TermId> ascertainablePhenotypeIds = ascertainablePhenotypes.getAscertainablePhenotypeIds(ppkt, selectedDiseaseId);
-        Set<TermId> maxoAddedObservedHpoIds = new HashSet<>();
-        Set<TermId> maxoAddedObservedDescendantHpoIds = new HashSet<>();
-        Set<TermId> maxoAddedExcludedHpoIds = new HashSet<>();
+        SampleAnalysisContext context = SampleAnalysisContext.of(ppkt, maxoHpoTermProbabilities, hpoToMaxoTermMap, diseaseIds);
+        return getScoresForMaxoTerm(context, maxoId, engine);
+    }
+
+    /**
+     *
+     * @param context Precomputed data of the sample and the analyzed diseases.
+     * @param maxoId TermId of the MAxO term of interest.
+     * @param engine Engine to use for the differential diagnosis, e.g. LIRICAL.
+     * @return List of the top K differential diagnoses for the given MAxO term.
+     */
+    public MaxoDDResults getScoresForMaxoTerm(SampleAnalysisContext context, TermId maxoId,
+                                              DifferentialDiagnosisEngine engine) {
+        return getScoresForMaxoTerm(context, maxoId, engine, null);
+    }
+
+    /**
+     *
+     * @param context Precomputed data of the sample and the analyzed diseases.
+     * @param maxoId TermId of the MAxO term of interest.
+     * @param engine Engine to use for the differential diagnosis, e.g. LIRICAL.
+     * @param baseline Results of {@link DifferentialDiagnosisEngine#baseline(Sample, Collection)} for the sample
+     *                 and diseases of the {@code context} to update with the MAxO term findings,
+     *                 or {@code null} to run the differential diagnosis from scratch.
+     * @return List of the top K differential diagnoses for the given MAxO term.
+     */
+    public MaxoDDResults getScoresForMaxoTerm(SampleAnalysisContext context, TermId maxoId,
+                                              DifferentialDiagnosisEngine engine,
+                                              DifferentialDiagnosisBaseline baseline) {
+        return getScoresForMaxoTerm(context, maxoId, engine, baseline, new SplittableRandom());
+    }
+
+    /**
+     *
+     * @param context Precomputed data of the sample and the analyzed diseases.
+     * @param maxoId TermId of the MAxO term of interest.
+     * @param engine Engine to use for the differential diagnosis, e.g. LIRICAL.
+     * @param baseline Results of {@link DifferentialDiagnosisEngine#baseline(Sample, Collection)} for the sample
+     *                 and diseases of the {@code context} to update with the MAxO term findings,
+     *                 or {@code null} to run the differential diagnosis from scratch.
+     * @param random source of the random numbers for selecting the disease, see {@link RepetitionRandom}.
+     * @return List of the top K differential diagnoses for the given MAxO term.
+     * @throws java.util.concurrent.CancellationException if the {@link CancellationToken#current() current token}
+     * has stopped.
+     */
+    public MaxoDDResults getScoresForMaxoTerm(SampleAnalysisContext context, TermId maxoId,
+                                              DifferentialDiagnosisEngine engine,
+                                              DifferentialDiagnosisBaseline baseline,
+                                              RandomGenerator random) {
+        return getScoresForMaxoTerm(context, maxoId, engine, baseline, List.of(random)).getFirst();
+    }
+
+    /**
+     * Simulate the MAxO term findings once per random generator and score all the simulated samples
+     * in one batch of the {@code engine}.
+     *
+     * @param context Precomputed data of the sample and the analyzed diseases.
+     * @param maxoId TermId of the MAxO term of interest.
+     * @param engine Engine to use for the differential diagnosis, e.g. LIRICAL.
+     * @param baseline Results of {@link DifferentialDiagnosisEngine#baseline(Sample, Collection)} for the sample
+     *                 and diseases of the {@code context} to update with the MAxO term findings,
+     *                 or {@code null} to run the differential diagnosis from scratch.
+     * @param randoms sources of the random numbers for selecting the disease, one per repetition.
+     * @return the results of the repetitions in the order of the {@code randoms}.
+     * @throws java.util.concurrent.CancellationException if the {@link CancellationToken#current() current token}
+     * has stopped.
+     */
+    public List<MaxoDDResults> getScoresForMaxoTerm(SampleAnalysisContext context, TermId maxoId,
+                                                    DifferentialDiagnosisEngine engine,
+                                                    DifferentialDiagnosisBaseline baseline,
+                                                    List<? extends RandomGenerator> randoms) {
+        OntologyClosure hpoClosure = context.hpoClosure() == null ? fallbackHpoClosure() : context.hpoClosure();
+        List<Findings> findings = new ArrayList<>(randoms.size());
+        for (RandomGenerator random : randoms) {
+            findings.add(simulateFindings(context, maxoId, hpoClosure, random));
+        }
+
+        // The engine run dominates the repetitions, hence the token is checked right before it.
+        CancellationToken.current().throwIfStopped();
+        List<List<DifferentialDiagnosis>> newMaxoDiagnoses;
+        if (baseline == null) {
+            Sample ppkt = context.sample();
+            List<Sample> newSamples = findings.stream()
+                    .map(f -> getNewSample(ppkt, f.observed(), f.excluded()))
+                    .toList();
+            newMaxoDiagnoses = engine.runAll(newSamples, context.diseaseIds());
+        } else {
+            newMaxoDiagnoses = engine.runIncrementalAll(baseline,
+                    findings.stream().map(Findings::observed).toList(),
+                    findings.stream().map(Findings::excluded).toList());
+        }
+
+        HpoTermArranger hpoTermArranger = new DfsHpoTermArranger(ontology, hpoClosure);
+        List<MaxoDDResults> results = new ArrayList<>(findings.size());
+        for (int i = 0; i < findings.size(); i++) {
+            Findings f = findings.get(i);
+            Set<TermId> maxoAddedObservedHpoIdsOrdered = new HashSet<>(hpoTermArranger.arrangeTerms(f.addedObserved().stream().toList()));
+            Set<TermId> maxoAddedExcludedHpoIdsOrdered = new HashSet<>(hpoTermArranger.arrangeTerms(f.addedExcluded().stream().toList()));
+            results.add(new MaxoDDResults(maxoAddedObservedHpoIdsOrdered, maxoAddedExcludedHpoIdsOrdered,
+                    f.addedObservedDescendants(), newMaxoDiagnoses.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Select a disease with the {@code random} and find the phenotypes the MAxO term would observe or exclude in it.
+     */
+    private Findings simulateFindings(SampleAnalysisContext context, TermId maxoId,
+                                      OntologyClosure hpoClosure, RandomGenerator random) {
+        TermDictionary hpoDictionary = context.hpoDictionary();
+        TermIdBitSet observed = hpoDictionary.newSet();
+        TermIdBitSet excluded = hpoDictionary.newSet();
+
+        TermIdBitSet maxoBenefitHpoIds = context.discoverableByMaxoHpoTermBits(maxoId);
+        TermId selectedDiseaseId = getDiseaseId(context.diseaseRankProbabilities(), random);
+        TermIdBitSet ascertainablePhenotypeIds = context.ascertainablePhenotypeBits(selectedDiseaseId);
+        TermIdBitSet maxoAddedObservedHpoIds = hpoDictionary.newSet();
+        TermIdBitSet maxoAddedObservedDescendantHpoIds = hpoDictionary.newSet();
+        TermIdBitSet maxoAddedExcludedHpoIds = hpoDictionary.newSet();
         for (TermId hpoId : ascertainablePhenotypeIds) {
             if (maxoBenefitHpoIds.contains(hpoId)) {
                 if (!excluded.contains(hpoId)) {
@@ -68,8 +173,7 @@ public class CandidateDiseaseScores {
                     maxoAddedExcludedHpoIds.add(hpoId);
                 }
             }
-            Set<TermId> ascertainablePhenotypeDescendants = ontology.graph().getDescendantSet(hpoId);
-            for (TermId descHpoId : ascertainablePhenotypeDescendants) {
+            hpoClosure.forEachDescendant(hpoId, descHpoId -> {
                 if (maxoBenefitHpoIds.contains(descHpoId)) {
                     if (!excluded.contains(descHpoId)) {
                         observed.add(descHpoId);
@@ -77,7 +181,7 @@ public class CandidateDiseaseScores {
                         maxoAddedObservedDescendantHpoIds.add(descHpoId);
                     } else {
                         for (TermId maxoHpoId : maxoBenefitHpoIds) {
-                            if (OntologyAlgorithm.termsAreRelated(ontology, descHpoId, maxoHpoId)) {
+                            if (hpoClosure.related(descHpoId, maxoHpoId)) {
                                 if (!excluded.contains(descHpoId)) {
                                     observed.add(descHpoId);
                                     maxoAddedObservedHpoIds.add(descHpoId);
@@ -92,30 +196,42 @@ public class CandidateDiseaseScores {
                         }
                     }
                 }
-            }
+            });
         }
 
-        Sample newSample = getNewSample(ppkt, observed, excluded);
-        List<DifferentialDiagnosis> newMaxoDiagnoses = engine.run(newSample, diseaseIds);
+        return new Findings(observed, excluded, maxoAddedObservedHpoIds, maxoAddedObservedDescendantHpoIds,
+                maxoAddedExcludedHpoIds);
+    }
 
-        HpoTermArranger hpoTermArranger = new DfsHpoTermArranger(ontology);
-        Set<TermId> maxoAddedObservedHpoIdsOrdered = new HashSet<>(hpoTermArranger.arrangeTerms(maxoAddedObservedHpoIds.stream().toList()));
-        Set<TermId> maxoAddedExcludedHpoIdsOrdered = new HashSet<>(hpoTermArranger.arrangeTerms(maxoAddedExcludedHpoIds.stream().toList()));
+    /**
+     * The phenotypes observed and excluded by the MAxO term in one repetition.
+     */
+    private record Findings(TermIdBitSet observed,
+                            TermIdBitSet excluded,
+                            TermIdBitSet addedObserved,
+                            TermIdBitSet addedObservedDescendants,
+                            TermIdBitSet addedExcluded) {
+    }
 
-        return new MaxoDDResults(maxoAddedObservedHpoIdsOrdered, maxoAddedExcludedHpoIdsOrdered,
-                maxoAddedObservedDescendantHpoIds, newMaxoDiagnoses);
+    /**
+     * @return closure of the HPO for the contexts created without it.
+     */
+    private synchronized OntologyClosure fallbackHpoClosure() {
+        if (fallbackHpoClosure == null)
+            fallbackHpoClosure = OntologyClosure.of(minimalOntology);
+        return fallbackHpoClosure;
     }
 
-    private boolean getTestResult(double maxoTermBenefitProbability) {
+    private boolean getTestResult(double maxoTermBenefitProbability, RandomGenerator random) {
         // Generate random number between 0 and 1
-        double randomNumber = Math.random();
+        double randomNumber = random.nextDouble();
 
         return randomNumber > maxoTermBenefitProbability;
     }
 
-    private TermId getDiseaseId(Map<TermId, Double> diseaseRankProbabilityMap) {
+    private TermId getDiseaseId(Map<TermId, Double> diseaseRankProbabilityMap, RandomGenerator random) {
         // Generate random number between 0 and 1
-        double randomNumber = Math.random();
+        double randomNumber = random.nextDouble();
 
         double closestMapValue = diseaseRankProbabilityMap.values().stream()
                 .min(Comparator.comparingDouble(i -> Math.abs(i - randomNumber))).get();
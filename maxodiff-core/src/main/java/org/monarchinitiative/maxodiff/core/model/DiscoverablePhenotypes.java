@@ -1,6 +1,8 @@
 package org.monarchinitiative.maxodiff.core.model;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.base.PhenolRuntimeException;
 import org.monarchinitiative.phenol.ontology.data.TermId;
@@ -21,6 +23,9 @@ public class DiscoverablePhenotypes {
     private final HpoDiseases hpoDiseases;
     private final Map<TermId, Set<TermId>> hpoToMaxoTermIdMap;
     private final Map<TermId, Set<TermId>> maxoToHpoTermIdMap;
+    private final TermDictionary hpoDictionary;
+    private final AscertainablePhenotypes ascertainablePhenotypes;
+    private final ExcludedPhenotypes excludedPhenotypes;
 
     /**
      *
@@ -31,9 +36,27 @@ public class DiscoverablePhenotypes {
     public DiscoverablePhenotypes(HpoDiseases hpoDiseases,
                                   Map<TermId, Set<TermId>> hpoToMaxoTermIdMap,
                                   Map<TermId, Set<TermId>> maxoToHpoTermIdMap) {
+        this(hpoDiseases, hpoToMaxoTermIdMap, maxoToHpoTermIdMap, null);
+    }
+
+    /**
+     *
+     * @param hpoDiseases HpoDisease object
+     * @param hpoToMaxoTermIdMap Map of HPO term ids : Set of associated MAxO term ids created using maxo_diagnostic_annotations file.
+     * @param maxoToHpoTermIdMap Map of MAxO term ids : Set of associated HPO term ids created using maxo_diagnostic_annotations file.
+     * @param hpoDictionary dictionary with the HPO terms of the diseases and of the MAxO annotations
+     *                      or {@code null} if the bit set methods are not used.
+     */
+    public DiscoverablePhenotypes(HpoDiseases hpoDiseases,
+                                  Map<TermId, Set<TermId>> hpoToMaxoTermIdMap,
+                                  Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
+                                  TermDictionary hpoDictionary) {
         this.hpoDiseases = hpoDiseases;
         this.hpoToMaxoTermIdMap = hpoToMaxoTermIdMap;
         this.maxoToHpoTermIdMap = maxoToHpoTermIdMap;
+        this.hpoDictionary = hpoDictionary;
+        this.ascertainablePhenotypes = new AscertainablePhenotypes(hpoDiseases, hpoDictionary);
+        this.excludedPhenotypes = new ExcludedPhenotypes(hpoToMaxoTermIdMap, maxoToHpoTermIdMap, hpoDictionary);
     }
 
     /**
@@ -53,4 +76,38 @@ public class DiscoverablePhenotypes {
 
         return discoverablePhenotypes;
     }
+
+    /**
+     * Bit set version of {@link #getDiscoverablePhenotypeIds(Sample, TermId)}.
+     *
+     * @param existingTerms present and excluded HPO terms of the sample
+     * @param excludedPhenotypeIds excluded phenotypes of the sample, see {@link #getExcludedPhenotypeBits(TermIdBitSet)}
+     * @param targetDiseaseId TermId of the disease of interest
+     * @return a new set of discoverable phenotypes.
+     */
+    public TermIdBitSet getDiscoverablePhenotypeBits(TermIdBitSet existingTerms,
+                                                     TermIdBitSet excludedPhenotypeIds,
+                                                     TermId targetDiseaseId) throws PhenolRuntimeException {
+        return ascertainablePhenotypes.getAscertainablePhenotypeBits(existingTerms, targetDiseaseId)
+                .andNot(excludedPhenotypeIds);
+    }
+
+    /**
+     * @param existingTerms present and excluded HPO terms of the sample
+     * @return a new set with the excluded phenotypes of the sample.
+     */
+    public TermIdBitSet getExcludedPhenotypeBits(TermIdBitSet existingTerms) {
+        return excludedPhenotypes.getExcludedPhenotypeBits(existingTerms);
+    }
+
+    /**
+     * @return a new set with the present and excluded HPO terms of the {@code sample} that are in the dictionary.
+     */
+    public TermIdBitSet getExistingTermBits(Sample sample) {
+        if (hpoDictionary == null)
+            throw new IllegalStateException("HPO term dictionary was not provided");
+        TermIdBitSet existingTerms = hpoDictionary.newSetOfKnown(sample.presentHpoTermIds());
+        existingTerms.addAll(hpoDictionary.newSetOfKnown(sample.excludedHpoTermIds()));
+        return existingTerms;
+    }
 }
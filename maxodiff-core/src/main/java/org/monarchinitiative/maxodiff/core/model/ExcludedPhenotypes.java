@@ -2,9 +2,12 @@ package org.monarchinitiative.maxodiff.core.model;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.MaxoHpoTermIdMaps;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class calculates the excluded phenotypes, i.e. phenotypes that can be ascertained by MAxO terms,
@@ -20,6 +23,11 @@ public class ExcludedPhenotypes {
 
     private final Map<TermId, Set<TermId>> hpoToMaxoTermIdMap;
     private final Map<TermId, Set<TermId>> maxoToHpoTermIdMap;
+    private final TermDictionary hpoDictionary;
+    /**
+     * Cache of the HPO terms of the MAxO terms. The cached sets must not be modified.
+     */
+    private final Map<TermId, TermIdBitSet> maxoToHpoTermBits = new ConcurrentHashMap<>();
 
     /**
      * @param hpoToMaxoTermIdMap Map of HPO term ids : Set of associated MAxO term ids created using maxo_diagnostic_annotations file.
@@ -27,8 +35,21 @@ public class ExcludedPhenotypes {
      */
     public ExcludedPhenotypes(Map<TermId, Set<TermId>> hpoToMaxoTermIdMap,
                               Map<TermId, Set<TermId>> maxoToHpoTermIdMap) {
+        this(hpoToMaxoTermIdMap, maxoToHpoTermIdMap, null);
+    }
+
+    /**
+     * @param hpoToMaxoTermIdMap Map of HPO term ids : Set of associated MAxO term ids created using maxo_diagnostic_annotations file.
+     * @param maxoToHpoTermIdMap Map of MAxO term ids : Set of associated HPO term ids created using maxo_diagnostic_annotations file.
+     * @param hpoDictionary dictionary with all HPO terms of the {@code maxoToHpoTermIdMap}
+     *                      or {@code null} if the bit set methods are not used.
+     */
+    public ExcludedPhenotypes(Map<TermId, Set<TermId>> hpoToMaxoTermIdMap,
+                              Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
+                              TermDictionary hpoDictionary) {
         this.hpoToMaxoTermIdMap = hpoToMaxoTermIdMap;
         this.maxoToHpoTermIdMap = maxoToHpoTermIdMap;
+        this.hpoDictionary = hpoDictionary;
     }
 
 
@@ -90,4 +111,50 @@ public class ExcludedPhenotypes {
 
         return intersection;
     }
+
+    /**
+     * Bit set version of {@link #getExcludedPhenotypes(Sample)}.
+     *
+     * @param existingTerms present and excluded HPO terms of the sample.
+     * @return a new set of excluded phenotypes.
+     */
+    public TermIdBitSet getExcludedPhenotypeBits(TermIdBitSet existingTerms) {
+        TermIdBitSet excludedPhenotypes = dictionary().newSet();
+        for (TermId hpoId : existingTerms) {
+            Set<TermId> associatedMaxoTermIds = hpoToMaxoTermIdMap.get(hpoId);
+            if (associatedMaxoTermIds == null || associatedMaxoTermIds.isEmpty())
+                continue;
+            List<TermIdBitSet> maxoIdHpoIds = new ArrayList<>(associatedMaxoTermIds.size());
+            associatedMaxoTermIds.forEach(mid -> maxoIdHpoIds.add(hpoTermBits(mid)));
+            excludedPhenotypes.or(getBitSetIntersection(maxoIdHpoIds));
+        }
+        return excludedPhenotypes.andNot(existingTerms);
+    }
+
+    private TermIdBitSet hpoTermBits(TermId maxoId) {
+        return maxoToHpoTermBits.computeIfAbsent(maxoId, id -> {
+            Set<TermId> hpoIds = maxoToHpoTermIdMap.get(id);
+            return hpoIds == null ? dictionary().newSet() : dictionary().newSet(hpoIds);
+        });
+    }
+
+    private TermDictionary dictionary() {
+        if (hpoDictionary == null)
+            throw new IllegalStateException("HPO term dictionary was not provided");
+        return hpoDictionary;
+    }
+
+    /**
+     * Bit set version of {@link #getIntersection(List)}.
+     *
+     * @param sets non-empty list of sets that share the same dictionary. The sets are not modified.
+     * @return a new set with the intersection of the sets.
+     */
+    public static TermIdBitSet getBitSetIntersection(List<TermIdBitSet> sets) {
+        TermIdBitSet intersection = sets.getFirst().copy();
+        for (int i = 1; i < sets.size(); i++) {
+            intersection.and(sets.get(i));
+        }
+        return intersection;
+    }
 }
@@ -2,6 +2,8 @@ package org.monarchinitiative.maxodiff.core.model;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.MaxoHpoTermIdMaps;
+import org.monarchinitiative.maxodiff.core.term.TermDictionaries;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
 import org.monarchinitiative.phenol.annotations.base.Ratio;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
@@ -16,15 +18,28 @@ public class MaxoHpoTermProbabilities {
     private final DiseaseModelProbability diseaseModelProbability;
     private final Map<TermId, Set<TermId>> maxoToHpoTermIdMap;
     private final DiscoverablePhenotypes discoverablePhenotypes;
+    private final TermDictionaries termDictionaries;
 
     public MaxoHpoTermProbabilities(HpoDiseases hpoDiseases, Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
                                     List<DifferentialDiagnosis> initialDiagnoses, DiseaseModelProbability diseaseModelProbability) {
+        this(hpoDiseases, hpoToMaxoTermMap, initialDiagnoses, diseaseModelProbability,
+                TermDictionaries.of(hpoDiseases, hpoToMaxoTermMap));
+    }
+
+    /**
+     * @param termDictionaries dictionaries built from the {@code hpoDiseases} and the {@code hpoToMaxoTermMap}.
+     */
+    public MaxoHpoTermProbabilities(HpoDiseases hpoDiseases, Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
+                                    List<DifferentialDiagnosis> initialDiagnoses, DiseaseModelProbability diseaseModelProbability,
+                                    TermDictionaries termDictionaries) {
         this.hpoDiseases = hpoDiseases;
         this.initialDiagnoses = initialDiagnoses;
         this.diseaseModelProbability = diseaseModelProbability;
+        this.termDictionaries = Objects.requireNonNull(termDictionaries);
         Map<TermId, Set<TermId>> hpoToMaxoTermIdMap = MaxoHpoTermIdMaps.getHpoToMaxoTermIdMap(hpoToMaxoTermMap);
         this.maxoToHpoTermIdMap = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap);
-        this.discoverablePhenotypes = new DiscoverablePhenotypes(hpoDiseases, hpoToMaxoTermIdMap, maxoToHpoTermIdMap);
+        this.discoverablePhenotypes = new DiscoverablePhenotypes(hpoDiseases, hpoToMaxoTermIdMap, maxoToHpoTermIdMap,
+                termDictionaries.hpo());
     }
 
     /**
@@ -34,11 +49,13 @@ public class MaxoHpoTermProbabilities {
      * for all K diseases in the differential diagnosis
      */
     public Set<TermId> getUnionOfDiscoverablePhenotypes(Sample ppkt) {
-        Set<TermId> unionDiscoverablePhenotypes = new HashSet<>();
+        TermIdBitSet existingTerms = discoverablePhenotypes.getExistingTermBits(ppkt);
+        TermIdBitSet excludedPhenotypes = discoverablePhenotypes.getExcludedPhenotypeBits(existingTerms);
+        TermIdBitSet unionDiscoverablePhenotypes = termDictionaries.hpo().newSet();
 
         for (DifferentialDiagnosis diagnosis : initialDiagnoses) {
-            unionDiscoverablePhenotypes.addAll(discoverablePhenotypes.getDiscoverablePhenotypeIds(
-                    ppkt, diagnosis.diseaseId()));
+            unionDiscoverablePhenotypes.or(discoverablePhenotypes.getDiscoverablePhenotypeBits(
+                    existingTerms, excludedPhenotypes, diagnosis.diseaseId()));
         }
 
         return unionDiscoverablePhenotypes;
@@ -93,4 +110,8 @@ public class MaxoHpoTermProbabilities {
     public List<DifferentialDiagnosis> getInitialDiagnoses() { return initialDiagnoses; }
 
     public HpoDiseases getHpoDiseases() { return hpoDiseases; }
+
+    public TermDictionaries getTermDictionaries() { return termDictionaries; }
+
+    DiscoverablePhenotypes getDiscoverablePhenotypes() { return discoverablePhenotypes; }
 }
@@ -2,7 +2,9 @@ package org.monarchinitiative.maxodiff.core.model;
 
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.*;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
@@ -22,9 +24,12 @@ public class RankMaxo {
     private final MaxoHpoTermProbabilities maxoHpoTermProbabilities;
     private final DifferentialDiagnosisEngine engine;
     double progress;
-    RankMaxoProgress rankMaxoProgress;
+    // Read by other threads, e.g. to report the progress of a web job, while the ranking runs.
+    private volatile RankMaxoProgress rankMaxoProgress;
     private final MinimalOntology minimalOntology;
     private final Ontology ontology;
+    private final MaxoTermExecutor executor;
+    private OntologyClosure hpoClosure;
 
     public RankMaxo(Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
                     Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
@@ -32,12 +37,27 @@ public class RankMaxo {
                     DifferentialDiagnosisEngine engine,
                     MinimalOntology minHpo,
                     Ontology hpo) {
+        this(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities, engine, minHpo, hpo,
+                MaxoTermExecutor.shared());
+    }
+
+    /**
+     * @param executor executor for evaluating the MAxO terms. The executor is not closed by {@link RankMaxo}.
+     */
+    public RankMaxo(Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
+                    Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
+                    MaxoHpoTermProbabilities maxoHpoTermProbabilities,
+                    DifferentialDiagnosisEngine engine,
+                    MinimalOntology minHpo,
+                    Ontology hpo,
+                    MaxoTermExecutor executor) {
         this.hpoToMaxoTermMap = hpoToMaxoTermMap;
         this.maxoToHpoTermIdMap = maxoToHpoTermIdMap;
         this.maxoHpoTermProbabilities = maxoHpoTermProbabilities;
         this.engine = engine;
         this.minimalOntology = minHpo;
         this.ontology = hpo;
+        this.executor = Objects.requireNonNull(executor);
     }
 
     /**
@@ -48,41 +68,106 @@ public class RankMaxo {
      * @return Map of MAxO scores sorted in descending order by score
      */
     public List<RankMaxoScore> rankMaxoTerms(Sample ppkt, int nRepetitions, Set<TermId> diseaseIds) throws Exception {
+        return rankMaxoTerms(ppkt, nRepetitions, diseaseIds, RepetitionRandom.randomSeed());
+    }
+
+    /**
+     *
+     * @param ppkt Input phenopacket with present and excluded HPO terms.
+     * @param nRepetitions number of times to calculate scores for each MAxO term.
+     * @param diseaseIds Set of OMIM disease Ids to use for analysis.
+     * @param seed seed of the random sources of the repetitions. The ranking is reproducible for a given seed.
+     * @return Map of MAxO scores sorted in descending order by score
+     */
+    public List<RankMaxoScore> rankMaxoTerms(Sample ppkt, int nRepetitions, Set<TermId> diseaseIds, long seed) throws Exception {
+        return rankMaxoTerms(ppkt, nRepetitions, diseaseIds, seed, AdaptiveRepetitionOptions.disabled());
+    }
+
+    /**
+     *
+     * @param ppkt Input phenopacket with present and excluded HPO terms.
+     * @param nRepetitions the maximum number of times to calculate scores for each MAxO term.
+     * @param diseaseIds Set of OMIM disease Ids to use for analysis.
+     * @param seed seed of the random sources of the repetitions. The ranking is reproducible for a given seed.
+     * @param adaptive options of the adaptive allocation of the repetitions to the MAxO terms.
+     * @return Map of MAxO scores sorted in descending order by score
+     */
+    public List<RankMaxoScore> rankMaxoTerms(Sample ppkt, int nRepetitions, Set<TermId> diseaseIds, long seed,
+                                             AdaptiveRepetitionOptions adaptive) throws Exception {
+        return rankMaxoTerms(ppkt, nRepetitions, diseaseIds, seed, adaptive, Integer.MAX_VALUE);
+    }
+
+    /**
+     *
+     * @param ppkt Input phenopacket with present and excluded HPO terms.
+     * @param nRepetitions the maximum number of times to calculate scores for each MAxO term.
+     * @param diseaseIds Set of OMIM disease Ids to use for analysis.
+     * @param seed seed of the random sources of the repetitions. The ranking is reproducible for a given seed.
+     * @param adaptive options of the adaptive allocation of the repetitions to the MAxO terms.
+     * @param nMaxoTerms the maximum number of the returned MAxO terms. All terms are scored,
+     *                   but only the returned ones are summarized in a full {@link RankMaxoScore}.
+     * @return Map of the top {@code nMaxoTerms} MAxO scores sorted in descending order by score
+     */
+    public List<RankMaxoScore> rankMaxoTerms(Sample ppkt, int nRepetitions, Set<TermId> diseaseIds, long seed,
+                                             AdaptiveRepetitionOptions adaptive, int nMaxoTerms) throws Exception {
+        return rankMaxoTerms(ppkt, nRepetitions, diseaseIds, seed, adaptive, nMaxoTerms, CancellationToken.none()).scores();
+    }
 
-        Set<TermId> sampleHpoIds = new HashSet<>();
-        sampleHpoIds.addAll(ppkt.presentHpoTermIds());
-        sampleHpoIds.addAll(ppkt.excludedHpoTermIds());
+    /**
+     *
+     * @param ppkt Input phenopacket with present and excluded HPO terms.
+     * @param nRepetitions the maximum number of times to calculate scores for each MAxO term.
+     * @param diseaseIds Set of OMIM disease Ids to use for analysis.
+     * @param seed seed of the random sources of the repetitions. The ranking is reproducible for a given seed.
+     * @param adaptive options of the adaptive allocation of the repetitions to the MAxO terms.
+     * @param nMaxoTerms the maximum number of the returned MAxO terms. All terms are scored,
+     *                   but only the returned ones are summarized in a full {@link RankMaxoScore}.
+     * @param cancellation stops the ranking, e.g. when its deadline expires.
+     * @return the top {@code nMaxoTerms} MAxO scores sorted in descending order by score. If the {@code cancellation}
+     * stopped the ranking, the scores are based on the repetitions run so far and flagged as partial.
+     */
+    public RankMaxoResults rankMaxoTerms(Sample ppkt, int nRepetitions, Set<TermId> diseaseIds, long seed,
+                                         AdaptiveRepetitionOptions adaptive, int nMaxoTerms,
+                                         CancellationToken cancellation) throws Exception {
+
+        SampleAnalysisContext context = SampleAnalysisContext.of(ppkt, maxoHpoTermProbabilities, hpoToMaxoTermMap,
+                diseaseIds, hpoClosure());
+        // Keep only the HPO terms that the MAxO terms can discover in this sample.
+        for (Set<TermId> hpoIds : maxoToHpoTermIdMap.values()) {
+            hpoIds.retainAll(context.unionOfDiscoverablePhenotypes());
+        }
+        // The MAxO term evaluations update the diagnoses of the sample instead of running the engine from scratch.
+        DifferentialDiagnosisBaseline baseline;
+        try (CancellationToken.Binding ignored = cancellation.bind()) {
+            baseline = engine.baseline(ppkt, diseaseIds);
+        } catch (CancellationException e) {
+            // Stopped before any MAxO term could be scored.
+            return new RankMaxoResults(List.of(), true);
+        }
 
-        int numThreads = Runtime.getRuntime().availableProcessors() - 1;
-        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
         AtomicInteger completedTasks = new AtomicInteger(0);
-        List<Callable<RankMaxoScore>> tasks = new ArrayList<>();
+        RankMaxoProgress rankMaxoProgress = new RankMaxoProgress(maxoToHpoTermIdMap.size());
+        this.rankMaxoProgress = rankMaxoProgress;
+        List<EvaluateMaxoTerm> evaluations = new ArrayList<>();
         for (TermId maxoId : maxoToHpoTermIdMap.keySet()) {
-            rankMaxoProgress = new RankMaxoProgress(maxoToHpoTermIdMap.size());
-            tasks.add(() -> {
-                EvaluateMaxoTerm evaluateMaxoTerm = new EvaluateMaxoTerm(hpoToMaxoTermMap, maxoToHpoTermIdMap, maxoHpoTermProbabilities,
-                        engine,  minimalOntology, ontology,  sampleHpoIds,  ppkt, nRepetitions, diseaseIds, maxoId);
-                double done = completedTasks.incrementAndGet();
-                rankMaxoProgress.updateProgress(maxoId, done);
-                return evaluateMaxoTerm.call();
-            });
+            evaluations.add(new EvaluateMaxoTerm(maxoHpoTermProbabilities, engine,
+                    minimalOntology, ontology, context, baseline, nRepetitions, maxoId, seed));
         }
+        AdaptiveRepetitionScheduler scheduler = new AdaptiveRepetitionScheduler(executor, adaptive, cancellation);
+        return scheduler.rank(evaluations, nMaxoTerms,
+                maxoId -> rankMaxoProgress.updateProgress(maxoId, completedTasks.incrementAndGet()));
+    }
 
-        List<Future<RankMaxoScore>> futures = executor.invokeAll(tasks);
-
-        List<RankMaxoScore> results = new ArrayList<>();
-        for (Future<RankMaxoScore> future : futures) {
-            try {
-                results.add(future.get()); // blocks until the result is available
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace(); // handle exceptions properly in production
-            }
+    /**
+     * @return the HPO closure of the term dictionaries, or a closure built from the HPO
+     * if the dictionaries were built without the HPO.
+     */
+    private synchronized OntologyClosure hpoClosure() {
+        if (hpoClosure == null) {
+            OntologyClosure closure = maxoHpoTermProbabilities.getTermDictionaries().hpoClosure();
+            hpoClosure = closure == null ? OntologyClosure.of(minimalOntology) : closure;
         }
-        executor.shutdown();
-
-        return results.stream()
-                .sorted(Comparator.comparing(RankMaxoScore :: maxoScore).reversed())
-                .toList();
+        return hpoClosure;
     }
 
     private static double calculateRelDiseaseDiffEntropySum(List<Double> differentialDiagnosisScores) {
@@ -103,6 +188,9 @@ public class RankMaxo {
         return progress;
     }
 
+    /**
+     * @return the progress of the current ranking or {@code null} if no ranking has started yet.
+     */
     public RankMaxoProgress getRankMaxoProgress() {
         return rankMaxoProgress;
     }
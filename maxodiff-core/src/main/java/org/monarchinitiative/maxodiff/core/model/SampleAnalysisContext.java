@@ -0,0 +1,242 @@
+package org.monarchinitiative.maxodiff.core.model;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoHpoTermIdMaps;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.base.PhenolRuntimeException;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+
+/**
+ * Immutable data derived from a {@link Sample} and the top K diseases of its differential diagnosis.
+ * <p>
+ * The context is computed once per sample, before the MAxO terms are ranked,
+ * and it is shared read-only by all MAxO term evaluations and their repetitions.
+ */
+public final class SampleAnalysisContext {
+
+    private final Sample sample;
+    private final Set<TermId> diseaseIds;
+    private final TermDictionary hpoDictionary;
+    private final OntologyClosure hpoClosure;
+    // The bit sets are never modified after the context is created.
+    private final TermIdBitSet excludedPhenotypeIds;
+    private final TermIdBitSet unionOfDiscoverablePhenotypes;
+    private final Map<TermId, Set<TermId>> maxoToHpoTermIdMap;
+    private final Map<TermId, TermIdBitSet> discoverableByMaxoHpoTermIds;
+    private final Map<TermId, TermIdBitSet> ascertainablePhenotypeIds;
+    private final Map<TermId, TermIdBitSet> diseaseAnnotationIds;
+    private final Map<TermId, Double> diseaseRankProbabilities;
+
+    /**
+     * @param sample Input sample with present and excluded HPO terms.
+     * @param maxoHpoTermProbabilities probabilities with the top K initial diagnoses.
+     * @param hpoToMaxoTermMap Map of HPO terms : Set of associated MAxO terms created using maxo_diagnostic_annotations file.
+     * @param diseaseIds ordered set of disease Ids used for the analysis.
+     */
+    public static SampleAnalysisContext of(Sample sample,
+                                           MaxoHpoTermProbabilities maxoHpoTermProbabilities,
+                                           Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
+                                           Set<TermId> diseaseIds) {
+        return of(sample, maxoHpoTermProbabilities, hpoToMaxoTermMap, diseaseIds,
+                maxoHpoTermProbabilities.getTermDictionaries().hpoClosure());
+    }
+
+    /**
+     * @param sample Input sample with present and excluded HPO terms.
+     * @param maxoHpoTermProbabilities probabilities with the top K initial diagnoses.
+     * @param hpoToMaxoTermMap Map of HPO terms : Set of associated MAxO terms created using maxo_diagnostic_annotations file.
+     * @param diseaseIds ordered set of disease Ids used for the analysis.
+     * @param hpoClosure closure of the HPO or {@code null} if not available.
+     */
+    public static SampleAnalysisContext of(Sample sample,
+                                           MaxoHpoTermProbabilities maxoHpoTermProbabilities,
+                                           Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap,
+                                           Set<TermId> diseaseIds,
+                                           OntologyClosure hpoClosure) {
+        HpoDiseases hpoDiseases = maxoHpoTermProbabilities.getHpoDiseases();
+        TermDictionary hpoDictionary = maxoHpoTermProbabilities.getTermDictionaries().hpo();
+        DiscoverablePhenotypes discoverablePhenotypes = maxoHpoTermProbabilities.getDiscoverablePhenotypes();
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap);
+
+        TermIdBitSet existing = discoverablePhenotypes.getExistingTermBits(sample);
+        TermIdBitSet excluded = discoverablePhenotypes.getExcludedPhenotypeBits(existing);
+
+        // Ascertainable phenotypes of the initial diagnoses and of the analyzed diseases.
+        AscertainablePhenotypes ascertainablePhenotypes = new AscertainablePhenotypes(hpoDiseases, hpoDictionary);
+        Map<TermId, TermIdBitSet> ascertainable = new HashMap<>();
+        TermIdBitSet union = hpoDictionary.newSet();
+        for (DifferentialDiagnosis diagnosis : maxoHpoTermProbabilities.getInitialDiagnoses()) {
+            TermIdBitSet ascertainableIds = ascertainable.computeIfAbsent(diagnosis.diseaseId(),
+                    id -> ascertainablePhenotypes.getAscertainablePhenotypeBits(existing, id));
+            union.or(ascertainableIds.copy().andNot(excluded));
+        }
+        Map<TermId, TermIdBitSet> annotations = new HashMap<>();
+        for (TermId diseaseId : diseaseIds) {
+            Optional<HpoDisease> opt = hpoDiseases.diseaseById(diseaseId);
+            if (opt.isPresent()) {
+                ascertainable.computeIfAbsent(diseaseId,
+                        id -> ascertainablePhenotypes.getAscertainablePhenotypeBits(existing, id));
+                annotations.put(diseaseId, hpoDictionary.newSet(opt.get().annotationTermIdList()));
+            }
+        }
+
+        // MAxO term -> HPO terms that can be discovered by the MAxO term in this sample.
+        Map<TermId, TermIdBitSet> discoverableByMaxo = new HashMap<>();
+        for (Map.Entry<TermId, Set<TermId>> e : maxoToHpoTermIdMap.entrySet()) {
+            discoverableByMaxo.put(e.getKey(), hpoDictionary.newSet(e.getValue()).and(union));
+        }
+        maxoToHpoTermIdMap.replaceAll((maxoId, hpoIds) -> Collections.unmodifiableSet(hpoIds));
+
+        return new SampleAnalysisContext(sample,
+                Collections.unmodifiableSet(new LinkedHashSet<>(diseaseIds)),
+                hpoDictionary,
+                hpoClosure,
+                excluded,
+                union,
+                Collections.unmodifiableMap(maxoToHpoTermIdMap),
+                discoverableByMaxo,
+                ascertainable,
+                annotations,
+                rankProbabilities(diseaseIds));
+    }
+
+    /**
+     * Probability of selecting a disease as the true diagnosis, proportional to the reciprocal of its rank.
+     */
+    private static Map<TermId, Double> rankProbabilities(Set<TermId> diseaseIds) {
+        Map<TermId, Double> diseaseRankProbabilityMap = new LinkedHashMap<>();
+        int rank = 1;
+        for (TermId diseaseId : diseaseIds) {
+            diseaseRankProbabilityMap.put(diseaseId, 1. / rank++);
+        }
+        double sum = diseaseRankProbabilityMap.values().stream().mapToDouble(d -> d).sum();
+        diseaseRankProbabilityMap.replaceAll((diseaseId, probability) -> probability / sum);
+        return Collections.unmodifiableMap(diseaseRankProbabilityMap);
+    }
+
+    private SampleAnalysisContext(Sample sample,
+                                  Set<TermId> diseaseIds,
+                                  TermDictionary hpoDictionary,
+                                  OntologyClosure hpoClosure,
+                                  TermIdBitSet excludedPhenotypeIds,
+                                  TermIdBitSet unionOfDiscoverablePhenotypes,
+                                  Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
+                                  Map<TermId, TermIdBitSet> discoverableByMaxoHpoTermIds,
+                                  Map<TermId, TermIdBitSet> ascertainablePhenotypeIds,
+                                  Map<TermId, TermIdBitSet> diseaseAnnotationIds,
+                                  Map<TermId, Double> diseaseRankProbabilities) {
+        this.sample = sample;
+        this.diseaseIds = diseaseIds;
+        this.hpoDictionary = hpoDictionary;
+        this.hpoClosure = hpoClosure;
+        this.excludedPhenotypeIds = excludedPhenotypeIds;
+        this.unionOfDiscoverablePhenotypes = unionOfDiscoverablePhenotypes;
+        this.maxoToHpoTermIdMap = maxoToHpoTermIdMap;
+        this.discoverableByMaxoHpoTermIds = discoverableByMaxoHpoTermIds;
+        this.ascertainablePhenotypeIds = ascertainablePhenotypeIds;
+        this.diseaseAnnotationIds = diseaseAnnotationIds;
+        this.diseaseRankProbabilities = diseaseRankProbabilities;
+    }
+
+    public Sample sample() {
+        return sample;
+    }
+
+    /**
+     * @return the disease Ids used for the analysis, in the original order.
+     */
+    public Set<TermId> diseaseIds() {
+        return diseaseIds;
+    }
+
+    /**
+     * @return phenotypes that can be ascertained by the MAxO terms of the sample phenotypes but were not reported.
+     * @see ExcludedPhenotypes#getExcludedPhenotypes(Sample)
+     */
+    public Set<TermId> excludedPhenotypeIds() {
+        return Collections.unmodifiableSet(excludedPhenotypeIds);
+    }
+
+    /**
+     * @see MaxoHpoTermProbabilities#getUnionOfDiscoverablePhenotypes(Sample)
+     */
+    public Set<TermId> unionOfDiscoverablePhenotypes() {
+        return Collections.unmodifiableSet(unionOfDiscoverablePhenotypes);
+    }
+
+    /**
+     * @return Map of MAxO TermIds : Set of associated HPO TermIds.
+     */
+    public Map<TermId, Set<TermId>> maxoToHpoTermIdMap() {
+        return maxoToHpoTermIdMap;
+    }
+
+    /**
+     * @param maxoId Term Id for the MAxO term of interest
+     * @return HPO terms discoverable by the MAxO term or an empty set if the MAxO term is unknown.
+     * @see MaxoHpoTermProbabilities#getDiscoverableByMaxoHpoTerms(Sample, TermId, Map)
+     */
+    public Set<TermId> discoverableByMaxoHpoTermIds(TermId maxoId) {
+        return Collections.unmodifiableSet(discoverableByMaxoHpoTermBits(maxoId));
+    }
+
+    /**
+     * @return HPO terms that are annotated to the disease, but are not present in the sample.
+     * @throws PhenolRuntimeException if the disease is not known.
+     * @see AscertainablePhenotypes#getAscertainablePhenotypeIds(Sample, TermId)
+     */
+    public Set<TermId> ascertainablePhenotypeIds(TermId diseaseId) throws PhenolRuntimeException {
+        return Collections.unmodifiableSet(ascertainablePhenotypeBits(diseaseId));
+    }
+
+    /**
+     * @return HPO terms annotated to the disease or an empty set if the disease is not among the analyzed diseases.
+     */
+    public Set<TermId> diseaseAnnotationIds(TermId diseaseId) {
+        TermIdBitSet annotations = diseaseAnnotationIds.get(diseaseId);
+        return annotations == null ? Set.of() : Collections.unmodifiableSet(annotations);
+    }
+
+    /**
+     * @return Map of disease Ids : probability of choosing the disease, in the original order of the diseases.
+     */
+    public Map<TermId, Double> diseaseRankProbabilities() {
+        return diseaseRankProbabilities;
+    }
+
+    /**
+     * @return dictionary of the HPO terms of the sets of this context.
+     */
+    public TermDictionary hpoDictionary() {
+        return hpoDictionary;
+    }
+
+    /**
+     * @return closure of the HPO or {@code null} if the context was created without it.
+     */
+    public OntologyClosure hpoClosure() {
+        return hpoClosure;
+    }
+
+    /*
+     * Bit sets for the set algebra within the package. The sets must not be modified.
+     */
+
+    TermIdBitSet discoverableByMaxoHpoTermBits(TermId maxoId) {
+        TermIdBitSet discoverable = discoverableByMaxoHpoTermIds.get(maxoId);
+        return discoverable == null ? hpoDictionary.newSet() : discoverable;
+    }
+
+    TermIdBitSet ascertainablePhenotypeBits(TermId diseaseId) throws PhenolRuntimeException {
+        TermIdBitSet ascertainable = ascertainablePhenotypeIds.get(diseaseId);
+        if (ascertainable == null)
+            throw new PhenolRuntimeException("Could not find disease id " + diseaseId.getValue());
+        return ascertainable;
+    }
+}
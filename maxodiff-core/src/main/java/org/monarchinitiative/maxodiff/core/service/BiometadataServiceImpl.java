@@ -20,7 +20,8 @@ public class BiometadataServiceImpl implements BiometadataService {
     private final Map<TermId, String> diseaseTermsMap;
 
     public static BiometadataServiceImpl of(MinimalOntology hpo, HpoDiseases hpoDiseases, Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap) {
-        Map<TermId, String> hpoToLabel = hpo.getTerms().stream().collect(Collectors.toMap(Term::id, Term::getName));
+        // The terms of an Ontology are listed once for the primary and once for each alternate id.
+        Map<TermId, String> hpoToLabel = hpo.getTerms().stream().collect(Collectors.toMap(Term::id, Term::getName, (a, b) -> a));
         Map<TermId, String> diseaseToLabel = hpoDiseases.hpoDiseases().collect(Collectors.toMap(HpoDisease::id, HpoDisease::diseaseName));
         // Note, we assume that there are no MAxO terms with identical ids but different labels.
         Map<String, String> maxoTermsMap = maxoAnnotsMap.values().stream()
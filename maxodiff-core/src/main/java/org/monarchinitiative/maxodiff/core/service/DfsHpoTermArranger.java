@@ -1,7 +1,7 @@
 package org.monarchinitiative.maxodiff.core.service;
 
-import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
-import org.monarchinitiative.phenol.ontology.data.Dbxref;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
@@ -12,16 +12,28 @@ public class DfsHpoTermArranger implements HpoTermArranger{
     private static final TermId PHENOTYPIC_ABNORMALITY = TermId.of("HP:0000118");
 
     private final Ontology ontology;
+    private final OntologyClosure closure;
 
     private Set<TermId> termsForInclusion = new HashSet<>();
 
 
     public DfsHpoTermArranger(Ontology ontology) {
+        this(ontology, null);
+    }
+
+    /**
+     * @param closure precomputed closure of the {@code ontology} for arranging the terms
+     *                without traversing the ontology, or {@code null}.
+     */
+    public DfsHpoTermArranger(Ontology ontology, OntologyClosure closure) {
         this.ontology  = ontology;
+        this.closure = closure;
     }
 
     @Override
     public List<TermId> arrangeTerms(List<TermId> termIds) {
+        if (closure != null)
+            return arrangeTermsByRank(termIds);
         termsForInclusion.clear();
         termsForInclusion.addAll(termIds);
         Set<TermId> visited = new HashSet<>();
@@ -30,6 +42,26 @@ public class DfsHpoTermArranger implements HpoTermArranger{
         return orderedList;
     }
 
+    /**
+     * Sort the terms by their rank in the depth-first search from the Phenotypic abnormality term,
+     * precomputed by the {@link OntologyClosure}. The order is the same as the order of {@link #dfs}.
+     */
+    private List<TermId> arrangeTermsByRank(List<TermId> termIds) {
+        int[] ranks = closure.dfsRanks(PHENOTYPIC_ABNORMALITY);
+        TermDictionary dictionary = closure.dictionary();
+        BitSet included = new BitSet(ranks.length);
+        List<TermId> orderedList = new ArrayList<>();
+        for (TermId termId : termIds) {
+            int idx = dictionary.index(termId);
+            if (idx >= 0 && ranks[idx] >= 0 && !included.get(idx)) {
+                included.set(idx);
+                orderedList.add(termId);
+            }
+        }
+        orderedList.sort(Comparator.comparingInt(termId -> ranks[dictionary.index(termId)]));
+        return orderedList;
+    }
+
     /**
      * Perform a depth-first search to arrange the terms for curation into an order that
      * tends to keep related terms together
@@ -1,5 +1,6 @@
 package org.monarchinitiative.maxodiff.core.service;
 
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
@@ -14,4 +15,8 @@ public interface HpoTermArranger {
         return new DfsHpoTermArranger(ontology);
     }
 
+    static HpoTermArranger dfs(Ontology ontology, OntologyClosure closure) {
+        return new DfsHpoTermArranger(ontology, closure);
+    }
+
 }
@@ -0,0 +1,391 @@
+package org.monarchinitiative.maxodiff.core.term;
+
+import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Precomputed ancestor and descendant closure of an ontology over the indices of a {@link TermDictionary}.
+ * <p>
+ * The closure is built once, when the ontology is loaded, and answers the reachability queries
+ * without traversing the ontology graph. The descendants are labeled with interval lists
+ * over the postorder numbers of a depth-first spanning tree of the ontology DAG (tree cover labeling),
+ * hence {@link #isDescendant(int, int)} is a binary search over a handful of intervals and the descendants
+ * are enumerated without allocation. The strict ancestors are stored as arrays of indices.
+ * <p>
+ * The ancestors and descendants are strict, i.e. a term is not its own ancestor or descendant,
+ * like in {@link org.monarchinitiative.phenol.graph.OntologyGraph#getAncestors(Object)}.
+ * The terms of the dictionary that are not in the ontology graph, e.g. obsolete or alternate term ids,
+ * have no ancestors or descendants and are not related to any term.
+ * The closure is immutable and thread-safe.
+ */
+public final class OntologyClosure {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final TermDictionary dictionary;
+    // Postorder number of the term in the spanning tree or -1 if the term is not in the graph.
+    private final int[] post;
+    // Dictionary index of the term with the postorder number.
+    private final int[] byPost;
+    // Merged intervals of the postorder numbers of the term and its descendants, stored as [start, end] pairs.
+    private final int[][] intervals;
+    private final int[][] ancestors;
+    private final int[][] children;
+    // Bit masks of the children of the root among the strict ancestors of the term, `categoryWords` longs per term.
+    private final long[] categories;
+    private final int categoryWords;
+    private final Map<Integer, int[]> dfsRanks = new ConcurrentHashMap<>();
+
+    /**
+     * Build the closure of the {@code ontology} over a dictionary of all its term ids.
+     */
+    public static OntologyClosure of(MinimalOntology ontology) {
+        List<TermId> termIds = new ArrayList<>(ontology.allTermIdCount());
+        ontology.allTermIds().forEach(termIds::add);
+        return of(ontology, TermDictionary.of(termIds));
+    }
+
+    /**
+     * Build the closure of the {@code ontology} over the {@code dictionary}.
+     *
+     * @param dictionary dictionary with all term ids of the ontology graph.
+     * @throws IllegalArgumentException if a term of the ontology graph is not in the {@code dictionary}.
+     */
+    public static OntologyClosure of(MinimalOntology ontology, TermDictionary dictionary) {
+        int size = dictionary.size();
+        int[][] children = new int[size][];
+        int[] post = new int[size];
+        Arrays.fill(post, -1);
+        int[] byPost = new int[size];
+        int[] treeStart = new int[size];
+
+        // Iterative depth-first search of the spanning tree. The postorder of a DAG traversal
+        // numbers all descendants of a term before the term itself.
+        int root = indexOf(dictionary, ontology.graph().root());
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int[] childPos = new int[size];
+        int depth = 0;
+        int counter = 0;
+        stack[0] = root;
+        visited[root] = true;
+        treeStart[root] = counter;
+        children[root] = childrenOf(ontology, dictionary, root);
+        while (depth >= 0) {
+            int node = stack[depth];
+            int[] nodeChildren = children[node];
+            if (childPos[depth] < nodeChildren.length) {
+                int child = nodeChildren[childPos[depth]++];
+                if (!visited[child]) {
+                    visited[child] = true;
+                    treeStart[child] = counter;
+                    children[child] = childrenOf(ontology, dictionary, child);
+                    stack[++depth] = child;
+                    childPos[depth] = 0;
+                }
+            } else {
+                post[node] = counter;
+                byPost[counter++] = node;
+                depth--;
+            }
+        }
+
+        int[][] intervals = new int[size][];
+        for (int p = 0; p < counter; p++) {
+            int node = byPost[p];
+            intervals[node] = merge(treeStart[node], p, children[node], intervals);
+        }
+        for (int i = 0; i < size; i++) {
+            if (children[i] == null) {
+                children[i] = EMPTY;
+                intervals[i] = EMPTY;
+            }
+        }
+
+        int[][] ancestors = ancestors(size, post, byPost, intervals);
+
+        int[] rootChildren = children[root];
+        int categoryWords = Math.max(1, (rootChildren.length + 63) / 64);
+        long[] categories = new long[size * categoryWords];
+        for (int c = 0; c < rootChildren.length; c++) {
+            int word = c / 64;
+            long bit = 1L << (c % 64);
+            forEachInterval(rootChildren[c], intervals, post, byPost,
+                    descendant -> categories[descendant * categoryWords + word] |= bit);
+        }
+
+        return new OntologyClosure(dictionary, post, byPost, intervals, ancestors, children, categories, categoryWords);
+    }
+
+    private static int indexOf(TermDictionary dictionary, TermId termId) {
+        int idx = dictionary.index(termId);
+        if (idx < 0)
+            throw new IllegalArgumentException("%s is not in the term dictionary".formatted(termId.getValue()));
+        return idx;
+    }
+
+    private static int[] childrenOf(MinimalOntology ontology, TermDictionary dictionary, int node) {
+        Set<TermId> childIds = ontology.graph().getChildren(dictionary.termId(node));
+        int[] children = new int[childIds.size()];
+        int i = 0;
+        for (TermId childId : childIds) {
+            children[i++] = indexOf(dictionary, childId);
+        }
+        return children;
+    }
+
+    /**
+     * Merge the tree interval {@code [start, end]} of a term with the intervals of its children.
+     */
+    private static int[] merge(int start, int end, int[] children, int[][] intervals) {
+        int n = 2;
+        for (int child : children) {
+            n += intervals[child].length;
+        }
+        long[] ranges = new long[n / 2];
+        int r = 0;
+        ranges[r++] = ((long) start << 32) | end;
+        for (int child : children) {
+            int[] childIntervals = intervals[child];
+            for (int i = 0; i < childIntervals.length; i += 2) {
+                ranges[r++] = ((long) childIntervals[i] << 32) | childIntervals[i + 1];
+            }
+        }
+        // The postorder numbers are not negative, hence the packed ranges sort by start.
+        Arrays.sort(ranges);
+        int[] merged = new int[2 * ranges.length];
+        int m = 0;
+        for (long range : ranges) {
+            int s = (int) (range >>> 32);
+            int e = (int) range;
+            if (m > 0 && s <= merged[m - 1] + 1) {
+                merged[m - 1] = Math.max(merged[m - 1], e);
+            } else {
+                merged[m++] = s;
+                merged[m++] = e;
+            }
+        }
+        return Arrays.copyOf(merged, m);
+    }
+
+    private static int[][] ancestors(int size, int[] post, int[] byPost, int[][] intervals) {
+        int[] counts = new int[size];
+        for (int node = 0; node < size; node++) {
+            if (post[node] >= 0)
+                forEachInterval(node, intervals, post, byPost, descendant -> counts[descendant]++);
+        }
+        int[][] ancestors = new int[size][];
+        for (int node = 0; node < size; node++) {
+            ancestors[node] = counts[node] == 0 ? EMPTY : new int[counts[node]];
+        }
+        Arrays.fill(counts, 0);
+        for (int node = 0; node < size; node++) {
+            if (post[node] >= 0) {
+                int ancestor = node;
+                forEachInterval(node, intervals, post, byPost,
+                        descendant -> ancestors[descendant][counts[descendant]++] = ancestor);
+            }
+        }
+        return ancestors;
+    }
+
+    private static void forEachInterval(int node, int[][] intervals, int[] post, int[] byPost, IntConsumer consumer) {
+        int[] nodeIntervals = intervals[node];
+        int self = post[node];
+        for (int i = 0; i < nodeIntervals.length; i += 2) {
+            for (int p = nodeIntervals[i]; p <= nodeIntervals[i + 1]; p++) {
+                if (p != self)
+                    consumer.accept(byPost[p]);
+            }
+        }
+    }
+
+    private OntologyClosure(TermDictionary dictionary,
+                            int[] post,
+                            int[] byPost,
+                            int[][] intervals,
+                            int[][] ancestors,
+                            int[][] children,
+                            long[] categories,
+                            int categoryWords) {
+        this.dictionary = dictionary;
+        this.post = post;
+        this.byPost = byPost;
+        this.intervals = intervals;
+        this.ancestors = ancestors;
+        this.children = children;
+        this.categories = categories;
+        this.categoryWords = categoryWords;
+    }
+
+    /**
+     * @return the dictionary whose indices are used by the closure.
+     */
+    public TermDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return {@code true} if the {@code term} is a strict descendant of the {@code ancestor}.
+     */
+    public boolean isDescendant(int term, int ancestor) {
+        int p = post[term];
+        if (p < 0 || term == ancestor)
+            return false;
+        int[] ancestorIntervals = intervals[ancestor];
+        // Binary search for the last interval that starts at or before p.
+        int lo = 0;
+        int hi = ancestorIntervals.length / 2 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ancestorIntervals[2 * mid] <= p)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return hi >= 0 && p <= ancestorIntervals[2 * hi + 1];
+    }
+
+    /**
+     * @return {@code true} if the {@code term} is a strict descendant of the {@code ancestor}.
+     * Term ids absent from the dictionary have no descendants or ancestors.
+     */
+    public boolean isDescendant(TermId term, TermId ancestor) {
+        int t = dictionary.index(term);
+        int a = dictionary.index(ancestor);
+        return t >= 0 && a >= 0 && isDescendant(t, a);
+    }
+
+    /**
+     * @return {@code true} if the {@code term} is a strict ancestor of the {@code descendant}.
+     */
+    public boolean isAncestor(int term, int descendant) {
+        return isDescendant(descendant, term);
+    }
+
+    /**
+     * @return {@code true} if the {@code term} is a strict ancestor of the {@code descendant}.
+     */
+    public boolean isAncestor(TermId term, TermId descendant) {
+        return isDescendant(descendant, term);
+    }
+
+    /**
+     * Check if the terms share a strict ancestor other than the root, like
+     * {@link org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm#termsAreRelated}.
+     * Two terms are related if they are descendants of the same child of the root.
+     */
+    public boolean related(int a, int b) {
+        int offsetA = a * categoryWords;
+        int offsetB = b * categoryWords;
+        for (int w = 0; w < categoryWords; w++) {
+            if ((categories[offsetA + w] & categories[offsetB + w]) != 0L)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @see #related(int, int)
+     */
+    public boolean related(TermId a, TermId b) {
+        int ia = dictionary.index(a);
+        int ib = dictionary.index(b);
+        return ia >= 0 && ib >= 0 && related(ia, ib);
+    }
+
+    /**
+     * Call the {@code consumer} with the indices of the strict descendants of the {@code term}.
+     */
+    public void forEachDescendant(int term, IntConsumer consumer) {
+        forEachInterval(term, intervals, post, byPost, consumer);
+    }
+
+    /**
+     * Call the {@code consumer} with the strict descendants of the {@code term}.
+     */
+    public void forEachDescendant(TermId term, Consumer<TermId> consumer) {
+        int idx = dictionary.index(term);
+        if (idx >= 0)
+            forEachDescendant(idx, descendant -> consumer.accept(dictionary.termId(descendant)));
+    }
+
+    /**
+     * Call the {@code consumer} with the indices of the strict ancestors of the {@code term}.
+     */
+    public void forEachAncestor(int term, IntConsumer consumer) {
+        for (int ancestor : ancestors[term]) {
+            consumer.accept(ancestor);
+        }
+    }
+
+    /**
+     * Call the {@code consumer} with the strict ancestors of the {@code term}.
+     */
+    public void forEachAncestor(TermId term, Consumer<TermId> consumer) {
+        int idx = dictionary.index(term);
+        if (idx >= 0)
+            forEachAncestor(idx, ancestor -> consumer.accept(dictionary.termId(ancestor)));
+    }
+
+    /**
+     * Add the strict descendants of the {@code term} to the {@code target}.
+     *
+     * @throws IllegalArgumentException if the {@code target} is not backed by the dictionary of the closure.
+     */
+    public void addDescendants(TermId term, TermIdBitSet target) {
+        if (target.dictionary() != dictionary)
+            throw new IllegalArgumentException("The set is not backed by the dictionary of the closure");
+        int idx = dictionary.index(term);
+        if (idx >= 0)
+            forEachDescendant(idx, target::addIndex);
+    }
+
+    /**
+     * Rank the terms in the order of a depth-first search of the ontology from the {@code start} term.
+     * The children are visited in the order of the ontology graph. The ranks are computed once per start term.
+     *
+     * @return array with the preorder rank of each term of the dictionary,
+     * or {@code -1} for the terms that are not the {@code start} term or its descendants. The array must not be modified.
+     */
+    public int[] dfsRanks(TermId start) {
+        return dfsRanks.computeIfAbsent(dictionary.index(start), this::computeDfsRanks);
+    }
+
+    private int[] computeDfsRanks(int start) {
+        int[] ranks = new int[dictionary.size()];
+        Arrays.fill(ranks, -1);
+        if (start < 0 || post[start] < 0)
+            return ranks;
+        int[] stack = new int[dictionary.size()];
+        int[] childPos = new int[dictionary.size()];
+        int depth = 0;
+        int rank = 0;
+        stack[0] = start;
+        ranks[start] = rank++;
+        while (depth >= 0) {
+            int[] nodeChildren = children[stack[depth]];
+            if (childPos[depth] < nodeChildren.length) {
+                int child = nodeChildren[childPos[depth]++];
+                if (ranks[child] < 0) {
+                    ranks[child] = rank++;
+                    stack[++depth] = child;
+                    childPos[depth] = 0;
+                }
+            } else {
+                depth--;
+            }
+        }
+        return ranks;
+    }
+
+    @Override
+    public String toString() {
+        return "OntologyClosure{size=" + dictionary.size() + '}';
+    }
+}
@@ -0,0 +1,77 @@
+package org.monarchinitiative.maxodiff.core.term;
+
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+
+/**
+ * Term dictionaries of the HPO, MAxO, and disease identifiers used in the analysis.
+ * <p>
+ * The dictionaries are meant to be built once, when the resources are loaded.
+ *
+ * @param hpo dictionary of the HPO terms of the ontology, disease annotations, and MAxO annotations.
+ * @param maxo dictionary of the MAxO terms of the MAxO annotations.
+ * @param diseases dictionary of the disease identifiers.
+ * @param hpoClosure closure of the HPO over the {@code hpo} dictionary or {@code null} if the dictionaries
+ *                   were built without the HPO.
+ */
+public record TermDictionaries(TermDictionary hpo, TermDictionary maxo, TermDictionary diseases,
+                               OntologyClosure hpoClosure) {
+
+    public TermDictionaries {
+        Objects.requireNonNull(hpo);
+        Objects.requireNonNull(maxo);
+        Objects.requireNonNull(diseases);
+        if (hpoClosure != null && hpoClosure.dictionary() != hpo)
+            throw new IllegalArgumentException("The HPO closure must be built over the HPO dictionary");
+    }
+
+    /**
+     * @param hpoDiseases all diseases.
+     * @param hpoToMaxoTermMap Map of HPO terms : Set of associated MAxO terms created using maxo_diagnostic_annotations file.
+     */
+    public static TermDictionaries of(HpoDiseases hpoDiseases,
+                                      Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap) {
+        return of(null, hpoDiseases, hpoToMaxoTermMap);
+    }
+
+    /**
+     * @param hpo the HPO. All HPO term ids, including obsolete and alternate ids, are indexed,
+     *            and the {@link #hpoClosure()} is built. May be {@code null}.
+     * @param hpoDiseases all diseases.
+     * @param hpoToMaxoTermMap Map of HPO terms : Set of associated MAxO terms created using maxo_diagnostic_annotations file.
+     */
+    public static TermDictionaries of(MinimalOntology hpo,
+                                      HpoDiseases hpoDiseases,
+                                      Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap) {
+        Set<TermId> hpoIds = new HashSet<>();
+        if (hpo != null)
+            hpo.allTermIds().forEach(hpoIds::add);
+        Set<TermId> diseaseIds = new HashSet<>();
+        hpoDiseases.hpoDiseases().forEach(disease -> {
+            diseaseIds.add(disease.id());
+            disease.annotationTermIds().forEach(hpoIds::add);
+        });
+
+        Set<TermId> maxoIds = new HashSet<>();
+        for (Map.Entry<SimpleTerm, Set<SimpleTerm>> e : hpoToMaxoTermMap.entrySet()) {
+            hpoIds.add(e.getKey().tid());
+            e.getValue().forEach(maxo -> maxoIds.add(maxo.tid()));
+        }
+
+        TermDictionary hpoDictionary = TermDictionary.of(hpoIds);
+        OntologyClosure hpoClosure = hpo == null ? null : OntologyClosure.of(hpo, hpoDictionary);
+        return new TermDictionaries(hpoDictionary, TermDictionary.of(maxoIds), TermDictionary.of(diseaseIds), hpoClosure);
+    }
+
+    /**
+     * @return a set with the HPO annotations of the {@code disease}.
+     */
+    public TermIdBitSet annotations(HpoDisease disease) {
+        return hpo.newSet(disease.annotationTermIdList());
+    }
+}
@@ -0,0 +1,94 @@
+package org.monarchinitiative.maxodiff.core.term;
+
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+
+/**
+ * An immutable bidirectional mapping between {@link TermId}s and dense integer indices {@code [0, size())}.
+ * <p>
+ * The indices follow the natural order of the term ids, hence a dictionary built from the same terms
+ * always assigns the same indices. The dictionary is thread-safe.
+ */
+public final class TermDictionary {
+
+    private final TermId[] termIds;
+    private final Map<TermId, Integer> indices;
+
+    /**
+     * @param termIds term ids to index. Duplicates are ignored.
+     */
+    public static TermDictionary of(Collection<TermId> termIds) {
+        TermId[] sorted = new TreeSet<>(termIds).toArray(TermId[]::new);
+        return new TermDictionary(sorted);
+    }
+
+    private TermDictionary(TermId[] termIds) {
+        this.termIds = termIds;
+        this.indices = new HashMap<>(termIds.length * 4 / 3 + 1);
+        for (int i = 0; i < termIds.length; i++) {
+            indices.put(termIds[i], i);
+        }
+    }
+
+    /**
+     * @return index of the {@code termId} or {@code -1} if the term is not in the dictionary.
+     */
+    public int index(TermId termId) {
+        Integer idx = indices.get(termId);
+        return idx == null ? -1 : idx;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if the {@code index} is not in the dictionary.
+     */
+    public TermId termId(int index) {
+        return termIds[index];
+    }
+
+    public boolean contains(TermId termId) {
+        return indices.containsKey(termId);
+    }
+
+    public int size() {
+        return termIds.length;
+    }
+
+    /**
+     * @return a new empty set backed by this dictionary.
+     */
+    public TermIdBitSet newSet() {
+        return new TermIdBitSet(this);
+    }
+
+    /**
+     * @param termIds term ids that must be present in the dictionary.
+     * @return a new set backed by this dictionary that contains the {@code termIds}.
+     * @throws IllegalArgumentException if any of the {@code termIds} is not present in the dictionary.
+     */
+    public TermIdBitSet newSet(Iterable<TermId> termIds) {
+        TermIdBitSet set = newSet();
+        for (TermId termId : termIds) {
+            set.add(termId);
+        }
+        return set;
+    }
+
+    /**
+     * Like {@link #newSet(Iterable)} but the term ids absent from the dictionary are skipped.
+     */
+    public TermIdBitSet newSetOfKnown(Iterable<TermId> termIds) {
+        TermIdBitSet set = newSet();
+        for (TermId termId : termIds) {
+            int idx = index(termId);
+            if (idx >= 0)
+                set.addIndex(idx);
+        }
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        return "TermDictionary{size=" + termIds.length + '}';
+    }
+}
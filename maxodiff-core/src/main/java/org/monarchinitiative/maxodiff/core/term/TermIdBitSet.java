@@ -0,0 +1,212 @@
+package org.monarchinitiative.maxodiff.core.term;
+
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+
+/**
+ * A mutable {@link Set} of {@link TermId}s backed by a {@link BitSet} over the indices of a {@link TermDictionary}.
+ * <p>
+ * Set algebra between sets of the same dictionary ({@link #and(TermIdBitSet)}, {@link #or(TermIdBitSet)},
+ * {@link #andNot(TermIdBitSet)}) is performed word-wise, without hashing or allocating the term ids.
+ * Only the terms of the dictionary can be added to the set. The set is not thread-safe.
+ */
+public final class TermIdBitSet extends AbstractSet<TermId> {
+
+    private final TermDictionary dictionary;
+    private final BitSet bits;
+
+    TermIdBitSet(TermDictionary dictionary) {
+        this(dictionary, new BitSet(dictionary.size()));
+    }
+
+    private TermIdBitSet(TermDictionary dictionary, BitSet bits) {
+        this.dictionary = dictionary;
+        this.bits = bits;
+    }
+
+    public TermDictionary dictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof TermId termId) {
+            int idx = dictionary.index(termId);
+            return idx >= 0 && bits.get(idx);
+        }
+        return false;
+    }
+
+    public boolean containsIndex(int index) {
+        return bits.get(index);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the {@code termId} is not in the dictionary.
+     */
+    @Override
+    public boolean add(TermId termId) {
+        int idx = dictionary.index(termId);
+        if (idx < 0)
+            throw new IllegalArgumentException("%s is not in the term dictionary".formatted(termId.getValue()));
+        return addIndex(idx);
+    }
+
+    public boolean addIndex(int index) {
+        if (bits.get(index))
+            return false;
+        bits.set(index);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o instanceof TermId termId) {
+            int idx = dictionary.index(termId);
+            if (idx >= 0 && bits.get(idx)) {
+                bits.clear(idx);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        bits.clear();
+    }
+
+    /**
+     * Retain only the terms that are also present in the {@code other} set.
+     */
+    public TermIdBitSet and(TermIdBitSet other) {
+        checkDictionary(other);
+        bits.and(other.bits);
+        return this;
+    }
+
+    /**
+     * Add all terms of the {@code other} set.
+     */
+    public TermIdBitSet or(TermIdBitSet other) {
+        checkDictionary(other);
+        bits.or(other.bits);
+        return this;
+    }
+
+    /**
+     * Remove all terms of the {@code other} set.
+     */
+    public TermIdBitSet andNot(TermIdBitSet other) {
+        checkDictionary(other);
+        bits.andNot(other.bits);
+        return this;
+    }
+
+    /**
+     * @return {@code true} if this set and the {@code other} set have at least one term in common.
+     */
+    public boolean intersects(TermIdBitSet other) {
+        checkDictionary(other);
+        return bits.intersects(other.bits);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof TermIdBitSet other && other.dictionary == dictionary) {
+            int before = bits.cardinality();
+            bits.and(other.bits);
+            return bits.cardinality() != before;
+        }
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof TermIdBitSet other && other.dictionary == dictionary) {
+            int before = bits.cardinality();
+            bits.andNot(other.bits);
+            return bits.cardinality() != before;
+        }
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends TermId> c) {
+        if (c instanceof TermIdBitSet other && other.dictionary == dictionary) {
+            int before = bits.cardinality();
+            bits.or(other.bits);
+            return bits.cardinality() != before;
+        }
+        return super.addAll(c);
+    }
+
+    /**
+     * @return a new set with the same terms and dictionary.
+     */
+    public TermIdBitSet copy() {
+        return new TermIdBitSet(dictionary, (BitSet) bits.clone());
+    }
+
+    @Override
+    public Iterator<TermId> iterator() {
+        return new Iterator<>() {
+            private int next = bits.nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public TermId next() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                last = next;
+                next = bits.nextSetBit(next + 1);
+                return dictionary.termId(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0)
+                    throw new IllegalStateException();
+                bits.clear(last);
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof TermIdBitSet other && other.dictionary == dictionary)
+            return bits.equals(other.bits);
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private void checkDictionary(TermIdBitSet other) {
+        if (other.dictionary != dictionary)
+            throw new IllegalArgumentException("Sets must share the same term dictionary");
+    }
+}
@@ -0,0 +1,48 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveRepetitionSchedulerTest {
+
+    @Test
+    public void termsBelowTopNAreDropped() {
+        double[] means = {.9, .8, .1, .75};
+        double[] standardErrors = {.01, .01, .01, .1};
+
+        boolean[] contenders = AdaptiveRepetitionScheduler.contenders(means, standardErrors, 2, 3.);
+
+        // The upper bound of the last term, 1.05, overlaps the second greatest lower bound, 0.77.
+        assertArrayEquals(new boolean[]{true, true, false, true}, contenders);
+    }
+
+    @Test
+    public void termsWithUnknownErrorAreKept() {
+        double[] means = {.9, .8, .1};
+        double[] standardErrors = {.01, .01, Double.POSITIVE_INFINITY};
+
+        boolean[] contenders = AdaptiveRepetitionScheduler.contenders(means, standardErrors, 1, 0.);
+
+        assertArrayEquals(new boolean[]{true, false, true}, contenders);
+    }
+
+    @Test
+    public void allTermsAreKeptIfNotMoreThanTopN() {
+        double[] means = {.9, .1};
+        double[] standardErrors = {0., 0.};
+
+        boolean[] contenders = AdaptiveRepetitionScheduler.contenders(means, standardErrors, 2, 3.);
+
+        assertArrayEquals(new boolean[]{true, true}, contenders);
+    }
+
+    @Test
+    public void topKeepsGreatestScoresInDescendingOrder() {
+        double[] scores = {.3, .9, .1, .9, .5};
+
+        assertArrayEquals(new int[]{1, 3, 4}, AdaptiveRepetitionScheduler.top(scores, 3));
+        assertArrayEquals(new int[]{1, 3, 4, 0, 2}, AdaptiveRepetitionScheduler.top(scores, Integer.MAX_VALUE));
+        assertArrayEquals(new int[]{}, AdaptiveRepetitionScheduler.top(scores, 0));
+    }
+}
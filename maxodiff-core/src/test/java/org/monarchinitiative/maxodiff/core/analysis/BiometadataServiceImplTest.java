@@ -0,0 +1,23 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.TestResources;
+import org.monarchinitiative.maxodiff.core.service.BiometadataService;
+import org.monarchinitiative.maxodiff.core.service.BiometadataServiceImpl;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BiometadataServiceImplTest {
+
+    @Test
+    public void labelsOfOntologyWithAlternateIds() {
+        BiometadataService service = BiometadataServiceImpl.of(TestResources.hpo(), TestResources.hpoDiseases(), TestResources.hpoToMaxo());
+
+        assertEquals(Optional.of("Ventricular septal defect"), service.hpoLabel(TermId.of("HP:0001629")));
+        assertEquals(Optional.of("Delayed speech and language development"), service.hpoLabel(TermId.of("HP:0000750")));
+        assertTrue(service.diseaseLabel(TermId.of("OMIM:256000")).isPresent());
+    }
+}
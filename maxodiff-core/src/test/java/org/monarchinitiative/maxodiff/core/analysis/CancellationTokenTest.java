@@ -0,0 +1,60 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CancellationTokenTest {
+
+    @Test
+    public void noneNeverStops() {
+        CancellationToken none = CancellationToken.none();
+
+        assertThat(none.isStopped(), is(false));
+        assertThrows(UnsupportedOperationException.class, none::cancel);
+    }
+
+    @Test
+    public void cancelledTokenStops() {
+        CancellationToken token = CancellationToken.create();
+        assertThat(token.isStopped(), is(false));
+
+        token.cancel();
+
+        assertThat(token.isCancelled(), is(true));
+        assertThat(token.isExpired(), is(false));
+        CancellationException e = assertThrows(CancellationException.class, token::throwIfStopped);
+        assertThat(e.getMessage(), equalTo("Cancelled"));
+    }
+
+    @Test
+    public void tokenExpiresAtDeadline() {
+        assertThat(CancellationToken.withTimeout(Duration.ZERO).isExpired(), is(true));
+        assertThat(CancellationToken.withDeadline(Instant.now().minusSeconds(1)).isStopped(), is(true));
+        assertThat(CancellationToken.withTimeout(Duration.ofHours(1)).isStopped(), is(false));
+        // The timeouts that overflow the nano time never expire.
+        assertThat(CancellationToken.withTimeout(Duration.ofSeconds(Long.MAX_VALUE)).isStopped(), is(false));
+    }
+
+    @Test
+    public void bindingRestoresPreviousToken() {
+        CancellationToken outer = CancellationToken.create();
+        CancellationToken inner = CancellationToken.create();
+        assertThat(CancellationToken.current(), sameInstance(CancellationToken.none()));
+
+        try (CancellationToken.Binding ignored = outer.bind()) {
+            try (CancellationToken.Binding ignored2 = inner.bind()) {
+                assertThat(CancellationToken.current(), sameInstance(inner));
+            }
+            assertThat(CancellationToken.current(), sameInstance(outer));
+        }
+
+        assertThat(CancellationToken.current(), sameInstance(CancellationToken.none()));
+    }
+}
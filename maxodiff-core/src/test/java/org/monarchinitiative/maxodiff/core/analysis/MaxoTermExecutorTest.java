@@ -0,0 +1,64 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaxoTermExecutorTest {
+
+    @Test
+    public void invokeAllKeepsTaskOrderWhenQueueOverflows() throws Exception {
+        try (MaxoTermExecutor executor = MaxoTermExecutor.of(2, 1)) {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                int value = i;
+                tasks.add(() -> value * value);
+            }
+
+            List<Future<Integer>> futures = executor.invokeAll(tasks);
+
+            assertEquals(50, futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i * i, futures.get(i).get());
+            }
+        }
+    }
+
+    @Test
+    public void executorIsReusable() throws Exception {
+        try (MaxoTermExecutor executor = MaxoTermExecutor.of(3, 8)) {
+            assertEquals(3, executor.parallelism());
+            assertEquals(8, executor.queueCapacity());
+            for (int run = 0; run < 3; run++) {
+                List<Future<String>> futures = executor.invokeAll(List.of(() -> "a", () -> "b"));
+                assertEquals("a", futures.get(0).get());
+                assertEquals("b", futures.get(1).get());
+            }
+        }
+    }
+
+    @Test
+    public void closedExecutorRejectsTasks() throws Exception {
+        MaxoTermExecutor executor = MaxoTermExecutor.of(1, 1);
+        executor.close();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.invokeAll(List.of(() -> 1)));
+    }
+
+    @Test
+    public void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MaxoTermExecutor.of(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> MaxoTermExecutor.of(1, 0));
+    }
+
+    @Test
+    public void sharedExecutorIsSingleton() {
+        assertSame(MaxoTermExecutor.shared(), MaxoTermExecutor.shared());
+    }
+}
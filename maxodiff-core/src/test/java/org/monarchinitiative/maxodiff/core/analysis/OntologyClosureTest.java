@@ -0,0 +1,86 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.TestResources;
+import org.monarchinitiative.maxodiff.core.service.DfsHpoTermArranger;
+import org.monarchinitiative.maxodiff.core.term.OntologyClosure;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
+import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OntologyClosureTest {
+
+    private static final Ontology HPO = TestResources.hpo();
+    private static final OntologyClosure CLOSURE = OntologyClosure.of(HPO);
+
+    private static final TermId PHENOTYPIC_ABNORMALITY = TermId.of("HP:0000118");
+    private static final TermId VSD = TermId.of("HP:0001629");
+    private static final TermId ABNORMAL_HEART_MORPHOLOGY = TermId.of("HP:0001627");
+    private static final TermId GAIT_ATAXIA = TermId.of("HP:0002066");
+    private static final TermId AUTOSOMAL_DOMINANT = TermId.of("HP:0000006");
+    // Obsolete term that is not in the ontology graph.
+    private static final TermId OBSOLETE = TermId.of("HP:0007227");
+
+    private static final List<TermId> TERMS = List.of(
+            PHENOTYPIC_ABNORMALITY, VSD, ABNORMAL_HEART_MORPHOLOGY, GAIT_ATAXIA, AUTOSOMAL_DOMINANT,
+            TermId.of("HP:0001263"), TermId.of("HP:0000707"), TermId.of("HP:0012823"), TermId.of("HP:0031797"));
+
+    @Test
+    public void descendantsAndAncestorsMatchTheOntology() {
+        for (TermId term : TERMS) {
+            Set<TermId> descendants = new HashSet<>();
+            CLOSURE.forEachDescendant(term, descendants::add);
+            assertEquals(HPO.graph().getDescendantSet(term), descendants, term.getValue());
+
+            Set<TermId> ancestors = new HashSet<>();
+            CLOSURE.forEachAncestor(term, ancestors::add);
+            assertEquals(HPO.graph().getAncestorSet(term), ancestors, term.getValue());
+        }
+    }
+
+    @Test
+    public void isDescendantIsStrict() {
+        assertTrue(CLOSURE.isDescendant(VSD, ABNORMAL_HEART_MORPHOLOGY));
+        assertTrue(CLOSURE.isAncestor(PHENOTYPIC_ABNORMALITY, VSD));
+        assertFalse(CLOSURE.isDescendant(ABNORMAL_HEART_MORPHOLOGY, VSD));
+        assertFalse(CLOSURE.isDescendant(VSD, VSD));
+        assertFalse(CLOSURE.isDescendant(GAIT_ATAXIA, ABNORMAL_HEART_MORPHOLOGY));
+    }
+
+    @Test
+    public void relatedMatchesTheOntology() {
+        for (TermId a : TERMS) {
+            for (TermId b : TERMS) {
+                assertEquals(OntologyAlgorithm.termsAreRelated(HPO, a, b), CLOSURE.related(a, b),
+                        a.getValue() + " " + b.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void termsAbsentFromTheGraphHaveNoRelatives() {
+        TermDictionary dictionary = CLOSURE.dictionary();
+        assertTrue(dictionary.contains(OBSOLETE));
+
+        TermIdBitSet descendants = dictionary.newSet();
+        CLOSURE.addDescendants(OBSOLETE, descendants);
+        assertTrue(descendants.isEmpty());
+        assertFalse(CLOSURE.isDescendant(OBSOLETE, PHENOTYPIC_ABNORMALITY));
+        assertFalse(CLOSURE.related(OBSOLETE, VSD));
+    }
+
+    @Test
+    public void arrangerOrderMatchesTheGraphTraversal() {
+        List<TermId> terms = new ArrayList<>(TERMS);
+        terms.add(OBSOLETE);
+
+        assertEquals(new DfsHpoTermArranger(HPO).arrangeTerms(terms),
+                new DfsHpoTermArranger(HPO, CLOSURE).arrangeTerms(terms));
+    }
+}
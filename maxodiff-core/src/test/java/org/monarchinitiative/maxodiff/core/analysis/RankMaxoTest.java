@@ -3,8 +3,11 @@ package org.monarchinitiative.maxodiff.core.analysis;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.TestResources;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.*;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
@@ -15,6 +18,8 @@ import org.monarchinitiative.phenol.ontology.data.TermId;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 
 public class RankMaxoTest {
 
@@ -30,6 +35,36 @@ public class RankMaxoTest {
                                          DiseaseModelProbability.ranked(initialDiagnoses));
 
     private static DifferentialDiagnosisEngine ENGINE;
+    /**
+     * Scores the initial diagnoses by the HPO terms of the sample, hence the ranking depends on the sampled terms.
+     */
+    private static final DifferentialDiagnosisEngine SAMPLE_DEPENDENT_ENGINE = new DifferentialDiagnosisEngine() {
+        @Override
+        public List<DifferentialDiagnosis> run(Sample sample) {
+            return run(sample, null);
+        }
+
+        @Override
+        public List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> targetDiseases) {
+            return initialDiagnoses.stream()
+                    .filter(dd -> targetDiseases == null || targetDiseases.contains(dd.diseaseId()))
+                    .map(dd -> {
+                        double weight = 1.
+                                + matching(sample.presentHpoTermIds(), dd.diseaseId())
+                                - .5 * matching(sample.excludedHpoTermIds(), dd.diseaseId());
+                        double score = Math.max(dd.score() * weight, 0.);
+                        return DifferentialDiagnosis.of(dd.diseaseId(), score, score);
+                    })
+                    .sorted(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed())
+                    .toList();
+        }
+
+        private static long matching(Collection<TermId> termIds, TermId diseaseId) {
+            return termIds.stream()
+                    .filter(termId -> Math.floorMod(termId.getValue().hashCode() + diseaseId.getValue().hashCode(), 3) == 0)
+                    .count();
+        }
+    };
     private static Ontology ontology = TestResources.hpo();
     private static MinimalOntology minimalOntology = TestResources.minHpo();
 
@@ -111,4 +146,67 @@ public class RankMaxoTest {
         System.out.println(maxoTermRanks);
     }
 
+    /**
+     * The repetitions of a MAxO term draw from the generator of the term and the repetition, hence the ranking
+     * with a given seed does not depend on the number of threads evaluating the MAxO terms.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void parallelRankingMatchesSequentialRanking(boolean adaptive) throws Exception {
+        AdaptiveRepetitionOptions adaptiveOptions = adaptive
+                ? AdaptiveRepetitionOptions.defaultOptions()
+                : AdaptiveRepetitionOptions.disabled();
+
+        List<RankMaxoScore> sequential;
+        try (MaxoTermExecutor executor = MaxoTermExecutor.of(1, MaxoTermExecutor.DEFAULT_QUEUE_CAPACITY)) {
+            sequential = rankExampleSample(executor, adaptiveOptions);
+        }
+        List<RankMaxoScore> parallel;
+        try (MaxoTermExecutor executor = MaxoTermExecutor.of(4, MaxoTermExecutor.DEFAULT_QUEUE_CAPACITY)) {
+            parallel = rankExampleSample(executor, adaptiveOptions);
+        }
+
+        // The scores differ, hence the ranking is not trivial.
+        assertTrue(sequential.stream().map(RankMaxoScore::maxoScore).distinct().count() > 1);
+        assertEquals(sequential.stream().map(RankMaxoScore::maxoId).toList(),
+                parallel.stream().map(RankMaxoScore::maxoId).toList());
+        assertEquals(sequential.stream().map(RankMaxoScore::maxoScore).toList(),
+                parallel.stream().map(RankMaxoScore::maxoScore).toList());
+    }
+
+    private static List<RankMaxoScore> rankExampleSample(MaxoTermExecutor executor,
+                                                         AdaptiveRepetitionOptions adaptive) throws Exception {
+        Set<TermId> diseaseIds = initialDiagnoses.stream()
+                .map(DifferentialDiagnosis::diseaseId).collect(Collectors.toSet());
+        // The ranking retains the discoverable HPO terms in the map.
+        Map<TermId, Set<TermId>> maxoToHpoIds = maxoToHpoTermIdMap.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> new HashSet<>(e.getValue())));
+        RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoIds, maxoHpoTermProbabilities,
+                SAMPLE_DEPENDENT_ENGINE, minimalOntology, ontology, executor);
+        return rankMaxo.rankMaxoTerms(TestResources.getExampleSample(), 10, diseaseIds,
+                RefinementOptions.DEFAULT_SEED, adaptive, Integer.MAX_VALUE, CancellationToken.none()).scores();
+    }
+
+    /**
+     * A ranking stopped before the first repetition returns no MAxO terms, flagged as partial.
+     */
+    @Test
+    public void cancelledRankingReturnsPartialResults() throws Exception {
+        Set<TermId> diseaseIds = initialDiagnoses.stream()
+                .map(DifferentialDiagnosis::diseaseId).collect(Collectors.toSet());
+        // The ranking retains the discoverable HPO terms in the map.
+        Map<TermId, Set<TermId>> maxoToHpoIds = maxoToHpoTermIdMap.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> new HashSet<>(e.getValue())));
+        RankMaxo rankMaxo = new RankMaxo(hpoToMaxoTermMap, maxoToHpoIds, maxoHpoTermProbabilities,
+                ENGINE, minimalOntology, ontology);
+        CancellationToken cancellation = CancellationToken.create();
+        cancellation.cancel();
+
+        RankMaxoResults results = rankMaxo.rankMaxoTerms(TestResources.getExampleSample(), 2, diseaseIds,
+                RefinementOptions.DEFAULT_SEED, AdaptiveRepetitionOptions.disabled(), Integer.MAX_VALUE, cancellation);
+
+        assertTrue(results.partial());
+        assertTrue(results.scores().isEmpty());
+    }
+
 }
@@ -83,6 +83,21 @@ public class RefinementResultsJsonDumpTest {
         assertThat(writer.toString().replaceAll("\r", ""), equalTo(expected));
     }
 
+    @Test
+    public void partialResultsAreFlagged() throws Exception {
+        StringWriter writer = new StringWriter();
+        JsonGenerator generator = OBJECT_MAPPER.createGenerator(writer);
+
+        generator.writeObject(RefinementResults.of(List.of(), true));
+
+        String expected = """
+                {
+                  "maxodiffResults" : [ ],
+                  "partial" : true
+                }""";
+        assertThat(writer.toString().replaceAll("\r", ""), equalTo(expected));
+    }
+
     private static RefinementResults createResults() {
         return RefinementResults.of(
                 List.of(
@@ -0,0 +1,34 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepetitionRandomTest {
+
+    private static final TermId MAXO_A = TermId.of("MAXO:0000428");
+    private static final TermId MAXO_B = TermId.of("MAXO:0000429");
+
+    @Test
+    public void sameKeyYieldsSameSequence() {
+        assertArrayEquals(draw(RepetitionRandom.forRepetition(42L, MAXO_A, 3)),
+                draw(RepetitionRandom.forRepetition(42L, MAXO_A, 3)));
+    }
+
+    @Test
+    public void differentKeysYieldDifferentSequences() {
+        double[] reference = draw(RepetitionRandom.forRepetition(42L, MAXO_A, 0));
+
+        assertFalse(Arrays.equals(reference, draw(RepetitionRandom.forRepetition(43L, MAXO_A, 0))));
+        assertFalse(Arrays.equals(reference, draw(RepetitionRandom.forRepetition(42L, MAXO_B, 0))));
+        assertFalse(Arrays.equals(reference, draw(RepetitionRandom.forRepetition(42L, MAXO_A, 1))));
+    }
+
+    private static double[] draw(RandomGenerator random) {
+        return random.doubles(5).toArray();
+    }
+}
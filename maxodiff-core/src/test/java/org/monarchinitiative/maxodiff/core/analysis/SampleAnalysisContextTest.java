@@ -0,0 +1,73 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.TestResources;
+import org.monarchinitiative.maxodiff.core.model.*;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleAnalysisContextTest {
+
+    private final static HpoDiseases hpoDiseases = TestResources.hpoDiseases();
+    private final static Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap = TestResources.hpoToMaxo();
+    private final static List<DifferentialDiagnosis> initialDiagnoses = TestResources.getExampleDiagnoses().stream().toList();
+    private final static Sample samplePhenopacket = TestResources.getExampleSample();
+    private final static MaxoHpoTermProbabilities MAXO_HPO_TERM_PROBABILITIES = new MaxoHpoTermProbabilities(hpoDiseases,
+            hpoToMaxoTermMap, initialDiagnoses, DiseaseModelProbability.ranked(initialDiagnoses));
+    private final static Set<TermId> diseaseIds = initialDiagnoses.stream()
+            .map(DifferentialDiagnosis::diseaseId)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+    private final static SampleAnalysisContext CONTEXT = SampleAnalysisContext.of(samplePhenopacket,
+            MAXO_HPO_TERM_PROBABILITIES, hpoToMaxoTermMap, diseaseIds);
+
+    @Test
+    public void unionOfDiscoverablePhenotypes() {
+        assertEquals(MAXO_HPO_TERM_PROBABILITIES.getUnionOfDiscoverablePhenotypes(samplePhenopacket),
+                CONTEXT.unionOfDiscoverablePhenotypes());
+    }
+
+    @Test
+    public void discoverableByMaxoHpoTermIds() {
+        TermId maxoId = TermId.of("MAXO:0035006"); //Foot radiography
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = MaxoHpoTermIdMaps.getMaxoToHpoTermIdMap(hpoToMaxoTermMap);
+        Set<TermId> expected = MAXO_HPO_TERM_PROBABILITIES.getDiscoverableByMaxoHpoTerms(samplePhenopacket, maxoId, maxoToHpoTermIdMap);
+
+        assertEquals(9, CONTEXT.discoverableByMaxoHpoTermIds(maxoId).size());
+        assertEquals(expected, CONTEXT.discoverableByMaxoHpoTermIds(maxoId));
+        assertTrue(CONTEXT.discoverableByMaxoHpoTermIds(TermId.of("MAXO:9999999")).isEmpty());
+    }
+
+    @Test
+    public void ascertainablePhenotypeIds() {
+        AscertainablePhenotypes ascertainablePhenotypes = new AscertainablePhenotypes(hpoDiseases);
+        for (TermId diseaseId : diseaseIds) {
+            assertEquals(ascertainablePhenotypes.getAscertainablePhenotypeIds(samplePhenopacket, diseaseId),
+                    CONTEXT.ascertainablePhenotypeIds(diseaseId));
+        }
+    }
+
+    @Test
+    public void diseaseRankProbabilities() {
+        Map<TermId, Double> probabilities = CONTEXT.diseaseRankProbabilities();
+
+        assertEquals(List.copyOf(diseaseIds), List.copyOf(probabilities.keySet()));
+        assertEquals(1., probabilities.values().stream().mapToDouble(d -> d).sum(), 1e-9);
+        TermId first = diseaseIds.iterator().next();
+        assertEquals(probabilities.values().stream().mapToDouble(d -> d).max().orElseThrow(), probabilities.get(first), 1e-12);
+    }
+
+    @Test
+    public void contextIsImmutable() {
+        assertThrows(UnsupportedOperationException.class, () -> CONTEXT.unionOfDiscoverablePhenotypes().clear());
+        assertThrows(UnsupportedOperationException.class, () -> CONTEXT.maxoToHpoTermIdMap().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> CONTEXT.maxoToHpoTermIdMap().values().iterator().next().clear());
+    }
+}
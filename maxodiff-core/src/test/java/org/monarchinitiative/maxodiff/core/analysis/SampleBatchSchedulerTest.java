@@ -0,0 +1,109 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleBatchSchedulerTest {
+
+    @Test
+    public void resultsAreConsumedInSampleOrder() throws Exception {
+        List<Integer> samples = IntStream.range(0, 40).boxed().toList();
+        List<Integer> consumed = new ArrayList<>();
+        try (SampleBatchScheduler scheduler = SampleBatchScheduler.of(4, 6)) {
+            scheduler.run(samples,
+                    sample -> {
+                        // The later samples finish first.
+                        Thread.sleep((40 - sample) % 7);
+                        return sample * sample;
+                    },
+                    result -> consumed.add(result.result()));
+        }
+
+        assertEquals(samples.stream().map(i -> i * i).toList(), consumed);
+    }
+
+    @Test
+    public void samplesAreAnalyzedConcurrently() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        List<Boolean> overlapped = new ArrayList<>();
+        try (SampleBatchScheduler scheduler = SampleBatchScheduler.of(2)) {
+            scheduler.run(List.of("a", "b"),
+                    sample -> {
+                        started.countDown();
+                        // Both samples must be running at the same time to get past the latch.
+                        return started.await(10, TimeUnit.SECONDS);
+                    },
+                    result -> overlapped.add(result.result()));
+        }
+
+        assertEquals(List.of(true, true), overlapped);
+    }
+
+    @Test
+    public void samplesInFlightAreBounded() throws Exception {
+        int maxInFlight = 3;
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        try (SampleBatchScheduler scheduler = SampleBatchScheduler.of(2, maxInFlight)) {
+            scheduler.run(IntStream.range(0, 30).boxed().toList(),
+                    sample -> {
+                        int inFlight = submitted.incrementAndGet() - consumed.get();
+                        maxObserved.accumulateAndGet(inFlight, Math::max);
+                        return sample;
+                    },
+                    result -> consumed.incrementAndGet());
+        }
+
+        assertEquals(30, consumed.get());
+        assertTrue(maxObserved.get() <= maxInFlight, "Observed %d samples in flight".formatted(maxObserved.get()));
+    }
+
+    @Test
+    public void failedSampleDoesNotStopTheBatch() throws Exception {
+        List<String> consumed = new ArrayList<>();
+        try (SampleBatchScheduler scheduler = SampleBatchScheduler.of(2)) {
+            scheduler.run(List.of(1, 2, 3),
+                    sample -> {
+                        if (sample == 2)
+                            throw new IOException("Cannot read sample 2");
+                        return sample;
+                    },
+                    result -> consumed.add(result.isSuccess()
+                            ? String.valueOf(result.result())
+                            : result.sample() + ": " + result.failure().getMessage()));
+        }
+
+        assertEquals(List.of("1", "2: Cannot read sample 2", "3"), consumed);
+    }
+
+    @Test
+    public void consumerFailureStopsTheBatch() throws Exception {
+        AtomicInteger consumed = new AtomicInteger();
+        try (SampleBatchScheduler scheduler = SampleBatchScheduler.of(1, 1)) {
+            assertThrows(IOException.class, () -> scheduler.run(List.of(1, 2, 3),
+                    sample -> sample,
+                    result -> {
+                        consumed.incrementAndGet();
+                        throw new IOException("Disk full");
+                    }));
+        }
+
+        assertEquals(1, consumed.get());
+    }
+
+    @Test
+    public void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SampleBatchScheduler.of(0));
+        assertThrows(IllegalArgumentException.class, () -> SampleBatchScheduler.of(4, 3));
+    }
+}
@@ -0,0 +1,57 @@
+package org.monarchinitiative.maxodiff.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.maxodiff.core.term.TermIdBitSet;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermDictionaryTest {
+
+    private static final TermId A = TermId.of("HP:0000001");
+    private static final TermId B = TermId.of("HP:0000002");
+    private static final TermId C = TermId.of("HP:0000003");
+    private static final TermId UNKNOWN = TermId.of("HP:9999999");
+
+    private static final TermDictionary DICTIONARY = TermDictionary.of(List.of(C, A, B, A));
+
+    @Test
+    public void indicesFollowTermOrder() {
+        assertEquals(3, DICTIONARY.size());
+        assertEquals(0, DICTIONARY.index(A));
+        assertEquals(2, DICTIONARY.index(C));
+        assertEquals(-1, DICTIONARY.index(UNKNOWN));
+        assertEquals(B, DICTIONARY.termId(1));
+    }
+
+    @Test
+    public void setAlgebra() {
+        TermIdBitSet ab = DICTIONARY.newSet(List.of(A, B));
+        TermIdBitSet bc = DICTIONARY.newSet(List.of(B, C));
+
+        assertEquals(Set.of(B), ab.copy().and(bc));
+        assertEquals(Set.of(A, B, C), ab.copy().or(bc));
+        assertEquals(Set.of(A), ab.copy().andNot(bc));
+        assertTrue(ab.intersects(bc));
+        assertEquals(Set.of(A, B), ab);
+    }
+
+    @Test
+    public void unknownTerms() {
+        assertThrows(IllegalArgumentException.class, () -> DICTIONARY.newSet(List.of(A, UNKNOWN)));
+        assertEquals(Set.of(A), DICTIONARY.newSetOfKnown(List.of(A, UNKNOWN)));
+        assertFalse(DICTIONARY.newSet(List.of(A)).contains(UNKNOWN));
+    }
+
+    @Test
+    public void setsOfDifferentDictionariesCannotBeCombined() {
+        TermDictionary other = TermDictionary.of(List.of(A, B, C));
+        assertThrows(IllegalArgumentException.class, () -> DICTIONARY.newSet().and(other.newSet()));
+        // but they are still equal as sets
+        assertEquals(DICTIONARY.newSet(List.of(A)), other.newSet(List.of(A)));
+    }
+}
@@ -0,0 +1,167 @@
+package org.monarchinitiative.maxodiff.core.analysis.refinement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.monarchinitiative.maxodiff.core.analysis.AdaptiveRepetitionOptions;
+import org.monarchinitiative.maxodiff.core.analysis.Frequencies;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoTermScore;
+import org.monarchinitiative.maxodiff.core.analysis.RankMaxoScore;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RefinementResultsCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void keyIgnoresOrderAndDuplicatesOfTerms() {
+        RefinementOptions options = RefinementOptions.of(10, 5);
+        Sample a = Sample.of("a", List.of(TermId.of("HP:0000002"), TermId.of("HP:0000001")), List.of(TermId.of("HP:0000003")));
+        Sample b = Sample.of("b", List.of(TermId.of("HP:0000001"), TermId.of("HP:0000002"), TermId.of("HP:0000001")), List.of(TermId.of("HP:0000003")));
+
+        RefinementCacheKey keyA = RefinementCacheKey.of(a, "phenomizer:ONE_SIDED", "ranked", options, "v1");
+        RefinementCacheKey keyB = RefinementCacheKey.of(b, "phenomizer:ONE_SIDED", "ranked", options, "v1");
+
+        assertEquals(keyA, keyB);
+        assertEquals(keyA.digest(), keyB.digest());
+        assertNotEquals(keyA, RefinementCacheKey.of(a, "phenomizer:TWO_SIDED", "ranked", options, "v1"));
+        assertNotEquals(keyA, RefinementCacheKey.of(a, "phenomizer:ONE_SIDED", "ranked", RefinementOptions.of(10, 5, 7L), "v1"));
+        assertNotEquals(keyA.digest(), RefinementCacheKey.of(a, "phenomizer:ONE_SIDED", "ranked", options, "v2").digest());
+    }
+
+    @Test
+    public void leastRecentlyUsedResultsAreEvicted() {
+        RefinementResultsCache cache = RefinementResultsCacheImpl.of(2, TTL, null, Clock.systemUTC());
+        cache.put(key(1), results(1.));
+        cache.put(key(2), results(2.));
+        assertTrue(cache.get(key(1)).isPresent());
+
+        cache.put(key(3), results(3.));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get(key(1)).isPresent());
+        assertFalse(cache.get(key(2)).isPresent());
+        assertTrue(cache.get(key(3)).isPresent());
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void resultsExpireAfterTtl() throws Exception {
+        MutableClock clock = new MutableClock();
+        RefinementResultsCache cache = RefinementResultsCacheImpl.of(10, TTL, tempDir, clock);
+        cache.put(key(1), results(1.));
+
+        clock.advance(TTL.minusSeconds(1));
+        assertTrue(cache.get(key(1)).isPresent());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertFalse(cache.get(key(1)).isPresent());
+        assertEquals(0, cache.size());
+        // The expired file is removed from the disk store too.
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void partialResultsAreNotCached() throws Exception {
+        RefinementResultsCache cache = RefinementResultsCache.of(10, TTL);
+
+        RefinementResults partial = cache.getOrCompute(key(1), () -> RefinementResults.of(List.of(), true));
+
+        assertTrue(partial.partial());
+        assertFalse(cache.get(key(1)).isPresent());
+    }
+
+    @Test
+    public void resultsAreReadBackFromDiskStore() {
+        RefinementResults results = results(2.5);
+        RefinementResultsCache.of(10, TTL, tempDir).put(key(1), results);
+
+        RefinementResultsCache reopened = RefinementResultsCache.of(10, TTL, tempDir);
+        Optional<RefinementResults> cached = reopened.get(key(1));
+
+        assertTrue(cached.isPresent());
+        assertFalse(cached.get().partial());
+        MaxodiffResult expected = results.maxodiffResults().iterator().next();
+        MaxodiffResult actual = cached.get().maxodiffResults().iterator().next();
+        assertEquals(expected.rankMaxoScore(), actual.rankMaxoScore());
+        assertEquals(expected.frequencies(), actual.frequencies());
+        assertEquals(expected.maxoFrequencies(), actual.maxoFrequencies());
+        assertEquals(expected.maxoTermScore().omimTermIds(), actual.maxoTermScore().omimTermIds());
+        assertEquals(expected.maxoTermScore().scoreDiff(), actual.maxoTermScore().scoreDiff());
+        assertNull(actual.maxoTermScore().originalCDF());
+        assertFalse(reopened.get(key(2)).isPresent());
+    }
+
+    @Test
+    public void unreadableFileIsDeleted() throws Exception {
+        RefinementResultsCache.of(10, TTL, tempDir).put(key(1), results(1.));
+        Path file = tempDir.resolve(key(1).digest() + ".bin");
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 20));
+
+        assertFalse(RefinementResultsCache.of(10, TTL, tempDir).get(key(1)).isPresent());
+        assertFalse(Files.exists(file));
+    }
+
+    private static RefinementCacheKey key(int seed) {
+        return new RefinementCacheKey(List.of(TermId.of("HP:0000001")), List.of(), "phenomizer:ONE_SIDED", "ranked",
+                10, 5, seed, AdaptiveRepetitionOptions.disabled(), RefinementOptions.ALL_MAXO_TERMS, "v1");
+    }
+
+    private static RefinementResults results(double score) {
+        TermId maxoId = TermId.of("MAXO:0000001");
+        Set<TermId> omimIds = new LinkedHashSet<>(List.of(TermId.of("OMIM:100000"), TermId.of("OMIM:200000")));
+        List<DifferentialDiagnosis> diagnoses = List.of(DifferentialDiagnosis.of(TermId.of("OMIM:100000"), .8, Double.NaN));
+        Map<TermId, Integer> repCts = new LinkedHashMap<>();
+        repCts.put(TermId.of("HP:0000001"), 3);
+        repCts.put(TermId.of("HP:0000002"), null);
+        MaxoTermScore maxoTermScore = new MaxoTermScore(maxoId.getValue(), 2, omimIds, Set.of(), 1,
+                Set.of(TermId.of("HP:0000001")), 0., 0., score, TermId.of("HP:000000"), List.of(), List.of(), null, null);
+        RankMaxoScore rankMaxoScore = new RankMaxoScore(maxoId, omimIds, Set.of(TermId.of("OMIM:100000")),
+                Set.of(TermId.of("HP:0000001")), Set.of(), score, diagnoses,
+                Map.of(TermId.of("OMIM:100000"), repCts), Map.of(TermId.of("OMIM:100000"), -1), -1, 0);
+        List<Frequencies> frequencies = List.of(new Frequencies(TermId.of("HP:0000001"), Arrays.asList(.5f, null)));
+        return RefinementResults.of(List.of(MaxodiffResult.of(maxoTermScore, rankMaxoScore, frequencies, List.of())));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DifferentialDiagnosisBaselineTest {
+
+    private static final TermId A = TermId.of("HP:0000001");
+    private static final TermId B = TermId.of("HP:0000002");
+    private static final TermId C = TermId.of("HP:0000003");
+    private static final TermId DISEASE = TermId.of("OMIM:123456");
+
+    /**
+     * A toy engine that scores the disease by the number of present terms minus the number of excluded terms.
+     */
+    private static final DifferentialDiagnosisEngine ENGINE = new DifferentialDiagnosisEngine() {
+        @Override
+        public List<DifferentialDiagnosis> run(Sample sample) {
+            return run(sample, null);
+        }
+
+        @Override
+        public List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> targetDiseases) {
+            double score = sample.presentHpoTermIds().size() - sample.excludedHpoTermIds().size();
+            return List.of(DifferentialDiagnosis.of(DISEASE, score, Double.NaN));
+        }
+    };
+
+    @Test
+    public void baselineHasDistinctTerms() {
+        Sample sample = Sample.of("sample", List.of(A, A, B), List.of(C, C));
+
+        DifferentialDiagnosisBaseline baseline = ENGINE.baseline(sample, List.of(DISEASE));
+
+        assertEquals(List.of(A, B), List.copyOf(baseline.sample().presentHpoTermIds()));
+        assertEquals(List.of(C), List.copyOf(baseline.sample().excludedHpoTermIds()));
+        assertEquals(List.of(DISEASE), baseline.targetDiseases());
+        assertEquals(1., baseline.diagnoses().get(0).score());
+    }
+
+    @Test
+    public void runIncrementalMatchesRunOnUpdatedSample() {
+        Sample sample = Sample.of("sample", List.of(A), List.of());
+        DifferentialDiagnosisBaseline baseline = ENGINE.baseline(sample, null);
+
+        List<DifferentialDiagnosis> incremental = ENGINE.runIncremental(baseline, List.of(A, B), List.of(C));
+        List<DifferentialDiagnosis> expected = ENGINE.run(Sample.of("sample", List.of(A, B), List.of(C)));
+
+        assertEquals(expected, incremental);
+        assertEquals(1., incremental.get(0).score());
+    }
+
+    @Test
+    public void batchRunsMatchTheSingleRuns() {
+        List<Sample> samples = List.of(Sample.of("a", List.of(A), List.of()), Sample.of("b", List.of(A, B), List.of(C)));
+        DifferentialDiagnosisBaseline baseline = ENGINE.baseline(samples.get(0), null);
+
+        assertEquals(List.of(ENGINE.run(samples.get(0)), ENGINE.run(samples.get(1))), ENGINE.runAll(samples, null));
+        assertEquals(List.of(ENGINE.runIncremental(baseline, List.of(B), List.of()), ENGINE.runIncremental(baseline, List.of(), List.of(C))),
+                ENGINE.runIncrementalAll(baseline, List.of(List.of(B), List.of()), List.of(List.of(), List.of(C))));
+        assertThrows(IllegalArgumentException.class,
+                () -> ENGINE.runIncrementalAll(baseline, List.of(List.of(B)), List.of()));
+    }
+}
@@ -0,0 +1,151 @@
+package org.monarchinitiative.maxodiff.core.diffdg;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DifferentialDiagnosisCacheTest {
+
+    private static final TermId A = TermId.of("HP:0000001");
+    private static final TermId B = TermId.of("HP:0000002");
+    private static final TermId C = TermId.of("HP:0000003");
+    private static final TermId DISEASE = TermId.of("OMIM:123456");
+
+    @Test
+    public void fullRunsAreReused() {
+        CountingEngine engine = new CountingEngine("toy");
+        DifferentialDiagnosisCache cache = DifferentialDiagnosisCache.of(10);
+        DifferentialDiagnosisEngine memoized = cache.memoize(engine);
+
+        List<DifferentialDiagnosis> first = memoized.run(Sample.of("first", List.of(A, B), List.of(C)));
+        List<DifferentialDiagnosis> second = memoized.run(Sample.of("second", List.of(B, A), List.of(C)), null);
+
+        assertEquals(first, second);
+        assertEquals(1, engine.runs);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // The repeated terms may change the results.
+        memoized.run(Sample.of("third", List.of(A, A, B), List.of(C)));
+        assertEquals(2, engine.runs);
+    }
+
+    @Test
+    public void cacheIsSharedByEnginesWithSameConfiguration() {
+        DifferentialDiagnosisCache cache = DifferentialDiagnosisCache.of(10);
+        CountingEngine toy = new CountingEngine("toy");
+        CountingEngine sameToy = new CountingEngine("toy");
+        CountingEngine other = new CountingEngine("other");
+        Sample sample = Sample.of("sample", List.of(A), List.of());
+
+        cache.memoize(toy).run(sample);
+        cache.memoize(sameToy).run(sample);
+        cache.memoize(other).run(sample);
+
+        assertEquals(1, toy.runs);
+        assertEquals(0, sameToy.runs);
+        assertEquals(1, other.runs);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void targetedRunsAreNotCached() {
+        CountingEngine engine = new CountingEngine("toy");
+        DifferentialDiagnosisCache cache = DifferentialDiagnosisCache.of(10);
+        DifferentialDiagnosisEngine memoized = cache.memoize(engine);
+        Sample sample = Sample.of("sample", List.of(A), List.of());
+
+        memoized.run(sample, List.of(DISEASE));
+        memoized.run(sample, List.of(DISEASE));
+        DifferentialDiagnosisBaseline baseline = memoized.baseline(sample, List.of(DISEASE));
+        memoized.runIncremental(baseline, List.of(B), List.of());
+
+        assertEquals(4, engine.runs);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void batchedFullRunsAreReused() {
+        CountingEngine engine = new CountingEngine("toy");
+        DifferentialDiagnosisCache cache = DifferentialDiagnosisCache.of(10);
+        DifferentialDiagnosisEngine memoized = cache.memoize(engine);
+        Sample a = Sample.of("a", List.of(A), List.of());
+        Sample b = Sample.of("b", List.of(B), List.of());
+
+        memoized.run(a);
+        List<List<DifferentialDiagnosis>> batch = memoized.runAll(List.of(a, b), null);
+        memoized.runAll(List.of(a, b), List.of(DISEASE));
+
+        assertEquals(List.of(memoized.run(a), memoized.run(b)), batch);
+        assertEquals(4, engine.runs);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedDiagnosesAreEvicted() {
+        CountingEngine engine = new CountingEngine("toy");
+        DifferentialDiagnosisCache cache = DifferentialDiagnosisCache.of(2);
+        DifferentialDiagnosisEngine memoized = cache.memoize(engine);
+        Sample a = Sample.of("a", List.of(A), List.of());
+        Sample b = Sample.of("b", List.of(B), List.of());
+        Sample c = Sample.of("c", List.of(C), List.of());
+
+        memoized.run(a);
+        memoized.run(b);
+        memoized.run(a);
+        memoized.run(c);
+        memoized.run(a);
+        memoized.run(b);
+
+        assertEquals(4, engine.runs);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    public void enginesWithoutConfigurationAreNotMemoized() {
+        CountingEngine engine = new CountingEngine(null);
+        DifferentialDiagnosisCache cache = DifferentialDiagnosisCache.of(10);
+
+        assertSame(engine, cache.memoize(engine));
+        assertThrows(IllegalArgumentException.class, () -> MemoizingDifferentialDiagnosisEngine.of(engine, cache));
+    }
+
+    /**
+     * A toy engine that scores the disease by the number of present terms minus the number of excluded terms
+     * and counts its runs.
+     */
+    private static class CountingEngine implements DifferentialDiagnosisEngine {
+
+        private final String configurationId;
+        private int runs = 0;
+
+        private CountingEngine(String configurationId) {
+            this.configurationId = configurationId;
+        }
+
+        @Override
+        public List<DifferentialDiagnosis> run(Sample sample) {
+            return run(sample, null);
+        }
+
+        @Override
+        public List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> targetDiseases) {
+            runs++;
+            double score = sample.presentHpoTermIds().size() - sample.excludedHpoTermIds().size();
+            return List.of(DifferentialDiagnosis.of(DISEASE, score, Double.NaN));
+        }
+
+        @Override
+        public Optional<String> configurationId() {
+            return Optional.ofNullable(configurationId);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.monarchinitiative.maxodiff.core.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchJournalTest {
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void completedUnitsAreReadByTheNextRun() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        String first = BatchJournal.key("PMID_1.json", 20, 10);
+        String second = BatchJournal.key("PMID_2.json", 20, 10);
+        try (BatchJournal journal = BatchJournal.open(path)) {
+            assertEquals(0, journal.completedCount());
+            journal.complete(first, List.of(List.of("PMID_1.json", "OMIM:256000", "[OMIM:1, OMIM:2]", 1.25)));
+            journal.complete(second, List.of());
+            assertTrue(journal.isCompleted(first));
+        }
+
+        try (BatchJournal journal = BatchJournal.open(path)) {
+            assertEquals(2, journal.completedCount());
+            assertEquals(Optional.of(List.of(List.of("PMID_1.json", "OMIM:256000", "[OMIM:1, OMIM:2]", "1.25"))), journal.completedRows(first));
+            assertEquals(Optional.of(List.of()), journal.completedRows(second));
+            assertFalse(journal.isCompleted(BatchJournal.key("PMID_1.json", 20, 30)));
+        }
+    }
+
+    @Test
+    public void unitWithoutCompletionIsIgnored() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        String key = BatchJournal.key("PMID_1.json", 20, 10);
+        // The rows of an attempt that crashed, then a complete attempt, then a truncated record.
+        Files.writeString(path, """
+                R,PMID_1.json|20|10,old
+                R,PMID_1.json|20|10,new
+                D,PMID_1.json|20|10,1
+                R,PMID_2.json|20|10,crashed
+                R,PMID_2.json|20|""");
+
+        try (BatchJournal journal = BatchJournal.open(path)) {
+            assertEquals(1, journal.completedCount());
+            assertEquals(Optional.of(List.of(List.of("new"))), journal.completedRows(key));
+            assertFalse(journal.isCompleted(BatchJournal.key("PMID_2.json", 20, 10)));
+
+            journal.complete(BatchJournal.key("PMID_2.json", 20, 10), List.of(List.of("resumed")));
+        }
+
+        try (BatchJournal journal = BatchJournal.open(path)) {
+            assertEquals(Optional.of(List.of(List.of("resumed"))), journal.completedRows(BatchJournal.key("PMID_2.json", 20, 10)));
+        }
+    }
+
+    @Test
+    public void invalidJournalIsRejected() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        Files.writeString(path, "X,PMID_1.json|20|10\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE);
+
+        assertThrows(IOException.class, () -> BatchJournal.open(path));
+    }
+
+    @Test
+    public void journalOfAnotherConfigurationIsNotResumed() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        String key = BatchJournal.key("PMID_1.json", 20, 10);
+        try (BatchJournal journal = BatchJournal.open(path, "engine=phenomizer:ONE_SIDED|seed=1")) {
+            journal.complete(key, List.of(List.of("MAXO:1")));
+        }
+
+        try (BatchJournal journal = BatchJournal.open(path, "engine=phenomizer:ONE_SIDED|seed=1")) {
+            assertEquals(Optional.of("engine=phenomizer:ONE_SIDED|seed=1"), journal.configuration());
+            assertEquals(Optional.of(List.of(List.of("MAXO:1"))), journal.completedRows(key));
+        }
+        assertThrows(IOException.class, () -> BatchJournal.open(path, "engine=phenomizer:ONE_SIDED|seed=2"));
+        assertThrows(IOException.class, () -> BatchJournal.open(path, "engine=lirical:strict=false,global=false|seed=1"));
+
+        // The journal is left intact for the run with the original configuration.
+        try (BatchJournal journal = BatchJournal.open(path, "engine=phenomizer:ONE_SIDED|seed=1")) {
+            assertEquals(1, journal.completedCount());
+        }
+    }
+
+    @Test
+    public void journalWithoutConfigurationIsNotResumedWithOne() throws IOException {
+        Path path = tempDir.resolve("batch.journal");
+        try (BatchJournal journal = BatchJournal.open(path)) {
+            journal.complete(BatchJournal.key("PMID_1.json", 20, 10), List.of());
+        }
+
+        assertThrows(IOException.class, () -> BatchJournal.open(path, "engine=phenomizer:ONE_SIDED"));
+        try (BatchJournal journal = BatchJournal.open(path)) {
+            assertEquals(Optional.empty(), journal.configuration());
+            assertEquals(1, journal.completedCount());
+        }
+    }
+}
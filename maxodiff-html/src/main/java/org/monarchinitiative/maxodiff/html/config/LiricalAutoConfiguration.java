@@ -2,6 +2,7 @@ package org.monarchinitiative.maxodiff.html.config;
 
 import org.monarchinitiative.lirical.core.service.PhenotypeService;
 import org.monarchinitiative.maxodiff.config.MaxodiffDataResolver;
+import org.monarchinitiative.maxodiff.lirical.InducedDiseaseGraphCacheOptions;
 import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngineConfigurer;
 import org.monarchinitiative.maxodiff.lirical.MaxodiffLiricalAnalysisRunner;
 import org.monarchinitiative.maxodiff.lirical.MaxodiffLiricalAnalysisRunnerImpl;
@@ -47,15 +48,20 @@ public class LiricalAutoConfiguration {
     }
 
     @Bean
-    public MaxodiffLiricalAnalysisRunner liricalAnalysisRunner(PhenotypeService liricalPhenotypeService) {
-        int parallelism = 4; // TODO: extract into a property
-        return MaxodiffLiricalAnalysisRunnerImpl.of(liricalPhenotypeService, parallelism);
+    public MaxodiffLiricalAnalysisRunner liricalAnalysisRunner(PhenotypeService liricalPhenotypeService,
+                                                               LiricalProperties liricalProperties) {
+        return MaxodiffLiricalAnalysisRunnerImpl.of(liricalPhenotypeService, liricalProperties.getParallelism());
     }
 
     @Bean
     public LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer(
-            MaxodiffLiricalAnalysisRunner liricalAnalysisRunner
+            MaxodiffLiricalAnalysisRunner liricalAnalysisRunner,
+            LiricalProperties liricalProperties
     ) {
-        return LiricalDifferentialDiagnosisEngineConfigurer.of(liricalAnalysisRunner);
+        InducedDiseaseGraphCacheOptions cacheOptions = new InducedDiseaseGraphCacheOptions(
+                liricalProperties.getInducedDiseaseGraphCacheSize(),
+                liricalProperties.getInducedDiseaseGraphCacheEviction(),
+                liricalProperties.isInducedDiseaseGraphCacheWarmUp());
+        return LiricalDifferentialDiagnosisEngineConfigurer.of(liricalAnalysisRunner, cacheOptions);
     }
 }
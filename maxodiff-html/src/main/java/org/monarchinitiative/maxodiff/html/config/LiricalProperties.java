@@ -2,6 +2,7 @@ package org.monarchinitiative.maxodiff.html.config;
 
 import org.monarchinitiative.lirical.core.model.GenomeBuild;
 import org.monarchinitiative.lirical.core.model.TranscriptDatabase;
+import org.monarchinitiative.maxodiff.lirical.InducedDiseaseGraphCacheOptions;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.Objects;
@@ -17,6 +18,10 @@ public class LiricalProperties {
     private boolean globalMode = false;
     private String exomiserHg19Path;
     private String exomiserHg38Path;
+    private int parallelism = 4;
+    private int inducedDiseaseGraphCacheSize = InducedDiseaseGraphCacheOptions.DEFAULT_MAX_SIZE;
+    private InducedDiseaseGraphCacheOptions.Eviction inducedDiseaseGraphCacheEviction = InducedDiseaseGraphCacheOptions.Eviction.LRU;
+    private boolean inducedDiseaseGraphCacheWarmUp = false;
 
     public GenomeBuild getGenomeBuild() {
         return genomeBuild;
@@ -82,17 +87,49 @@ public class LiricalProperties {
         this.exomiserHg38Path = exomiserHg38Path;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getInducedDiseaseGraphCacheSize() {
+        return inducedDiseaseGraphCacheSize;
+    }
+
+    public void setInducedDiseaseGraphCacheSize(int inducedDiseaseGraphCacheSize) {
+        this.inducedDiseaseGraphCacheSize = inducedDiseaseGraphCacheSize;
+    }
+
+    public InducedDiseaseGraphCacheOptions.Eviction getInducedDiseaseGraphCacheEviction() {
+        return inducedDiseaseGraphCacheEviction;
+    }
+
+    public void setInducedDiseaseGraphCacheEviction(InducedDiseaseGraphCacheOptions.Eviction inducedDiseaseGraphCacheEviction) {
+        this.inducedDiseaseGraphCacheEviction = inducedDiseaseGraphCacheEviction;
+    }
+
+    public boolean isInducedDiseaseGraphCacheWarmUp() {
+        return inducedDiseaseGraphCacheWarmUp;
+    }
+
+    public void setInducedDiseaseGraphCacheWarmUp(boolean inducedDiseaseGraphCacheWarmUp) {
+        this.inducedDiseaseGraphCacheWarmUp = inducedDiseaseGraphCacheWarmUp;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         LiricalProperties that = (LiricalProperties) o;
-        return Float.compare(pathogenicityThreshold, that.pathogenicityThreshold) == 0 && Double.compare(defaultVariantBackgroundFrequency, that.defaultVariantBackgroundFrequency) == 0 && strict == that.strict && globalMode == that.globalMode && Objects.equals(genomeBuild, that.genomeBuild) && transcriptDatabase == that.transcriptDatabase && Objects.equals(exomiserHg19Path, that.exomiserHg19Path) && Objects.equals(exomiserHg38Path, that.exomiserHg38Path);
+        return Float.compare(pathogenicityThreshold, that.pathogenicityThreshold) == 0 && Double.compare(defaultVariantBackgroundFrequency, that.defaultVariantBackgroundFrequency) == 0 && strict == that.strict && globalMode == that.globalMode && parallelism == that.parallelism && inducedDiseaseGraphCacheSize == that.inducedDiseaseGraphCacheSize && inducedDiseaseGraphCacheWarmUp == that.inducedDiseaseGraphCacheWarmUp && inducedDiseaseGraphCacheEviction == that.inducedDiseaseGraphCacheEviction && Objects.equals(genomeBuild, that.genomeBuild) && transcriptDatabase == that.transcriptDatabase && Objects.equals(exomiserHg19Path, that.exomiserHg19Path) && Objects.equals(exomiserHg38Path, that.exomiserHg38Path);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(genomeBuild, transcriptDatabase, pathogenicityThreshold, defaultVariantBackgroundFrequency, strict, globalMode, exomiserHg19Path, exomiserHg38Path);
+        return Objects.hash(genomeBuild, transcriptDatabase, pathogenicityThreshold, defaultVariantBackgroundFrequency, strict, globalMode, exomiserHg19Path, exomiserHg38Path, parallelism, inducedDiseaseGraphCacheSize, inducedDiseaseGraphCacheEviction, inducedDiseaseGraphCacheWarmUp);
     }
 
     @Override
@@ -106,6 +143,10 @@ public class LiricalProperties {
                 ", globalMode=" + globalMode +
                 ", exomiserHg19Path='" + exomiserHg19Path + '\'' +
                 ", exomiserHg38Path='" + exomiserHg38Path + '\'' +
+                ", parallelism=" + parallelism +
+                ", inducedDiseaseGraphCacheSize=" + inducedDiseaseGraphCacheSize +
+                ", inducedDiseaseGraphCacheEviction=" + inducedDiseaseGraphCacheEviction +
+                ", inducedDiseaseGraphCacheWarmUp=" + inducedDiseaseGraphCacheWarmUp +
                 '}';
     }
 }
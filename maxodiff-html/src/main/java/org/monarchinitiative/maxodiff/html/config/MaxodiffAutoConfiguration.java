@@ -1,25 +1,29 @@
 package org.monarchinitiative.maxodiff.html.config;
 
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisCache;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
-import org.monarchinitiative.maxodiff.core.io.MaxoDxAnnots;
 import org.monarchinitiative.maxodiff.config.MaxodiffDataException;
+import org.monarchinitiative.maxodiff.config.MaxodiffResources;
 import org.monarchinitiative.maxodiff.core.SimpleTerm;
+import org.monarchinitiative.maxodiff.core.analysis.MaxoTermExecutor;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.DiffDiagRefiner;
 import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxoDiffRefiner;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResultsCache;
 import org.monarchinitiative.maxodiff.config.MaxodiffDataResolver;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
 import org.monarchinitiative.maxodiff.core.service.BiometadataServiceImpl;
+import org.monarchinitiative.maxodiff.core.term.TermDictionaries;
 import org.monarchinitiative.maxodiff.html.service.DifferentialDiagnosisEngineService;
 import org.monarchinitiative.maxodiff.html.service.DifferentialDiagnosisEngineServiceImpl;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobService;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictLoader;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaDictMetadata;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaLookup;
+import org.monarchinitiative.maxodiff.phenomizer.MappedIcMicaDictLoader;
+import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoader;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
-import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
-import org.monarchinitiative.phenol.io.MinimalOntologyLoader;
-import org.monarchinitiative.phenol.io.OntologyLoader;
 import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
@@ -31,7 +35,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -62,47 +65,59 @@ public class MaxodiffAutoConfiguration {
         return MaxodiffDataResolver.of(maxodiffDataDirectory);
     }
 
+    /**
+     * The resources of the data directory, loaded from the up-to-date resource snapshot, if present.
+     */
     @Bean
-    public MinimalOntology minHpo(MaxodiffDataResolver maxodiffDataResolver) {
-        LOGGER.debug("Loading HPO JSON from {}", maxodiffDataResolver.hpoJson().toAbsolutePath());
-        return MinimalOntologyLoader.loadOntology(maxodiffDataResolver.hpoJson().toFile());
+    public MaxodiffResources maxodiffResources(MaxodiffDataResolver maxodiffDataResolver) throws IOException {
+        return MaxodiffResources.load(maxodiffDataResolver);
     }
 
+    /**
+     * The minimal view of the {@link #hpo(MaxodiffResources)} bean, the HPO is loaded only once.
+     */
     @Bean
-    public Ontology hpo(MaxodiffDataResolver maxodiffDataResolver) {
-        LOGGER.debug("Loading HPO JSON from {}", maxodiffDataResolver.hpoJson().toAbsolutePath());
-        return OntologyLoader.loadOntology(maxodiffDataResolver.hpoJson().toFile());
+    public MinimalOntology minHpo(Ontology hpo) {
+        return hpo;
     }
 
     @Bean
-    public HpoDiseases hpoDiseases(MinimalOntology minHpo, MaxodiffDataResolver maxodiffDataResolver) throws IOException {
-        LOGGER.debug("Loading HPO annotations from {}", maxodiffDataResolver.phenotypeAnnotations().toAbsolutePath());
-        HpoDiseaseLoader loader = HpoDiseaseLoaders.defaultLoader(minHpo, HpoDiseaseLoaderOptions.defaultOptions());
-        return loader.load(maxodiffDataResolver.phenotypeAnnotations());
+    public Ontology hpo(MaxodiffResources maxodiffResources) {
+        return maxodiffResources.hpo();
     }
 
     @Bean
-    public Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap(MaxodiffDataResolver maxodiffDataResolver) throws IOException {
-        LOGGER.debug("Loading MAxO annotations from {}", maxodiffDataResolver.maxoDxAnnots().toAbsolutePath());
-        try (BufferedReader reader = Files.newBufferedReader(maxodiffDataResolver.maxoDxAnnots())) {
-            return MaxoDxAnnots.parseHpoToMaxo(reader);
-        }
+    public HpoDiseases hpoDiseases(MaxodiffResources maxodiffResources) {
+        return maxodiffResources.hpoDiseases();
+    }
+
+    @Bean
+    public Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap(MaxodiffResources maxodiffResources) {
+        return maxodiffResources.maxoAnnotsMap();
     }
 
     @Bean
-    public IcMicaData icMicaData(MaxodiffDataResolver maxodiffDataResolver) throws IOException {
+    public IcMicaData icMicaData(MaxodiffDataResolver maxodiffDataResolver, MinimalOntology minHpo) throws IOException {
+        Path icMicaDataBinaryPath = maxodiffDataResolver.icMicaDictBinary().toAbsolutePath();
         Path icMicaDataPath = maxodiffDataResolver.icMicaDict().toAbsolutePath();
-        if (Files.exists(icMicaDataPath)) {
+        if (Files.isRegularFile(icMicaDataBinaryPath)) {
+            LOGGER.debug("Mapping IcMicaData from {}", icMicaDataBinaryPath);
+            return MappedIcMicaDictLoader.loadIcMicaDict(icMicaDataBinaryPath);
+        } else if (Files.exists(icMicaDataPath)) {
             LOGGER.debug("Loading IcMicaData from {}", icMicaDataPath);
             return IcMicaDictLoader.loadIcMicaDict(maxodiffDataResolver.icMicaDict());
         } else {
-            MinimalOntology hpo = minHpo(maxodiffDataResolver);
-            IcMicaDictMetadata testMetadata = new IcMicaDictMetadata(hpo.version().get(), hpo.version().get(), LocalDate.now());
+            IcMicaDictMetadata testMetadata = new IcMicaDictMetadata(minHpo.version().get(), minHpo.version().get(), LocalDate.now());
             Map<TermPair, Double> testIcMicaDict = new HashMap<>();
             return new IcMicaData(testIcMicaDict, testMetadata);
         }
     }
 
+    @Bean
+    public IcMicaLookup icMicaLookup(IcMicaData icMicaData) {
+        return IcMicaLookup.of(icMicaData.icMicaDict());
+    }
+
     @Bean
     public Map<TermId, Set<TermId>> hpoToMaxoIdMap(Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap) {
         Map<TermId, Set<TermId>> hpoToMaxoIdMap = new HashMap<>();
@@ -123,21 +138,82 @@ public class MaxodiffAutoConfiguration {
         return BiometadataServiceImpl.of(minHpo, hpoDiseases, maxoAnnotsMap);
     }
 
+    @Bean(destroyMethod = "close")
+    public MaxoTermExecutor maxoTermExecutor(MaxodiffProperties maxodiffProperties) {
+        LOGGER.debug("Using {} threads for MAxO term evaluation", maxodiffProperties.getParallelism());
+        return MaxoTermExecutor.of(maxodiffProperties.getParallelism(), maxodiffProperties.getQueueCapacity());
+    }
+
+    @Bean
+    public TermDictionaries termDictionaries(
+            MinimalOntology minHpo,
+            HpoDiseases hpoDiseases,
+            Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap) {
+        return TermDictionaries.of(minHpo, hpoDiseases, maxoAnnotsMap);
+    }
+
     @Bean
     public DiffDiagRefiner diffDiagRefiner(
             MinimalOntology minHpo,
             Ontology hpo,
             HpoDiseases hpoDiseases,
             Map<TermId, Set<TermId>> hpoToMaxoIdMap,
-            Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap) {
+            Map<SimpleTerm, Set<SimpleTerm>> maxoAnnotsMap,
+            MaxoTermExecutor maxoTermExecutor,
+            TermDictionaries termDictionaries) {
+
+        return new MaxoDiffRefiner(hpoDiseases, hpoToMaxoIdMap, maxoAnnotsMap, minHpo, hpo, maxoTermExecutor,
+                termDictionaries);
+    }
+
+    /**
+     * The initial differential diagnoses over all diseases, shared by the engines of all sessions.
+     */
+    @Bean
+    public DifferentialDiagnosisCache differentialDiagnosisCache(MaxodiffProperties maxodiffProperties) {
+        return DifferentialDiagnosisCache.of(maxodiffProperties.getDiagnosisCacheSize());
+    }
+
+    /**
+     * The refinement results, kept in memory and, if the result cache directory is set, on the disk.
+     */
+    @Bean
+    public RefinementResultsCache refinementResultsCache(MaxodiffProperties maxodiffProperties) {
+        if (maxodiffProperties.getResultCacheDirectory() == null)
+            return RefinementResultsCache.of(maxodiffProperties.getResultCacheSize(), maxodiffProperties.getResultCacheTtl());
+        Path directory = Path.of(maxodiffProperties.getResultCacheDirectory());
+        LOGGER.info("Storing refinement results in {}", directory.toAbsolutePath());
+        return RefinementResultsCache.of(maxodiffProperties.getResultCacheSize(), maxodiffProperties.getResultCacheTtl(), directory);
+    }
 
-        return new MaxoDiffRefiner(hpoDiseases, hpoToMaxoIdMap, maxoAnnotsMap, minHpo, hpo);
+    @Bean(destroyMethod = "close")
+    public RefinementJobService refinementJobService(DiffDiagRefiner diffDiagRefiner,
+                                                     MaxodiffProperties maxodiffProperties,
+                                                     RefinementResultsCache refinementResultsCache,
+                                                     MaxodiffResources maxodiffResources) {
+        if (!(diffDiagRefiner instanceof MaxoDiffRefiner maxoDiffRefiner))
+            throw new IllegalStateException("Refinement jobs require MaxoDiffRefiner but got " + diffDiagRefiner.getClass().getName());
+        LOGGER.debug("Running {} refinement jobs with {} queued jobs",
+                maxodiffProperties.getJobParallelism(), maxodiffProperties.getJobQueueCapacity());
+        return RefinementJobService.of(maxoDiffRefiner, maxodiffProperties.getJobParallelism(),
+                maxodiffProperties.getJobQueueCapacity(), maxodiffProperties.getJobRetention(),
+                maxodiffProperties.getJobTimeout(), refinementResultsCache, maxodiffResources.version());
     }
 
+    /**
+     * The engines shared by all sessions. There is one Phenomizer engine per scoring mode,
+     * hence the best match table of the engine is bounded once per JVM.
+     */
     @Bean
-    public DifferentialDiagnosisEngineService differentialDiagnosisEngineService() {
+    public DifferentialDiagnosisEngineService differentialDiagnosisEngineService(HpoDiseases hpoDiseases,
+                                                                                 IcMicaLookup icMicaLookup,
+                                                                                 DifferentialDiagnosisCache differentialDiagnosisCache) {
         // TODO: make LIRICAL and Exomiser differential diagnosis engine
-        Map<String, DifferentialDiagnosisEngine> engines = Map.of();
-        return DifferentialDiagnosisEngineServiceImpl.of(engines);
+        Map<String, DifferentialDiagnosisEngine> engines = new HashMap<>();
+        for (ScoringMode scoringMode : ScoringMode.values()) {
+            engines.put(DifferentialDiagnosisEngineService.phenomizerEngineName(scoringMode),
+                    differentialDiagnosisCache.memoize(new PhenomizerDifferentialDiagnosisEngine(hpoDiseases, icMicaLookup, scoringMode)));
+        }
+        return DifferentialDiagnosisEngineServiceImpl.of(Map.copyOf(engines));
     }
 }
@@ -1,7 +1,9 @@
 package org.monarchinitiative.maxodiff.html.config;
 
+import org.monarchinitiative.maxodiff.core.analysis.MaxoTermExecutor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.Objects;
 
 @ConfigurationProperties(prefix = "maxodiff")
@@ -12,6 +14,24 @@ public class MaxodiffProperties {
     private int nDiseases = 20;
     private double weight = 0.5;
     private int nMaxoResults = 10;
+    // Number of threads and queue capacity of the executor shared by all MAxO term rankings.
+    private int parallelism = MaxoTermExecutor.defaultParallelism();
+    private int queueCapacity = MaxoTermExecutor.DEFAULT_QUEUE_CAPACITY;
+    // Number of refinement jobs running at the same time, the number of jobs waiting for a worker,
+    // and how long the finished jobs are kept.
+    private int jobParallelism = 2;
+    private int jobQueueCapacity = 16;
+    private Duration jobRetention = Duration.ofHours(1);
+    // Deadline of a running refinement job, the job returns the MAxO terms scored so far when it expires.
+    // A zero timeout disables the deadline.
+    private Duration jobTimeout = Duration.ofMinutes(5);
+    // Number of refinement results kept in memory and how long they are reused.
+    // The results are also stored in the result cache directory, if set.
+    private int resultCacheSize = 256;
+    private Duration resultCacheTtl = Duration.ofHours(1);
+    private String resultCacheDirectory;
+    // Number of the initial differential diagnoses over all diseases kept for re-analyzing the same samples.
+    private int diagnosisCacheSize = 32;
 
     public String getDataDirectory() {
         return dataDirectory;
@@ -45,17 +65,97 @@ public class MaxodiffProperties {
         this.nMaxoResults = nMaxoResults;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getJobParallelism() {
+        return jobParallelism;
+    }
+
+    public void setJobParallelism(int jobParallelism) {
+        this.jobParallelism = jobParallelism;
+    }
+
+    public int getJobQueueCapacity() {
+        return jobQueueCapacity;
+    }
+
+    public void setJobQueueCapacity(int jobQueueCapacity) {
+        this.jobQueueCapacity = jobQueueCapacity;
+    }
+
+    public Duration getJobRetention() {
+        return jobRetention;
+    }
+
+    public void setJobRetention(Duration jobRetention) {
+        this.jobRetention = jobRetention;
+    }
+
+    public Duration getJobTimeout() {
+        return jobTimeout;
+    }
+
+    public void setJobTimeout(Duration jobTimeout) {
+        this.jobTimeout = jobTimeout;
+    }
+
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(int resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    public Duration getResultCacheTtl() {
+        return resultCacheTtl;
+    }
+
+    public void setResultCacheTtl(Duration resultCacheTtl) {
+        this.resultCacheTtl = resultCacheTtl;
+    }
+
+    public String getResultCacheDirectory() {
+        return resultCacheDirectory;
+    }
+
+    public void setResultCacheDirectory(String resultCacheDirectory) {
+        this.resultCacheDirectory = resultCacheDirectory;
+    }
+
+    public int getDiagnosisCacheSize() {
+        return diagnosisCacheSize;
+    }
+
+    public void setDiagnosisCacheSize(int diagnosisCacheSize) {
+        this.diagnosisCacheSize = diagnosisCacheSize;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MaxodiffProperties that = (MaxodiffProperties) o;
-        return nDiseases == that.nDiseases && Double.compare(weight, that.weight) == 0 && nMaxoResults == that.nMaxoResults && Objects.equals(dataDirectory, that.dataDirectory);
+        return nDiseases == that.nDiseases && Double.compare(weight, that.weight) == 0 && nMaxoResults == that.nMaxoResults && parallelism == that.parallelism && queueCapacity == that.queueCapacity && jobParallelism == that.jobParallelism && jobQueueCapacity == that.jobQueueCapacity && Objects.equals(jobRetention, that.jobRetention) && Objects.equals(jobTimeout, that.jobTimeout) && resultCacheSize == that.resultCacheSize && Objects.equals(resultCacheTtl, that.resultCacheTtl) && Objects.equals(resultCacheDirectory, that.resultCacheDirectory) && diagnosisCacheSize == that.diagnosisCacheSize && Objects.equals(dataDirectory, that.dataDirectory);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dataDirectory, nDiseases, weight, nMaxoResults);
+        return Objects.hash(dataDirectory, nDiseases, weight, nMaxoResults, parallelism, queueCapacity, jobParallelism, jobQueueCapacity, jobRetention, jobTimeout, resultCacheSize, resultCacheTtl, resultCacheDirectory, diagnosisCacheSize);
     }
 
     @Override
@@ -65,6 +165,16 @@ public class MaxodiffProperties {
                 ", nDiseases=" + nDiseases +
                 ", weight=" + weight +
                 ", nMaxoResults=" + nMaxoResults +
+                ", parallelism=" + parallelism +
+                ", queueCapacity=" + queueCapacity +
+                ", jobParallelism=" + jobParallelism +
+                ", jobQueueCapacity=" + jobQueueCapacity +
+                ", jobRetention=" + jobRetention +
+                ", jobTimeout=" + jobTimeout +
+                ", resultCacheSize=" + resultCacheSize +
+                ", resultCacheTtl=" + resultCacheTtl +
+                ", resultCacheDirectory='" + resultCacheDirectory + '\'' +
+                ", diagnosisCacheSize=" + diagnosisCacheSize +
                 '}';
     }
 }
@@ -1,10 +1,11 @@
 package org.monarchinitiative.maxodiff.html.controller;
 
 import org.monarchinitiative.lirical.core.analysis.AnalysisOptions;
-import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
 import org.monarchinitiative.lirical.core.model.GenomeBuild;
 import org.monarchinitiative.lirical.core.model.TranscriptDatabase;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisCache;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngineConfigurer;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.springframework.stereotype.Controller;
@@ -18,11 +19,14 @@ public class LiricalInputController {
 
     private final LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer;
     private final HpoDiseases hpoDiseases;
+    private final DifferentialDiagnosisCache differentialDiagnosisCache;
 
     public LiricalInputController(LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer,
-                                  HpoDiseases hpoDiseases) {
+                                  HpoDiseases hpoDiseases,
+                                  DifferentialDiagnosisCache differentialDiagnosisCache) {
         this.liricalDifferentialDiagnosisEngineConfigurer = liricalDifferentialDiagnosisEngineConfigurer;
         this.hpoDiseases = hpoDiseases;
+        this.differentialDiagnosisCache = differentialDiagnosisCache;
     }
 
 
@@ -35,15 +39,13 @@ public class LiricalInputController {
         model.addAttribute("strict", strict);
         model.addAttribute("globalAnalysisMode", globalAnalysisMode);
 
-            AnalysisOptions options = AnalysisOptions.builder()
-                    .useStrictPenalties(strict)
-                    .useGlobal(globalAnalysisMode)
-                    .pretestProbability(PretestDiseaseProbabilities.uniform(hpoDiseases.diseaseIds()))
-                    .build();
+            LiricalDifferentialDiagnosisEngine liricalEngine = liricalDifferentialDiagnosisEngineConfigurer.configureUniform(
+                    hpoDiseases.diseaseIds(), strict, globalAnalysisMode);
+            AnalysisOptions options = liricalEngine.getAnalysisOptions();
 
             System.out.println(options);
 
-            DifferentialDiagnosisEngine engine = liricalDifferentialDiagnosisEngineConfigurer.configure(options);
+            DifferentialDiagnosisEngine engine = differentialDiagnosisCache.memoize(liricalEngine);
             model.addAttribute("engine", engine);
             model.addAttribute("options", options);
             model.addAttribute("liricalEngineConfigurer", liricalDifferentialDiagnosisEngineConfigurer);
@@ -1,25 +1,22 @@
 package org.monarchinitiative.maxodiff.html.controller;
 
 import org.monarchinitiative.lirical.io.analysis.PhenopacketData;
-import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.HTMLFrequencyMap;
 import org.monarchinitiative.maxodiff.core.analysis.HpoFrequency;
 import org.monarchinitiative.maxodiff.core.analysis.RankMaxoScore;
-import org.monarchinitiative.maxodiff.core.analysis.refinement.*;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxodiffResult;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
-import org.monarchinitiative.maxodiff.core.model.RankMaxo;
 import org.monarchinitiative.maxodiff.core.model.Sample;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
 import org.monarchinitiative.maxodiff.html.results.HtmlResults;
+import org.monarchinitiative.maxodiff.html.service.DifferentialDiagnosisEngineService;
+import org.monarchinitiative.maxodiff.html.service.RefinementJob;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobResult;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobService;
 import org.monarchinitiative.maxodiff.lirical.PhenopacketFileParser;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
-import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
-import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 import org.monarchinitiative.phenol.ontology.similarity.TermPair;
 import org.springframework.http.ResponseEntity;
@@ -35,7 +32,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Controller("/maxodiff")
 public class MaxodiffController {
@@ -44,40 +40,22 @@ public class MaxodiffController {
 
     private final BiometadataService biometadataService;
 
-    private DiffDiagRefiner diffDiagRefiner;
+    private final RefinementJobService refinementJobService;
 
-    private final MinimalOntology minHpo;
-
-    private final Ontology hpo;
-
-    private final HpoDiseases hpoDiseases;
-
-    private final Map<TermId, Set<TermId>> hpoToMaxoIdMap;
-
-    private final Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap;
-
-    private RankMaxo rankMaxo;
+    private final DifferentialDiagnosisEngineService differentialDiagnosisEngineService;
 
     private static final Path UPLOAD_DIR = Paths.get(System.getProperty("user.home"), "maxodiff", "uploads");
 
     public MaxodiffController(
             IcMicaData icMicaData,
             BiometadataService biometadataService,
-            DiffDiagRefiner diffDiagRefiner,
-            MinimalOntology minHpo,
-            Ontology hpo,
-            HpoDiseases hpoDiseases,
-            Map<TermId, Set<TermId>> hpoToMaxoIdMap,
-            Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap
+            RefinementJobService refinementJobService,
+            DifferentialDiagnosisEngineService differentialDiagnosisEngineService
     ) {
         this.icMicaData = icMicaData;
         this.biometadataService = biometadataService;
-        this.diffDiagRefiner = diffDiagRefiner;
-        this.minHpo = minHpo;
-        this.hpo = hpo;
-        this.hpoDiseases = hpoDiseases;
-        this.hpoToMaxoIdMap = hpoToMaxoIdMap;
-        this.hpoToMaxoTermMap = hpoToMaxoTermMap;
+        this.refinementJobService = refinementJobService;
+        this.differentialDiagnosisEngineService = differentialDiagnosisEngineService;
     }
 
     @RequestMapping("/maxodiff")
@@ -88,6 +66,7 @@ public class MaxodiffController {
                               @RequestParam(value = "nDiseases", required = false) Integer nDiseases,
                               @RequestParam(value = "nRepetitions", required = false) Integer nRepetitions,
                               @RequestParam(value = "view", required = false) String view,
+                              @RequestParam(value = "jobId", required = false) String jobId,
                               Model model) throws Exception {
 
         String engineName = "phenomizer";
@@ -97,22 +76,13 @@ public class MaxodiffController {
         model.addAttribute("excludedHpoTermIds", excludedHpoTermIds);
         model.addAttribute("view", view);
 
-        //TODO: add other possible separators to regex
-        //TODO: only add valid termIDs to list
-        List<TermId> presentHpoTermIdsList = (presentHpoTermIds == null | (presentHpoTermIds != null && presentHpoTermIds.isEmpty())) ?
-                List.of() : Arrays.stream(presentHpoTermIds.split("[\\s,;]+"))
-                .map(String::strip)
-                .map(TermId::of)
-                .toList();
-        List<TermId> excludedHpoTermIdsList = (excludedHpoTermIds == null | (excludedHpoTermIds != null && excludedHpoTermIds.isEmpty())) ?
-                List.of() : Arrays.stream(excludedHpoTermIds.split("[\\s,;]+"))
-                .map(String::strip)
-                .map(TermId::of)
-                .toList();
+        // The refinement is computed by a job submitted to the RefinementJobController.
+        RefinementJob job = jobId == null ? null : RefinementJobController.completedJob(refinementJobService, jobId);
+        RefinementJobResult jobResult = job == null ? null : job.result().orElseThrow();
 
-        Sample sample = Sample.of(sampleId,
-                presentHpoTermIdsList,
-                excludedHpoTermIdsList);
+        Sample sample = job == null
+                ? Sample.of(sampleId, parseTermIds(presentHpoTermIds), parseTermIds(excludedHpoTermIds))
+                : job.request().sample();
         model.addAttribute("sample", sample);
 
         DifferentialDiagnosisEngine engine = null;
@@ -127,11 +97,13 @@ public class MaxodiffController {
         if (icMicaDict.isEmpty()) {
             throw new Exception("Phenomizer necessary MICA information content is empty. Run Download command to download the necessary term-pair-similarity file.");
         }
-        engine = new PhenomizerDifferentialDiagnosisEngine(hpoDiseases, icMicaDict, scoringMode);
+        engine = differentialDiagnosisEngineService.getPhenomizerEngine(scoringMode).orElseThrow();
 
         model.addAttribute("icMicaDict", icMicaDict);
 
-        if (sample != null && sample.id() != null) {
+        if (jobResult != null) {
+            differentialDiagnoses = jobResult.differentialDiagnoses();
+        } else if (sample.id() != null) {
             // Get initial differential diagnoses from running Phenomizer
             differentialDiagnoses = engine.run(sample);
         }
@@ -147,13 +119,15 @@ public class MaxodiffController {
         }
 
         if (refiner.equals("score")) {
-            diffDiagRefiner = new MaxoDiffRefiner(hpoDiseases, hpoToMaxoIdMap, hpoToMaxoTermMap, minHpo, hpo);
             algorithm = "Score";
         }
 
+        if (job != null) {
+            nDiseases = job.request().options().nDiseases();
+            nRepetitions = job.request().options().nRepetitions();
+        }
         model.addAttribute("refiner", refiner);
         model.addAttribute("algorithm", algorithm);
-        Integer prevNDiseases = (Integer) model.getAttribute("nDiseases");
         model.addAttribute("nDiseases", nDiseases);
         model.addAttribute("nRepetitions", nRepetitions);
 
@@ -163,60 +137,17 @@ public class MaxodiffController {
             model.addAttribute("totalNDiseases", differentialDiagnoses.size());
         }
 
-        if (sample != null && differentialDiagnoses != null && nDiseases != null && nRepetitions != null) {
-            RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions);
-
-            if (model.getAttribute("orderedDiagnoses") == null || !nDiseases.equals(prevNDiseases)) {
-                List<DifferentialDiagnosis> orderedDiagnoses = diffDiagRefiner.getOrderedDiagnoses(differentialDiagnoses, options);
-                model.addAttribute("orderedDiagnoses", orderedDiagnoses);
-            }
-            List<DifferentialDiagnosis> orderedDiagnoses = (List<DifferentialDiagnosis>) model.getAttribute("orderedDiagnoses");
-
-            if (model.getAttribute("hpoTermCounts") == null || !nDiseases.equals(prevNDiseases)) {
-                List<HpoDisease> diseases = diffDiagRefiner.getDiseases(orderedDiagnoses);
-                Map<TermId, List<HpoFrequency>> hpoTermCounts = diffDiagRefiner.getHpoTermCounts(diseases);
-                model.addAttribute("hpoTermCounts", hpoTermCounts);
-            }
-            Map<TermId, List<HpoFrequency>> hpoTermCounts = (Map<TermId, List<HpoFrequency>>) model.getAttribute("hpoTermCounts");
-
-            if (model.getAttribute("maxoToHpoTermIdMap") == null || !nDiseases.equals(prevNDiseases)) {
-                List<TermId> termIdsToRemove = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
-                        .flatMap(Collection::stream).toList();
-                Map<TermId, Set<TermId>> maxoToHpoTermIdMap = diffDiagRefiner.getMaxoToHpoTermIdMap(termIdsToRemove, hpoTermCounts);
-                model.addAttribute("maxoToHpoTermIdMap", maxoToHpoTermIdMap);
-            }
-            Map<TermId, Set<TermId>> maxoToHpoTermIdMap = (Map<TermId, Set<TermId>>) model.getAttribute("maxoToHpoTermIdMap");
-
-            RefinementResults refinementResults = null;
-            DifferentialDiagnosisEngine diseaseSubsetEngine = null;
-            if (diffDiagRefiner instanceof MaxoDiffRefiner) {
-                assert orderedDiagnoses != null;
-                List<DifferentialDiagnosis> initialDiagnoses = orderedDiagnoses.stream().toList()
-                        .subList(0, options.nDiseases());
-
-                diseaseSubsetEngine = engine;
-
-                assert maxoToHpoTermIdMap != null;
-                String diseaseProbModel = "ranked";
-                rankMaxo = ((MaxoDiffRefiner) diffDiagRefiner).getRankMaxo(initialDiagnoses,
-                        diseaseSubsetEngine,
-                        maxoToHpoTermIdMap,
-                        diseaseProbModel);
-                refinementResults = diffDiagRefiner.run(sample,
-                        orderedDiagnoses,
-                        options,
-                        rankMaxo,
-                        hpoTermCounts,
-                        maxoToHpoTermIdMap);
-            }
-
+        if (jobResult != null) {
+            List<DifferentialDiagnosis> orderedDiagnoses = jobResult.orderedDiagnoses();
+            model.addAttribute("orderedDiagnoses", orderedDiagnoses);
+            Map<TermId, List<HpoFrequency>> hpoTermCounts = jobResult.hpoTermCounts();
+            model.addAttribute("hpoTermCounts", hpoTermCounts);
+            model.addAttribute("maxoToHpoTermIdMap", jobResult.maxoToHpoTermIdMap());
 
-            List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults());
-            if (diffDiagRefiner instanceof MaxoDiffRefiner) {
-                resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
-            }
+            List<MaxodiffResult> resultsList = jobResult.maxodiffResults();
 
             model.addAttribute("maxodiffResults", resultsList);
+            model.addAttribute("partialResults", jobResult.partial());
 
             int zeroIdx = resultsList.stream()
                     .filter(result -> result.rankMaxoScore().maxoScore().equals(0.))
@@ -249,42 +180,39 @@ public class MaxodiffController {
             Map<TermId, Map<TermId, Double>> diseaseMaxoScoresMap = new HashMap<>();
 
             for (MaxodiffResult maxodiffResult : resultsList.subList(0, nDisplayed)) {
-                if (diffDiagRefiner instanceof MaxoDiffRefiner) {
-                    RankMaxoScore rankMaxoScore = maxodiffResult.rankMaxoScore();
-                    maxoTermsMap.put(rankMaxoScore.maxoId(), biometadataService.maxoLabel(rankMaxoScore.maxoId().toString()).orElse("unknown"));
-                    rankMaxoScore.discoverableObservedHpoTermIds().forEach(id -> hpoTermsMap.put(id, biometadataService.hpoLabel(id).orElse("unknown")));
-                    rankMaxoScore.initialOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
-                    rankMaxoScore.maxoOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
-                    var hpoTermIdRepCtsMap = rankMaxoScore.hpoTermIdRepCtsMap();
-                    for (Map.Entry<TermId, Map<TermId, Integer>> diseaseHpoRepCtEntry : hpoTermIdRepCtsMap.entrySet()) {
-                        Map<TermId, Integer> hpoRetCtMap = diseaseHpoRepCtEntry.getValue();
-                        for (Map.Entry<TermId, Integer> hpoRepCtMapEntry : hpoRetCtMap.entrySet()) {
-                            TermId hpoId = hpoRepCtMapEntry.getKey();
-                            Integer repCt = hpoRepCtMapEntry.getValue();
-                            if (repCt != null && !nRepetitionsMap.containsKey(hpoId)) {
-                                nRepetitionsMap.put(hpoId, repCt);
-                                break;
-                            }
+                RankMaxoScore rankMaxoScore = maxodiffResult.rankMaxoScore();
+                maxoTermsMap.put(rankMaxoScore.maxoId(), biometadataService.maxoLabel(rankMaxoScore.maxoId().toString()).orElse("unknown"));
+                rankMaxoScore.discoverableObservedHpoTermIds().forEach(id -> hpoTermsMap.put(id, biometadataService.hpoLabel(id).orElse("unknown")));
+                rankMaxoScore.initialOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
+                rankMaxoScore.maxoOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
+                var hpoTermIdRepCtsMap = rankMaxoScore.hpoTermIdRepCtsMap();
+                for (Map.Entry<TermId, Map<TermId, Integer>> diseaseHpoRepCtEntry : hpoTermIdRepCtsMap.entrySet()) {
+                    Map<TermId, Integer> hpoRetCtMap = diseaseHpoRepCtEntry.getValue();
+                    for (Map.Entry<TermId, Integer> hpoRepCtMapEntry : hpoRetCtMap.entrySet()) {
+                        TermId hpoId = hpoRepCtMapEntry.getKey();
+                        Integer repCt = hpoRepCtMapEntry.getValue();
+                        if (repCt != null && !nRepetitionsMap.containsKey(hpoId)) {
+                            nRepetitionsMap.put(hpoId, repCt);
+                            break;
                         }
                     }
-                    Map<String, Map<Float, List<String>>> resultFrequencyMap = HTMLFrequencyMap.makeFrequencyDiseaseMap(hpoTermsMap, diseaseTermsMap, hpoTermIdRepCtsMap, hpoFrequencies);
-                    frequencyMap.putAll(resultFrequencyMap);
-                    assert orderedDiagnoses != null;
-                    Map<TermId, Double> maxoScoreMap = new HashMap<>();
-                    for (DifferentialDiagnosis originalDiagnosis : orderedDiagnoses) {
-                        TermId originalDiseaseId = originalDiagnosis.diseaseId();
-                        TermId maxoId = maxodiffResult.rankMaxoScore().maxoId();
-                        maxoScoreMap.put(originalDiseaseId, 0.);
-                        diseaseMaxoScoresMap.put(maxoId, maxoScoreMap);
-                        Optional<TermId> firstMaxoDiseaseIdOpt = maxodiffResult.rankMaxoScore().maxoDiseaseAvgRankChangeMap().keySet().stream().findFirst();
-                        if (firstMaxoDiseaseIdOpt.isPresent()) {
-                            TermId firstMaxoDiseaseId = firstMaxoDiseaseIdOpt.get();
-                            if (firstMaxoDiseaseId == originalDiseaseId) {
-                                Double score = maxodiffResult.rankMaxoScore().maxoScore();
-                                maxoScoreMap = diseaseMaxoScoresMap.get(maxoId);
-                                maxoScoreMap.replace(originalDiseaseId, score);
-                                diseaseMaxoScoresMap.replace(maxoId, maxoScoreMap);
-                            }
+                }
+                Map<String, Map<Float, List<String>>> resultFrequencyMap = HTMLFrequencyMap.makeFrequencyDiseaseMap(hpoTermsMap, diseaseTermsMap, hpoTermIdRepCtsMap, hpoFrequencies);
+                frequencyMap.putAll(resultFrequencyMap);
+                Map<TermId, Double> maxoScoreMap = new HashMap<>();
+                for (DifferentialDiagnosis originalDiagnosis : orderedDiagnoses) {
+                    TermId originalDiseaseId = originalDiagnosis.diseaseId();
+                    TermId maxoId = maxodiffResult.rankMaxoScore().maxoId();
+                    maxoScoreMap.put(originalDiseaseId, 0.);
+                    diseaseMaxoScoresMap.put(maxoId, maxoScoreMap);
+                    Optional<TermId> firstMaxoDiseaseIdOpt = maxodiffResult.rankMaxoScore().maxoDiseaseAvgRankChangeMap().keySet().stream().findFirst();
+                    if (firstMaxoDiseaseIdOpt.isPresent()) {
+                        TermId firstMaxoDiseaseId = firstMaxoDiseaseIdOpt.get();
+                        if (firstMaxoDiseaseId == originalDiseaseId) {
+                            Double score = maxodiffResult.rankMaxoScore().maxoScore();
+                            maxoScoreMap = diseaseMaxoScoresMap.get(maxoId);
+                            maxoScoreMap.replace(originalDiseaseId, score);
+                            diseaseMaxoScoresMap.replace(maxoId, maxoScoreMap);
                         }
                     }
                 }
@@ -310,18 +238,20 @@ public class MaxodiffController {
         return "maxodiff";
     }
 
-    @GetMapping("progress1")
-    @ResponseBody
-    public double getProgress() {
-        return rankMaxo == null ? 0.01 : rankMaxo.getRankMaxoProgress().getTotalProgress();
-    }
-
-    @GetMapping("progress-bar1")
-    public String showProgressPage() {
-        return "progress1";
+    /**
+     * Parse the HPO term ids separated by whitespace, comma, or semicolon.
+     */
+    static List<TermId> parseTermIds(String termIds) {
+        //TODO: add other possible separators to regex
+        //TODO: only add valid termIDs to list
+        return termIds == null || termIds.isEmpty()
+                ? List.of()
+                : Arrays.stream(termIds.split("[\\s,;]+"))
+                .map(String::strip)
+                .map(TermId::of)
+                .toList();
     }
 
-
 //    @GetMapping("/updateSample")
     public Sample updateSample(@RequestParam(value = "id", required = false) String sampleId,
                              @RequestParam(value = "presentHpoTermIds", required = false) String presentHpoTermIds,
@@ -3,6 +3,8 @@ package org.monarchinitiative.maxodiff.html.controller;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
 import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.maxodiff.html.service.DifferentialDiagnosisEngineService;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,9 +19,15 @@ import java.util.List;
 @SessionAttributes({"scoringMode", "sample", "differentialDiagnoses"})
 public class PhenomizerAnalysisController {
 
+    private final DifferentialDiagnosisEngineService differentialDiagnosisEngineService;
+
+    public PhenomizerAnalysisController(DifferentialDiagnosisEngineService differentialDiagnosisEngineService) {
+        this.differentialDiagnosisEngineService = differentialDiagnosisEngineService;
+    }
+
     @RequestMapping
     public String phenomizerAnalysis(
-            @SessionAttribute(value = "engine", required = false) DifferentialDiagnosisEngine engine,
+            @SessionAttribute(value = "scoringMode", required = false) ScoringMode scoringMode,
             @SessionAttribute(value = "sample", required = false) Sample sample,
             Model model) {
 
@@ -28,6 +36,8 @@ public class PhenomizerAnalysisController {
 
         if (sample != null) {
             // Get initial differential diagnoses from running Phenomizer
+            DifferentialDiagnosisEngine engine = differentialDiagnosisEngineService.getPhenomizerEngine(
+                    scoringMode == null ? ScoringMode.ONE_SIDED : scoringMode).orElseThrow();
             differentialDiagnoses = engine.run(sample);
             System.out.println("Phenomizer analysis complete.");
         }
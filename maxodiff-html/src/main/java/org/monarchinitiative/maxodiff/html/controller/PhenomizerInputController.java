@@ -1,10 +1,7 @@
 package org.monarchinitiative.maxodiff.html.controller;
 
-import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
-import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.ontology.similarity.TermPair;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,16 +13,14 @@ import java.util.Map;
 
 
 @Controller
-@SessionAttributes({"engine", "scoringMode"})
+// The Phenomizer engine is shared by all sessions, the session only keeps its scoring mode.
+@SessionAttributes({"scoringMode"})
 public class PhenomizerInputController {
 
     private final IcMicaData icMicaData;
-    private final HpoDiseases hpoDiseases;
 
-    public PhenomizerInputController(IcMicaData icMicaData,
-                                     HpoDiseases hpoDiseases) {
+    public PhenomizerInputController(IcMicaData icMicaData) {
         this.icMicaData = icMicaData;
-        this.hpoDiseases = hpoDiseases;
     }
 
 
@@ -40,9 +35,7 @@ public class PhenomizerInputController {
             model.addAttribute("scoringMode", scoringMode);
 
             Map<TermPair, Double> icMicaDict = icMicaData.icMicaDict();
-            DifferentialDiagnosisEngine engine = new PhenomizerDifferentialDiagnosisEngine(hpoDiseases, icMicaDict, scoringMode);
 
-            model.addAttribute("engine", engine);
             model.addAttribute("icMicaDict", icMicaDict);
 
         return "phenomizerInput";
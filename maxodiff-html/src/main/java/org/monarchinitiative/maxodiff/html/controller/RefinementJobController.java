@@ -0,0 +1,202 @@
+package org.monarchinitiative.maxodiff.html.controller;
+
+import org.monarchinitiative.maxodiff.core.analysis.AdaptiveRepetitionOptions;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.maxodiff.html.service.DifferentialDiagnosisEngineService;
+import org.monarchinitiative.maxodiff.html.service.RefinementJob;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobRequest;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobService;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobState;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobStatus;
+import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngineConfigurer;
+import org.monarchinitiative.maxodiff.phenomizer.IcMicaData;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Submit the refinements of the differential diagnoses as background jobs, follow their progress,
+ * and cancel them. The results of a completed job are rendered by {@link SessionResultsController}
+ * and {@link MaxodiffController} using the job id.
+ */
+@RestController
+@RequestMapping("/jobs")
+public class RefinementJobController implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefinementJobController.class);
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final long EVENTS_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final RefinementJobService refinementJobService;
+
+    private final IcMicaData icMicaData;
+
+    private final DifferentialDiagnosisEngineService differentialDiagnosisEngineService;
+
+    // A single thread pushes the progress of all followed jobs to their event streams.
+    private final ScheduledExecutorService progressPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "maxodiff-job-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RefinementJobController(RefinementJobService refinementJobService,
+                                   IcMicaData icMicaData,
+                                   DifferentialDiagnosisEngineService differentialDiagnosisEngineService) {
+        this.refinementJobService = refinementJobService;
+        this.icMicaData = icMicaData;
+        this.differentialDiagnosisEngineService = differentialDiagnosisEngineService;
+    }
+
+    /**
+     * Submit a refinement of the sample given by the {@code id}, {@code presentHpoTermIds} and {@code excludedHpoTermIds}
+     * parameters, which is diagnosed with Phenomizer, or of the sample diagnosed in the current session.
+     *
+     * @return the state of the new job, or {@code 503} if the job queue is full.
+     */
+    @PostMapping
+    public ResponseEntity<RefinementJobState> submit(@SessionAttribute(value = "sample", required = false) Sample sessionSample,
+                                                     @SessionAttribute(value = "differentialDiagnoses", required = false) List<DifferentialDiagnosis> differentialDiagnoses,
+                                                     @SessionAttribute(value = "engineName", required = false) String engineName,
+                                                     @SessionAttribute(value = "scoringMode", required = false) ScoringMode scoringMode,
+                                                     @SessionAttribute(value = "engine", required = false) DifferentialDiagnosisEngine liricalEngine,
+                                                     @SessionAttribute(value = "liricalEngineConfigurer", required = false) LiricalDifferentialDiagnosisEngineConfigurer liricalEngineConfigurer,
+                                                     @RequestParam(value = "id", required = false) String sampleId,
+                                                     @RequestParam(value = "presentHpoTermIds", required = false) String presentHpoTermIds,
+                                                     @RequestParam(value = "excludedHpoTermIds", required = false) String excludedHpoTermIds,
+                                                     @RequestParam(value = "refiner", required = false) String refiner,
+                                                     @RequestParam(value = "nDiseases") int nDiseases,
+                                                     @RequestParam(value = "nRepetitions") int nRepetitions,
+                                                     @RequestParam(value = "nMaxoResults", required = false) Integer nMaxoResults,
+                                                     @RequestParam(value = "diseaseProbModel", required = false) String diseaseProbModel) {
+        if (refiner != null && !refiner.equals("score"))
+            return ResponseEntity.badRequest().build();
+
+        // Only the displayed MAxO terms are summarized.
+        RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions, RefinementOptions.DEFAULT_SEED,
+                AdaptiveRepetitionOptions.disabled(), nMaxoResults == null ? Integer.MAX_VALUE : nMaxoResults);
+
+        RefinementJobRequest request;
+        if (sampleId != null) {
+            if (icMicaData.icMicaDict().isEmpty())
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            Sample sample = Sample.of(sampleId,
+                    MaxodiffController.parseTermIds(presentHpoTermIds),
+                    MaxodiffController.parseTermIds(excludedHpoTermIds));
+            // The initial diagnoses are computed by the job.
+            DifferentialDiagnosisEngine phenomizer = differentialDiagnosisEngineService.getPhenomizerEngine(ScoringMode.ONE_SIDED).orElseThrow();
+            request = new RefinementJobRequest(sample, null, phenomizer, null, options, diseaseProbModel);
+        } else if (sessionSample != null && differentialDiagnoses != null && !differentialDiagnoses.isEmpty()) {
+            // Only the LIRICAL engine is kept in the session, the Phenomizer engines are shared.
+            DifferentialDiagnosisEngine engine = "phenomizer".equals(engineName)
+                    ? differentialDiagnosisEngineService.getPhenomizerEngine(scoringMode == null ? ScoringMode.ONE_SIDED : scoringMode).orElseThrow()
+                    : liricalEngine;
+            if (engine == null)
+                return ResponseEntity.badRequest().build();
+            request = new RefinementJobRequest(sessionSample, differentialDiagnoses, engine, liricalEngineConfigurer, options, diseaseProbModel);
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            RefinementJob job = refinementJobService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/jobs/" + job.id()))
+                    .body(job.state());
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Rejected refinement job of sample {}, the job queue is full", request.sample().id());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "10")
+                    .build();
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<RefinementJobState> getState(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.of(refinementJobService.getJob(jobId).map(RefinementJob::state));
+    }
+
+    /**
+     * Stream the job state as {@code progress} events until the job finishes.
+     * The final state is sent as a {@code done} event.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamEvents(@PathVariable("jobId") String jobId) {
+        return refinementJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(follow(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> cancel(@PathVariable("jobId") String jobId) {
+        if (refinementJobService.cancel(jobId))
+            return ResponseEntity.noContent().build();
+        return refinementJobService.getJob(jobId).isPresent()
+                ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * @return the completed job for rendering its results.
+     * @throws ResponseStatusException if the job does not exist or has not completed.
+     */
+    static RefinementJob completedJob(RefinementJobService refinementJobService, String jobId) {
+        RefinementJob job = refinementJobService.getJob(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown refinement job " + jobId));
+        if (job.status() != RefinementJobStatus.COMPLETED)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Refinement job %s is %s".formatted(jobId, job.status()));
+        return job;
+    }
+
+    private SseEmitter follow(RefinementJob job) {
+        SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT_MS);
+        CompletableFuture<ScheduledFuture<?>> publishing = new CompletableFuture<>();
+        Runnable publish = new Runnable() {
+            private RefinementJobState last;
+
+            @Override
+            public void run() {
+                RefinementJobState state = job.state();
+                try {
+                    if (state.status().isFinished()) {
+                        emitter.send(SseEmitter.event().name("done").data(state));
+                        emitter.complete();
+                        publishing.thenAccept(f -> f.cancel(false));
+                    } else if (!state.equals(last)) {
+                        emitter.send(SseEmitter.event().name("progress").data(state));
+                        last = state;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away.
+                    publishing.thenAccept(f -> f.cancel(false));
+                }
+            }
+        };
+        Runnable stop = () -> publishing.thenAccept(f -> f.cancel(false));
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(e -> stop.run());
+        publishing.complete(progressPublisher.scheduleWithFixedDelay(publish, 0, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS));
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        progressPublisher.shutdownNow();
+    }
+}
@@ -1,23 +1,14 @@
 package org.monarchinitiative.maxodiff.html.controller;
 
-import org.monarchinitiative.lirical.core.analysis.AnalysisOptions;
-import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
-import org.monarchinitiative.maxodiff.core.SimpleTerm;
 import org.monarchinitiative.maxodiff.core.analysis.*;
-import org.monarchinitiative.maxodiff.core.analysis.refinement.*;
-import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxodiffResult;
 import org.monarchinitiative.maxodiff.html.results.HtmlResults;
-import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
-import org.monarchinitiative.maxodiff.core.model.RankMaxo;
 import org.monarchinitiative.maxodiff.core.model.Sample;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
-import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngineConfigurer;
-import org.monarchinitiative.maxodiff.phenomizer.PhenomizerDifferentialDiagnosisEngine;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.ontology.data.MinimalOntology;
-import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.maxodiff.html.service.RefinementJob;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobResult;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobService;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -25,8 +16,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.File;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Controller("/sessionResults")
 @SessionAttributes({"engineName", "sample", "differentialDiagnoses", "nDiseases",
@@ -35,50 +24,25 @@ public class SessionResultsController {
 
     private final BiometadataService biometadataService;
 
-    private DiffDiagRefiner diffDiagRefiner;
-
-    private final MinimalOntology minHpo;
-
-    private final Ontology hpo;
-
-    private final HpoDiseases hpoDiseases;
-
-    private final Map<TermId, Set<TermId>> hpoToMaxoIdMap;
-
-    private final Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap;
-
-    private volatile double progress = 0.;
-
-    private RankMaxo rankMaxo;
+    private final RefinementJobService refinementJobService;
 
     public SessionResultsController(
             BiometadataService biometadataService,
-            DiffDiagRefiner diffDiagRefiner,
-            MinimalOntology minHpo,
-            Ontology hpo,
-            HpoDiseases hpoDiseases,
-            Map<TermId, Set<TermId>> hpoToMaxoIdMap,
-            Map<SimpleTerm, Set<SimpleTerm>> hpoToMaxoTermMap
+            RefinementJobService refinementJobService
     ) {
         this.biometadataService = biometadataService;
-        this.diffDiagRefiner = diffDiagRefiner;
-        this.minHpo = minHpo;
-        this.hpo = hpo;
-        this.hpoDiseases = hpoDiseases;
-        this.hpoToMaxoIdMap = hpoToMaxoIdMap;
-        this.hpoToMaxoTermMap = hpoToMaxoTermMap;
+        this.refinementJobService = refinementJobService;
     }
 
     @RequestMapping("/sessionResults")
     public String showResults(@SessionAttribute(value = "sample", required = false) Sample sample,
                               @SessionAttribute(value = "differentialDiagnoses", required = false) List<DifferentialDiagnosis> differentialDiagnoses,
-                              @SessionAttribute(value = "engine", required = false) DifferentialDiagnosisEngine engine,
-                              @SessionAttribute(value = "liricalEngineConfigurer", required = false) LiricalDifferentialDiagnosisEngineConfigurer liricalDifferentialDiagnosisEngineConfigurer,
                               @RequestParam(value = "refiner", required = false) String refiner,
                               @RequestParam(value = "nDiseases", required = false) Integer nDiseases,
                               @RequestParam(value = "nRepetitions", required = false) Integer nRepetitions,
                               @RequestParam(value = "nMaxoResults", required = false) Integer nMaxoResults,
                               @RequestParam(value = "diseaseProbModel", required = false) String diseaseProbModel,
+                              @RequestParam(value = "jobId", required = false) String jobId,
                               Model model) throws Exception {
 
         String algorithm = "";
@@ -88,13 +52,22 @@ public class SessionResultsController {
         }
 
         if (refiner.equals("score")) {
-            diffDiagRefiner = new MaxoDiffRefiner(hpoDiseases, hpoToMaxoIdMap, hpoToMaxoTermMap, minHpo, hpo);
             algorithm = "Score";
         }
 
+        // The refinement is computed by a job submitted to the RefinementJobController.
+        RefinementJob job = jobId == null ? null : RefinementJobController.completedJob(refinementJobService, jobId);
+        if (job != null) {
+            sample = job.request().sample();
+            nDiseases = job.request().options().nDiseases();
+            nRepetitions = job.request().options().nRepetitions();
+            diseaseProbModel = job.request().diseaseProbModel();
+            if (nMaxoResults == null)
+                nMaxoResults = job.request().options().nMaxoTerms();
+        }
+
         model.addAttribute("refiner", refiner);
         model.addAttribute("algorithm", algorithm);
-        Integer prevNDiseases = (Integer) model.getAttribute("nDiseases");
         model.addAttribute("nDiseases", nDiseases);
         model.addAttribute("nRepetitions", nRepetitions);
         model.addAttribute("nMaxoResults", nMaxoResults);
@@ -106,74 +79,17 @@ public class SessionResultsController {
             model.addAttribute("totalNDiseases", differentialDiagnoses.size());
         }
 
-        if (sample != null && nDiseases != null && nRepetitions != null && nMaxoResults != null) {
-            RefinementOptions options = RefinementOptions.of(nDiseases, nRepetitions);
-
-            if (model.getAttribute("orderedDiagnoses") == null || !nDiseases.equals(prevNDiseases)) {
-                List<DifferentialDiagnosis> orderedDiagnoses = diffDiagRefiner.getOrderedDiagnoses(differentialDiagnoses, options);
-                model.addAttribute("orderedDiagnoses", orderedDiagnoses);
-            }
-            List<DifferentialDiagnosis> orderedDiagnoses = (List<DifferentialDiagnosis>) model.getAttribute("orderedDiagnoses");
-
-            if (model.getAttribute("hpoTermCounts") == null || !nDiseases.equals(prevNDiseases)) {
-                List<HpoDisease> diseases = diffDiagRefiner.getDiseases(orderedDiagnoses);
-                Map<TermId, List<HpoFrequency>> hpoTermCounts = diffDiagRefiner.getHpoTermCounts(diseases);
-                model.addAttribute("hpoTermCounts", hpoTermCounts);
-            }
-            Map<TermId, List<HpoFrequency>> hpoTermCounts = (Map<TermId, List<HpoFrequency>>) model.getAttribute("hpoTermCounts");
-
-            if (model.getAttribute("maxoToHpoTermIdMap") == null || !nDiseases.equals(prevNDiseases)) {
-                List<TermId> termIdsToRemove = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
-                        .flatMap(Collection::stream).toList();
-                Map<TermId, Set<TermId>> maxoToHpoTermIdMap = diffDiagRefiner.getMaxoToHpoTermIdMap(termIdsToRemove, hpoTermCounts);
-                model.addAttribute("maxoToHpoTermIdMap", maxoToHpoTermIdMap);
-            }
-            Map<TermId, Set<TermId>> maxoToHpoTermIdMap = (Map<TermId, Set<TermId>>) model.getAttribute("maxoToHpoTermIdMap");
+        if (job != null) {
+            RefinementJobResult jobResult = job.result().orElseThrow();
+            model.addAttribute("orderedDiagnoses", jobResult.orderedDiagnoses());
+            Map<TermId, List<HpoFrequency>> hpoTermCounts = jobResult.hpoTermCounts();
+            model.addAttribute("hpoTermCounts", hpoTermCounts);
+            model.addAttribute("maxoToHpoTermIdMap", jobResult.maxoToHpoTermIdMap());
 
-            RefinementResults refinementResults = null;
-            DifferentialDiagnosisEngine diseaseSubsetEngine = null;
-            if (diffDiagRefiner instanceof MaxoDiffRefiner) {
-                assert orderedDiagnoses != null;
-                List<DifferentialDiagnosis> initialDiagnoses = orderedDiagnoses.stream().toList()
-                        .subList(0, options.nDiseases());
-
-                if (engine instanceof LiricalDifferentialDiagnosisEngine) {
-                    Set<TermId> initialDiagnosesIds = initialDiagnoses.stream()
-                            .map(DifferentialDiagnosis::diseaseId)
-                            .collect(Collectors.toSet());
-
-                    AnalysisOptions originalOptions = ((LiricalDifferentialDiagnosisEngine) engine).getAnalysisOptions();
-
-                    var diseaseSubsetOptions = AnalysisOptions.builder()
-                            .useStrictPenalties(originalOptions.useStrictPenalties())
-                            .useGlobal(originalOptions.useGlobal())
-                            .pretestProbability(PretestDiseaseProbabilities.uniform(initialDiagnosesIds))
-                            .addTargetDiseases(initialDiagnosesIds)
-                            .build();
-                    diseaseSubsetEngine = liricalDifferentialDiagnosisEngineConfigurer.configure(diseaseSubsetOptions);
-                } else if (engine instanceof PhenomizerDifferentialDiagnosisEngine) {
-                    diseaseSubsetEngine = engine;
-                }
-                assert maxoToHpoTermIdMap != null;
-                rankMaxo = ((MaxoDiffRefiner) diffDiagRefiner).getRankMaxo(initialDiagnoses,
-                        diseaseSubsetEngine,
-                        maxoToHpoTermIdMap,
-                        diseaseProbModel);
-                refinementResults = diffDiagRefiner.run(sample,
-                        orderedDiagnoses,
-                        options,
-                        rankMaxo,
-                        hpoTermCounts,
-                        maxoToHpoTermIdMap);
-            }
-
-
-            List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults());
-            if (diffDiagRefiner instanceof MaxoDiffRefiner) {
-                resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
-            }
+            List<MaxodiffResult> resultsList = jobResult.maxodiffResults();
 
             model.addAttribute("maxodiffResults", resultsList);
+            model.addAttribute("partialResults", jobResult.partial());
 
             int nDisplayed = Math.min(resultsList.size(), nMaxoResults);
             model.addAttribute("nDisplayed", nDisplayed);
@@ -200,27 +116,25 @@ public class SessionResultsController {
             Map<String, Map<Float, List<String>>> frequencyMap = new HashMap<>();
 
             for (MaxodiffResult maxodiffResult : resultsList.subList(0, nDisplayed)) {
-                if (diffDiagRefiner instanceof MaxoDiffRefiner) {
-                    RankMaxoScore rankMaxoScore = maxodiffResult.rankMaxoScore();
-                    maxoTermsMap.put(rankMaxoScore.maxoId().toString(), biometadataService.maxoLabel(rankMaxoScore.maxoId().toString()).orElse("unknown"));
-                    rankMaxoScore.discoverableObservedHpoTermIds().forEach(id -> hpoTermsMap.put(id, biometadataService.hpoLabel(id).orElse("unknown")));
-                    rankMaxoScore.initialOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
-                    rankMaxoScore.maxoOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
-                    var hpoTermIdRepCtsMap = rankMaxoScore.hpoTermIdRepCtsMap();
-                    for (Map.Entry<TermId, Map<TermId, Integer>> diseaseHpoRepCtEntry : hpoTermIdRepCtsMap.entrySet()) {
-                        Map<TermId, Integer> hpoRetCtMap = diseaseHpoRepCtEntry.getValue();
-                        for (Map.Entry<TermId, Integer> hpoRepCtMapEntry : hpoRetCtMap.entrySet()) {
-                            TermId hpoId = hpoRepCtMapEntry.getKey();
-                            Integer repCt = hpoRepCtMapEntry.getValue();
-                            if (repCt != null && !nRepetitionsMap.containsKey(hpoId)) {
-                                nRepetitionsMap.put(hpoId, repCt);
-                                break;
-                            }
+                RankMaxoScore rankMaxoScore = maxodiffResult.rankMaxoScore();
+                maxoTermsMap.put(rankMaxoScore.maxoId().toString(), biometadataService.maxoLabel(rankMaxoScore.maxoId().toString()).orElse("unknown"));
+                rankMaxoScore.discoverableObservedHpoTermIds().forEach(id -> hpoTermsMap.put(id, biometadataService.hpoLabel(id).orElse("unknown")));
+                rankMaxoScore.initialOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
+                rankMaxoScore.maxoOmimTermIds().forEach(id -> diseaseTermsMap.put(id, biometadataService.diseaseLabel(id).orElse("unknown")));
+                var hpoTermIdRepCtsMap = rankMaxoScore.hpoTermIdRepCtsMap();
+                for (Map.Entry<TermId, Map<TermId, Integer>> diseaseHpoRepCtEntry : hpoTermIdRepCtsMap.entrySet()) {
+                    Map<TermId, Integer> hpoRetCtMap = diseaseHpoRepCtEntry.getValue();
+                    for (Map.Entry<TermId, Integer> hpoRepCtMapEntry : hpoRetCtMap.entrySet()) {
+                        TermId hpoId = hpoRepCtMapEntry.getKey();
+                        Integer repCt = hpoRepCtMapEntry.getValue();
+                        if (repCt != null && !nRepetitionsMap.containsKey(hpoId)) {
+                            nRepetitionsMap.put(hpoId, repCt);
+                            break;
                         }
                     }
-                    Map<String, Map<Float, List<String>>> resultFrequencyMap = HTMLFrequencyMap.makeFrequencyDiseaseMap(hpoTermsMap, diseaseTermsMap, hpoTermIdRepCtsMap, hpoFrequencies);
-                    frequencyMap.putAll(resultFrequencyMap);
                 }
+                Map<String, Map<Float, List<String>>> resultFrequencyMap = HTMLFrequencyMap.makeFrequencyDiseaseMap(hpoTermsMap, diseaseTermsMap, hpoTermIdRepCtsMap, hpoFrequencies);
+                frequencyMap.putAll(resultFrequencyMap);
 
             }
             model.addAttribute("omimTerms", diseaseTermsMap);
@@ -242,17 +156,4 @@ public class SessionResultsController {
         return "sessionResults";
     }
 
-    @GetMapping("/progress")
-    @ResponseBody
-    public double getProgress() {
-        return rankMaxo.getRankMaxoProgress().getTotalProgress();
-    }
-
-    @GetMapping("/progress-bar")
-    public String showProgressPage() {
-        return "progress";
-    }
-
-
-
 }
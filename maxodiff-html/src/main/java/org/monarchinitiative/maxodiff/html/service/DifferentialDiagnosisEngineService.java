@@ -1,6 +1,7 @@
 package org.monarchinitiative.maxodiff.html.service;
 
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
 
 import java.util.Map;
 import java.util.Optional;
@@ -21,4 +22,18 @@ public interface DifferentialDiagnosisEngineService {
     Set<String> getEngineNames();
 
     Optional<DifferentialDiagnosisEngine> getEngine(String engineName);
+
+    /**
+     * @return the name of the Phenomizer engine with the {@code scoringMode}.
+     */
+    static String phenomizerEngineName(ScoringMode scoringMode) {
+        return "phenomizer:" + scoringMode;
+    }
+
+    /**
+     * @return the Phenomizer engine with the {@code scoringMode}, shared by all sessions.
+     */
+    default Optional<DifferentialDiagnosisEngine> getPhenomizerEngine(ScoringMode scoringMode) {
+        return getEngine(phenomizerEngineName(scoringMode));
+    }
 }
@@ -0,0 +1,143 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
+import org.monarchinitiative.maxodiff.core.analysis.RankMaxoProgress;
+import org.monarchinitiative.maxodiff.core.model.RankMaxo;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Future;
+
+/**
+ * A refinement of the differential diagnosis of a sample submitted to the {@link RefinementJobService}.
+ * <p>
+ * The job is updated by the worker thread and read by the request threads, hence each job reports
+ * the progress of its own {@link RankMaxo}.
+ */
+public final class RefinementJob {
+
+    private final String id;
+    private final RefinementJobRequest request;
+    private final Instant submitted;
+
+    private RefinementJobStatus status = RefinementJobStatus.QUEUED;
+    private volatile RankMaxo rankMaxo;
+    private RefinementJobResult result;
+    private String error;
+    private Instant finished;
+    private Future<?> future;
+    private CancellationToken cancellation = CancellationToken.none();
+
+    RefinementJob(String id, RefinementJobRequest request, Instant submitted) {
+        this.id = id;
+        this.request = request;
+        this.submitted = submitted;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public RefinementJobRequest request() {
+        return request;
+    }
+
+    public Instant submitted() {
+        return submitted;
+    }
+
+    public synchronized RefinementJobStatus status() {
+        return status;
+    }
+
+    /**
+     * @return the results if the job has completed.
+     */
+    public synchronized Optional<RefinementJobResult> result() {
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * @return the instant when the job finished or an empty optional if the job has not finished yet.
+     */
+    public synchronized Optional<Instant> finished() {
+        return Optional.ofNullable(finished);
+    }
+
+    /**
+     * @return fraction of the MAxO terms evaluated so far.
+     */
+    public double progress() {
+        if (status() == RefinementJobStatus.COMPLETED)
+            return 1.;
+        RankMaxo rankMaxo = this.rankMaxo;
+        RankMaxoProgress progress = rankMaxo == null ? null : rankMaxo.getRankMaxoProgress();
+        return progress == null ? 0. : progress.getTotalProgress();
+    }
+
+    public synchronized RefinementJobState state() {
+        return new RefinementJobState(id, status, progress(), error);
+    }
+
+    synchronized void future(Future<?> future) {
+        this.future = future;
+        // The job may have been cancelled before the future was set.
+        if (status == RefinementJobStatus.CANCELLED)
+            future.cancel(true);
+    }
+
+    void rankMaxo(RankMaxo rankMaxo) {
+        this.rankMaxo = rankMaxo;
+    }
+
+    /**
+     * @param cancellation stops the running job, cancelled together with the job.
+     * @return {@code false} if the job was cancelled before it started.
+     */
+    synchronized boolean start(CancellationToken cancellation) {
+        if (status != RefinementJobStatus.QUEUED)
+            return false;
+        status = RefinementJobStatus.RUNNING;
+        this.cancellation = cancellation;
+        return true;
+    }
+
+    synchronized CancellationToken cancellation() {
+        return cancellation;
+    }
+
+    synchronized void complete(RefinementJobResult result) {
+        if (status == RefinementJobStatus.RUNNING) {
+            this.result = result;
+            finish(RefinementJobStatus.COMPLETED);
+        }
+    }
+
+    synchronized void fail(String error) {
+        if (status == RefinementJobStatus.RUNNING) {
+            this.error = error;
+            finish(RefinementJobStatus.FAILED);
+        }
+    }
+
+    /**
+     * Cancel the job, stop the MAxO term evaluations, and interrupt the worker if the job is running.
+     *
+     * @return {@code false} if the job had already finished.
+     */
+    synchronized boolean cancel() {
+        if (status.isFinished())
+            return false;
+        finish(RefinementJobStatus.CANCELLED);
+        if (cancellation != CancellationToken.none())
+            cancellation.cancel();
+        if (future != null)
+            future.cancel(true);
+        return true;
+    }
+
+    private void finish(RefinementJobStatus status) {
+        this.status = status;
+        this.finished = Instant.now();
+    }
+}
@@ -0,0 +1,37 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngineConfigurer;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The input of a {@link RefinementJob}.
+ *
+ * @param differentialDiagnoses the initial diagnoses of the sample or {@code null} if the job should
+ *                              get them from the {@code engine}.
+ * @param liricalEngineConfigurer configurer of the LIRICAL engine restricted to the initial diagnoses
+ *                                or {@code null} if the {@code engine} is not LIRICAL.
+ * @param diseaseProbModel one of {@code ranked}, {@code softmax}, or {@code expDecay}.
+ */
+public record RefinementJobRequest(Sample sample,
+                                   List<DifferentialDiagnosis> differentialDiagnoses,
+                                   DifferentialDiagnosisEngine engine,
+                                   LiricalDifferentialDiagnosisEngineConfigurer liricalEngineConfigurer,
+                                   RefinementOptions options,
+                                   String diseaseProbModel) {
+
+    public static final String DEFAULT_DISEASE_PROB_MODEL = "ranked";
+
+    public RefinementJobRequest {
+        Objects.requireNonNull(sample, "Sample must not be null");
+        Objects.requireNonNull(engine, "Engine must not be null");
+        Objects.requireNonNull(options, "Options must not be null");
+        if (diseaseProbModel == null)
+            diseaseProbModel = DEFAULT_DISEASE_PROB_MODEL;
+    }
+}
@@ -0,0 +1,25 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+import org.monarchinitiative.maxodiff.core.analysis.HpoFrequency;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxodiffResult;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The results of a completed {@link RefinementJob}.
+ *
+ * @param differentialDiagnoses the initial diagnoses of the sample.
+ * @param maxodiffResults the MAxO term results sorted by the score in descending order.
+ * @param partial {@code true} if the job exceeded its deadline and the results are the MAxO terms scored so far.
+ */
+public record RefinementJobResult(List<DifferentialDiagnosis> differentialDiagnoses,
+                                  List<DifferentialDiagnosis> orderedDiagnoses,
+                                  Map<TermId, List<HpoFrequency>> hpoTermCounts,
+                                  Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
+                                  List<MaxodiffResult> maxodiffResults,
+                                  boolean partial) {
+}
@@ -0,0 +1,64 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxoDiffRefiner;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResultsCache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the refinements of the differential diagnoses in the background, so that the request threads
+ * only submit the jobs and poll their progress and results.
+ */
+public interface RefinementJobService extends AutoCloseable {
+
+    /**
+     * @param parallelism number of jobs running at the same time.
+     * @param queueCapacity number of jobs waiting for a free worker.
+     * @param retention how long the finished jobs are kept for fetching their results.
+     */
+    static RefinementJobService of(MaxoDiffRefiner refiner, int parallelism, int queueCapacity, Duration retention) {
+        return of(refiner, parallelism, queueCapacity, retention, Duration.ZERO);
+    }
+
+    /**
+     * @param timeout deadline of a running job, counted from the start of the job. The job that exceeds
+     *                the deadline completes with the partial results. A zero timeout disables the deadline.
+     */
+    static RefinementJobService of(MaxoDiffRefiner refiner, int parallelism, int queueCapacity, Duration retention,
+                                   Duration timeout) {
+        return of(refiner, parallelism, queueCapacity, retention, timeout, null, null);
+    }
+
+    /**
+     * @param cache cache of the refinement results or {@code null} if the results are not cached.
+     * @param resourceVersion version of the resources used by the refiner, a part of the cache keys.
+     */
+    static RefinementJobService of(MaxoDiffRefiner refiner, int parallelism, int queueCapacity, Duration retention,
+                                   Duration timeout, RefinementResultsCache cache, String resourceVersion) {
+        return RefinementJobServiceImpl.of(refiner, parallelism, queueCapacity, retention, timeout, cache, resourceVersion);
+    }
+
+    /**
+     * Submit a new job.
+     *
+     * @throws RejectedExecutionException if the job queue is full.
+     */
+    RefinementJob submit(RefinementJobRequest request);
+
+    Optional<RefinementJob> getJob(String jobId);
+
+    /**
+     * Cancel the job. A running job stops evaluating the MAxO terms and is interrupted.
+     *
+     * @return {@code false} if the job does not exist or had already finished.
+     */
+    boolean cancel(String jobId);
+
+    /**
+     * Cancel the running and the queued jobs.
+     */
+    @Override
+    void close();
+}
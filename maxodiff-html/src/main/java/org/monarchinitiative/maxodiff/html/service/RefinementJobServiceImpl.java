@@ -0,0 +1,245 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+import org.monarchinitiative.lirical.core.analysis.AnalysisOptions;
+import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
+import org.monarchinitiative.maxodiff.core.analysis.HpoFrequency;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxoDiffRefiner;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.MaxodiffResult;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementCacheKey;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementOptions;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResults;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResultsCache;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.diffdg.MemoizingDifferentialDiagnosisEngine;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.RankMaxo;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.maxodiff.lirical.LiricalDifferentialDiagnosisEngine;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RefinementJobServiceImpl implements RefinementJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefinementJobServiceImpl.class);
+
+    private final MaxoDiffRefiner refiner;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Duration timeout;
+    private final RefinementResultsCache cache;
+    private final String resourceVersion;
+    private final Map<String, RefinementJob> jobs = new ConcurrentHashMap<>();
+
+    public static RefinementJobServiceImpl of(MaxoDiffRefiner refiner, int parallelism, int queueCapacity,
+                                              Duration retention, Duration timeout) {
+        return of(refiner, parallelism, queueCapacity, retention, timeout, null, null);
+    }
+
+    /**
+     * @param cache cache of the refinement results or {@code null} if the results are not cached.
+     */
+    public static RefinementJobServiceImpl of(MaxoDiffRefiner refiner, int parallelism, int queueCapacity,
+                                              Duration retention, Duration timeout,
+                                              RefinementResultsCache cache, String resourceVersion) {
+        return new RefinementJobServiceImpl(refiner, parallelism, queueCapacity, retention, timeout, cache, resourceVersion);
+    }
+
+    private RefinementJobServiceImpl(MaxoDiffRefiner refiner, int parallelism, int queueCapacity,
+                                     Duration retention, Duration timeout,
+                                     RefinementResultsCache cache, String resourceVersion) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Job parallelism must be positive but was %d".formatted(parallelism));
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("Job queue capacity must be positive but was %d".formatted(queueCapacity));
+        this.refiner = Objects.requireNonNull(refiner);
+        this.retention = Objects.requireNonNull(retention);
+        if (timeout.isNegative())
+            throw new IllegalArgumentException("Job timeout must not be negative but was %s".formatted(timeout));
+        this.timeout = timeout;
+        this.cache = cache;
+        this.resourceVersion = resourceVersion == null ? "N/A" : resourceVersion;
+        // Reject the jobs that do not fit into the queue instead of running them in the request thread.
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new JobThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public RefinementJob submit(RefinementJobRequest request) {
+        evictFinishedJobs();
+        RefinementJob job = new RefinementJob(UUID.randomUUID().toString(), request, Instant.now());
+        jobs.put(job.id(), job);
+        try {
+            job.future(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            throw e;
+        }
+        LOGGER.debug("Submitted refinement job {} of sample {}", job.id(), request.sample().id());
+        return job;
+    }
+
+    @Override
+    public Optional<RefinementJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @Override
+    public boolean cancel(String jobId) {
+        RefinementJob job = jobs.get(jobId);
+        if (job == null || !job.cancel())
+            return false;
+        // Free the queue slot of a job that has not started yet.
+        executor.purge();
+        LOGGER.debug("Cancelled refinement job {}", jobId);
+        return true;
+    }
+
+    private void run(RefinementJob job) {
+        // The deadline starts when the job starts, the time spent in the queue does not count.
+        CancellationToken cancellation = timeout.isZero()
+                ? CancellationToken.create()
+                : CancellationToken.withTimeout(timeout);
+        if (!job.start(cancellation))
+            return;
+        try {
+            job.complete(refine(job));
+            LOGGER.debug("Completed refinement job {}", job.id());
+        } catch (InterruptedException e) {
+            // The job was cancelled, the worker is reused by the next job.
+            LOGGER.debug("Interrupted refinement job {}", job.id());
+        } catch (Exception e) {
+            if (job.status() != RefinementJobStatus.CANCELLED)
+                LOGGER.warn("Refinement job {} failed: {}", job.id(), e.getMessage(), e);
+            job.fail(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        }
+    }
+
+    private RefinementJobResult refine(RefinementJob job) throws Exception {
+        RefinementJobRequest request = job.request();
+        Sample sample = request.sample();
+        RefinementOptions options = request.options().withCancellation(job.cancellation());
+
+        List<DifferentialDiagnosis> differentialDiagnoses = request.differentialDiagnoses() == null
+                ? request.engine().run(sample)
+                : request.differentialDiagnoses();
+        List<DifferentialDiagnosis> orderedDiagnoses = refiner.getOrderedDiagnoses(differentialDiagnoses, options);
+        List<HpoDisease> diseases = refiner.getDiseases(orderedDiagnoses);
+        Map<TermId, List<HpoFrequency>> hpoTermCounts = refiner.getHpoTermCounts(diseases);
+        List<TermId> termIdsToRemove = Stream.of(sample.presentHpoTermIds(), sample.excludedHpoTermIds())
+                .flatMap(Collection::stream).toList();
+        Map<TermId, Set<TermId>> maxoToHpoTermIdMap = refiner.getMaxoToHpoTermIdMap(termIdsToRemove, hpoTermCounts);
+
+        Optional<RefinementCacheKey> cacheKey = cacheKey(request);
+        if (cacheKey.isPresent()) {
+            Optional<RefinementResults> cached = cache.get(cacheKey.get());
+            if (cached.isPresent()) {
+                LOGGER.debug("Using cached results of refinement job {}", job.id());
+                return jobResult(differentialDiagnoses, orderedDiagnoses, hpoTermCounts, maxoToHpoTermIdMap, cached.get());
+            }
+        }
+
+        List<DifferentialDiagnosis> initialDiagnoses = orderedDiagnoses.subList(0, options.nDiseases());
+        RankMaxo rankMaxo = refiner.getRankMaxo(initialDiagnoses,
+                diseaseSubsetEngine(request, initialDiagnoses),
+                maxoToHpoTermIdMap,
+                request.diseaseProbModel());
+        job.rankMaxo(rankMaxo);
+        RefinementResults refinementResults = refiner.run(sample,
+                orderedDiagnoses,
+                options,
+                rankMaxo,
+                hpoTermCounts,
+                maxoToHpoTermIdMap);
+        cacheKey.ifPresent(key -> cache.put(key, refinementResults));
+
+        if (refinementResults.partial())
+            LOGGER.info("Refinement job {} was stopped, returning {} MAxO terms scored so far",
+                    job.id(), refinementResults.maxodiffResults().size());
+        return jobResult(differentialDiagnoses, orderedDiagnoses, hpoTermCounts, maxoToHpoTermIdMap, refinementResults);
+    }
+
+    private static RefinementJobResult jobResult(List<DifferentialDiagnosis> differentialDiagnoses,
+                                                 List<DifferentialDiagnosis> orderedDiagnoses,
+                                                 Map<TermId, List<HpoFrequency>> hpoTermCounts,
+                                                 Map<TermId, Set<TermId>> maxoToHpoTermIdMap,
+                                                 RefinementResults refinementResults) {
+        List<MaxodiffResult> resultsList = new ArrayList<>(refinementResults.maxodiffResults());
+        resultsList.sort(Comparator.<MaxodiffResult>comparingDouble(mr -> mr.rankMaxoScore().maxoScore()).reversed());
+        return new RefinementJobResult(differentialDiagnoses, orderedDiagnoses, hpoTermCounts, maxoToHpoTermIdMap,
+                List.copyOf(resultsList), refinementResults.partial());
+    }
+
+    /**
+     * @return the cache key of the request or an empty optional if the results are not cached
+     * or the results of the engine should not be reused.
+     */
+    private Optional<RefinementCacheKey> cacheKey(RefinementJobRequest request) {
+        if (cache == null)
+            return Optional.empty();
+        return request.engine().configurationId()
+                .map(engine -> RefinementCacheKey.of(request.sample(), engine, request.diseaseProbModel(),
+                        request.options(), resourceVersion));
+    }
+
+    /**
+     * @return the engine for scoring the initial diagnoses only.
+     */
+    private static DifferentialDiagnosisEngine diseaseSubsetEngine(RefinementJobRequest request,
+                                                                   List<DifferentialDiagnosis> initialDiagnoses) {
+        DifferentialDiagnosisEngine engine = request.engine() instanceof MemoizingDifferentialDiagnosisEngine memoizing
+                ? memoizing.delegate()
+                : request.engine();
+        if (engine instanceof LiricalDifferentialDiagnosisEngine liricalEngine
+                && request.liricalEngineConfigurer() != null) {
+            Set<TermId> initialDiagnosesIds = initialDiagnoses.stream()
+                    .map(DifferentialDiagnosis::diseaseId)
+                    .collect(Collectors.toSet());
+
+            AnalysisOptions originalOptions = liricalEngine.getAnalysisOptions();
+
+            var diseaseSubsetOptions = AnalysisOptions.builder()
+                    .useStrictPenalties(originalOptions.useStrictPenalties())
+                    .useGlobal(originalOptions.useGlobal())
+                    .pretestProbability(PretestDiseaseProbabilities.uniform(initialDiagnosesIds))
+                    .addTargetDiseases(initialDiagnosesIds)
+                    .build();
+            return request.liricalEngineConfigurer().configure(diseaseSubsetOptions);
+        }
+        return request.engine();
+    }
+
+    private void evictFinishedJobs() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finished().map(threshold::isAfter).orElse(false));
+    }
+
+    @Override
+    public void close() {
+        LOGGER.debug("Cancelling {} refinement jobs", executor.getActiveCount() + executor.getQueue().size());
+        jobs.values().forEach(RefinementJob::cancel);
+        executor.shutdownNow();
+    }
+
+    private static class JobThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "maxodiff-refinement-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
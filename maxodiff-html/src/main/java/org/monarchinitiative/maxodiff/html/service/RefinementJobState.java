@@ -0,0 +1,10 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+/**
+ * A snapshot of a {@link RefinementJob} reported to the clients.
+ *
+ * @param progress fraction of the MAxO terms evaluated so far, between {@code 0} and {@code 1}.
+ * @param error the reason of the failure or {@code null} if the job has not failed.
+ */
+public record RefinementJobState(String id, RefinementJobStatus status, double progress, String error) {
+}
@@ -0,0 +1,20 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+/**
+ * The lifecycle of a {@link RefinementJob}.
+ */
+public enum RefinementJobStatus {
+
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * @return {@code true} if the job will not change its status anymore.
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
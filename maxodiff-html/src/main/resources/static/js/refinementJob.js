@@ -0,0 +1,46 @@
+// Submit the refinement form as a background job, follow its progress, and show the results when the job completes.
+function runRefinementJob(event, form, progressBarId) {
+    event.preventDefault();
+    const params = new URLSearchParams(new FormData(form));
+    // The uploaded phenopacket has already been parsed into the sample fields.
+    params.delete('file');
+    const bar = document.getElementById(progressBarId);
+
+    function showProgress(progress) {
+        const percent = progress * 100;
+        bar.style.width = percent + '%';
+        bar.innerText = Math.round(percent * 100) / 100 + '%';
+    }
+
+    fetch('/jobs', {method: 'POST', body: params})
+        .then(response => {
+            if (response.status === 503) {
+                throw new Error('The server is busy, please try again later.');
+            }
+            if (!response.ok) {
+                throw new Error('The refinement could not be submitted (' + response.status + ').');
+            }
+            return response.json();
+        })
+        .then(job => {
+            showProgress(job.progress);
+            const events = new EventSource('/jobs/' + job.id + '/events');
+            window.addEventListener('beforeunload', () => events.close());
+            events.addEventListener('progress', e => showProgress(JSON.parse(e.data).progress));
+            events.addEventListener('done', e => {
+                events.close();
+                const state = JSON.parse(e.data);
+                if (state.status === 'COMPLETED') {
+                    showProgress(1);
+                    params.set('jobId', state.id);
+                    window.location.href = form.getAttribute('action') + '?' + params.toString();
+                } else {
+                    bar.innerText = state.status + (state.error ? ': ' + state.error : '');
+                }
+            });
+        })
+        .catch(error => {
+            console.error('Refinement job error:', error);
+            bar.innerText = error.message;
+        });
+}
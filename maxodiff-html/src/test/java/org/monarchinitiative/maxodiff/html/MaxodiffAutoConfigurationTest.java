@@ -2,14 +2,19 @@ package org.monarchinitiative.maxodiff.html;
 
 import org.junit.jupiter.api.Test;
 import org.monarchinitiative.maxodiff.config.MaxodiffDataResolver;
+import org.monarchinitiative.maxodiff.core.analysis.refinement.RefinementResultsCache;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisCache;
 import org.monarchinitiative.maxodiff.core.service.BiometadataService;
 import org.monarchinitiative.maxodiff.html.config.MaxodiffAutoConfiguration;
 import org.monarchinitiative.maxodiff.html.config.MaxodiffProperties;
 import org.monarchinitiative.maxodiff.html.controller.SessionResultsController;
 import org.monarchinitiative.maxodiff.html.service.DifferentialDiagnosisEngineService;
+import org.monarchinitiative.maxodiff.html.service.RefinementJobService;
+import org.monarchinitiative.maxodiff.phenomizer.ScoringMode;
 import org.springframework.beans.factory.BeanCreationException;
 
 import java.io.File;
+import java.time.Duration;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.Matchers.*;
@@ -56,6 +61,31 @@ public class MaxodiffAutoConfigurationTest extends AbstractAutoConfigurationTest
         assertThat(properties.getWeight(), is(closeTo(0.00123, 1e-9)));
     }
 
+    @Test
+    public void testWeCanOverrideJobPropertyValues() {
+        load(MaxodiffAutoConfiguration.class,
+                "maxodiff.data-directory=" + TEST_DATA,
+                "maxodiff.job-parallelism=3",
+                "maxodiff.job-queue-capacity=5",
+                "maxodiff.job-retention=10m",
+                "maxodiff.job-timeout=30s",
+                "maxodiff.result-cache-size=12",
+                "maxodiff.result-cache-ttl=2h",
+                "maxodiff.diagnosis-cache-size=7"
+        );
+
+        MaxodiffProperties properties = context.getBean(MaxodiffProperties.class);
+
+        assertThat(properties.getJobParallelism(), equalTo(3));
+        assertThat(properties.getJobQueueCapacity(), equalTo(5));
+        assertThat(properties.getJobRetention(), equalTo(Duration.ofMinutes(10)));
+        assertThat(properties.getJobTimeout(), equalTo(Duration.ofSeconds(30)));
+        assertThat(properties.getResultCacheSize(), equalTo(12));
+        assertThat(properties.getResultCacheTtl(), equalTo(Duration.ofHours(2)));
+        assertThat(properties.getResultCacheDirectory(), is(nullValue()));
+        assertThat(properties.getDiagnosisCacheSize(), equalTo(7));
+    }
+
     @Test
     public void testAppIsReadyToGo() {
         load(Main.class, "maxodiff.data-directory=" + TEST_DATA);
@@ -64,5 +94,20 @@ public class MaxodiffAutoConfigurationTest extends AbstractAutoConfigurationTest
         assertThat(context.getBean(BiometadataService.class), is(notNullValue()));
         assertThat(context.getBean(DifferentialDiagnosisEngineService.class), is(notNullValue()));
         assertThat(context.getBean(SessionResultsController.class), is(notNullValue()));
+        assertThat(context.getBean(RefinementJobService.class), is(notNullValue()));
+        assertThat(context.getBean(RefinementResultsCache.class), is(notNullValue()));
+        assertThat(context.getBean(DifferentialDiagnosisCache.class), is(notNullValue()));
+    }
+
+    @Test
+    public void testPhenomizerEnginesAreShared() {
+        load(MaxodiffAutoConfiguration.class, "maxodiff.data-directory=" + TEST_DATA);
+
+        DifferentialDiagnosisEngineService service = context.getBean(DifferentialDiagnosisEngineService.class);
+
+        for (ScoringMode scoringMode : ScoringMode.values()) {
+            assertThat(service.getPhenomizerEngine(scoringMode).isPresent(), is(true));
+            assertThat(service.getPhenomizerEngine(scoringMode).get(), is(sameInstance(service.getPhenomizerEngine(scoringMode).get())));
+        }
     }
 }
@@ -0,0 +1,59 @@
+package org.monarchinitiative.maxodiff.html.service;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RefinementJobTest {
+
+    private static final RefinementJobResult RESULT = new RefinementJobResult(List.of(), List.of(), Map.of(), Map.of(), List.of(), false);
+
+    @Test
+    public void completedJobHasResults() {
+        RefinementJob job = new RefinementJob("a", null, Instant.now());
+        assertThat(job.state(), equalTo(new RefinementJobState("a", RefinementJobStatus.QUEUED, 0., null)));
+
+        assertThat(job.start(CancellationToken.create()), is(true));
+        job.complete(RESULT);
+
+        assertThat(job.state(), equalTo(new RefinementJobState("a", RefinementJobStatus.COMPLETED, 1., null)));
+        assertThat(job.result().isPresent(), is(true));
+        assertThat(job.finished().isPresent(), is(true));
+    }
+
+    @Test
+    public void cancelledJobDoesNotStart() {
+        RefinementJob job = new RefinementJob("a", null, Instant.now());
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        job.future(future);
+
+        assertThat(job.cancel(), is(true));
+
+        assertThat(future.isCancelled(), is(true));
+        assertThat(job.start(CancellationToken.create()), is(false));
+        assertThat(job.status(), equalTo(RefinementJobStatus.CANCELLED));
+    }
+
+    @Test
+    public void cancelledJobIgnoresLateResults() {
+        RefinementJob job = new RefinementJob("a", null, Instant.now());
+        CancellationToken cancellation = CancellationToken.create();
+        job.start(cancellation);
+
+        assertThat(job.cancel(), is(true));
+        assertThat(cancellation.isCancelled(), is(true));
+        job.complete(RESULT);
+        job.fail("Interrupted");
+
+        assertThat(job.state(), equalTo(new RefinementJobState("a", RefinementJobStatus.CANCELLED, 0., null)));
+        assertThat(job.result().isPresent(), is(false));
+        assertThat(job.cancel(), is(false));
+    }
+}
@@ -0,0 +1,66 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.monarchinitiative.lirical.core.likelihoodratio.InducedDiseaseGraph;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of {@link InducedDiseaseGraph}s keyed by the disease id.
+ * <p>
+ * The graphs are computed outside of the lock, hence a graph can be computed more than once
+ * by the concurrent threads. The graphs are immutable, and the first cached graph is used.
+ * <p>
+ * The cache is thread-safe.
+ */
+final class InducedDiseaseGraphCache {
+
+    private final int maxSize;
+    private final Map<TermId, InducedDiseaseGraph> graphs;
+
+    InducedDiseaseGraphCache(InducedDiseaseGraphCacheOptions options) {
+        this.maxSize = options.maxSize();
+        boolean accessOrder = options.eviction() == InducedDiseaseGraphCacheOptions.Eviction.LRU;
+        this.graphs = new LinkedHashMap<>(16, .75f, accessOrder) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TermId, InducedDiseaseGraph> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached graph of the {@code disease} or the graph computed by the {@code factory}.
+     */
+    InducedDiseaseGraph get(HpoDisease disease, Function<HpoDisease, InducedDiseaseGraph> factory) {
+        if (maxSize == 0)
+            return factory.apply(disease);
+
+        InducedDiseaseGraph graph;
+        synchronized (graphs) {
+            graph = graphs.get(disease.id());
+        }
+        if (graph == null) {
+            InducedDiseaseGraph created = factory.apply(disease);
+            synchronized (graphs) {
+                graph = graphs.putIfAbsent(disease.id(), created);
+            }
+            if (graph == null)
+                graph = created;
+        }
+        return graph;
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    int size() {
+        synchronized (graphs) {
+            return graphs.size();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import java.util.Objects;
+
+/**
+ * Options of the cache of the induced disease graphs used by {@link MaxodiffLiricalAnalysisRunnerImpl}.
+ *
+ * @param maxSize the maximum number of cached graphs, {@code 0} disables the cache.
+ * @param eviction the choice of the graph to evict when the cache is full.
+ * @param warmUp {@code true} if the graphs of all diseases should be computed when the cache is configured.
+ *               The cache then holds at least as many graphs as there are diseases.
+ */
+public record InducedDiseaseGraphCacheOptions(int maxSize, Eviction eviction, boolean warmUp) {
+
+    /**
+     * The default number of cached graphs, enough for the diseases of a few samples.
+     */
+    public static final int DEFAULT_MAX_SIZE = 2_048;
+
+    private static final InducedDiseaseGraphCacheOptions DEFAULT = new InducedDiseaseGraphCacheOptions(DEFAULT_MAX_SIZE, Eviction.LRU, false);
+
+    public static InducedDiseaseGraphCacheOptions defaultOptions() {
+        return DEFAULT;
+    }
+
+    public static InducedDiseaseGraphCacheOptions disabled() {
+        return new InducedDiseaseGraphCacheOptions(0, Eviction.LRU, false);
+    }
+
+    public InducedDiseaseGraphCacheOptions {
+        if (maxSize < 0)
+            throw new IllegalArgumentException("Max size must not be negative: " + maxSize);
+        Objects.requireNonNull(eviction, "Eviction must not be null");
+    }
+
+    public enum Eviction {
+        /**
+         * Evict the least recently used graph.
+         */
+        LRU,
+        /**
+         * Evict the graph that was cached first.
+         */
+        FIFO
+    }
+}
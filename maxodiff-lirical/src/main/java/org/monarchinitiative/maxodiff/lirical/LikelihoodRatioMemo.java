@@ -0,0 +1,48 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanation;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Memo of the phenotype likelihood ratios of a sample keyed by the disease, the phenotype term,
+ * and whether the term was observed or excluded.
+ * <p>
+ * The likelihood ratio of a term only depends on the disease and on the term, hence the memo can be shared
+ * by the analyses of the sample updated with different terms. The memo is meant to live as long as the analysis
+ * of a sample, and it is not bounded.
+ * <p>
+ * The memo is thread-safe.
+ */
+public final class LikelihoodRatioMemo {
+
+    private final ConcurrentMap<Key, LrWithExplanation> lrs = new ConcurrentHashMap<>();
+
+    public static LikelihoodRatioMemo create() {
+        return new LikelihoodRatioMemo();
+    }
+
+    private LikelihoodRatioMemo() {
+    }
+
+    LrWithExplanation observed(TermId diseaseId, TermId termId, Supplier<LrWithExplanation> lr) {
+        return lrs.computeIfAbsent(new Key(diseaseId, termId, true), k -> lr.get());
+    }
+
+    LrWithExplanation excluded(TermId diseaseId, TermId termId, Supplier<LrWithExplanation> lr) {
+        return lrs.computeIfAbsent(new Key(diseaseId, termId, false), k -> lr.get());
+    }
+
+    /**
+     * @return the number of memoized likelihood ratios.
+     */
+    public int size() {
+        return lrs.size();
+    }
+
+    private record Key(TermId diseaseId, TermId termId, boolean observed) {
+    }
+}
@@ -6,6 +6,7 @@ import org.monarchinitiative.lirical.core.analysis.AnalysisResults;
 import org.monarchinitiative.lirical.core.analysis.LiricalAnalysisException;
 import org.monarchinitiative.lirical.core.model.GenesAndGenotypes;
 import org.monarchinitiative.lirical.core.model.Sex;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngineException;
 import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
@@ -19,10 +20,23 @@ public class LiricalDifferentialDiagnosisEngine implements DifferentialDiagnosis
 
     private final AnalysisOptions options;
     private final MaxodiffLiricalAnalysisRunner maxodiffRunner;
+    private final String configurationId;
 
     public LiricalDifferentialDiagnosisEngine(MaxodiffLiricalAnalysisRunner maxodiffRunner, AnalysisOptions options) {
+        this(maxodiffRunner, options, null);
+    }
+
+    /**
+     * @param configurationId identifier of the {@code options} or {@code null} if the results of the engine
+     *                        should not be reused. The pretest probabilities of the options cannot be compared,
+     *                        hence the identifier is given by the creator of the options.
+     * @see DifferentialDiagnosisEngine#configurationId()
+     */
+    public LiricalDifferentialDiagnosisEngine(MaxodiffLiricalAnalysisRunner maxodiffRunner, AnalysisOptions options,
+                                              String configurationId) {
         this.options = Objects.requireNonNull(options);
         this.maxodiffRunner = Objects.requireNonNull(maxodiffRunner);
+        this.configurationId = configurationId;
     }
 
     public List<DifferentialDiagnosis> run(Sample sample) {
@@ -32,12 +46,7 @@ public class LiricalDifferentialDiagnosisEngine implements DifferentialDiagnosis
     public List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> diseaseIds) {
 
         // Get LIRICAL AnalysisData from sample
-        AnalysisData analysisData = AnalysisData.of(sample.id(),
-                null,
-                Sex.UNKNOWN,
-                sample.presentHpoTermIds(),
-                sample.excludedHpoTermIds(),
-                GenesAndGenotypes.empty());
+        AnalysisData analysisData = toAnalysisData(sample);
 
 
         Set<TermId> diseaseIdsSet = null;
@@ -46,6 +55,58 @@ public class LiricalDifferentialDiagnosisEngine implements DifferentialDiagnosis
         AnalysisResults results = getLiricalAnalysisResults(analysisData, diseaseIdsSet);
         // Get Differential Diagnoses from LIRICAL AnalysisResults
         assert results != null;
+        return toDifferentialDiagnoses(results);
+    }
+
+    @Override
+    public DifferentialDiagnosisBaseline baseline(Sample sample, Collection<TermId> diseaseIds) {
+        Sample distinct = DifferentialDiagnosisBaseline.distinctTerms(sample);
+        AnalysisResults results = getLiricalAnalysisResults(toAnalysisData(distinct),
+                diseaseIds == null ? null : new HashSet<>(diseaseIds));
+        return new LiricalBaseline(this, distinct, diseaseIds, toDifferentialDiagnoses(results), results,
+                LikelihoodRatioMemo.create());
+    }
+
+    /**
+     * Update the likelihood ratios of the baseline with the likelihood ratios of the added terms.
+     * The likelihood ratios of the added terms are memoized by the baseline, hence the repeated updates
+     * with the same terms only look the ratios up.
+     */
+    @Override
+    public List<DifferentialDiagnosis> runIncremental(DifferentialDiagnosisBaseline baseline,
+                                                      Collection<TermId> addedObserved,
+                                                      Collection<TermId> addedExcluded) {
+        if (!(baseline instanceof LiricalBaseline lb) || lb.engine() != this)
+            return DifferentialDiagnosisEngine.super.runIncremental(baseline, addedObserved, addedExcluded);
+
+        Collection<TermId> present = lb.sample().presentHpoTermIds();
+        Collection<TermId> excluded = lb.sample().excludedHpoTermIds();
+        List<TermId> addedPresent = addedObserved.stream()
+                .distinct()
+                .filter(termId -> !present.contains(termId))
+                .toList();
+        List<TermId> addedNegated = addedExcluded.stream()
+                .distinct()
+                .filter(termId -> !excluded.contains(termId))
+                .toList();
+
+        try {
+            return toDifferentialDiagnoses(maxodiffRunner.updateWithTermIds(lb.results(), addedPresent, addedNegated, lb.memo()));
+        } catch (LiricalAnalysisException e) {
+            throw new DifferentialDiagnosisEngineException(e);
+        }
+    }
+
+    private static AnalysisData toAnalysisData(Sample sample) {
+        return AnalysisData.of(sample.id(),
+                null,
+                Sex.UNKNOWN,
+                sample.presentHpoTermIds(),
+                sample.excludedHpoTermIds(),
+                GenesAndGenotypes.empty());
+    }
+
+    private static List<DifferentialDiagnosis> toDifferentialDiagnoses(AnalysisResults results) {
         return results.resultsWithDescendingPostTestProbability()
                 .map(tr -> DifferentialDiagnosis.of(tr.diseaseId(), tr.posttestProbability(), tr.getCompositeLR()))
                 .toList();
@@ -67,4 +128,23 @@ public class LiricalDifferentialDiagnosisEngine implements DifferentialDiagnosis
         return options;
     }
 
+    @Override
+    public Optional<String> configurationId() {
+        return Optional.ofNullable(configurationId);
+    }
+
+    /**
+     * The LIRICAL results of the baseline sample with the likelihood ratios of each term
+     * and the memo of the likelihood ratios of the added terms.
+     */
+    private record LiricalBaseline(
+            LiricalDifferentialDiagnosisEngine engine,
+            Sample sample,
+            Collection<TermId> targetDiseases,
+            List<DifferentialDiagnosis> diagnoses,
+            AnalysisResults results,
+            LikelihoodRatioMemo memo
+    ) implements DifferentialDiagnosisBaseline {
+    }
+
 }
@@ -1,8 +1,17 @@
 package org.monarchinitiative.maxodiff.lirical;
 
 import org.monarchinitiative.lirical.core.analysis.AnalysisOptions;
+import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
+import org.monarchinitiative.lirical.core.service.PhenotypeService;
+import org.monarchinitiative.phenol.ontology.data.TermId;
 
-/**
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+    /**
  * Configure {@link LiricalDifferentialDiagnosisEngine} for running LIRICAL analysis
  * with specific parameter/option setup.
  */
@@ -14,6 +23,16 @@ public class LiricalDifferentialDiagnosisEngineConfigurer {
         return new LiricalDifferentialDiagnosisEngineConfigurer(maxodiffLiricalAnalysisRunner);
     }
 
+    /**
+     * Create the configurer and configure the cache of the induced disease graphs of the {@code maxodiffLiricalAnalysisRunner}.
+     * The cache is shared by all engines configured by the configurer.
+     */
+    public static LiricalDifferentialDiagnosisEngineConfigurer of(MaxodiffLiricalAnalysisRunner maxodiffLiricalAnalysisRunner,
+                                                                  InducedDiseaseGraphCacheOptions cacheOptions) {
+        maxodiffLiricalAnalysisRunner.configureInducedDiseaseGraphCache(cacheOptions);
+        return new LiricalDifferentialDiagnosisEngineConfigurer(maxodiffLiricalAnalysisRunner);
+    }
+
     private LiricalDifferentialDiagnosisEngineConfigurer(MaxodiffLiricalAnalysisRunner maxodiffLiricalAnalysisRunner) {
         this.maxodiffLiricalAnalysisRunner = maxodiffLiricalAnalysisRunner;
     }
@@ -22,6 +41,48 @@ public class LiricalDifferentialDiagnosisEngineConfigurer {
         return new LiricalDifferentialDiagnosisEngine(maxodiffLiricalAnalysisRunner, options);
     }
 
+    /**
+     * Configure the engine for scoring the {@code diseaseIds} with the uniform pretest probability,
+     * the initial differential diagnosis over all diseases. The engines configured with the same arguments
+     * and the same LIRICAL data share the {@link LiricalDifferentialDiagnosisEngine#configurationId()},
+     * hence their results can be reused.
+     */
+    public LiricalDifferentialDiagnosisEngine configureUniform(Set<TermId> diseaseIds, boolean strict, boolean global) {
+        AnalysisOptions options = AnalysisOptions.builder()
+                .useStrictPenalties(strict)
+                .useGlobal(global)
+                .pretestProbability(PretestDiseaseProbabilities.uniform(diseaseIds))
+                .build();
+        String configurationId = configurationId(diseaseIds, strict, global);
+        return new LiricalDifferentialDiagnosisEngine(maxodiffLiricalAnalysisRunner, options, configurationId);
+    }
+
+    /**
+     * @return the id of the uniform configuration with the digest of the {@code diseaseIds}
+     * and the versions of the HPO and of the disease annotations used by LIRICAL.
+     */
+    private String configurationId(Set<TermId> diseaseIds, boolean strict, boolean global) {
+        PhenotypeService phenotypeService = maxodiffLiricalAnalysisRunner.phenotypeService();
+        return "lirical:strict=%b,global=%b,diseases=%d:%s,hpo=%s,hpoa=%s".formatted(strict, global,
+                diseaseIds.size(), digest(diseaseIds),
+                phenotypeService.hpo().version().orElse("N/A"),
+                phenotypeService.diseases().version().orElse("N/A"));
+    }
+
+    /**
+     * @return SHA-256 of the sorted disease ids as a hex string.
+     */
+    private static String digest(Set<TermId> diseaseIds) {
+        String ids = String.join(",", diseaseIds.stream().map(TermId::getValue).sorted().toList());
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(ids.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
 //    public LiricalDifferentialDiagnosisEngine configure(AnalysisOptions options, Set<TermId> diseaseIds) {
 //        return new LiricalDifferentialDiagnosisEngine(maxodiffLiricalAnalysisRunner, options, diseaseIds);
 //    }
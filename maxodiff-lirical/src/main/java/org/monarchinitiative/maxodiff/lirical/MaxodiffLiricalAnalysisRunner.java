@@ -1,8 +1,10 @@
 package org.monarchinitiative.maxodiff.lirical;
 
 import org.monarchinitiative.lirical.core.analysis.*;
+import org.monarchinitiative.lirical.core.service.PhenotypeService;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -27,4 +29,45 @@ public interface MaxodiffLiricalAnalysisRunner extends LiricalAnalysisRunner {
 
     AnalysisResults runWithTermIds(AnalysisData analysisData, AnalysisOptions analysisOptions, Set<TermId> diseaseIds) throws LiricalAnalysisException;
 
+    /**
+     * Update the {@code baseline} results with the likelihood ratios of additional present and excluded terms.
+     * Only the likelihood ratios of the added terms are computed, the likelihood ratios of the baseline terms
+     * and the pretest probabilities are reused.
+     *
+     * @param baseline results of {@link #run(AnalysisData, AnalysisOptions)}
+     *                 or {@link #runWithTermIds(AnalysisData, AnalysisOptions, Set)}.
+     * @param addedPresent the terms observed in addition to the present terms of the baseline analysis.
+     * @param addedExcluded the terms excluded in addition to the excluded terms of the baseline analysis.
+     * @return a container with the updated results for each disease of the {@code baseline}
+     * @throws LiricalAnalysisException if the analysis cannot be run
+     */
+    default AnalysisResults updateWithTermIds(AnalysisResults baseline, List<TermId> addedPresent, List<TermId> addedExcluded) throws LiricalAnalysisException {
+        return updateWithTermIds(baseline, addedPresent, addedExcluded, LikelihoodRatioMemo.create());
+    }
+
+    /**
+     * Update the {@code baseline} results with the likelihood ratios of additional present and excluded terms,
+     * using the likelihood ratios of the {@code memo}. The likelihood ratios computed by the update are added
+     * to the {@code memo}, hence the repeated updates of the same sample only compute the likelihood ratios
+     * of the terms that were not added before.
+     *
+     * @see #updateWithTermIds(AnalysisResults, List, List)
+     */
+    AnalysisResults updateWithTermIds(AnalysisResults baseline,
+                                      List<TermId> addedPresent,
+                                      List<TermId> addedExcluded,
+                                      LikelihoodRatioMemo memo) throws LiricalAnalysisException;
+
+    /**
+     * Replace the cache of the induced disease graphs with a cache configured by the {@code options}.
+     * The graphs of all diseases are computed before returning if {@link InducedDiseaseGraphCacheOptions#warmUp()}
+     * is {@code true}, and the cache is enlarged to fit the diseases if needed.
+     */
+    void configureInducedDiseaseGraphCache(InducedDiseaseGraphCacheOptions options);
+
+    /**
+     * @return the phenotype service with the HPO and the diseases analyzed by the runner.
+     */
+    PhenotypeService phenotypeService();
+
 }
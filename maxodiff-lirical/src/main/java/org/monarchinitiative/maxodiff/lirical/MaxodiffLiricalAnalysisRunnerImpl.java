@@ -4,6 +4,7 @@ import org.monarchinitiative.lirical.core.analysis.*;
 import org.monarchinitiative.lirical.core.likelihoodratio.*;
 import org.monarchinitiative.lirical.core.model.Gene2Genotype;
 import org.monarchinitiative.lirical.core.service.PhenotypeService;
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
 import org.monarchinitiative.phenol.ontology.data.TermId;
@@ -11,18 +12,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class MaxodiffLiricalAnalysisRunnerImpl implements MaxodiffLiricalAnalysisRunner {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MaxodiffLiricalAnalysisRunnerImpl.class);
+    /**
+     * The diseases are analyzed on the calling thread if there are at most this many diseases,
+     * e.g. the differential diagnoses of a sample in the MAxO term refinement.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 64;
 
     private final PhenotypeService phenotypeService;
     private final PhenotypeLikelihoodRatio phenotypeLrEvaluator;
     private final ForkJoinPool pool;
+    private volatile InducedDiseaseGraphCache idgCache = new InducedDiseaseGraphCache(InducedDiseaseGraphCacheOptions.defaultOptions());
 
     public static MaxodiffLiricalAnalysisRunnerImpl of(PhenotypeService phenotypeService,
                                                        int parallelism) {
@@ -40,6 +49,44 @@ public class MaxodiffLiricalAnalysisRunnerImpl implements MaxodiffLiricalAnalysi
         this.pool = new ForkJoinPool(parallelism, LiricalWorkerThread::new, null, false);
     }
 
+    @Override
+    public void configureInducedDiseaseGraphCache(InducedDiseaseGraphCacheOptions options) {
+        List<HpoDisease> diseases = options.warmUp() && options.maxSize() > 0
+                ? phenotypeService.diseases().hpoDiseases().toList()
+                : List.of();
+        // Warming up a smaller cache would evict the graphs computed first.
+        if (options.maxSize() < diseases.size()) {
+            LOGGER.info("Increasing the induced disease graph cache size from {} to {} to warm up all diseases",
+                    options.maxSize(), diseases.size());
+            options = new InducedDiseaseGraphCacheOptions(Math.max(options.maxSize(), diseases.size()), options.eviction(), true);
+        }
+        InducedDiseaseGraphCache cache = new InducedDiseaseGraphCache(options);
+        LOGGER.debug("Caching up to {} induced disease graph(s) with {} eviction.", options.maxSize(), options.eviction());
+        if (!diseases.isEmpty()) {
+            LOGGER.info("Computing induced disease graphs of {} disease(s)", diseases.size());
+            try {
+                pool.submit(() -> diseases.parallelStream().forEach(disease -> cache.get(disease, this::createInducedDiseaseGraph)))
+                        .get();
+            } catch (InterruptedException | ExecutionException e) {
+                LOGGER.warn("Unable to compute induced disease graphs: {}", e.getMessage(), e);
+            }
+            LOGGER.info("Cached {} induced disease graph(s)", cache.size());
+        }
+        this.idgCache = cache;
+    }
+
+    /**
+     * @return the number of the cached induced disease graphs.
+     */
+    int inducedDiseaseGraphCacheSize() {
+        return idgCache.size();
+    }
+
+    @Override
+    public PhenotypeService phenotypeService() {
+        return phenotypeService;
+    }
+
     @Override
     public AnalysisResults run(AnalysisData data, AnalysisOptions options) throws LiricalAnalysisException {
 
@@ -63,11 +110,24 @@ public class MaxodiffLiricalAnalysisRunnerImpl implements MaxodiffLiricalAnalysi
 
         GenotypeLikelihoodRatio genotypeLikelihoodRatio = null;
 
+        List<HpoDisease> diseases = resolveDiseases(diseaseIds);
+        // The fork-join workers do not see the token bound to the calling thread.
+        CancellationToken cancellation = CancellationToken.current();
+        if (diseases.size() <= SEQUENTIAL_THRESHOLD) {
+            // The fork-join overhead outweighs the analysis of a few diseases.
+            List<TestResult> results = new ArrayList<>(diseases.size());
+            for (HpoDisease disease : diseases) {
+                cancellation.throwIfStopped();
+                analyzeDisease(genotypeLikelihoodRatio, disease, data, options, diseaseToGenotype)
+                        .ifPresent(results::add);
+            }
+            return AnalysisResults.of(results);
+        }
+
         ProgressReporter progressReporter = new ProgressReporter(1_000, "diseases");
-        Stream<TestResult> testResultStream = phenotypeService.diseases().hpoDiseases()
-                .parallel() // why not?
-                .filter(disease -> diseaseIds.contains(disease.id()))
+        Stream<TestResult> testResultStream = diseases.parallelStream()
                 .peek(d -> progressReporter.log())
+                .peek(d -> cancellation.throwIfStopped())
                 .map(disease -> analyzeDisease(genotypeLikelihoodRatio, disease, data, options, diseaseToGenotype))
                 .flatMap(Optional::stream);
 
@@ -75,12 +135,98 @@ public class MaxodiffLiricalAnalysisRunnerImpl implements MaxodiffLiricalAnalysi
             List<TestResult> results = pool.submit(testResultStream::toList).get();
             progressReporter.summarize();
             return AnalysisResults.of(results);
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (ExecutionException e) {
+            rethrowCancellation(e);
+            LOGGER.error(e.getMessage(), e);
+            return AnalysisResults.empty();
+        } catch (InterruptedException e) {
+            LOGGER.error(e.getMessage(), e);
+            return AnalysisResults.empty();
+        }
+    }
+
+    /**
+     * @return the diseases with the {@code diseaseIds}, looked up by id. The unknown ids are skipped.
+     */
+    private List<HpoDisease> resolveDiseases(Set<TermId> diseaseIds) {
+        List<HpoDisease> diseases = new ArrayList<>(diseaseIds.size());
+        for (TermId diseaseId : diseaseIds) {
+            phenotypeService.diseases().diseaseById(diseaseId)
+                    .ifPresent(diseases::add);
+        }
+        return diseases;
+    }
+
+    @Override
+    public AnalysisResults updateWithTermIds(AnalysisResults baseline,
+                                             List<TermId> addedPresent,
+                                             List<TermId> addedExcluded,
+                                             LikelihoodRatioMemo memo) throws LiricalAnalysisException {
+        CancellationToken cancellation = CancellationToken.current();
+        if (baseline.size() <= SEQUENTIAL_THRESHOLD) {
+            cancellation.throwIfStopped();
+            return AnalysisResults.of(baseline.results()
+                    .map(result -> updateResult(result, addedPresent, addedExcluded, memo))
+                    .toList());
+        }
+
+        Stream<TestResult> testResultStream = baseline.results()
+                .parallel()
+                .peek(result -> cancellation.throwIfStopped())
+                .map(result -> updateResult(result, addedPresent, addedExcluded, memo));
+
+        try {
+            List<TestResult> results = pool.submit(testResultStream::toList).get();
+            return AnalysisResults.of(results);
+        } catch (ExecutionException e) {
+            rethrowCancellation(e);
+            LOGGER.error(e.getMessage(), e);
+            return AnalysisResults.empty();
+        } catch (InterruptedException e) {
             LOGGER.error(e.getMessage(), e);
             return AnalysisResults.empty();
         }
     }
 
+    /**
+     * Propagate the cancellation of the analysis instead of returning empty results.
+     */
+    private static void rethrowCancellation(ExecutionException e) {
+        if (e.getCause() instanceof CancellationException ce)
+            throw ce;
+    }
+
+    private TestResult updateResult(TestResult result,
+                                    List<TermId> addedPresent,
+                                    List<TermId> addedExcluded,
+                                    LikelihoodRatioMemo memo) {
+        if (addedPresent.isEmpty() && addedExcluded.isEmpty())
+            return result;
+
+        TermId diseaseId = result.diseaseId();
+        // The graph is only needed for the terms missing from the memo.
+        InducedDiseaseGraph[] idg = new InducedDiseaseGraph[1];
+        Supplier<InducedDiseaseGraph> graph = () -> {
+            if (idg[0] == null) {
+                HpoDisease disease = phenotypeService.diseases().diseaseById(diseaseId)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown disease %s".formatted(diseaseId)));
+                idg[0] = idgCache.get(disease, this::createInducedDiseaseGraph);
+            }
+            return idg[0];
+        };
+
+        List<LrWithExplanation> observed = new ArrayList<>(result.observedResults());
+        for (TermId phenotype : addedPresent) {
+            observed.add(memo.observed(diseaseId, phenotype, () -> phenotypeLrEvaluator.lrForObservedTerm(phenotype, graph.get())));
+        }
+        List<LrWithExplanation> excluded = new ArrayList<>(result.excludedResults());
+        for (TermId phenotype : addedExcluded) {
+            excluded.add(memo.excluded(diseaseId, phenotype, () -> phenotypeLrEvaluator.lrForExcludedTerm(phenotype, graph.get())));
+        }
+
+        return TestResult.of(result.diseaseId(), result.pretestProbability(), observed, excluded, result.genotypeLr().orElse(null));
+    }
+
     private Optional<TestResult> analyzeDisease(GenotypeLikelihoodRatio genotypeLikelihoodRatio,
                                                 HpoDisease disease,
                                                 AnalysisData analysisData,
@@ -95,7 +241,7 @@ public class MaxodiffLiricalAnalysisRunnerImpl implements MaxodiffLiricalAnalysi
 
         List<Gene2Genotype> genotypes = diseaseToGenotype.getOrDefault(disease.id(), List.of());
 
-        InducedDiseaseGraph idg = InducedDiseaseGraph.create(disease, phenotypeService.hpo());
+        InducedDiseaseGraph idg = idgCache.get(disease, this::createInducedDiseaseGraph);
         List<LrWithExplanation> observed = observedPhenotypesLikelihoodRatios(analysisData.presentPhenotypeTerms(), idg);
         List<LrWithExplanation> excluded = excludedPhenotypesLikelihoodRatios(analysisData.negatedPhenotypeTerms(), idg);
 
@@ -135,6 +281,9 @@ public class MaxodiffLiricalAnalysisRunnerImpl implements MaxodiffLiricalAnalysi
         return Optional.of(TestResult.of(disease.id(), pretestProbability, observed, excluded, bestGenotypeLr));
     }
 
+    private InducedDiseaseGraph createInducedDiseaseGraph(HpoDisease disease) {
+        return InducedDiseaseGraph.create(disease, phenotypeService.hpo());
+    }
 
     private List<LrWithExplanation> observedPhenotypesLikelihoodRatios(List<TermId> phenotypes, InducedDiseaseGraph idg) {
         return phenotypes.stream()
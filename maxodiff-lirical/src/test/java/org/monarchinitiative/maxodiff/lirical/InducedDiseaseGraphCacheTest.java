@@ -0,0 +1,134 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.likelihoodratio.InducedDiseaseGraph;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class InducedDiseaseGraphCacheTest {
+
+    private static final HpoDisease DISEASE_A = disease("OMIM:100000");
+    private static final HpoDisease DISEASE_B = disease("OMIM:200000");
+    private static final HpoDisease DISEASE_C = disease("OMIM:300000");
+
+    @Test
+    public void disabledCacheComputesTheGraphEachTime() {
+        InducedDiseaseGraphCache cache = new InducedDiseaseGraphCache(InducedDiseaseGraphCacheOptions.disabled());
+        CountingFactory factory = new CountingFactory();
+
+        InducedDiseaseGraph first = cache.get(DISEASE_A, factory);
+        InducedDiseaseGraph second = cache.get(DISEASE_A, factory);
+
+        assertNotSame(first, second);
+        assertEquals(2, factory.count(DISEASE_A));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void lruEvictsTheLeastRecentlyUsedGraph() {
+        InducedDiseaseGraphCache cache = cache(InducedDiseaseGraphCacheOptions.Eviction.LRU);
+        CountingFactory factory = new CountingFactory();
+
+        InducedDiseaseGraph a = cache.get(DISEASE_A, factory);
+        InducedDiseaseGraph b = cache.get(DISEASE_B, factory);
+        assertSame(a, cache.get(DISEASE_A, factory));
+        cache.get(DISEASE_C, factory);
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get(DISEASE_A, factory));
+        assertEquals(1, factory.count(DISEASE_A));
+        assertNotSame(b, cache.get(DISEASE_B, factory));
+        assertEquals(2, factory.count(DISEASE_B));
+    }
+
+    @Test
+    public void fifoEvictsTheEldestGraph() {
+        InducedDiseaseGraphCache cache = cache(InducedDiseaseGraphCacheOptions.Eviction.FIFO);
+        CountingFactory factory = new CountingFactory();
+
+        InducedDiseaseGraph a = cache.get(DISEASE_A, factory);
+        InducedDiseaseGraph b = cache.get(DISEASE_B, factory);
+        assertSame(a, cache.get(DISEASE_A, factory));
+        cache.get(DISEASE_C, factory);
+
+        assertEquals(2, cache.size());
+        assertSame(b, cache.get(DISEASE_B, factory));
+        assertEquals(1, factory.count(DISEASE_B));
+        assertNotSame(a, cache.get(DISEASE_A, factory));
+        assertEquals(2, factory.count(DISEASE_A));
+    }
+
+    @Test
+    public void concurrentGetsReturnTheFirstCachedGraph() throws Exception {
+        InducedDiseaseGraphCache cache = cache(InducedDiseaseGraphCacheOptions.Eviction.LRU);
+        int nThreads = 8;
+        // All threads miss the cache and compute their own graph before any of them caches it.
+        CountDownLatch computing = new CountDownLatch(nThreads);
+        CountingFactory counting = new CountingFactory();
+        Function<HpoDisease, InducedDiseaseGraph> factory = disease -> {
+            InducedDiseaseGraph graph = counting.apply(disease);
+            computing.countDown();
+            try {
+                assertTrue(computing.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return graph;
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<InducedDiseaseGraph>> futures = new ArrayList<>(nThreads);
+            for (int i = 0; i < nThreads; i++) {
+                futures.add(executor.submit(() -> cache.get(DISEASE_A, factory)));
+            }
+
+            InducedDiseaseGraph first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<InducedDiseaseGraph> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(nThreads, counting.count(DISEASE_A));
+            assertEquals(1, cache.size());
+            assertSame(first, cache.get(DISEASE_A, counting));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static InducedDiseaseGraphCache cache(InducedDiseaseGraphCacheOptions.Eviction eviction) {
+        return new InducedDiseaseGraphCache(new InducedDiseaseGraphCacheOptions(2, eviction, false));
+    }
+
+    private static HpoDisease disease(String diseaseId) {
+        TermId id = TermId.of(diseaseId);
+        return HpoDisease.of(id, diseaseId, null, List.of(), List.of());
+    }
+
+    /**
+     * Creates a new stub graph on each call and counts the calls per disease.
+     */
+    private static class CountingFactory implements Function<HpoDisease, InducedDiseaseGraph> {
+
+        private final ConcurrentMap<TermId, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        @Override
+        public InducedDiseaseGraph apply(HpoDisease disease) {
+            counts.computeIfAbsent(disease.id(), id -> new AtomicInteger()).incrementAndGet();
+            return mock(InducedDiseaseGraph.class);
+        }
+
+        int count(HpoDisease disease) {
+            AtomicInteger count = counts.get(disease.id());
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanation;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class LikelihoodRatioMemoTest {
+
+    private static final TermId DISEASE_A = TermId.of("OMIM:100000");
+    private static final TermId DISEASE_B = TermId.of("OMIM:200000");
+    private static final TermId TERM = TermId.of("HP:0001166");
+
+    @Test
+    public void likelihoodRatioIsComputedOnce() {
+        LikelihoodRatioMemo memo = LikelihoodRatioMemo.create();
+        AtomicInteger computed = new AtomicInteger();
+        Supplier<LrWithExplanation> lr = () -> {
+            computed.incrementAndGet();
+            return mock(LrWithExplanation.class);
+        };
+
+        LrWithExplanation first = memo.observed(DISEASE_A, TERM, lr);
+        LrWithExplanation second = memo.observed(DISEASE_A, TERM, lr);
+
+        assertSame(first, second);
+        assertEquals(1, computed.get());
+        assertEquals(1, memo.size());
+    }
+
+    @Test
+    public void observedAndExcludedLikelihoodRatiosAreSeparate() {
+        LikelihoodRatioMemo memo = LikelihoodRatioMemo.create();
+        LrWithExplanation observed = mock(LrWithExplanation.class);
+        LrWithExplanation excluded = mock(LrWithExplanation.class);
+
+        assertSame(observed, memo.observed(DISEASE_A, TERM, () -> observed));
+        assertSame(excluded, memo.excluded(DISEASE_A, TERM, () -> excluded));
+
+        assertEquals(2, memo.size());
+        assertSame(observed, memo.observed(DISEASE_A, TERM, () -> fail("Observed LR must be memoized")));
+        assertSame(excluded, memo.excluded(DISEASE_A, TERM, () -> fail("Excluded LR must be memoized")));
+    }
+
+    @Test
+    public void likelihoodRatiosOfDiseasesAreSeparate() {
+        LikelihoodRatioMemo memo = LikelihoodRatioMemo.create();
+        LrWithExplanation a = mock(LrWithExplanation.class);
+        LrWithExplanation b = mock(LrWithExplanation.class);
+
+        assertSame(a, memo.observed(DISEASE_A, TERM, () -> a));
+        assertSame(b, memo.observed(DISEASE_B, TERM, () -> b));
+
+        assertEquals(2, memo.size());
+    }
+}
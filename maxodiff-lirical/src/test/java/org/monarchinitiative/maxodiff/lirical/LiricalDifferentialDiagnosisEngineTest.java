@@ -0,0 +1,107 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiricalDifferentialDiagnosisEngineTest {
+
+    private static final List<TermId> EXCLUDED = List.of(TermId.of("HP:0001382"), TermId.of("HP:0000518"));
+
+    private static MaxodiffLiricalAnalysisRunnerImpl RUNNER;
+    private static LiricalDifferentialDiagnosisEngine ENGINE;
+
+    @BeforeAll
+    public static void beforeAll() {
+        RUNNER = MaxodiffLiricalAnalysisRunnerImpl.of(LiricalTestResources.phenotypeService(), 2);
+        ENGINE = LiricalDifferentialDiagnosisEngineConfigurer.of(RUNNER)
+                .configureUniform(LiricalTestResources.exampleDiseaseIds(), false, false);
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        RUNNER.close();
+    }
+
+    @Test
+    public void runIncrementalMatchesRunOnUpdatedSample() {
+        List<TermId> present = LiricalTestResources.examplePresentTerms();
+        List<TermId> initial = present.subList(0, 6);
+        List<TermId> added = present.subList(6, present.size());
+        DifferentialDiagnosisBaseline baseline = ENGINE.baseline(Sample.of("B15", initial, List.of()), LiricalTestResources.exampleDiseaseIds());
+
+        List<DifferentialDiagnosis> incremental = ENGINE.runIncremental(baseline, added, EXCLUDED);
+        List<DifferentialDiagnosis> full = ENGINE.run(Sample.of("B15", present, EXCLUDED), LiricalTestResources.exampleDiseaseIds());
+
+        assertSameDiagnoses(full, incremental);
+    }
+
+    @Test
+    public void repeatedRunIncrementalGivesTheSameDiagnoses() {
+        List<TermId> present = LiricalTestResources.examplePresentTerms();
+        DifferentialDiagnosisBaseline baseline = ENGINE.baseline(Sample.of("B15", present.subList(0, 6), List.of()), LiricalTestResources.exampleDiseaseIds());
+        List<TermId> added = present.subList(6, present.size());
+
+        List<DifferentialDiagnosis> first = ENGINE.runIncremental(baseline, added, EXCLUDED);
+        List<DifferentialDiagnosis> second = ENGINE.runIncremental(baseline, added, EXCLUDED);
+
+        assertSameDiagnoses(first, second);
+    }
+
+    @Test
+    public void addingBaselineTermsDoesNotChangeTheDiagnoses() {
+        List<TermId> present = LiricalTestResources.examplePresentTerms();
+        DifferentialDiagnosisBaseline baseline = ENGINE.baseline(Sample.of("B15", present, List.of()), LiricalTestResources.exampleDiseaseIds());
+
+        List<DifferentialDiagnosis> incremental = ENGINE.runIncremental(baseline, present.subList(0, 3), List.of());
+
+        assertSameDiagnoses(baseline.diagnoses(), incremental);
+    }
+
+    @Test
+    public void configurationIdDependsOnTheDiseaseIds() {
+        LiricalDifferentialDiagnosisEngineConfigurer configurer = LiricalDifferentialDiagnosisEngineConfigurer.of(RUNNER);
+        Set<TermId> diseaseIds = LiricalTestResources.exampleDiseaseIds();
+        Set<TermId> other = new HashSet<>(diseaseIds);
+        other.remove(TermId.of("OMIM:154700"));
+        other.add(TermId.of("OMIM:301039"));
+
+        Optional<String> id = configurer.configureUniform(diseaseIds, false, false).configurationId();
+
+        assertEquals(id, configurer.configureUniform(new HashSet<>(diseaseIds), false, false).configurationId());
+        assertNotEquals(id, configurer.configureUniform(other, false, false).configurationId());
+        assertNotEquals(id, configurer.configureUniform(diseaseIds, true, false).configurationId());
+        String hpoVersion = LiricalTestResources.phenotypeService().hpo().version().orElse("N/A");
+        assertTrue(id.orElseThrow().contains("hpo=" + hpoVersion), id::orElseThrow);
+    }
+
+    private static void assertSameDiagnoses(List<DifferentialDiagnosis> expected, List<DifferentialDiagnosis> actual) {
+        assertEquals(expected.size(), actual.size());
+        Map<TermId, DifferentialDiagnosis> actualById = byDiseaseId(actual.stream());
+        for (DifferentialDiagnosis e : expected) {
+            DifferentialDiagnosis a = actualById.get(e.diseaseId());
+            assertNotNull(a, () -> "Missing " + e.diseaseId());
+            assertEquals(e.score(), a.score(), 1e-9, () -> "Posttest probability of " + e.diseaseId());
+            assertEquals(e.lr(), a.lr(), Math.abs(e.lr()) * 1e-9, () -> "Composite LR of " + e.diseaseId());
+        }
+    }
+
+    private static Map<TermId, DifferentialDiagnosis> byDiseaseId(Stream<DifferentialDiagnosis> diagnoses) {
+        return diagnoses.collect(Collectors.toMap(DifferentialDiagnosis::diseaseId, Function.identity()));
+    }
+}
@@ -0,0 +1,93 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.monarchinitiative.lirical.core.service.PhenotypeService;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifiers;
+import org.monarchinitiative.phenol.annotations.formats.hpo.DiseaseToGeneAssociations;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoAssociationData;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoader;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaderOptions;
+import org.monarchinitiative.phenol.annotations.io.hpo.HpoDiseaseLoaders;
+import org.monarchinitiative.phenol.io.OntologyLoader;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Utility class with lazily-loaded resources for testing. The HPO and the annotations
+ * are shared with the tests of the core module.
+ */
+class LiricalTestResources {
+
+    private static final Path TEST_BASE = Path.of("..", "maxodiff-core", "src", "test", "resources");
+    private static final Path HPO_PATH = TEST_BASE.resolve("hp.v2024-04-26.json.gz");
+    private static final Path ANNOTATION_PATH = TEST_BASE.resolve("phenotype.v2024-01-16.hpoa.gz");
+    private static volatile PhenotypeService PHENOTYPE_SERVICE;
+
+    /**
+     * @return the phenotype service with the OMIM diseases and with no gene associations.
+     */
+    static PhenotypeService phenotypeService() {
+        if (PHENOTYPE_SERVICE == null) {
+            synchronized (LiricalTestResources.class) {
+                if (PHENOTYPE_SERVICE == null)
+                    PHENOTYPE_SERVICE = loadPhenotypeService();
+            }
+        }
+        return PHENOTYPE_SERVICE;
+    }
+
+    private static PhenotypeService loadPhenotypeService() {
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(HPO_PATH))) {
+            Ontology hpo = OntologyLoader.loadOntology(is);
+            HpoDiseaseLoaderOptions options = HpoDiseaseLoaderOptions.of(Set.of(DiseaseDatabase.OMIM), true, HpoDiseaseLoaderOptions.DEFAULT_COHORT_SIZE);
+            HpoDiseaseLoader loader = HpoDiseaseLoaders.defaultLoader(hpo, options);
+            HpoDiseases diseases = loader.load(ANNOTATION_PATH);
+            HpoAssociationData associations = HpoAssociationData.of(GeneIdentifiers.of(List.of()), List.of(), DiseaseToGeneAssociations.of(List.of()));
+            return PhenotypeService.of(hpo, diseases, associations);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the present terms of the phenopacket v2 PMID_11175294-Tiecke-2001-FBN1-B15.json.
+     */
+    static List<TermId> examplePresentTerms() {
+        return List.of(
+                TermId.of("HP:0000963"),
+                TermId.of("HP:0001653"),
+                TermId.of("HP:0000545"),
+                TermId.of("HP:0000098"),
+                TermId.of("HP:0004325"),
+                TermId.of("HP:0002751"),
+                TermId.of("HP:0002650"),
+                TermId.of("HP:0002616"),
+                TermId.of("HP:0000767"),
+                TermId.of("HP:0012019"),
+                TermId.of("HP:0001166"));
+    }
+
+    /**
+     * @return the top 20 diseases of the LIRICAL analysis of the {@link #examplePresentTerms()}.
+     */
+    static Set<TermId> exampleDiseaseIds() {
+        return Set.of(
+                TermId.of("OMIM:154700"), TermId.of("OMIM:616914"), TermId.of("OMIM:236200"), TermId.of("OMIM:609008"),
+                TermId.of("OMIM:615582"), TermId.of("OMIM:121050"), TermId.of("OMIM:614816"), TermId.of("OMIM:617506"),
+                TermId.of("OMIM:219150"), TermId.of("OMIM:608328"), TermId.of("OMIM:610443"), TermId.of("OMIM:277600"),
+                TermId.of("OMIM:271640"), TermId.of("OMIM:602535"), TermId.of("OMIM:619472"), TermId.of("OMIM:225400"),
+                TermId.of("OMIM:601776"), TermId.of("OMIM:617602"), TermId.of("OMIM:163950"), TermId.of("OMIM:208050"));
+    }
+
+    private LiricalTestResources() {
+    }
+}
@@ -0,0 +1,180 @@
+package org.monarchinitiative.maxodiff.lirical;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.analysis.*;
+import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanation;
+import org.monarchinitiative.lirical.core.model.GenesAndGenotypes;
+import org.monarchinitiative.lirical.core.model.Sex;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class MaxodiffLiricalAnalysisRunnerImplTest {
+
+    private static final TermId ADDED = TermId.of("HP:0001382");
+    private static final TermId UNKNOWN = TermId.of("OMIM:999999");
+
+    private static MaxodiffLiricalAnalysisRunnerImpl RUNNER;
+
+    @BeforeAll
+    public static void beforeAll() {
+        RUNNER = MaxodiffLiricalAnalysisRunnerImpl.of(LiricalTestResources.phenotypeService(), 2);
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        RUNNER.close();
+    }
+
+    @Test
+    public void warmUpCachesAllDiseases() {
+        MaxodiffLiricalAnalysisRunnerImpl runner = MaxodiffLiricalAnalysisRunnerImpl.of(LiricalTestResources.phenotypeService(), 2);
+        try {
+            runner.configureInducedDiseaseGraphCache(new InducedDiseaseGraphCacheOptions(2, InducedDiseaseGraphCacheOptions.Eviction.LRU, true));
+
+            long nDiseases = LiricalTestResources.phenotypeService().diseases().hpoDiseases().count();
+            assertTrue(nDiseases > 2);
+            assertEquals(nDiseases, runner.inducedDiseaseGraphCacheSize());
+        } finally {
+            runner.close();
+        }
+    }
+
+    @Test
+    public void repeatedUpdateReusesTheMemoizedLikelihoodRatios() throws Exception {
+        Set<TermId> diseaseIds = LiricalTestResources.exampleDiseaseIds();
+        AnalysisResults baseline = RUNNER.runWithTermIds(analysisData(), options(diseaseIds), diseaseIds);
+        List<TermId> addedPresent = List.of(ADDED, TermId.of("HP:0000518"));
+        List<TermId> addedExcluded = List.of(TermId.of("HP:0001250"));
+        LikelihoodRatioMemo memo = LikelihoodRatioMemo.create();
+
+        AnalysisResults first = RUNNER.updateWithTermIds(baseline, addedPresent, addedExcluded, memo);
+        int size = memo.size();
+        AnalysisResults second = RUNNER.updateWithTermIds(baseline, addedPresent, addedExcluded, memo);
+
+        assertEquals(baseline.size() * (addedPresent.size() + addedExcluded.size()), size);
+        assertEquals(size, memo.size());
+        Map<TermId, TestResult> firstById = byDiseaseId(first);
+        for (TestResult result : second.results().toList()) {
+            TestResult expected = firstById.get(result.diseaseId());
+            assertEquals(expected.observedResults(), result.observedResults());
+            assertEquals(expected.excludedResults(), result.excludedResults());
+        }
+    }
+
+    @Test
+    public void updateUsesTheMemoizedLikelihoodRatio() throws Exception {
+        TermId diseaseId = TermId.of("OMIM:154700");
+        AnalysisResults baseline = RUNNER.runWithTermIds(analysisData(), options(Set.of(diseaseId)), Set.of(diseaseId));
+        LikelihoodRatioMemo memo = LikelihoodRatioMemo.create();
+        LrWithExplanation memoized = mock(LrWithExplanation.class);
+        memo.observed(diseaseId, ADDED, () -> memoized);
+
+        AnalysisResults updated = RUNNER.updateWithTermIds(baseline, List.of(ADDED), List.of(), memo);
+
+        List<LrWithExplanation> observed = byDiseaseId(updated).get(diseaseId).observedResults();
+        assertSame(memoized, observed.get(observed.size() - 1));
+        assertEquals(1, memo.size());
+    }
+
+    @Test
+    public void observedAndExcludedTermLikelihoodRatiosAreSeparate() throws Exception {
+        Set<TermId> diseaseIds = LiricalTestResources.exampleDiseaseIds();
+        AnalysisResults baseline = RUNNER.runWithTermIds(analysisData(), options(diseaseIds), diseaseIds);
+        LikelihoodRatioMemo memo = LikelihoodRatioMemo.create();
+
+        Map<TermId, TestResult> observed = byDiseaseId(RUNNER.updateWithTermIds(baseline, List.of(ADDED), List.of(), memo));
+        Map<TermId, TestResult> excluded = byDiseaseId(RUNNER.updateWithTermIds(baseline, List.of(), List.of(ADDED), memo));
+
+        assertEquals(2 * baseline.size(), memo.size());
+        for (TestResult result : baseline.results().toList()) {
+            TestResult o = observed.get(result.diseaseId());
+            TestResult e = excluded.get(result.diseaseId());
+            assertEquals(result.observedResults().size() + 1, o.observedResults().size());
+            assertEquals(result.excludedResults(), o.excludedResults());
+            assertEquals(result.observedResults(), e.observedResults());
+            assertEquals(result.excludedResults().size() + 1, e.excludedResults().size());
+            assertNotSame(o.observedResults().get(o.observedResults().size() - 1),
+                    e.excludedResults().get(e.excludedResults().size() - 1));
+        }
+    }
+
+    @Test
+    public void pooledRunMatchesSequentialRuns() throws Exception {
+        // More diseases than the sequential threshold are analyzed in the pool.
+        List<TermId> diseaseIds = knownDiseaseIds(100);
+        AnalysisOptions options = options(Set.copyOf(diseaseIds));
+
+        AnalysisResults pooled = RUNNER.runWithTermIds(analysisData(), options, Set.copyOf(diseaseIds));
+        Map<TermId, TestResult> sequential = new HashMap<>();
+        sequential.putAll(byDiseaseId(RUNNER.runWithTermIds(analysisData(), options, Set.copyOf(diseaseIds.subList(0, 50)))));
+        sequential.putAll(byDiseaseId(RUNNER.runWithTermIds(analysisData(), options, Set.copyOf(diseaseIds.subList(50, 100)))));
+
+        assertEquals(diseaseIds.size(), pooled.size());
+        for (TestResult result : pooled.results().toList()) {
+            TestResult expected = sequential.get(result.diseaseId());
+            assertNotNull(expected, () -> "Missing " + result.diseaseId());
+            assertEquals(expected.getCompositeLR(), result.getCompositeLR(), Math.abs(expected.getCompositeLR()) * 1e-9);
+            assertEquals(expected.posttestProbability(), result.posttestProbability(), 1e-9);
+        }
+    }
+
+    @Test
+    public void unknownDiseaseIsSkipped() throws Exception {
+        Set<TermId> known = LiricalTestResources.exampleDiseaseIds();
+        Set<TermId> diseaseIds = new HashSet<>(known);
+        diseaseIds.add(UNKNOWN);
+
+        AnalysisResults results = RUNNER.runWithTermIds(analysisData(), options(diseaseIds), diseaseIds);
+
+        assertEquals(known, results.results().map(TestResult::diseaseId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void unknownDiseaseIsSkippedInPooledRun() throws Exception {
+        Set<TermId> known = Set.copyOf(knownDiseaseIds(100));
+        Set<TermId> diseaseIds = new HashSet<>(known);
+        diseaseIds.add(UNKNOWN);
+
+        AnalysisResults results = RUNNER.runWithTermIds(analysisData(), options(diseaseIds), diseaseIds);
+
+        assertEquals(known, results.results().map(TestResult::diseaseId).collect(Collectors.toSet()));
+    }
+
+    private static AnalysisData analysisData() {
+        return AnalysisData.of("B15",
+                null,
+                Sex.UNKNOWN,
+                LiricalTestResources.examplePresentTerms(),
+                List.of(),
+                GenesAndGenotypes.empty());
+    }
+
+    private static AnalysisOptions options(Set<TermId> diseaseIds) {
+        return AnalysisOptions.builder()
+                .useStrictPenalties(false)
+                .useGlobal(false)
+                .pretestProbability(PretestDiseaseProbabilities.uniform(diseaseIds))
+                .build();
+    }
+
+    private static List<TermId> knownDiseaseIds(int n) {
+        return LiricalTestResources.phenotypeService().diseases().hpoDiseases()
+                .map(HpoDisease::id)
+                .limit(n)
+                .toList();
+    }
+
+    private static Map<TermId, TestResult> byDiseaseId(AnalysisResults results) {
+        return results.results()
+                .collect(Collectors.toMap(TestResult::diseaseId, tr -> tr));
+    }
+}
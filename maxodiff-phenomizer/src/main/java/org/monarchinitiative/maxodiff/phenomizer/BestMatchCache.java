@@ -0,0 +1,95 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lazily computed best matches of query terms to diseases, the maximum IC<sub>MICA</sub> of a query term
+ * and the present annotations of a disease.
+ * <p>
+ * The best matches are stored in a <code>float[nTerms][nDiseases]</code> table whose rows are allocated
+ * on the first use of a query term and whose cells are computed on the first use of a (query term, disease) pair.
+ * The cells are idempotent, hence concurrent computation of a cell is harmless. At most {@code maxCachedTerms} rows
+ * are allocated, the best matches of the other terms are computed without caching.
+ * <p>
+ * The cache is thread-safe.
+ */
+final class BestMatchCache {
+
+    /**
+     * The default number of cached query terms, about 50 kB per term for the current HPO annotations.
+     */
+    static final int DEFAULT_MAX_CACHED_TERMS = 4096;
+
+    private final IcMicaLookup icMicaLookup;
+    // Indices of the present annotations of a disease in the `icMicaLookup`.
+    private final int[][] presentAnnotations;
+    private final AtomicReferenceArray<float[]> bestMatches;
+    private final int maxCachedTerms;
+    private final AtomicInteger cachedTerms = new AtomicInteger();
+
+    /**
+     * @param icMicaLookup lookup of the IC<sub>MICA</sub> values.
+     * @param nTerms number of terms known to the {@code icMicaLookup}.
+     * @param presentAnnotations indices of the present annotations for each disease.
+     * @param maxCachedTerms the maximum number of query terms to cache.
+     */
+    BestMatchCache(IcMicaLookup icMicaLookup, int nTerms, int[][] presentAnnotations, int maxCachedTerms) {
+        this.icMicaLookup = icMicaLookup;
+        this.presentAnnotations = presentAnnotations;
+        this.bestMatches = new AtomicReferenceArray<>(nTerms);
+        this.maxCachedTerms = maxCachedTerms;
+    }
+
+    /**
+     * @param term index of the query term or a negative number if the term is not known to the {@code icMicaLookup}.
+     * @param disease index of the disease.
+     * @return the maximum IC<sub>MICA</sub> of the query term and the present annotations of the disease.
+     */
+    double bestMatch(int term, int disease) {
+        if (term < 0 || term >= bestMatches.length())
+            return 0.;
+        float[] row = row(term);
+        if (row == null)
+            return compute(term, disease);
+
+        float value = row[disease];
+        if (Float.isNaN(value)) {
+            value = compute(term, disease);
+            row[disease] = value;
+        }
+        return value;
+    }
+
+    private float[] row(int term) {
+        float[] row = bestMatches.get(term);
+        if (row == null && cachedTerms.get() < maxCachedTerms) {
+            float[] created = new float[presentAnnotations.length];
+            Arrays.fill(created, Float.NaN);
+            if (bestMatches.compareAndSet(term, null, created)) {
+                cachedTerms.incrementAndGet();
+                row = created;
+            } else {
+                row = bestMatches.get(term);
+            }
+        }
+        return row;
+    }
+
+    private float compute(int term, int disease) {
+        // The IC values of the mapped dictionary are floats, hence the conversion is lossless.
+        double best = 0.;
+        for (int anno : presentAnnotations[disease]) {
+            best = Double.max(icMicaLookup.icMica(term, anno), best);
+        }
+        return (float) best;
+    }
+
+    /**
+     * @return the number of query terms with cached best matches.
+     */
+    int cachedTerms() {
+        return cachedTerms.get();
+    }
+}
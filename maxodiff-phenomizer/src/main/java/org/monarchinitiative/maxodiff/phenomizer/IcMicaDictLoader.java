@@ -27,7 +27,8 @@ import java.util.zip.GZIPInputStream;
  * The map only includes non-zero values - the IC<sub>MICA</sub> values of terms whose most informative common ancestor
  * is <em>not</em> the ontology root (Phenotypic abnormality).
  * <p>
- * Loading from a compressed file takes about 25s.
+ * Loading from a compressed file takes about 25s. Use {@link MappedIcMicaDictLoader} to load the dictionary
+ * from the binary format written by {@link IcMicaDictWriter} instead.
  */
 public class IcMicaDictLoader {
 
@@ -89,7 +90,7 @@ public class IcMicaDictLoader {
         return new IcMicaData(icMicaDict, metadata);
     }
 
-    private static IcMicaDictMetadata parseMetadata(String headerComment) {
+    static IcMicaDictMetadata parseMetadata(String headerComment) {
         for (String line : headerComment.split("\\n")) {
             Matcher matcher = HEADER.matcher(line);
             if (matcher.find()) {
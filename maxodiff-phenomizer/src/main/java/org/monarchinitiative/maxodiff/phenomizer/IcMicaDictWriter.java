@@ -0,0 +1,114 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Write the IC MICA dictionary into a compact binary file that can be memory-mapped by {@link MappedIcMicaDictLoader}.
+ * <p>
+ * The file consists of (all numbers are big-endian):
+ * <ul>
+ *     <li>magic bytes <code>MXICMICA</code> and the format version (<code>int</code>),</li>
+ *     <li>the metadata header, the same as in the CSV file (e.g. <code>HPO=2025-03-03;HPOA=2025-03-03;CREATED=2025-03-05</code>),</li>
+ *     <li>number of terms <code>n</code> (<code>int</code>) and number of term pairs <code>m</code> (<code>long</code>),</li>
+ *     <li><code>n</code> term ids sorted in their natural order,</li>
+ *     <li><code>n + 1</code> offsets of the term blocks (<code>int</code>),</li>
+ *     <li><code>m</code> indices of the second terms of the pairs (<code>int</code>),
+ *     sorted within the block of the first term,</li>
+ *     <li><code>m</code> IC<sub>MICA</sub> values (<code>float</code>).</li>
+ * </ul>
+ * Strings are written as the number of the UTF-8 bytes (<code>unsigned short</code>) followed by the bytes.
+ */
+public class IcMicaDictWriter {
+
+    static final byte[] MAGIC = "MXICMICA".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    /**
+     * The largest number of term pairs that fits into a single mapped buffer.
+     */
+    static final long MAX_PAIRS = Integer.MAX_VALUE / Integer.BYTES;
+
+    private IcMicaDictWriter() {
+    }
+
+    /**
+     * Write IC MICA dictionary into a binary file.
+     *
+     * @param icMicaDict map with IC<sub>MICA</sub> of a term pair.
+     * @param metadata metadata to store in the file header.
+     * @param path destination path.
+     */
+    public static void writeBinary(Map<TermPair, Double> icMicaDict,
+                                   IcMicaDictMetadata metadata,
+                                   Path path) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            writeBinary(icMicaDict, metadata, os);
+        }
+    }
+
+    /**
+     * Write IC MICA dictionary in the binary format into an output stream.
+     */
+    public static void writeBinary(Map<TermPair, Double> icMicaDict,
+                                   IcMicaDictMetadata metadata,
+                                   OutputStream os) throws IOException {
+        if (icMicaDict.size() > MAX_PAIRS)
+            throw new IOException("Cannot write more than %d term pairs".formatted(MAX_PAIRS));
+
+        MappedIcMicaDict table = icMicaDict instanceof MappedIcMicaDict mapped
+                ? mapped
+                : MappedIcMicaDict.of(icMicaDict);
+        TermDictionary terms = table.terms();
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, formatHeader(metadata));
+        out.writeInt(terms.size());
+        out.writeLong(table.size());
+        for (int i = 0; i < terms.size(); i++) {
+            writeString(out, terms.termId(i).getValue());
+        }
+        IntBuffer offsets = table.offsets();
+        while (offsets.hasRemaining()) {
+            out.writeInt(offsets.get());
+        }
+        IntBuffer neighbors = table.neighbors();
+        while (neighbors.hasRemaining()) {
+            out.writeInt(neighbors.get());
+        }
+        FloatBuffer icMicas = table.icMicas();
+        while (icMicas.hasRemaining()) {
+            out.writeFloat(icMicas.get());
+        }
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF)
+            throw new IOException("String is too long: " + value);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String formatHeader(IcMicaDictMetadata metadata) {
+        if (metadata == null)
+            return "";
+        return String.format("HPO=%s;HPOA=%s;CREATED=%s",
+                metadata.hpoVersion(),
+                metadata.hpoaVersion(),
+                metadata.created() == null ? "" : metadata.created());
+    }
+}
@@ -0,0 +1,57 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+
+import java.util.Map;
+
+/**
+ * Lookup of the information content of the most informative common ancestor (IC<sub>MICA</sub>) of a term pair
+ * by the integer indices of the terms.
+ * <p>
+ * The terms are translated to indices once, so that the similarity of term pairs can be computed
+ * in a tight loop without hashing or allocating {@link TermPair}s. The implementations must be thread-safe.
+ */
+public interface IcMicaLookup {
+
+    /**
+     * Get the lookup for the {@code icMicaDict}.
+     * <p>
+     * The dictionaries loaded by {@link MappedIcMicaDictLoader} are used as they are,
+     * other maps are copied into a compact in-memory table. Therefore, the lookup should be created once
+     * and shared by the {@link PhenomizerDifferentialDiagnosisEngine}s.
+     *
+     * @param icMicaDict map with IC<sub>MICA</sub> of a term pair, as loaded by {@link IcMicaDictLoader}.
+     */
+    static IcMicaLookup of(Map<TermPair, Double> icMicaDict) {
+        return icMicaDict instanceof IcMicaLookup lookup
+                ? lookup
+                : MappedIcMicaDict.of(icMicaDict);
+    }
+
+    /**
+     * @return index of the {@code termId} or {@code -1} if the term is not known to the lookup.
+     */
+    int termIndex(TermId termId);
+
+    /**
+     * @return number of the terms known to the lookup. The term indices are in range {@code [0, termCount())}.
+     */
+    int termCount();
+
+    /**
+     * Get the IC<sub>MICA</sub> of a pair of terms. The lookup is symmetric.
+     *
+     * @param a index of the first term, as returned by {@link #termIndex(TermId)}.
+     * @param b index of the second term, as returned by {@link #termIndex(TermId)}.
+     * @return IC<sub>MICA</sub> of the term pair or {@code 0} if the pair is not present or if any index is negative.
+     */
+    double icMica(int a, int b);
+
+    /**
+     * @see #icMica(int, int)
+     */
+    default double icMica(TermId a, TermId b) {
+        return icMica(termIndex(a), termIndex(b));
+    }
+}
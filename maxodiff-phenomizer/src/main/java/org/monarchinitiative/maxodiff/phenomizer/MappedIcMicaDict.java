@@ -0,0 +1,205 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * A read-only IC<sub>MICA</sub> map backed by a memory-mapped file written by {@link IcMicaDictWriter}
+ * or by the heap buffers built by {@link #of(Map)}.
+ * <p>
+ * The term pairs are stored in a compressed sparse row (CSR) layout: the pairs of the term <code>A</code>
+ * are stored in a contiguous block sorted by the index of the term <code>B</code>.
+ * The lookup is a binary search within the block, no objects are created except for the returned value.
+ * <p>
+ * The map is thread-safe.
+ */
+public final class MappedIcMicaDict extends AbstractMap<TermPair, Double> implements IcMicaLookup {
+
+    private final TermDictionary terms;
+    private final IntBuffer offsets;
+    private final IntBuffer neighbors;
+    private final FloatBuffer icMicas;
+    private Set<Entry<TermPair, Double>> entrySet;
+
+    /**
+     * Build the CSR table of the {@code icMicaDict} in the heap.
+     */
+    static MappedIcMicaDict of(Map<TermPair, Double> icMicaDict) {
+        Set<TermId> termIds = new HashSet<>();
+        for (TermPair pair : icMicaDict.keySet()) {
+            termIds.add(pair.getTidA());
+            termIds.add(pair.getTidB());
+        }
+        TermDictionary terms = TermDictionary.of(termIds);
+
+        // Count the pairs of each term and lay out the blocks.
+        int[] offsets = new int[terms.size() + 1];
+        for (TermPair pair : icMicaDict.keySet()) {
+            offsets[terms.index(pair.getTidA()) + 1]++;
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // The second term index and the IC bits are packed into a long to sort the block by the second term.
+        long[] packed = new long[icMicaDict.size()];
+        int[] next = Arrays.copyOf(offsets, terms.size());
+        for (Map.Entry<TermPair, Double> e : icMicaDict.entrySet()) {
+            int a = terms.index(e.getKey().getTidA());
+            int b = terms.index(e.getKey().getTidB());
+            packed[next[a]++] = ((long) b << 32) | (Float.floatToRawIntBits(e.getValue().floatValue()) & 0xFFFFFFFFL);
+        }
+        int[] neighbors = new int[packed.length];
+        float[] icMicas = new float[packed.length];
+        for (int i = 0; i < terms.size(); i++) {
+            Arrays.sort(packed, offsets[i], offsets[i + 1]);
+        }
+        for (int i = 0; i < packed.length; i++) {
+            neighbors[i] = (int) (packed[i] >>> 32);
+            icMicas[i] = Float.intBitsToFloat((int) packed[i]);
+        }
+
+        return new MappedIcMicaDict(terms, IntBuffer.wrap(offsets), IntBuffer.wrap(neighbors), FloatBuffer.wrap(icMicas));
+    }
+
+    MappedIcMicaDict(TermDictionary terms, IntBuffer offsets, IntBuffer neighbors, FloatBuffer icMicas) {
+        this.terms = terms;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.icMicas = icMicas;
+    }
+
+    /**
+     * @return dictionary of the terms present in the map.
+     */
+    public TermDictionary terms() {
+        return terms;
+    }
+
+    @Override
+    public int termIndex(TermId termId) {
+        return terms.index(termId);
+    }
+
+    @Override
+    public int termCount() {
+        return terms.size();
+    }
+
+    @Override
+    public double icMica(int a, int b) {
+        // The pairs are stored in the order of `TermPair.symmetric`, the term with the greater id goes first.
+        int idx = a >= b ? find(a, b) : find(b, a);
+        return idx < 0 ? 0. : icMicas.get(idx);
+    }
+
+    /*
+     * The buffers for writing the table.
+     */
+
+    IntBuffer offsets() {
+        return offsets.duplicate();
+    }
+
+    IntBuffer neighbors() {
+        return neighbors.duplicate();
+    }
+
+    FloatBuffer icMicas() {
+        return icMicas.duplicate();
+    }
+
+    /**
+     * @return position of the pair in the {@link #neighbors} buffer or a negative number if the pair is absent.
+     */
+    private int find(int a, int b) {
+        if (a < 0 || b < 0)
+            return -1;
+        int lo = offsets.get(a);
+        int hi = offsets.get(a + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int val = neighbors.get(mid);
+            if (val < b)
+                lo = mid + 1;
+            else if (val > b)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    private int find(Object key) {
+        if (key instanceof TermPair pair)
+            return find(terms.index(pair.getTidA()), terms.index(pair.getTidB()));
+        return -1;
+    }
+
+    @Override
+    public Double get(Object key) {
+        int idx = find(key);
+        return idx < 0 ? null : (double) icMicas.get(idx);
+    }
+
+    @Override
+    public Double getOrDefault(Object key, Double defaultValue) {
+        int idx = find(key);
+        return idx < 0 ? defaultValue : (double) icMicas.get(idx);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return neighbors.limit();
+    }
+
+    @Override
+    public Set<Entry<TermPair, Double>> entrySet() {
+        if (entrySet == null)
+            entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<TermPair, Double>> {
+
+        @Override
+        public Iterator<Entry<TermPair, Double>> iterator() {
+            return new Iterator<>() {
+                private int term = 0;
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < neighbors.limit();
+                }
+
+                @Override
+                public Entry<TermPair, Double> next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    while (offsets.get(term + 1) <= next)
+                        term++;
+                    TermPair pair = TermPair.asymmetric(terms.termId(term), terms.termId(neighbors.get(next)));
+                    Entry<TermPair, Double> entry = new SimpleImmutableEntry<>(pair, (double) icMicas.get(next));
+                    next++;
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return MappedIcMicaDict.this.size();
+        }
+    }
+}
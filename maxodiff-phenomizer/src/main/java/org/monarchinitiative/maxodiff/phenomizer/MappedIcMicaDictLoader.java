@@ -0,0 +1,100 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.monarchinitiative.maxodiff.core.term.TermDictionary;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load the IC MICA dictionary from a binary file written by {@link IcMicaDictWriter}.
+ * <p>
+ * Only the header and the term ids are read eagerly, the term pair table is memory-mapped
+ * and paged in by the operating system on demand. The mapped pages are shared by all JVMs that map the same file.
+ */
+public class MappedIcMicaDictLoader {
+
+    private MappedIcMicaDictLoader() {
+    }
+
+    /**
+     * Load IC MICA dictionary from a binary file.
+     *
+     * @param path path to a binary file.
+     * @throws IOException if the file cannot be read or if it is not a valid IC MICA dictionary file.
+     */
+    public static IcMicaData loadIcMicaDict(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+
+            byte[] magic = new byte[IcMicaDictWriter.MAGIC.length];
+            checkRemaining(header, magic.length + Integer.BYTES, path);
+            header.get(magic);
+            if (!Arrays.equals(magic, IcMicaDictWriter.MAGIC))
+                throw new IOException("%s is not an IC MICA dictionary file".formatted(path));
+            int version = header.getInt();
+            if (version != IcMicaDictWriter.VERSION)
+                throw new IOException("Unsupported IC MICA dictionary format version %d in %s".formatted(version, path));
+
+            IcMicaDictMetadata metadata = IcMicaDictLoader.parseMetadata(readString(header, path));
+
+            checkRemaining(header, Integer.BYTES + Long.BYTES, path);
+            int nTerms = header.getInt();
+            long nPairs = header.getLong();
+            if (nTerms < 0 || nPairs < 0 || nPairs > IcMicaDictWriter.MAX_PAIRS)
+                throw new IOException("Invalid number of terms (%d) or term pairs (%d) in %s".formatted(nTerms, nPairs, path));
+
+            List<TermId> termIds = new ArrayList<>(nTerms);
+            for (int i = 0; i < nTerms; i++) {
+                termIds.add(TermId.of(readString(header, path)));
+            }
+            TermDictionary terms = TermDictionary.of(termIds);
+            if (terms.size() != nTerms)
+                throw new IOException("Duplicate term ids in %s".formatted(path));
+            for (int i = 0; i < nTerms; i++) {
+                if (!terms.termId(i).equals(termIds.get(i)))
+                    throw new IOException("Term ids are not sorted in %s".formatted(path));
+            }
+
+            long offsetsStart = header.position();
+            long neighborsStart = offsetsStart + (long) (nTerms + 1) * Integer.BYTES;
+            long icMicasStart = neighborsStart + nPairs * Integer.BYTES;
+            long end = icMicasStart + nPairs * Float.BYTES;
+            if (end != fileSize)
+                throw new IOException("Expected %d bytes but %s has %d bytes".formatted(end, path, fileSize));
+
+            IntBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, offsetsStart, neighborsStart - offsetsStart).asIntBuffer();
+            IntBuffer neighbors = channel.map(FileChannel.MapMode.READ_ONLY, neighborsStart, icMicasStart - neighborsStart).asIntBuffer();
+            FloatBuffer icMicas = channel.map(FileChannel.MapMode.READ_ONLY, icMicasStart, end - icMicasStart).asFloatBuffer();
+            if (offsets.get(0) != 0 || offsets.get(nTerms) != nPairs)
+                throw new IOException("Invalid term block offsets in %s".formatted(path));
+
+            // The mapping remains valid after the channel is closed.
+            return new IcMicaData(new MappedIcMicaDict(terms, offsets, neighbors, icMicas), metadata);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, Path path) throws IOException {
+        checkRemaining(buffer, Short.BYTES, path);
+        int length = Short.toUnsignedInt(buffer.getShort());
+        checkRemaining(buffer, length, path);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void checkRemaining(ByteBuffer buffer, int length, Path path) throws IOException {
+        if (buffer.remaining() < length)
+            throw new IOException("Unexpected end of file %s".formatted(path));
+    }
+}
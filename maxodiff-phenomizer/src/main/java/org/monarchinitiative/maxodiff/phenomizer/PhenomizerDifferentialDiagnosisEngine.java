@@ -1,5 +1,7 @@
 package org.monarchinitiative.maxodiff.phenomizer;
 
+import org.monarchinitiative.maxodiff.core.analysis.CancellationToken;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
 import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisEngine;
 import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
 import org.monarchinitiative.maxodiff.core.model.Sample;
@@ -10,28 +12,55 @@ import org.monarchinitiative.phenol.ontology.data.TermId;
 import org.monarchinitiative.phenol.ontology.similarity.TermPair;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class PhenomizerDifferentialDiagnosisEngine implements DifferentialDiagnosisEngine {
 
-    private final HpoDiseases diseases;
-    private final Map<TermPair, Double> termPairToIc;
-    private final Map<TermId, Integer> diseaseToPresentAnnotationCount;
+    // The current cancellation token is checked once per this many target diseases, must be a power of 2.
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
+    private final HpoDisease[] diseases;
+    private final IcMicaLookup icMicaLookup;
+    // Indices of the present annotations of a disease in the `icMicaLookup`, in the order of the `diseases`.
+    private final int[][] presentAnnotations;
+    private final BestMatchCache bestMatchCache;
     private final ScoringMode scoringMode;
 
+    /**
+     * @deprecated the {@code termPairToIc} map is converted into an {@link IcMicaLookup} for each engine instance.
+     * Create the lookup once and use {@link #PhenomizerDifferentialDiagnosisEngine(HpoDiseases, IcMicaLookup, ScoringMode)}.
+     */
+    @Deprecated
     public PhenomizerDifferentialDiagnosisEngine(
             HpoDiseases diseases,
             Map<TermPair, Double> termPairToIc,
             ScoringMode scoringMode
     ) {
-        this.diseases = diseases;
-        this.termPairToIc = termPairToIc;
-        this.diseaseToPresentAnnotationCount = countPresentAnnotations(diseases);
+        this(diseases, IcMicaLookup.of(termPairToIc), scoringMode);
+    }
+
+    public PhenomizerDifferentialDiagnosisEngine(
+            HpoDiseases diseases,
+            IcMicaLookup icMicaLookup,
+            ScoringMode scoringMode
+    ) {
+        this.diseases = diseases.stream().toArray(HpoDisease[]::new);
+        this.icMicaLookup = icMicaLookup;
+        this.presentAnnotations = indexPresentAnnotations(this.diseases, icMicaLookup);
+        this.bestMatchCache = scoringMode == ScoringMode.ONE_SIDED
+                ? new BestMatchCache(icMicaLookup, icMicaLookup.termCount(), presentAnnotations, BestMatchCache.DEFAULT_MAX_CACHED_TERMS)
+                : null;
         this.scoringMode = scoringMode;
     }
 
-    private static Map<TermId, Integer> countPresentAnnotations(HpoDiseases diseases) {
-        return diseases.stream().collect(Collectors.toUnmodifiableMap(HpoDisease::id, d -> Math.toIntExact(d.presentAnnotationsStream().count())));
+    private static int[][] indexPresentAnnotations(HpoDisease[] diseases, IcMicaLookup icMicaLookup) {
+        int[][] presentAnnotations = new int[diseases.length][];
+        for (int i = 0; i < diseases.length; i++) {
+            presentAnnotations[i] = diseases[i].presentAnnotationsStream()
+                    .map(HpoDiseaseAnnotation::id)
+                    .mapToInt(icMicaLookup::termIndex)
+                    .toArray();
+        }
+        return presentAnnotations;
     }
 
     private static double mean(double[] vals) {
@@ -43,6 +72,15 @@ public class PhenomizerDifferentialDiagnosisEngine implements DifferentialDiagno
         return sum / vals.length;
     }
 
+    public ScoringMode scoringMode() {
+        return scoringMode;
+    }
+
+    @Override
+    public Optional<String> configurationId() {
+        return Optional.of("phenomizer:" + scoringMode);
+    }
+
     @Override
     public List<DifferentialDiagnosis> run(Sample sample) {
         return run(sample, null);
@@ -50,85 +88,263 @@ public class PhenomizerDifferentialDiagnosisEngine implements DifferentialDiagno
 
     @Override
     public List<DifferentialDiagnosis> run(Sample sample, Collection<TermId> targetDiseases) {
-        int nDiag = targetDiseases == null ? diseases.size() : targetDiseases.size();
-        List<DifferentialDiagnosis> diagnoses = new ArrayList<>(nDiag);
-
-        for (HpoDisease disease : diseases) {
-            if (targetDiseases != null && !targetDiseases.contains(disease.id()))
-                continue;
-
-            double similarity = switch (scoringMode) {
-                case ONE_SIDED -> oneSided(
-                        sample.presentHpoTermIds(),
-                        disease
-                );
-                case TWO_SIDED -> twoSided(
-                        sample.presentHpoTermIds(),
-                        disease
-                );
-            };
+        int[] query = termIndices(sample.presentHpoTermIds());
+        int[] targets = targetDiseaseIndices(targetDiseases);
 
-            diagnoses.add(DifferentialDiagnosis.of(
-                    disease.id(),
-                    similarity,
-                    Double.NaN
-            ));
+        double[] queryToDiseaseSums = new double[targets.length];
+        double[][] diseaseToQuery = new double[targets.length][];
+        CancellationToken cancellation = CancellationToken.current();
+        for (int t = 0; t < targets.length; t++) {
+            checkCancellation(cancellation, t);
+            diseaseToQuery[t] = newDiseaseToQuery(targets[t]);
+            queryToDiseaseSums[t] = accumulate(query, targets[t], diseaseToQuery[t]);
         }
 
-        return diagnoses.stream()
-                .sorted(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed())
-                .toList();
+        return diagnoses(targets, query.length, queryToDiseaseSums, diseaseToQuery);
     }
 
-    private double oneSided(
-            Collection<TermId> query,
-            HpoDisease disease
-    ) {
-        int presentAnnotationCount = diseaseToPresentAnnotationCount.get(disease.id());
-        if (query.isEmpty() || presentAnnotationCount == 0)
-            return 0.;
-
-        double[] vals = new double[query.size()];
-        int i = 0;
-        for (TermId q : query) {
-            for (HpoDiseaseAnnotation anno : disease.presentAnnotations()) {
-                TermPair pair = TermPair.symmetric(q, anno.id());
-                Double icMica = termPairToIc.getOrDefault(pair, 0.);
-                vals[i] = Double.max(icMica, vals[i]);
+    /**
+     * Score the samples against one target disease after the other, while the annotations and the cached
+     * best matches of the disease are at hand.
+     */
+    @Override
+    public List<List<DifferentialDiagnosis>> runAll(List<Sample> samples, Collection<TermId> targetDiseases) {
+        int[][] queries = new int[samples.size()][];
+        for (int s = 0; s < queries.length; s++) {
+            queries[s] = termIndices(samples.get(s).presentHpoTermIds());
+        }
+        int[] targets = targetDiseaseIndices(targetDiseases);
+
+        double[][] queryToDiseaseSums = new double[queries.length][targets.length];
+        double[][][] diseaseToQuery = new double[queries.length][targets.length][];
+        CancellationToken cancellation = CancellationToken.current();
+        for (int t = 0; t < targets.length; t++) {
+            checkCancellation(cancellation, t);
+            for (int s = 0; s < queries.length; s++) {
+                diseaseToQuery[s][t] = newDiseaseToQuery(targets[t]);
+                queryToDiseaseSums[s][t] = accumulate(queries[s], targets[t], diseaseToQuery[s][t]);
             }
-            i++;
         }
 
-        return mean(vals);
+        List<List<DifferentialDiagnosis>> diagnoses = new ArrayList<>(queries.length);
+        for (int s = 0; s < queries.length; s++) {
+            diagnoses.add(diagnoses(targets, queries[s].length, queryToDiseaseSums[s], diseaseToQuery[s]));
+        }
+        return diagnoses;
     }
 
-    private double twoSided(
-            Collection<TermId> query,
-            HpoDisease disease
-    ) {
-        int presentAnnotationCount = diseaseToPresentAnnotationCount.get(disease.id());
-        if (query.isEmpty() || presentAnnotationCount == 0)
-            return 0.;
-
-        double[] queryToDisease = new double[query.size()];
-        double[] diseaseToQuery = new double[presentAnnotationCount];
-        int q = 0;
-        for (TermId feature : query) {
-            double q2d = 0;
-            int d = 0;
-            for (HpoDiseaseAnnotation anno : disease.presentAnnotations()) {
-                TermPair pair = TermPair.symmetric(feature, anno.id());
-                double icMica = termPairToIc.getOrDefault(pair, 0.);
-
-                q2d = Double.max(icMica, q2d);
-                diseaseToQuery[d] = Double.max(icMica, diseaseToQuery[d]);
-
-                d++;
+    @Override
+    public DifferentialDiagnosisBaseline baseline(Sample sample, Collection<TermId> targetDiseases) {
+        Sample distinct = DifferentialDiagnosisBaseline.distinctTerms(sample);
+        int[] query = termIndices(distinct.presentHpoTermIds());
+        int[] targets = targetDiseaseIndices(targetDiseases);
+
+        double[] queryToDiseaseSums = new double[targets.length];
+        double[][] diseaseToQuery = new double[targets.length][];
+        CancellationToken cancellation = CancellationToken.current();
+        for (int t = 0; t < targets.length; t++) {
+            checkCancellation(cancellation, t);
+            diseaseToQuery[t] = newDiseaseToQuery(targets[t]);
+            queryToDiseaseSums[t] = accumulate(query, targets[t], diseaseToQuery[t]);
+        }
+
+        List<DifferentialDiagnosis> diagnoses = diagnoses(targets, query.length, queryToDiseaseSums, diseaseToQuery);
+        return new PhenomizerBaseline(this, distinct, targetDiseases, diagnoses,
+                query.length, targets, queryToDiseaseSums, diseaseToQuery);
+    }
+
+    /**
+     * Update the similarities of the baseline with the best matches of the added observed terms.
+     * The excluded terms do not contribute to the Phenomizer similarity.
+     */
+    @Override
+    public List<DifferentialDiagnosis> runIncremental(DifferentialDiagnosisBaseline baseline,
+                                                      Collection<TermId> addedObserved,
+                                                      Collection<TermId> addedExcluded) {
+        if (!(baseline instanceof PhenomizerBaseline pb) || pb.engine() != this)
+            return DifferentialDiagnosisEngine.super.runIncremental(baseline, addedObserved, addedExcluded);
+
+        int[] added = addedTermIndices(pb, addedObserved);
+
+        int[] targets = pb.targets();
+        double[] queryToDiseaseSums = new double[targets.length];
+        double[][] diseaseToQuery = new double[targets.length][];
+        CancellationToken cancellation = CancellationToken.current();
+        for (int t = 0; t < targets.length; t++) {
+            checkCancellation(cancellation, t);
+            diseaseToQuery[t] = pb.diseaseToQuery()[t] == null ? null : pb.diseaseToQuery()[t].clone();
+            queryToDiseaseSums[t] = pb.queryToDiseaseSums()[t] + accumulate(added, targets[t], diseaseToQuery[t]);
+        }
+
+        return diagnoses(targets, pb.nQuery() + added.length, queryToDiseaseSums, diseaseToQuery);
+    }
+
+    /**
+     * Update the similarities of the baseline with each of the added observed terms,
+     * one target disease after the other.
+     */
+    @Override
+    public List<List<DifferentialDiagnosis>> runIncrementalAll(DifferentialDiagnosisBaseline baseline,
+                                                               List<? extends Collection<TermId>> addedObserved,
+                                                               List<? extends Collection<TermId>> addedExcluded) {
+        if (!(baseline instanceof PhenomizerBaseline pb) || pb.engine() != this)
+            return DifferentialDiagnosisEngine.super.runIncrementalAll(baseline, addedObserved, addedExcluded);
+        if (addedObserved.size() != addedExcluded.size())
+            throw new IllegalArgumentException("Got %d observed but %d excluded updates"
+                    .formatted(addedObserved.size(), addedExcluded.size()));
+
+        int[][] added = new int[addedObserved.size()][];
+        for (int u = 0; u < added.length; u++) {
+            added[u] = addedTermIndices(pb, addedObserved.get(u));
+        }
+
+        int[] targets = pb.targets();
+        double[][] queryToDiseaseSums = new double[added.length][targets.length];
+        double[][][] diseaseToQuery = new double[added.length][targets.length][];
+        CancellationToken cancellation = CancellationToken.current();
+        for (int t = 0; t < targets.length; t++) {
+            checkCancellation(cancellation, t);
+            double[] baselineDiseaseToQuery = pb.diseaseToQuery()[t];
+            for (int u = 0; u < added.length; u++) {
+                diseaseToQuery[u][t] = baselineDiseaseToQuery == null ? null : baselineDiseaseToQuery.clone();
+                queryToDiseaseSums[u][t] = pb.queryToDiseaseSums()[t] + accumulate(added[u], targets[t], diseaseToQuery[u][t]);
+            }
+        }
+
+        List<List<DifferentialDiagnosis>> diagnoses = new ArrayList<>(added.length);
+        for (int u = 0; u < added.length; u++) {
+            diagnoses.add(diagnoses(targets, pb.nQuery() + added[u].length, queryToDiseaseSums[u], diseaseToQuery[u]));
+        }
+        return diagnoses;
+    }
+
+    /**
+     * @return indices of the distinct added observed terms that are not present in the baseline sample.
+     */
+    private int[] addedTermIndices(PhenomizerBaseline baseline, Collection<TermId> addedObserved) {
+        Collection<TermId> present = baseline.sample().presentHpoTermIds();
+        return termIndices(addedObserved.stream()
+                .distinct()
+                .filter(termId -> !present.contains(termId))
+                .toList());
+    }
+
+    /**
+     * @throws java.util.concurrent.CancellationException if the {@code cancellation} has stopped,
+     * checked every {@link #CANCELLATION_CHECK_INTERVAL} targets.
+     */
+    private static void checkCancellation(CancellationToken cancellation, int target) {
+        if ((target & (CANCELLATION_CHECK_INTERVAL - 1)) == 0)
+            cancellation.throwIfStopped();
+    }
+
+    /**
+     * @return indices of the terms in the {@code icMicaLookup}. The terms absent from the lookup
+     * have index -1 and IC MICA of 0.
+     */
+    private int[] termIndices(Collection<TermId> termIds) {
+        return termIds.stream()
+                .mapToInt(icMicaLookup::termIndex)
+                .toArray();
+    }
+
+    /**
+     * @return indices of the target diseases in the order of the {@link #diseases}.
+     */
+    private int[] targetDiseaseIndices(Collection<TermId> targetDiseases) {
+        Collection<TermId> targets = targetDiseases == null || targetDiseases instanceof Set<TermId>
+                ? targetDiseases
+                : new HashSet<>(targetDiseases);
+        int[] indices = new int[diseases.length];
+        int n = 0;
+        for (int i = 0; i < diseases.length; i++) {
+            if (targets == null || targets.contains(diseases[i].id()))
+                indices[n++] = i;
+        }
+        return Arrays.copyOf(indices, n);
+    }
+
+    /**
+     * @return an array for the best matches of the disease annotations to the query terms
+     * or {@code null} if not needed by the scoring mode.
+     */
+    private double[] newDiseaseToQuery(int disease) {
+        return switch (scoringMode) {
+            case ONE_SIDED -> null;
+            case TWO_SIDED -> new double[presentAnnotations[disease].length];
+        };
+    }
+
+    /**
+     * Compute the best matches of the {@code query} terms to the {@code disease}.
+     *
+     * @param diseaseToQuery the best matches of the disease annotations to the query terms, updated
+     *                       with the query terms. May be {@code null} if not needed.
+     * @return sum of the best matches of the query terms to the disease annotations.
+     */
+    private double accumulate(int[] query, int disease, double[] diseaseToQuery) {
+        double sum = 0.;
+        if (diseaseToQuery == null) {
+            // The one-sided similarity only needs the best matches of the query terms, and these are cached.
+            // Hence, re-scoring a sample with a few additional terms only computes the best matches of the new terms.
+            for (int q : query) {
+                sum += bestMatchCache.bestMatch(q, disease);
+            }
+        } else {
+            int[] annotations = presentAnnotations[disease];
+            for (int q : query) {
+                double q2d = 0;
+                for (int d = 0; d < annotations.length; d++) {
+                    double icMica = icMicaLookup.icMica(q, annotations[d]);
+
+                    q2d = Double.max(icMica, q2d);
+                    diseaseToQuery[d] = Double.max(icMica, diseaseToQuery[d]);
+                }
+                sum += q2d;
             }
-            queryToDisease[q] = q2d;
-            q++;
         }
+        return sum;
+    }
+
+    private List<DifferentialDiagnosis> diagnoses(int[] targets, int nQuery,
+                                                  double[] queryToDiseaseSums, double[][] diseaseToQuery) {
+        List<DifferentialDiagnosis> diagnoses = new ArrayList<>(targets.length);
+        for (int t = 0; t < targets.length; t++) {
+            int disease = targets[t];
+            double similarity;
+            if (nQuery == 0 || presentAnnotations[disease].length == 0)
+                similarity = 0.;
+            else
+                similarity = switch (scoringMode) {
+                    case ONE_SIDED -> queryToDiseaseSums[t] / nQuery;
+                    case TWO_SIDED -> (queryToDiseaseSums[t] / nQuery + mean(diseaseToQuery[t])) * .5;
+                };
+
+            diagnoses.add(DifferentialDiagnosis.of(
+                    diseases[disease].id(),
+                    similarity,
+                    Double.NaN
+            ));
+        }
+
+        return diagnoses.stream()
+                .sorted(Comparator.comparingDouble(DifferentialDiagnosis::score).reversed())
+                .toList();
+    }
 
-        return (mean(queryToDisease) + mean(diseaseToQuery)) * .5;
+    /**
+     * The state of the analysis of a sample, the sums of the best matches of the query terms
+     * and, for the two-sided scoring, the best matches of the disease annotations, for each target disease.
+     */
+    private record PhenomizerBaseline(
+            PhenomizerDifferentialDiagnosisEngine engine,
+            Sample sample,
+            Collection<TermId> targetDiseases,
+            List<DifferentialDiagnosis> diagnoses,
+            int nQuery,
+            int[] targets,
+            double[] queryToDiseaseSums,
+            double[][] diseaseToQuery
+    ) implements DifferentialDiagnosisBaseline {
     }
 }
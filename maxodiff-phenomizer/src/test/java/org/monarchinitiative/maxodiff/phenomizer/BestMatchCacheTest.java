@@ -0,0 +1,66 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BestMatchCacheTest {
+
+    /**
+     * A toy lookup with 4 terms where the IC MICA of terms `a` and `b` is `min(a, b) + 1`,
+     * except for the pairs with the term 3 that have IC MICA of 0.
+     */
+    private static final IcMicaLookup LOOKUP = new IcMicaLookup() {
+        @Override
+        public int termIndex(TermId termId) {
+            return -1;
+        }
+
+        @Override
+        public int termCount() {
+            return 4;
+        }
+
+        @Override
+        public double icMica(int a, int b) {
+            if (a < 0 || b < 0 || a == 3 || b == 3)
+                return 0.;
+            return Math.min(a, b) + 1;
+        }
+    };
+
+    private static final int[][] PRESENT_ANNOTATIONS = {
+            {0, 1},
+            {2},
+            {},
+    };
+
+    @Test
+    public void bestMatch() {
+        BestMatchCache cache = new BestMatchCache(LOOKUP, LOOKUP.termCount(), PRESENT_ANNOTATIONS, 10);
+
+        assertThat(cache.bestMatch(2, 0), is(equalTo(2.)));
+        assertThat(cache.bestMatch(2, 1), is(equalTo(3.)));
+        assertThat(cache.bestMatch(2, 2), is(equalTo(0.)));
+        assertThat(cache.bestMatch(0, 1), is(equalTo(1.)));
+        assertThat(cache.bestMatch(3, 0), is(equalTo(0.)));
+        assertThat(cache.bestMatch(-1, 0), is(equalTo(0.)));
+
+        // the cached values are the same
+        assertThat(cache.bestMatch(2, 0), is(equalTo(2.)));
+        assertThat(cache.cachedTerms(), is(equalTo(3)));
+    }
+
+    @Test
+    public void onlyCacheUpToMaxTerms() {
+        BestMatchCache cache = new BestMatchCache(LOOKUP, LOOKUP.termCount(), PRESENT_ANNOTATIONS, 1);
+
+        assertThat(cache.bestMatch(2, 1), is(equalTo(3.)));
+        assertThat(cache.bestMatch(1, 1), is(equalTo(2.)));
+        assertThat(cache.bestMatch(0, 0), is(equalTo(1.)));
+
+        assertThat(cache.cachedTerms(), is(equalTo(1)));
+    }
+}
@@ -0,0 +1,67 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class IcMicaLookupTest {
+
+    private static final URL TOY_DICT = Objects.requireNonNull(IcMicaLookupTest.class.getResource("tps.50lines.csv"));
+
+    private static Map<TermPair, Double> ICMICA_DICT;
+
+    @BeforeAll
+    public static void beforeAll() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(TOY_DICT.openStream())) {
+            ICMICA_DICT = IcMicaDictLoader.loadIcMicaDict(reader).icMicaDict();
+        }
+    }
+
+    @Test
+    public void lookupIsSymmetric() {
+        IcMicaLookup lookup = IcMicaLookup.of(ICMICA_DICT);
+        TermId a = TermId.of("HP:0006055");
+        TermId b = TermId.of("HP:0001230");
+
+        assertThat(lookup.icMica(a, b), is(closeTo(1.907927473, 5E-7)));
+        assertThat(lookup.icMica(b, a), is(closeTo(1.907927473, 5E-7)));
+        assertThat(lookup.icMica(lookup.termIndex(a), lookup.termIndex(b)), is(closeTo(1.907927473, 5E-7)));
+    }
+
+    @Test
+    public void unknownTermsHaveZeroIcMica() {
+        IcMicaLookup lookup = IcMicaLookup.of(ICMICA_DICT);
+        TermId unknown = TermId.of("HP:9999999");
+
+        assertThat(lookup.termIndex(unknown), is(equalTo(-1)));
+        assertThat(lookup.icMica(unknown, TermId.of("HP:0001230")), is(equalTo(0.)));
+        assertThat(lookup.icMica(-1, -1), is(equalTo(0.)));
+    }
+
+    @Test
+    public void lookupAgreesWithTheMap() {
+        IcMicaLookup lookup = IcMicaLookup.of(ICMICA_DICT);
+
+        for (Map.Entry<TermPair, Double> e : ICMICA_DICT.entrySet()) {
+            TermPair pair = e.getKey();
+            double expected = ICMICA_DICT.getOrDefault(TermPair.symmetric(pair.getTidA(), pair.getTidB()), 0.);
+            assertThat(lookup.icMica(pair.getTidA(), pair.getTidB()), is(closeTo(expected, 1E-6)));
+        }
+    }
+
+    @Test
+    public void mappedDictIsUsedAsIs() {
+        MappedIcMicaDict dict = MappedIcMicaDict.of(ICMICA_DICT);
+        assertThat(IcMicaLookup.of(dict), is(sameInstance(dict)));
+    }
+}
@@ -0,0 +1,72 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.monarchinitiative.phenol.ontology.similarity.TermPair;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedIcMicaDictLoaderTest {
+
+    private static final URL TOY_DICT = Objects.requireNonNull(MappedIcMicaDictLoaderTest.class.getResource("tps.50lines.csv"));
+
+    @TempDir
+    static Path TMP;
+
+    private static IcMicaData CSV_DATA;
+    private static Path BINARY;
+
+    @BeforeAll
+    public static void beforeAll() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(TOY_DICT.openStream())) {
+            CSV_DATA = IcMicaDictLoader.loadIcMicaDict(reader);
+        }
+        BINARY = TMP.resolve("tps.50lines.bin");
+        IcMicaDictWriter.writeBinary(CSV_DATA.icMicaDict(), CSV_DATA.metadata(), BINARY);
+    }
+
+    @Test
+    public void loadIcMicaDict() throws IOException {
+        IcMicaData data = MappedIcMicaDictLoader.loadIcMicaDict(BINARY);
+
+        Map<TermPair, Double> icMicaDict = data.icMicaDict();
+        assertThat(icMicaDict.size(), is(equalTo(47)));
+        assertThat(icMicaDict.get(TermPair.symmetric(TermId.of("HP:0006055"), TermId.of("HP:0001230"))), is(closeTo(1.907927473, 5E-7)));
+        assertThat(icMicaDict.get(TermPair.symmetric(TermId.of("HP:0006055"), TermId.of("HP:9999999"))), is(nullValue()));
+        assertThat(icMicaDict.getOrDefault(TermPair.symmetric(TermId.of("HP:0000001"), TermId.of("HP:0001230")), 0.), is(equalTo(0.)));
+
+        assertThat(data.metadata(), is(equalTo(new IcMicaDictMetadata("2025-03-03", "2025-03-04", LocalDate.of(2025, 3, 5)))));
+    }
+
+    @Test
+    public void mappedDictHasTheSameEntries() throws IOException {
+        Map<TermPair, Double> expected = CSV_DATA.icMicaDict();
+        Map<TermPair, Double> actual = MappedIcMicaDictLoader.loadIcMicaDict(BINARY).icMicaDict();
+
+        assertThat(actual.keySet(), is(equalTo(expected.keySet())));
+        for (Map.Entry<TermPair, Double> e : expected.entrySet()) {
+            assertThat(actual.get(e.getKey()), is(closeTo(e.getValue(), 1E-6)));
+        }
+    }
+
+    @Test
+    public void rejectInvalidFile() throws IOException {
+        Path invalid = TMP.resolve("invalid.bin");
+        Files.writeString(invalid, "term_a,term_b,ic_mica");
+
+        assertThrows(IOException.class, () -> MappedIcMicaDictLoader.loadIcMicaDict(invalid));
+    }
+}
@@ -0,0 +1,104 @@
+package org.monarchinitiative.maxodiff.phenomizer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.monarchinitiative.maxodiff.core.diffdg.DifferentialDiagnosisBaseline;
+import org.monarchinitiative.maxodiff.core.model.DifferentialDiagnosis;
+import org.monarchinitiative.maxodiff.core.model.Sample;
+import org.monarchinitiative.phenol.annotations.base.Ratio;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotationRecord;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhenomizerDifferentialDiagnosisEngineTest {
+
+    private static final URL TOY_DICT = Objects.requireNonNull(PhenomizerDifferentialDiagnosisEngineTest.class.getResource("tps.50lines.csv"));
+
+    private static final TermId DISEASE_A = TermId.of("OMIM:100000");
+    private static final TermId DISEASE_B = TermId.of("OMIM:200000");
+    private static final TermId DISEASE_C = TermId.of("OMIM:300000");
+
+    private static IcMicaLookup LOOKUP;
+    private static HpoDiseases DISEASES;
+
+    @BeforeAll
+    public static void beforeAll() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(TOY_DICT.openStream())) {
+            LOOKUP = IcMicaLookup.of(IcMicaDictLoader.loadIcMicaDict(reader).icMicaDict());
+        }
+        DISEASES = HpoDiseases.of(List.of(
+                disease(DISEASE_A, "HP:0001230", "HP:0001234", "HP:0000260"),
+                disease(DISEASE_B, "HP:0001181", "HP:0000772", "HP:0001384"),
+                disease(DISEASE_C, "HP:0000347", "HP:0001435")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ScoringMode.class)
+    public void runAllMatchesRunOnEachSample(ScoringMode scoringMode) {
+        PhenomizerDifferentialDiagnosisEngine engine = new PhenomizerDifferentialDiagnosisEngine(DISEASES, LOOKUP, scoringMode);
+        List<Sample> samples = List.of(
+                sample("HP:0006055", "HP:0006152"),
+                sample("HP:0006060"),
+                sample(),
+                sample("HP:0006144", "HP:0006035", "HP:0006040"));
+        List<TermId> targets = List.of(DISEASE_C, DISEASE_A);
+
+        List<List<DifferentialDiagnosis>> all = engine.runAll(samples, null);
+        List<List<DifferentialDiagnosis>> targeted = engine.runAll(samples, targets);
+
+        assertEquals(samples.size(), all.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals(engine.run(samples.get(i)), all.get(i));
+            assertEquals(engine.run(samples.get(i), targets), targeted.get(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ScoringMode.class)
+    public void runIncrementalAllMatchesRunIncremental(ScoringMode scoringMode) {
+        PhenomizerDifferentialDiagnosisEngine engine = new PhenomizerDifferentialDiagnosisEngine(DISEASES, LOOKUP, scoringMode);
+        DifferentialDiagnosisBaseline baseline = engine.baseline(sample("HP:0006055"), null);
+        List<List<TermId>> addedObserved = List.of(
+                terms("HP:0006152"),
+                terms("HP:0006055", "HP:0006060", "HP:0006060"),
+                terms());
+        List<List<TermId>> addedExcluded = List.of(terms(), terms("HP:0006144"), terms("HP:0006040"));
+
+        List<List<DifferentialDiagnosis>> all = engine.runIncrementalAll(baseline, addedObserved, addedExcluded);
+
+        assertEquals(addedObserved.size(), all.size());
+        for (int i = 0; i < addedObserved.size(); i++) {
+            assertEquals(engine.runIncremental(baseline, addedObserved.get(i), addedExcluded.get(i)), all.get(i));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.runIncrementalAll(baseline, addedObserved, addedExcluded.subList(0, 1)));
+    }
+
+    private static HpoDisease disease(TermId diseaseId, String... hpoIds) {
+        List<HpoDiseaseAnnotation> annotations = Arrays.stream(hpoIds)
+                .map(hpoId -> HpoDiseaseAnnotation.of(TermId.of(hpoId),
+                        List.of(HpoDiseaseAnnotationRecord.of(Ratio.of(1, 1), null, List.of(), null, List.of()))))
+                .toList();
+        return HpoDisease.of(diseaseId, diseaseId.getValue(), null, annotations, List.of());
+    }
+
+    private static Sample sample(String... hpoIds) {
+        return Sample.of("sample", terms(hpoIds), List.of());
+    }
+
+    private static List<TermId> terms(String... hpoIds) {
+        return Arrays.stream(hpoIds).map(TermId::of).toList();
+    }
+}